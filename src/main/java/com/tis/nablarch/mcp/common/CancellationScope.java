@@ -0,0 +1,166 @@
+package com.tis.nablarch.mcp.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 処理単位のキャンセル伝播スコープ。
+ *
+ * <p>タイムアウト等で打ち切られた処理が、実行中のJDBCクエリやONNX推論を
+ * 即座に中断できるようにするための仕組み。スコープを実行スレッドに
+ * {@link #bind() バインド}しておくと、その配下の処理は {@link #onCancel(Runnable)} で
+ * 中断処理（{@code Statement.cancel()}、ONNX RunOptionsのterminate等）を登録できる。
+ * 別スレッドから {@link #cancel()} が呼ばれると、登録済みの中断処理が実行される。</p>
+ *
+ * <p>スコープ生成時に呼び出しスレッドへ別のスコープがバインドされている場合は、
+ * その子スコープとなり、親のキャンセルが子へ伝播する。</p>
+ *
+ * <p>Thread.interrupt()ではブロッキング中のソケット読み込みやネイティブ推論を
+ * 止められないため、本クラスで明示的に中断処理を呼び出す。</p>
+ */
+public final class CancellationScope {
+
+    private static final Logger log = LoggerFactory.getLogger(CancellationScope.class);
+
+    private static final ThreadLocal<CancellationScope> CURRENT = new ThreadLocal<>();
+
+    private static final Handle NOOP = () -> { };
+
+    private final List<Runnable> hooks = new ArrayList<>();
+    private boolean cancelled;
+
+    private CancellationScope() {
+    }
+
+    /**
+     * 新しいスコープを生成する。
+     *
+     * <p>呼び出しスレッドにスコープがバインドされている場合は、その子スコープとなる。</p>
+     *
+     * @return 生成したスコープ
+     */
+    public static CancellationScope create() {
+        CancellationScope scope = new CancellationScope();
+        CancellationScope parent = CURRENT.get();
+        if (parent != null) {
+            parent.register(scope::cancel);
+        }
+        return scope;
+    }
+
+    /**
+     * 呼び出しスレッドにバインドされたスコープへ中断処理を登録する。
+     *
+     * <p>スコープがバインドされていない場合は何もしない。
+     * 既にキャンセル済みの場合は中断処理を即座に実行する。</p>
+     *
+     * @param hook 中断処理（短時間で完了し、例外を送出しないこと）
+     * @return 登録解除ハンドル
+     */
+    public static Handle onCancel(Runnable hook) {
+        CancellationScope scope = CURRENT.get();
+        return (scope != null) ? scope.register(hook) : NOOP;
+    }
+
+    /**
+     * 呼び出しスレッドにバインドされたスコープがキャンセル済みかを返す。
+     *
+     * @return キャンセル済みの場合true（スコープ未バインド時はfalse）
+     */
+    public static boolean isCurrentCancelled() {
+        CancellationScope scope = CURRENT.get();
+        return scope != null && scope.isCancelled();
+    }
+
+    /**
+     * 本スコープを呼び出しスレッドにバインドする。
+     *
+     * <p>返却されたハンドルをクローズすると、バインド前の状態に戻る。</p>
+     *
+     * @return バインド解除ハンドル
+     */
+    public Handle bind() {
+        CancellationScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 中断処理を登録する。
+     *
+     * <p>返却されたハンドルのクローズ後は、中断処理が実行されないことを保証する
+     * （ネイティブリソース解放前に登録解除すること）。</p>
+     *
+     * @param hook 中断処理
+     * @return 登録解除ハンドル
+     */
+    public Handle register(Runnable hook) {
+        synchronized (hooks) {
+            if (!cancelled) {
+                hooks.add(hook);
+                return () -> {
+                    synchronized (hooks) {
+                        hooks.remove(hook);
+                    }
+                };
+            }
+        }
+        runQuietly(hook);
+        return NOOP;
+    }
+
+    /**
+     * スコープをキャンセルし、登録済みの中断処理を実行する。
+     * 2回目以降の呼び出しは何もしない。
+     */
+    public void cancel() {
+        synchronized (hooks) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            for (Runnable hook : hooks) {
+                runQuietly(hook);
+            }
+            hooks.clear();
+        }
+    }
+
+    /**
+     * キャンセル済みかを返す。
+     *
+     * @return キャンセル済みの場合true
+     */
+    public boolean isCancelled() {
+        synchronized (hooks) {
+            return cancelled;
+        }
+    }
+
+    private static void runQuietly(Runnable hook) {
+        try {
+            hook.run();
+        } catch (RuntimeException e) {
+            log.debug("中断処理の実行中にエラー: {}", e.toString());
+        }
+    }
+
+    /**
+     * 登録・バインドの解除ハンドル。
+     */
+    @FunctionalInterface
+    public interface Handle extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.tis.nablarch.mcp.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * テキスト本文のハッシュ値を計算するユーティリティ。
+ *
+ * <p>長いテキスト本文の代わりにキャッシュのキーとして使用する。</p>
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * テキストのSHA-256ハッシュを計算する。
+     *
+     * @param text テキスト（UTF-8でエンコードする）
+     * @return 16進小文字64桁のハッシュ値
+     */
+    public static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256が利用できません", e);
+        }
+    }
+}
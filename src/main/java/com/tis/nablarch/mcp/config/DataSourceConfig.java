@@ -0,0 +1,36 @@
+package com.tis.nablarch.mcp.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource設定クラス。
+ *
+ * <p>アプリケーションのDataSource（HikariCPの接続プール）を
+ * {@link VectorTypeRegisteringDataSource} で包み、JdbcTemplate・JPA・Flyway等の
+ * すべての接続でpgvectorのvector型をバイナリ形式で送受信する。</p>
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * DataSource Beanを {@link VectorTypeRegisteringDataSource} で包むポストプロセッサを生成する。
+     *
+     * @return ポストプロセッサ
+     */
+    @Bean
+    public static BeanPostProcessor vectorTypeDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof VectorTypeRegisteringDataSource)) {
+                    return new VectorTypeRegisteringDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
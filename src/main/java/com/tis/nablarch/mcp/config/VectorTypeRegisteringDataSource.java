@@ -0,0 +1,70 @@
+package com.tis.nablarch.mcp.config;
+
+import com.pgvector.PGvector;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 取得した接続にpgvectorのvector型を登録するDataSource。
+ *
+ * <p>PgJDBCは{@link PGvector}（{@code PGBinaryObject}）を、接続にvector型のOIDが
+ * バイナリ送信対象として登録されている場合のみバイナリ形式で送信する。
+ * 登録がない場合は {@code getValue()} の文字列表現を送信してサーバー側で解析するため、
+ * 物理接続ごとに初回の取得時に {@link PGConnection#addDataType(String, Class)} で登録する
+ * （登録はバイナリ受信も有効にし、{@code ResultSet#getObject} はvector列を {@link PGvector} で返す）。</p>
+ *
+ * <p>PostgreSQL以外の接続（テスト用のH2等）では何もしない。</p>
+ */
+public class VectorTypeRegisteringDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorTypeRegisteringDataSource.class);
+
+    /** 登録済みの物理接続（接続プールが破棄した接続は参照されなくなった時点で除かれる）。 */
+    private final Set<PGConnection> registered = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * コンストラクタ。
+     *
+     * @param targetDataSource 接続を取得するDataSource（接続プール）
+     */
+    public VectorTypeRegisteringDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return registerVectorType(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return registerVectorType(super.getConnection(username, password));
+    }
+
+    private Connection registerVectorType(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            return connection;
+        }
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        if (registered.add(pgConnection)) {
+            try {
+                pgConnection.addDataType("vector", PGvector.class);
+                log.debug("接続にvector型を登録: {}", pgConnection);
+            } catch (SQLException e) {
+                // 登録できない場合も文字列形式で送受信できるため、接続はそのまま使用する
+                log.warn("接続にvector型を登録できない。文字列形式で送受信する: {}", e.getMessage());
+            }
+        }
+        return connection;
+    }
+}
@@ -14,10 +14,11 @@ import java.util.List;
  * コードチャンクリポジトリ。
  *
  * <p>基本的なCRUD操作はSpring Data JPAの標準メソッドを使用し、
- * ベクトル類似度検索はpgvectorのネイティブクエリで実行する。</p>
+ * ベクトル類似度検索はpgvectorのネイティブクエリで実行する。
+ * エンベディングの格納は{@link CodeChunkRepositoryCustom#updateEmbedding(Long, float[])}を使用する。</p>
  */
 @Repository
-public interface CodeChunkRepository extends JpaRepository<CodeChunk, Long> {
+public interface CodeChunkRepository extends JpaRepository<CodeChunk, Long>, CodeChunkRepositoryCustom {
 
     /**
      * リポジトリ名でコードチャンクを検索する。
@@ -54,6 +55,9 @@ public interface CodeChunkRepository extends JpaRepository<CodeChunk, Long> {
     /**
      * エンベディングベクトルを更新する。
      *
+     * <p>ベクトル文字列のフォーマットとサーバー側のパースが発生するため、
+     * {@link #updateEmbedding(Long, float[])}の使用を推奨する。</p>
+     *
      * @param id チャンクID
      * @param embedding ベクトル文字列（例: "[0.1, 0.2, ...]"）
      */
@@ -0,0 +1,22 @@
+package com.tis.nablarch.mcp.db.repository;
+
+/**
+ * コードチャンクリポジトリのカスタム操作。
+ *
+ * <p>JPAでは扱えないpgvectorのvector型パラメータをJDBCで直接バインドする。</p>
+ *
+ * @see CodeChunkRepositoryCustomImpl
+ */
+public interface CodeChunkRepositoryCustom {
+
+    /**
+     * エンベディングベクトルを更新する。
+     *
+     * <p>ベクトルは{@code PGvector}としてバインドし、文字列への変換とサーバー側のCASTを行わない
+     * （バイナリ形式での送信には {@code VectorTypeRegisteringDataSource} による接続へのvector型の登録が必要）。</p>
+     *
+     * @param id チャンクID
+     * @param embedding エンベディングベクトル
+     */
+    void updateEmbedding(Long id, float[] embedding);
+}
@@ -0,0 +1,30 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.pgvector.PGvector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link CodeChunkRepositoryCustom} の実装。
+ *
+ * <p>Spring Data JPAのリポジトリフラグメントとして{@link CodeChunkRepository}に合成される。</p>
+ */
+public class CodeChunkRepositoryCustomImpl implements CodeChunkRepositoryCustom {
+
+    private static final String UPDATE_EMBEDDING_SQL = "UPDATE code_chunks SET embedding = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring JdbcTemplate
+     */
+    public CodeChunkRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void updateEmbedding(Long id, float[] embedding) {
+        jdbcTemplate.update(UPDATE_EMBEDDING_SQL, new PGvector(embedding), id);
+    }
+}
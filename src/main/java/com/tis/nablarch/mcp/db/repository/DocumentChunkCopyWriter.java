@@ -0,0 +1,155 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * document_chunksテーブルへの一括書き込み。
+ *
+ * <p>チャンクとEmbeddingを {@code COPY ... FROM STDIN (FORMAT binary)} で一時テーブルに流し込み、
+ * 1つのINSERT ... SELECTでdocument_chunksにマージする。
+ * JPAの {@code save} と {@code updateEmbedding} で1行ごとに2往復していた書き込みを、
+ * バッチごとに数回の往復にまとめる（BIGSERIALのIDはINSERT時に採番される）。
+ * ベクトルはバイナリ形式で送るため、文字列への変換とサーバー側のパースも発生しない。</p>
+ *
+ * <p>マージ時は、同じ (source, url) の既存チャンクを削除してから挿入する。
+ * 同じページを再取り込みした場合にチャンクが重複せず、置き換えとなる。
+ * このため、1ページ分のチャンクは1回の {@link #write} にまとめて渡すこと。</p>
+ *
+ * <p>マージと同じトランザクションでコーパス世代（corpus_generation）を加算し、
+ * 格納前の世代でキャッシュされた検索結果を無効にする（{@link SearchResultCacheRepository}）。</p>
+ *
+ * <p>一時テーブル作成からマージまでを1トランザクションで実行する。
+ * 呼び出し時にトランザクションが開始されていない場合は自身でコミットする。</p>
+ */
+@Repository
+public class DocumentChunkCopyWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentChunkCopyWriter.class);
+
+    private static final String COLUMNS =
+            "content, embedding, source, source_type, module, app_type, language, fqcn, url, file_path,"
+            + " nablarch_version";
+
+    private static final int FIELD_COUNT = 11;
+
+    private static final String PREPARE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS document_chunks_staging ("
+            + "content TEXT, embedding vector, source VARCHAR(50), source_type VARCHAR(20),"
+            + " module VARCHAR(100), app_type VARCHAR(20), language VARCHAR(5), fqcn VARCHAR(300),"
+            + " url TEXT, file_path TEXT, nablarch_version VARCHAR(10)"
+            + ") ON COMMIT DELETE ROWS;"
+            + " TRUNCATE document_chunks_staging";
+
+    private static final String COPY_SQL =
+            "COPY document_chunks_staging (" + COLUMNS + ") FROM STDIN (FORMAT binary)";
+
+    private static final String DELETE_REPLACED_SQL =
+            "DELETE FROM document_chunks d"
+            + " USING (SELECT DISTINCT source, url FROM document_chunks_staging WHERE url IS NOT NULL) s"
+            + " WHERE d.source = s.source AND d.url = s.url";
+
+    private static final String MERGE_SQL =
+            "INSERT INTO document_chunks (" + COLUMNS + ")"
+            + " SELECT " + COLUMNS + " FROM document_chunks_staging";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring JdbcTemplate
+     */
+    public DocumentChunkCopyWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * チャンクとEmbeddingを一括で書き込む。
+     *
+     * @param chunks チャンク（IDは使用しない）
+     * @param embeddings Embeddingベクトル（chunksと同じ順序）
+     * @return 挿入した行数
+     */
+    public int write(List<DocumentChunk> chunks, List<float[]> embeddings) {
+        if (chunks.size() != embeddings.size()) {
+            throw new IllegalArgumentException(
+                    "チャンク数とEmbedding数が一致しません: chunks=" + chunks.size() + ", embeddings=" + embeddings.size());
+        }
+        if (chunks.isEmpty()) {
+            return 0;
+        }
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            try (Statement statement = con.createStatement()) {
+                statement.execute(PREPARE_STAGING_SQL);
+                copy(con, chunks, embeddings);
+                int deleted = statement.executeUpdate(DELETE_REPLACED_SQL);
+                int count = statement.executeUpdate(MERGE_SQL);
+                statement.executeUpdate(SearchResultCacheRepository.BUMP_GENERATION_SQL);
+                if (autoCommit) {
+                    con.commit();
+                }
+                log.debug("チャンクを一括書き込み: inserted={}, replaced={}", count, deleted);
+                return count;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+        return (inserted != null) ? inserted : 0;
+    }
+
+    private static void copy(Connection con, List<DocumentChunk> chunks, List<float[]> embeddings)
+            throws SQLException {
+        PGCopyOutputStream stream = new PGCopyOutputStream(con.unwrap(PGConnection.class), COPY_SQL);
+        try {
+            PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(stream);
+            encoder.header();
+            for (int i = 0; i < chunks.size(); i++) {
+                DocumentChunk chunk = chunks.get(i);
+                encoder.row(FIELD_COUNT);
+                encoder.text(chunk.getContent());
+                encoder.vector(embeddings.get(i));
+                encoder.text(chunk.getSource());
+                encoder.text(chunk.getSourceType());
+                encoder.text(chunk.getModule());
+                encoder.text(chunk.getAppType());
+                encoder.text(chunk.getLanguage());
+                encoder.text(chunk.getFqcn());
+                encoder.text(chunk.getUrl());
+                encoder.text(chunk.getFilePath());
+                encoder.text(chunk.getNablarchVersion());
+            }
+            encoder.finish();
+            stream.close();
+        } catch (IOException e) {
+            stream.cancelCopy();
+            throw new SQLException("COPYによる書き込みに失敗: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            stream.cancelCopy();
+            throw e;
+        }
+    }
+}
@@ -14,10 +14,11 @@ import java.util.List;
  * ドキュメントチャンクリポジトリ。
  *
  * <p>基本的なCRUD操作はSpring Data JPAの標準メソッドを使用し、
- * ベクトル類似度検索はpgvectorのネイティブクエリで実行する。</p>
+ * ベクトル類似度検索はpgvectorのネイティブクエリで実行する。
+ * エンベディングの格納は{@link DocumentChunkRepositoryCustom#updateEmbedding(Long, float[])}を使用する。</p>
  */
 @Repository
-public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long> {
+public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long>, DocumentChunkRepositoryCustom {
 
     /**
      * ソース種別でドキュメントチャンクを検索する。
@@ -56,6 +57,9 @@ public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Lo
      *
      * <p>pgvectorのvector型にキャストするためネイティブクエリを使用する。</p>
      *
+     * <p>ベクトル文字列のフォーマットとサーバー側のパースが発生するため、
+     * {@link #updateEmbedding(Long, float[])}の使用を推奨する。</p>
+     *
      * @param id チャンクID
      * @param embedding ベクトル文字列（例: "[0.1, 0.2, ...]"）
      */
@@ -0,0 +1,42 @@
+package com.tis.nablarch.mcp.db.repository;
+
+/**
+ * ドキュメントチャンクリポジトリのカスタム操作。
+ *
+ * <p>JPAでは扱えないpgvectorのvector型パラメータをJDBCで直接バインドする。</p>
+ *
+ * @see DocumentChunkRepositoryCustomImpl
+ */
+public interface DocumentChunkRepositoryCustom {
+
+    /**
+     * エンベディングベクトルを更新する。
+     *
+     * <p>ベクトルは{@code PGvector}としてバインドし、文字列への変換とサーバー側のCASTを行わない
+     * （バイナリ形式での送信には {@code VectorTypeRegisteringDataSource} による接続へのvector型の登録が必要）。</p>
+     *
+     * @param id チャンクID
+     * @param embedding エンベディングベクトル
+     */
+    void updateEmbedding(Long id, float[] embedding);
+
+    /**
+     * 指定したページ（ソースとURL）のチャンクを削除する。
+     *
+     * <p>ページを再取り込みする際に、既存のチャンクを置き換えるために使用する
+     * （{@link DocumentChunkCopyWriter} のマージと同じ置き換え単位）。</p>
+     *
+     * @param source ソース種別
+     * @param url 取得元URL
+     * @return 削除した行数
+     */
+    int deleteBySourceAndUrl(String source, String url);
+
+    /**
+     * コーパス世代を加算する。
+     *
+     * <p>1行ずつ保存した後に呼び出し、検索結果キャッシュとBM25インデックスに
+     * チャンクの変更を通知する（{@link DocumentChunkCopyWriter} はMERGEと同じトランザクションで加算する）。</p>
+     */
+    void bumpCorpusGeneration();
+}
@@ -0,0 +1,42 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.pgvector.PGvector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link DocumentChunkRepositoryCustom} の実装。
+ *
+ * <p>Spring Data JPAのリポジトリフラグメントとして{@link DocumentChunkRepository}に合成される。</p>
+ */
+public class DocumentChunkRepositoryCustomImpl implements DocumentChunkRepositoryCustom {
+
+    private static final String UPDATE_EMBEDDING_SQL = "UPDATE document_chunks SET embedding = ? WHERE id = ?";
+
+    private static final String DELETE_BY_PAGE_SQL = "DELETE FROM document_chunks WHERE source = ? AND url = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring JdbcTemplate
+     */
+    public DocumentChunkRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void updateEmbedding(Long id, float[] embedding) {
+        jdbcTemplate.update(UPDATE_EMBEDDING_SQL, new PGvector(embedding), id);
+    }
+
+    @Override
+    public int deleteBySourceAndUrl(String source, String url) {
+        return jdbcTemplate.update(DELETE_BY_PAGE_SQL, source, url);
+    }
+
+    @Override
+    public void bumpCorpusGeneration() {
+        jdbcTemplate.update(SearchResultCacheRepository.BUMP_GENERATION_SQL);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.pgvector.PGvector;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * embedding_cacheテーブルのリポジトリ。
+ *
+ * <p>(モデル名, チャンク本文のSHA-256) をキーにEmbeddingベクトルを保持する。
+ * 取り込み時に本文が変わっていないチャンクのベクトルを再利用するために使用する。
+ * ベクトルは {@link PGvector} として読み書きし、文字列表現を経由しない（{@link VectorColumns}）。</p>
+ */
+@Repository
+public class EmbeddingCacheRepository {
+
+    private static final String FIND_SQL =
+            "SELECT content_hash, embedding FROM embedding_cache"
+            + " WHERE model = :model AND content_hash IN (:hashes)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO embedding_cache (model, content_hash, embedding)"
+            + " VALUES (:model, :hash, :embedding)"
+            + " ON CONFLICT (model, content_hash) DO NOTHING";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     */
+    public EmbeddingCacheRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 保存済みのベクトルを取得する。
+     *
+     * @param model モデル名
+     * @param hashes チャンク本文のハッシュ値
+     * @return ハッシュ値→ベクトル（保存されていないハッシュ値は含まない）
+     */
+    public Map<String, float[]> findByHashes(String model, Collection<String> hashes) {
+        Map<String, float[]> found = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return found;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("model", model)
+                .addValue("hashes", hashes);
+        jdbcTemplate.query(FIND_SQL, params, (rs, rowNum) ->
+                found.put(rs.getString("content_hash"), VectorColumns.read(rs, "embedding")));
+        return found;
+    }
+
+    /**
+     * ベクトルを保存する。同じキーが既に保存されている場合は何もしない。
+     *
+     * @param model モデル名
+     * @param embeddings ハッシュ値→ベクトル
+     */
+    public void saveAll(String model, Map<String, float[]> embeddings) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = embeddings.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("model", model)
+                        .addValue("hash", e.getKey())
+                        .addValue("embedding", new PGvector(e.getValue())))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+}
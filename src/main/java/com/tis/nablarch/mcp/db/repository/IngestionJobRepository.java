@@ -0,0 +1,265 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * ingestion_jobs / ingestion_job_urlsテーブルのリポジトリ。
+ *
+ * <p>取り込みジョブと、ジョブ内のURLごとの処理状態（チェックポイント）を保持する。
+ * 同じデータソース・モードの最新ジョブが完了しておらず、最終更新から一定時間内の場合、次回の取り込みはそのジョブを再開する。</p>
+ */
+@Repository
+public class IngestionJobRepository {
+
+    /** ジョブ状態: 実行中（プロセスが停止した場合もこの状態のまま残る） */
+    public static final String STATUS_RUNNING = "RUNNING";
+
+    /** ジョブ状態: 完了 */
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    /** ジョブ状態: 例外で終了 */
+    public static final String STATUS_FAILED = "FAILED";
+
+    /** ジョブ状態: 失敗したページを残して終了（次回の取り込みで失敗したページを再処理する） */
+    public static final String STATUS_PARTIAL = "PARTIAL";
+
+    /** URL状態: 格納済み（チャンクなし・未変更を含む） */
+    public static final String URL_DONE = "DONE";
+
+    /** URL状態: 失敗（再開時に再処理する） */
+    public static final String URL_FAILED = "FAILED";
+
+    private static final String FIND_LATEST_SQL =
+            "SELECT id, status, EXTRACT(EPOCH FROM (NOW() - updated_at)) AS age_seconds"
+            + " FROM ingestion_jobs WHERE source = :source AND mode = :mode"
+            + " ORDER BY id DESC LIMIT 1";
+
+    private static final String INSERT_JOB_SQL =
+            "INSERT INTO ingestion_jobs (source, mode, status, total_urls)"
+            + " VALUES (:source, :mode, '" + STATUS_RUNNING + "', :total) RETURNING id";
+
+    private static final String RESUME_JOB_SQL =
+            "UPDATE ingestion_jobs SET status = '" + STATUS_RUNNING + "', total_urls = :total,"
+            + " updated_at = NOW(), finished_at = NULL WHERE id = :id";
+
+    private static final String FIND_DONE_URLS_SQL =
+            "SELECT url FROM ingestion_job_urls WHERE job_id = :id AND status = '" + URL_DONE + "'";
+
+    private static final String UPSERT_URL_SQL =
+            "INSERT INTO ingestion_job_urls (job_id, url, status, chunk_count, batch_no, error)"
+            + " VALUES (:id, :url, :status, :chunks, :batch, :error)"
+            + " ON CONFLICT (job_id, url) DO UPDATE SET status = EXCLUDED.status,"
+            + " chunk_count = EXCLUDED.chunk_count, batch_no = EXCLUDED.batch_no,"
+            + " error = EXCLUDED.error, updated_at = NOW()";
+
+    private static final String TOUCH_JOB_SQL =
+            "UPDATE ingestion_jobs SET updated_at = NOW() WHERE id = :id";
+
+    private static final String FINISH_JOB_SQL =
+            "UPDATE ingestion_jobs SET status = :status, updated_at = NOW(), finished_at = NOW() WHERE id = :id";
+
+    private static final String FIND_RECENT_SQL =
+            "SELECT j.id, j.source, j.mode, j.status, j.total_urls, j.started_at, j.updated_at, j.finished_at,"
+            + " COUNT(u.url) FILTER (WHERE u.status = '" + URL_DONE + "') AS done_urls,"
+            + " COUNT(u.url) FILTER (WHERE u.status = '" + URL_FAILED + "') AS failed_urls,"
+            + " COALESCE(SUM(u.chunk_count), 0) AS chunks"
+            + " FROM ingestion_jobs j LEFT JOIN ingestion_job_urls u ON u.job_id = j.id"
+            + " GROUP BY j.id ORDER BY j.id DESC LIMIT :limit";
+
+    /**
+     * URLの処理状態。
+     *
+     * @param url URL
+     * @param status 状態（{@link #URL_DONE} / {@link #URL_FAILED}）
+     * @param chunkCount 格納したチャンク数
+     * @param batchNo 格納したバッチの番号（格納していない場合はnull）
+     * @param error エラーメッセージ（失敗していない場合はnull）
+     */
+    public record UrlCheckpoint(String url, String status, int chunkCount, Integer batchNo, String error) {
+    }
+
+    /**
+     * 再開できるジョブ。
+     *
+     * @param id ジョブID
+     * @param status ジョブ状態（{@link #STATUS_RUNNING} / {@link #STATUS_FAILED} / {@link #STATUS_PARTIAL}）
+     */
+    public record ResumableJob(long id, String status) {
+    }
+
+    /**
+     * ジョブの集計。
+     *
+     * @param id ジョブID
+     * @param source データソース名
+     * @param mode 取り込みモード（full / incremental）
+     * @param status ジョブ状態
+     * @param totalUrls 対象URL数
+     * @param doneUrls 格納済みURL数
+     * @param failedUrls 失敗URL数
+     * @param chunks 格納したチャンク数
+     * @param startedAt 開始日時
+     * @param updatedAt 最終更新日時
+     * @param finishedAt 終了日時（終了していない場合はnull）
+     */
+    public record JobSummary(long id, String source, String mode, String status, int totalUrls,
+            long doneUrls, long failedUrls, long chunks, Instant startedAt, Instant updatedAt, Instant finishedAt) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     */
+    public IngestionJobRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 再開できるジョブを検索する。
+     *
+     * <p>最終更新からの経過時間はDBの時刻で判定する。</p>
+     *
+     * @param source データソース名
+     * @param mode 取り込みモード
+     * @param maxAge 再開できる最終更新からの経過時間（nullまたは0以下の場合は制限しない）
+     * @return 最新ジョブが完了しておらず、最終更新から{@code maxAge}以内の場合はそのジョブ
+     */
+    public Optional<ResumableJob> findResumable(String source, String mode, Duration maxAge) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("source", source)
+                .addValue("mode", mode);
+        boolean limited = maxAge != null && !maxAge.isZero() && !maxAge.isNegative();
+        return jdbcTemplate.query(FIND_LATEST_SQL, params, (rs, rowNum) -> {
+                    String status = rs.getString("status");
+                    if (STATUS_COMPLETED.equals(status)) {
+                        return null;
+                    }
+                    if (limited && rs.getDouble("age_seconds") > maxAge.toSeconds()) {
+                        return null;
+                    }
+                    return new ResumableJob(rs.getLong("id"), status);
+                })
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    /**
+     * ジョブを作成する。
+     *
+     * @param source データソース名
+     * @param mode 取り込みモード
+     * @param totalUrls 対象URL数
+     * @return ジョブID
+     */
+    public long create(String source, String mode, int totalUrls) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("source", source)
+                .addValue("mode", mode)
+                .addValue("total", totalUrls);
+        Long id = jdbcTemplate.queryForObject(INSERT_JOB_SQL, params, Long.class);
+        if (id == null) {
+            throw new IllegalStateException("取り込みジョブの作成に失敗: source=" + source);
+        }
+        return id;
+    }
+
+    /**
+     * 中断したジョブを実行中に戻す。
+     *
+     * @param jobId ジョブID
+     * @param totalUrls 対象URL数（再開時に再取得したURL一覧の件数）
+     */
+    public void resume(long jobId, int totalUrls) {
+        jdbcTemplate.update(RESUME_JOB_SQL, new MapSqlParameterSource()
+                .addValue("id", jobId)
+                .addValue("total", totalUrls));
+    }
+
+    /**
+     * 格納済みのURLを返す。
+     *
+     * @param jobId ジョブID
+     * @return 格納済みURLの集合
+     */
+    public Set<String> findDoneUrls(long jobId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                FIND_DONE_URLS_SQL, new MapSqlParameterSource("id", jobId), String.class));
+    }
+
+    /**
+     * URLの処理状態を保存する。同じURLが記録済みの場合は上書きする。
+     *
+     * @param jobId ジョブID
+     * @param checkpoints URLの処理状態
+     */
+    public void saveCheckpoints(long jobId, List<UrlCheckpoint> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = checkpoints.stream()
+                .map(c -> new MapSqlParameterSource()
+                        .addValue("id", jobId)
+                        .addValue("url", c.url())
+                        .addValue("status", c.status())
+                        .addValue("chunks", c.chunkCount())
+                        .addValue("batch", c.batchNo())
+                        .addValue("error", c.error()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_URL_SQL, batch);
+        jdbcTemplate.update(TOUCH_JOB_SQL, new MapSqlParameterSource("id", jobId));
+    }
+
+    /**
+     * ジョブを終了状態にする。
+     *
+     * @param jobId ジョブID
+     * @param status 終了状態（{@link #STATUS_COMPLETED} / {@link #STATUS_PARTIAL} / {@link #STATUS_FAILED}）
+     */
+    public void finish(long jobId, String status) {
+        jdbcTemplate.update(FINISH_JOB_SQL, new MapSqlParameterSource()
+                .addValue("id", jobId)
+                .addValue("status", status));
+    }
+
+    /**
+     * 最近のジョブの集計を返す。
+     *
+     * @param limit 最大件数
+     * @return ジョブの集計（新しい順）
+     */
+    public List<JobSummary> findRecent(int limit) {
+        return jdbcTemplate.query(FIND_RECENT_SQL, new MapSqlParameterSource("limit", limit), (rs, rowNum) ->
+                new JobSummary(
+                        rs.getLong("id"),
+                        rs.getString("source"),
+                        rs.getString("mode"),
+                        rs.getString("status"),
+                        rs.getInt("total_urls"),
+                        rs.getLong("done_urls"),
+                        rs.getLong("failed_urls"),
+                        rs.getLong("chunks"),
+                        toInstant(rs.getTimestamp("started_at")),
+                        toInstant(rs.getTimestamp("updated_at")),
+                        toInstant(rs.getTimestamp("finished_at"))));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return (timestamp != null) ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PostgreSQLの {@code COPY ... FROM STDIN (FORMAT binary)} 形式のエンコーダー。
+ *
+ * <p>ヘッダー・行（フィールド数＋各フィールドの長さと値）・トレーラーを順に書き込む。
+ * 数値はすべてネットワークバイトオーダー（ビッグエンディアン）で書き込む。</p>
+ *
+ * <p>対応する型:</p>
+ * <ul>
+ *   <li>text / varchar - UTF-8のバイト列</li>
+ *   <li>vector（pgvector） - 次元数(int16)、予約(int16)、各要素(float4)</li>
+ * </ul>
+ */
+final class PgBinaryCopyEncoder {
+
+    /** 署名 "PGCOPY\n\377\r\n\0" */
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private final DataOutputStream out;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out 出力先（COPYのデータストリーム）
+     */
+    PgBinaryCopyEncoder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 65536));
+    }
+
+    /**
+     * ファイルヘッダーを書き込む。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void header() throws IOException {
+        out.write(SIGNATURE);
+        // フラグ（OIDなし）、ヘッダー拡張領域の長さ
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    /**
+     * 行の開始を書き込む。
+     *
+     * @param fieldCount 行のフィールド数
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void row(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    /**
+     * text / varchar のフィールドを書き込む。
+     *
+     * @param value 値（nullの場合はNULL）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void text(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * vector のフィールドを書き込む。
+     *
+     * @param vector ベクトル（nullの場合はNULL）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void vector(float[] vector) throws IOException {
+        if (vector == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4 + vector.length * Float.BYTES);
+        out.writeShort(vector.length);
+        out.writeShort(0);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
+    /**
+     * トレーラーを書き込み、バッファをフラッシュする。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+    }
+}
@@ -0,0 +1,108 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * corpus_generation / search_result_cacheテーブルのリポジトリ。
+ *
+ * <p>コーパス世代（チャンクを格納するたびに加算されるカウンタ）の参照と、
+ * 複数インスタンスで共有する検索結果キャッシュ（L2）の読み書きを行う。
+ * 世代の加算はチャンクの書き込みと同じトランザクション（{@link DocumentChunkCopyWriter}）、
+ * 又は1行ずつの保存の完了後（{@link DocumentChunkRepositoryCustom#bumpCorpusGeneration()}）に行う。</p>
+ */
+@Repository
+public class SearchResultCacheRepository {
+
+    /**
+     * コーパス世代を加算するSQL。チャンクを書き込むトランザクション内又は書き込みの完了後に実行する。
+     */
+    public static final String BUMP_GENERATION_SQL =
+            "UPDATE corpus_generation SET generation = generation + 1, updated_at = NOW() WHERE id = 1";
+
+    private static final String CURRENT_GENERATION_SQL =
+            "SELECT generation FROM corpus_generation WHERE id = 1";
+
+    private static final String FIND_SQL =
+            "SELECT results FROM search_result_cache"
+            + " WHERE cache_key = :key AND generation = :generation AND created_at >= :since";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO search_result_cache (cache_key, generation, results)"
+            + " VALUES (:key, :generation, CAST(:results AS jsonb))"
+            + " ON CONFLICT (cache_key) DO UPDATE SET generation = EXCLUDED.generation,"
+            + " results = EXCLUDED.results, created_at = NOW()";
+
+    private static final String DELETE_STALE_SQL =
+            "DELETE FROM search_result_cache WHERE generation < :generation";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     */
+    public SearchResultCacheRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 現在のコーパス世代を返す。
+     *
+     * @return コーパス世代
+     */
+    public long currentGeneration() {
+        Long generation = jdbcTemplate.queryForObject(
+                CURRENT_GENERATION_SQL, new MapSqlParameterSource(), Long.class);
+        return (generation != null) ? generation : 0L;
+    }
+
+    /**
+     * 共有キャッシュから検索結果を取得する。
+     *
+     * @param key キャッシュキー（SHA-256の16進文字列）
+     * @param generation コーパス世代
+     * @param since この日時以降に格納されたエントリのみを対象とする
+     * @return 検索結果のJSON（存在しない、世代が異なる又は期限切れの場合は空）
+     */
+    public Optional<String> find(String key, long generation, Instant since) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("generation", generation)
+                .addValue("since", Timestamp.from(since));
+        return jdbcTemplate.query(FIND_SQL, params, (rs, rowNum) -> rs.getString("results"))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * 共有キャッシュに検索結果を格納する（同じキーのエントリは置き換える）。
+     *
+     * @param key キャッシュキー（SHA-256の16進文字列）
+     * @param generation コーパス世代
+     * @param results 検索結果のJSON
+     */
+    public void save(String key, long generation, String results) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("generation", generation)
+                .addValue("results", results);
+        jdbcTemplate.update(UPSERT_SQL, params);
+    }
+
+    /**
+     * 指定した世代より古いエントリを削除する。
+     *
+     * @param generation コーパス世代
+     * @return 削除した行数
+     */
+    public int deleteStale(long generation) {
+        return jdbcTemplate.update(DELETE_STALE_SQL, new MapSqlParameterSource("generation", generation));
+    }
+}
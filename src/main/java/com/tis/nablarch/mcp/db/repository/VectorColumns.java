@@ -0,0 +1,42 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.pgvector.PGvector;
+import org.postgresql.util.PGobject;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * pgvectorのvector列をResultSetから読み込むユーティリティ。
+ *
+ * <p>列は {@code CAST(embedding AS text)} せずにそのまま取得する。
+ * 接続にvector型が登録されている場合（{@code VectorTypeRegisteringDataSource}）、
+ * {@code getObject} は {@link PGvector} を返し、サーバー側で準備済みの文
+ * （既定では同じSQLの5回目以降の実行）ではバイナリ形式で受信するため文字列の生成・解析を行わない。
+ * 登録されていない接続では {@link PGobject} の文字列表現から変換する。</p>
+ */
+public final class VectorColumns {
+
+    private VectorColumns() {
+    }
+
+    /**
+     * vector列の値をfloat配列として読み込む。
+     *
+     * @param rs ResultSet
+     * @param column 列名
+     * @return ベクトル（NULLの場合はnull）
+     * @throws SQLException SQL例外
+     */
+    public static float[] read(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof PGvector vector) {
+            return vector.toArray();
+        }
+        String text = (value instanceof PGobject object) ? object.getValue() : value.toString();
+        return new PGvector(text).toArray();
+    }
+}
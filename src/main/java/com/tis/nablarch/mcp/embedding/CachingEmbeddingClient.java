@@ -0,0 +1,233 @@
+package com.tis.nablarch.mcp.embedding;
+
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.QueryCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * クエリEmbeddingのキャッシュ付きEmbeddingクライアント（デコレータ）。
+ *
+ * <p>{@link #embed(String)} の結果を「モデル名 + 正規化済みクエリ」をキーとして保持し、
+ * 同一・ほぼ同一のクエリに対するONNX推論/API呼び出しを省略する。
+ * キャッシュはLRU方式のサイズ上限とTTLの両方で削除される。</p>
+ *
+ * <p>{@link #embedBatch(List)} は取込処理（チャンク本文）向けのため、
+ * キャッシュを経由せず委譲先にそのまま渡す。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code embedding.query.cache.requests} - ヒット/ミス回数（tag: result）</li>
+ *   <li>{@code embedding.query.cache.evictions} - 削除回数（tag: cause=size|expired）</li>
+ *   <li>{@code embedding.query.cache.size} - 現在のエントリ数（Gauge）</li>
+ * </ul>
+ */
+public class CachingEmbeddingClient implements EmbeddingClient {
+
+    private final EmbeddingClient delegate;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<CacheKey, CacheEntry> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiredEvictionCounter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param delegate 委譲先のEmbeddingクライアント
+     * @param config キャッシュ設定
+     * @param meterRegistry Micrometerレジストリ
+     */
+    public CachingEmbeddingClient(
+            EmbeddingClient delegate, QueryCacheConfig config, MeterRegistry meterRegistry) {
+        this(delegate, config, meterRegistry, Clock.systemUTC());
+    }
+
+    /**
+     * テスト用コンストラクタ（時計注入可能）。
+     *
+     * @param delegate 委譲先のEmbeddingクライアント
+     * @param config キャッシュ設定
+     * @param meterRegistry Micrometerレジストリ
+     * @param clock TTL判定に使用する時計
+     */
+    CachingEmbeddingClient(
+            EmbeddingClient delegate, QueryCacheConfig config,
+            MeterRegistry meterRegistry, Clock clock) {
+        this.delegate = delegate;
+        this.maxSize = Math.max(1, config.getMaxSize());
+        this.ttlMillis = config.getTtl().toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        String model = Objects.requireNonNullElse(delegate.getModelName(), "unknown");
+        this.hitCounter = requestCounter(meterRegistry, model, "hit");
+        this.missCounter = requestCounter(meterRegistry, model, "miss");
+        this.sizeEvictionCounter = evictionCounter(meterRegistry, model, "size");
+        this.expiredEvictionCounter = evictionCounter(meterRegistry, model, "expired");
+        Gauge.builder("embedding.query.cache.size", this, CachingEmbeddingClient::size)
+                .tag("model", model)
+                .description("クエリEmbeddingキャッシュのエントリ数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 設定に応じてキャッシュでラップしたクライアントを返す。
+     *
+     * @param delegate 委譲先のEmbeddingクライアント
+     * @param config キャッシュ設定
+     * @param meterRegistry Micrometerレジストリ
+     * @return キャッシュ無効時はdelegateそのもの、有効時はキャッシュ付きクライアント
+     */
+    public static EmbeddingClient wrap(
+            EmbeddingClient delegate, QueryCacheConfig config, MeterRegistry meterRegistry) {
+        if (config == null || !config.isEnabled() || meterRegistry == null) {
+            return delegate;
+        }
+        return new CachingEmbeddingClient(delegate, config, meterRegistry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        CacheKey key = new CacheKey(delegate.getModelName(), normalize(text));
+        long now = clock.millis();
+
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now)) {
+                    hitCounter.increment();
+                    return entry.vector().clone();
+                }
+                entries.remove(key);
+                expiredEvictionCounter.increment();
+            }
+        }
+
+        // 推論はロック外で実行する（同一キーの同時ミスは重複計算を許容）
+        missCounter.increment();
+        float[] vector = delegate.embed(text);
+
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(vector.clone(), now + ttlMillis));
+            evictOverflow();
+        }
+        return vector;
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        return delegate.embedBatch(texts);
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    @Override
+    public int getDimensions() {
+        return delegate.getDimensions();
+    }
+
+    /**
+     * 現在のキャッシュエントリ数を返す。
+     *
+     * @return エントリ数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * キャッシュを全消去する。
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * キャッシュキー用にクエリ文字列を正規化する。
+     *
+     * <p>NFKC正規化（全角英数・半角カナの統一）を行い、
+     * 連続する空白を1つに畳み込んで前後の空白を除去する。
+     * 大文字小文字はモデルの語彙で区別されるため保持する。</p>
+     *
+     * @param text クエリ文字列
+     * @return 正規化済み文字列
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * サイズ上限を超えたエントリを最も古く参照されたものから削除する。
+     * 呼び出し元で {@code entries} のロックを保持していること。
+     */
+    private void evictOverflow() {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            sizeEvictionCounter.increment();
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String model, String result) {
+        return Counter.builder("embedding.query.cache.requests")
+                .tag("model", model)
+                .tag("result", result)
+                .description("クエリEmbeddingキャッシュの参照回数")
+                .register(registry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry registry, String model, String cause) {
+        return Counter.builder("embedding.query.cache.evictions")
+                .tag("model", model)
+                .tag("cause", cause)
+                .description("クエリEmbeddingキャッシュの削除回数")
+                .register(registry);
+    }
+
+    /**
+     * キャッシュキー。
+     *
+     * @param model モデル名
+     * @param text 正規化済みクエリ
+     */
+    private record CacheKey(String model, String text) {
+    }
+
+    /**
+     * キャッシュエントリ。
+     *
+     * @param vector Embeddingベクトル
+     * @param expiresAtMillis 有効期限（エポックミリ秒）
+     */
+    private record CacheEntry(float[] vector, long expiresAtMillis) {
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.tis.nablarch.mcp.embedding.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * Embedding API設定プロパティ。
  *
@@ -23,6 +25,7 @@ public class EmbeddingProperties {
     private ProviderConfig jina = new ProviderConfig();
     private ProviderConfig voyage = new ProviderConfig();
     private LocalModelConfig local = new LocalModelConfig();
+    private QueryCacheConfig queryCache = new QueryCacheConfig();
 
     public String getProvider() {
         return provider;
@@ -56,6 +59,14 @@ public class EmbeddingProperties {
         this.local = local;
     }
 
+    public QueryCacheConfig getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(QueryCacheConfig queryCache) {
+        this.queryCache = queryCache;
+    }
+
     /**
      * 各Embeddingプロバイダ（API）の設定。
      */
@@ -179,6 +190,21 @@ public class EmbeddingProperties {
          */
         private int batchSize = 32;
 
+        /**
+         * トークナイズ結果キャッシュの最大エントリ数（0以下で無効）。
+         */
+        private int tokenCacheSize = 10000;
+
+        /**
+         * 単一テキスト推論のマイクロバッチ設定。
+         */
+        private MicroBatchConfig microBatch = new MicroBatchConfig();
+
+        /**
+         * ONNX Runtimeセッションの設定。
+         */
+        private SessionConfig session = new SessionConfig();
+
         public String getModelName() {
             return modelName;
         }
@@ -226,5 +252,236 @@ public class EmbeddingProperties {
         public void setBatchSize(int batchSize) {
             this.batchSize = batchSize;
         }
+
+        public int getTokenCacheSize() {
+            return tokenCacheSize;
+        }
+
+        public void setTokenCacheSize(int tokenCacheSize) {
+            this.tokenCacheSize = tokenCacheSize;
+        }
+
+        public MicroBatchConfig getMicroBatch() {
+            return microBatch;
+        }
+
+        public void setMicroBatch(MicroBatchConfig microBatch) {
+            this.microBatch = microBatch;
+        }
+
+        public SessionConfig getSession() {
+            return session;
+        }
+
+        public void setSession(SessionConfig session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * ONNX Runtimeセッション（スレッド数・グラフ最適化・メモリ・モデルファイル）の設定。
+     *
+     * <p>ドキュメント用とコード用の2モデルが同時に推論すると、それぞれが全コアを使う設定では
+     * CPUを奪い合う。モデルごとにスレッド数を割り当てて競合を避ける。</p>
+     */
+    public static class SessionConfig {
+
+        /**
+         * 並列推論用のセッション数。セッションごとにモデルをロードするためメモリ使用量も比例する。
+         */
+        private int poolSize = 1;
+
+        /**
+         * セッションあたりの演算内スレッド数（0: 利用可能なCPUコア数 ÷ pool-size）。
+         */
+        private int intraOpThreads = 0;
+
+        /**
+         * セッションあたりの演算間スレッド数（0: ONNX Runtimeの既定。2以上で並列実行モード）。
+         */
+        private int interOpThreads = 0;
+
+        /**
+         * グラフ最適化レベル（none / basic / extended / all）。
+         */
+        private String optimizationLevel = "all";
+
+        /**
+         * CPUメモリアリーナの有効/無効。
+         */
+        private boolean memoryArena = true;
+
+        /**
+         * メモリパターン最適化の有効/無効。
+         */
+        private boolean memoryPattern = true;
+
+        /**
+         * 最適化済みモデルのパス。存在すればそのままロードし、存在しなければ最適化結果を保存する。
+         */
+        private String optimizedModelPath = "";
+
+        /**
+         * INT8量子化モデルのパス。存在すればmodel-pathの代わりにロードする。
+         */
+        private String quantizedModelPath = "";
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getIntraOpThreads() {
+            return intraOpThreads;
+        }
+
+        public void setIntraOpThreads(int intraOpThreads) {
+            this.intraOpThreads = intraOpThreads;
+        }
+
+        public int getInterOpThreads() {
+            return interOpThreads;
+        }
+
+        public void setInterOpThreads(int interOpThreads) {
+            this.interOpThreads = interOpThreads;
+        }
+
+        public String getOptimizationLevel() {
+            return optimizationLevel;
+        }
+
+        public void setOptimizationLevel(String optimizationLevel) {
+            this.optimizationLevel = optimizationLevel;
+        }
+
+        public boolean isMemoryArena() {
+            return memoryArena;
+        }
+
+        public void setMemoryArena(boolean memoryArena) {
+            this.memoryArena = memoryArena;
+        }
+
+        public boolean isMemoryPattern() {
+            return memoryPattern;
+        }
+
+        public void setMemoryPattern(boolean memoryPattern) {
+            this.memoryPattern = memoryPattern;
+        }
+
+        public String getOptimizedModelPath() {
+            return optimizedModelPath;
+        }
+
+        public void setOptimizedModelPath(String optimizedModelPath) {
+            this.optimizedModelPath = optimizedModelPath;
+        }
+
+        public String getQuantizedModelPath() {
+            return quantizedModelPath;
+        }
+
+        public void setQuantizedModelPath(String quantizedModelPath) {
+            this.quantizedModelPath = quantizedModelPath;
+        }
+    }
+
+    /**
+     * 同時に到着した単一テキストEmbedding要求をまとめるマイクロバッチの設定。
+     *
+     * @see com.tis.nablarch.mcp.embedding.local.AbstractOnnxEmbeddingClient
+     */
+    public static class MicroBatchConfig {
+
+        /**
+         * マイクロバッチの有効/無効。
+         */
+        private boolean enabled = true;
+
+        /**
+         * 先頭の要求の到着からバッチ推論開始までの最大待ち時間。
+         */
+        private Duration maxWait = Duration.ofMillis(2);
+
+        /**
+         * 1回のバッチ推論にまとめる最大件数（0以下の場合はbatch-sizeを使用）。
+         */
+        private int maxSize = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * 検索クエリEmbeddingキャッシュの設定。
+     *
+     * @see com.tis.nablarch.mcp.embedding.CachingEmbeddingClient
+     */
+    public static class QueryCacheConfig {
+
+        /**
+         * キャッシュの有効/無効。
+         */
+        private boolean enabled = true;
+
+        /**
+         * モデルごとの最大エントリ数（LRUで削除）。
+         */
+        private int maxSize = 1000;
+
+        /**
+         * エントリの有効期間。
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
     }
 }
@@ -1,41 +1,87 @@
 package com.tis.nablarch.mcp.embedding.local;
 
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import com.tis.nablarch.mcp.common.CancellationScope;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
 import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.MicroBatchConfig;
 import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.OnnxModelConfig;
 import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.nio.LongBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ONNX Runtimeを使用したローカルEmbeddingクライアントの抽象基底クラス。
  *
  * <p>BGE-M3、CodeSage等のONNX形式モデルでEmbeddingベクトルを生成する共通処理を提供する。
  * サブクラスで具体的なモデル設定を指定する。</p>
+ *
+ * <p>推論は呼び出しスレッドの{@link CancellationScope}に連動し、
+ * スコープのキャンセル時はRunOptionsのterminateで実行中の推論を打ち切る。</p>
+ *
+ * <p>マイクロバッチ有効時（{@code micro-batch.enabled}）、{@link #embed(String)} は
+ * {@link EmbeddingMicroBatcher} を経由し、同時に到着した他の要求とまとめて1回の推論で処理される。
+ * {@link #embedBatch(List)} は呼び出しスレッドでそのまま推論する。</p>
+ *
+ * <p>{@link #embedBatch(List)} は入力を {@link #PIPELINE_WINDOW_BATCHES} バッチ分ずつ
+ * {@link BatchTokenizer} でトークナイズし、推論中に次の分のトークナイズを専用スレッドで先行して行う。
+ * トークナイズ済みの入力はトークン長でバケット分割し（{@link LengthBuckets}）、
+ * バケットごとに必要な長さまでのパディングで推論したうえで、結果を入力順に戻して返す。
+ * バケット別に次のメトリクスを記録する（tag: model, bucket）。</p>
+ * <ul>
+ *   <li>{@code embedding.inference} - 1回の推論時間（Timer）</li>
+ *   <li>{@code embedding.tokens} - 推論したトークン数（パディングを除く）</li>
+ *   <li>{@code embedding.tokens.padded} - パディングとして推論したトークン数</li>
+ * </ul>
  */
 public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractOnnxEmbeddingClient.class);
 
+    /**
+     * 1回にトークナイズする入力の量（バッチサイズの倍数）。
+     */
+    static final int PIPELINE_WINDOW_BATCHES = 4;
+
     protected final OnnxModelConfig config;
 
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, BucketMeters> bucketMeters = new ConcurrentHashMap<>();
+    private final Queue<InputBuffers> inputBufferPool = new ConcurrentLinkedQueue<>();
+
     private OrtEnvironment environment;
-    private OrtSession session;
+    private OnnxSessionPool sessionPool;
     private HuggingFaceTokenizer tokenizer;
+    private BatchTokenizer batchTokenizer;
+    private ExecutorService tokenizerExecutor;
+    private EmbeddingMicroBatcher microBatcher;
 
     /**
      * コンストラクタ。
@@ -43,7 +89,18 @@ public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
      * @param config ONNXモデル設定
      */
     protected AbstractOnnxEmbeddingClient(OnnxModelConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param config ONNXモデル設定
+     * @param meterRegistry Micrometerレジストリ（nullの場合はメトリクスを公開しない）
+     */
+    protected AbstractOnnxEmbeddingClient(OnnxModelConfig config, MeterRegistry meterRegistry) {
         this.config = config;
+        this.meterRegistry = (meterRegistry != null) ? meterRegistry : new SimpleMeterRegistry();
     }
 
     /**
@@ -57,13 +114,24 @@ public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
             // ONNX Runtime環境の初期化
             this.environment = OrtEnvironment.getEnvironment();
 
-            // モデルのロード
-            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
-            options.setIntraOpNumThreads(Runtime.getRuntime().availableProcessors());
-            this.session = environment.createSession(config.getModelPath(), options);
+            // モデルのロード（session.pool-size個のセッションを生成）
+            this.sessionPool = OnnxSessionPool.create(environment, config);
 
             // トークナイザーのロード
             this.tokenizer = HuggingFaceTokenizer.newInstance(Path.of(config.getTokenizerPath()));
+            this.batchTokenizer = BatchTokenizer.of(tokenizer, config, meterRegistry);
+            this.tokenizerExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "embedding-tokenizer-" + config.getModelName());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            MicroBatchConfig microBatch = config.getMicroBatch();
+            if (microBatch != null && microBatch.isEnabled()) {
+                int maxSize = (microBatch.getMaxSize() > 0) ? microBatch.getMaxSize() : config.getBatchSize();
+                this.microBatcher = new EmbeddingMicroBatcher(config.getModelName(), this::embedBatch,
+                        maxSize, microBatch.getMaxWait(), sessionPool.size(), meterRegistry);
+            }
 
             logger.info("ONNXモデルのロード完了: {} ({}次元)", config.getModelName(), config.getDimensions());
 
@@ -78,8 +146,14 @@ public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
     @PreDestroy
     public void destroy() {
         try {
-            if (session != null) {
-                session.close();
+            if (microBatcher != null) {
+                microBatcher.close();
+            }
+            if (tokenizerExecutor != null) {
+                tokenizerExecutor.shutdownNow();
+            }
+            if (sessionPool != null) {
+                sessionPool.close();
             }
             if (tokenizer != null) {
                 tokenizer.close();
@@ -92,6 +166,9 @@ public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
 
     @Override
     public float[] embed(String text) {
+        if (microBatcher != null) {
+            return microBatcher.embed(text);
+        }
         List<float[]> results = embedBatch(List.of(text));
         return results.get(0);
     }
@@ -102,172 +179,257 @@ public abstract class AbstractOnnxEmbeddingClient implements EmbeddingClient {
             return new ArrayList<>();
         }
 
+        int window = Math.max(1, config.getBatchSize()) * PIPELINE_WINDOW_BATCHES;
+        CompletableFuture<long[][]> pending = null;
         try {
-            List<float[]> results = new ArrayList<>();
-
-            // バッチサイズで分割して処理
-            for (int i = 0; i < texts.size(); i += config.getBatchSize()) {
-                int end = Math.min(i + config.getBatchSize(), texts.size());
-                List<String> batch = texts.subList(i, end);
-                List<float[]> batchResults = processBatch(batch);
-                results.addAll(batchResults);
+            checkCancelled();
+            float[][] results = new float[texts.size()][];
+            Map<Integer, BucketStats> stats = new TreeMap<>();
+            long[][] inputIds = batchTokenizer.encode(texts.subList(0, Math.min(window, texts.size())));
+
+            for (int offset = 0; offset < texts.size(); offset += window) {
+                // 次の分のトークナイズを推論と並行して行う
+                int next = offset + window;
+                pending = (next < texts.size())
+                        ? CompletableFuture.supplyAsync(() -> batchTokenizer.encode(
+                                texts.subList(next, Math.min(next + window, texts.size()))), tokenizerExecutor)
+                        : null;
+                inferWindow(inputIds, offset, results, stats);
+                inputIds = (pending != null) ? awaitTokens(pending) : null;
             }
 
-            logger.debug("{}: {}テキストのEmbedding生成完了", config.getModelName(), texts.size());
-            return results;
+            if (logger.isDebugEnabled()) {
+                logger.debug("{}: {}テキストのEmbedding生成完了", config.getModelName(), texts.size());
+                stats.forEach((bucket, stat) -> logger.debug(
+                        "{}: bucket<={} texts={} batches={} tokens={} padding={}% {} tokens/s",
+                        config.getModelName(), bucket, stat.texts, stat.batches, stat.tokens,
+                        Math.round(100.0 * stat.padded / Math.max(1, stat.tokens + stat.padded)),
+                        Math.round(stat.tokens * 1e9 / Math.max(1, stat.nanos))));
+            }
+            return new ArrayList<>(Arrays.asList(results));
 
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             throw new EmbeddingException("Embedding生成に失敗: " + config.getModelName(), e);
+        } finally {
+            if (pending != null) {
+                pending.cancel(false);
+            }
         }
     }
 
     /**
-     * バッチ単位でEmbedding推論を実行する。
+     * トークナイズ済みの入力をトークン長のバケットごとに推論し、結果を入力順の位置に格納する。
      *
-     * @param texts テキストのリスト
-     * @return Embeddingベクトルのリスト
+     * @param inputIds トークンID（{@code offset} からの入力順）
+     * @param offset 入力全体における先頭の位置
+     * @param results 結果の格納先（入力全体）
+     * @param stats バケット別集計
      */
-    private List<float[]> processBatch(List<String> texts) throws OrtException {
-        int batchSize = texts.size();
-
-        // トークナイズ
-        long[][] inputIds = new long[batchSize][];
-        long[][] attentionMask = new long[batchSize][];
-
-        for (int i = 0; i < batchSize; i++) {
-            var encoding = tokenizer.encode(texts.get(i), true, true);
-            long[] ids = encoding.getIds();
-            long[] mask = encoding.getAttentionMask();
-
-            // 最大トークン長で切り詰め
-            int length = Math.min(ids.length, config.getMaxTokens());
-            inputIds[i] = new long[length];
-            attentionMask[i] = new long[length];
-            System.arraycopy(ids, 0, inputIds[i], 0, length);
-            System.arraycopy(mask, 0, attentionMask[i], 0, length);
+    private void inferWindow(long[][] inputIds, int offset, float[][] results, Map<Integer, BucketStats> stats)
+            throws OrtException, InterruptedException {
+        int[] lengths = Arrays.stream(inputIds).mapToInt(ids -> ids.length).toArray();
+        for (LengthBuckets.Batch batch
+                : LengthBuckets.plan(lengths, config.getBatchSize(), config.getMaxTokens())) {
+            checkCancelled();
+            long start = System.nanoTime();
+            List<float[]> batchResults = processBatch(inputIds, batch);
+            long elapsed = System.nanoTime() - start;
+            for (int i = 0; i < batch.indices().length; i++) {
+                results[offset + batch.indices()[i]] = batchResults.get(i);
+            }
+            int tokens = Arrays.stream(batch.indices()).map(i -> lengths[i]).sum();
+            int padded = batch.indices().length * batch.sequenceLength() - tokens;
+            recordBucket(batch.bucket(), elapsed, tokens, padded);
+            stats.computeIfAbsent(batch.bucket(), b -> new BucketStats()).add(batch, tokens, padded, elapsed);
         }
+    }
 
-        // パディング（最大長に揃える）
-        int maxLength = 0;
-        for (long[] ids : inputIds) {
-            maxLength = Math.max(maxLength, ids.length);
+    /**
+     * 先行して開始したトークナイズの完了を待つ。
+     *
+     * @param pending トークナイズ処理
+     * @return トークンID
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    private long[][] awaitTokens(CompletableFuture<long[][]> pending) throws InterruptedException {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new EmbeddingException("トークナイズに失敗: " + config.getModelName(), e.getCause());
         }
+    }
 
-        long[][] paddedInputIds = new long[batchSize][maxLength];
-        long[][] paddedAttentionMask = new long[batchSize][maxLength];
-
-        for (int i = 0; i < batchSize; i++) {
-            System.arraycopy(inputIds[i], 0, paddedInputIds[i], 0, inputIds[i].length);
-            System.arraycopy(attentionMask[i], 0, paddedAttentionMask[i], 0, attentionMask[i].length);
-            // 残りは0（パディング）
+    /**
+     * 呼び出しスレッドのキャンセル・割り込みを検査する。
+     */
+    private void checkCancelled() {
+        if (CancellationScope.isCurrentCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new EmbeddingException("Embedding推論がキャンセルされました: " + config.getModelName());
         }
+    }
 
-        // ONNX入力テンソルを作成
-        Map<String, OnnxTensor> inputs = new HashMap<>();
-        inputs.put("input_ids", OnnxTensor.createTensor(environment, paddedInputIds));
-        inputs.put("attention_mask", OnnxTensor.createTensor(environment, paddedAttentionMask));
-
-        // 推論実行
-        try (OrtSession.Result result = session.run(inputs)) {
-            // 出力から埋め込みベクトルを抽出
-            // モデルによって出力形式が異なるため、last_hidden_stateまたはsentence_embeddingを試す
-            float[][][] lastHiddenState = null;
-            float[][] sentenceEmbedding = null;
-
-            if (result.get("last_hidden_state").isPresent()) {
-                lastHiddenState = (float[][][]) result.get("last_hidden_state").get().getValue();
-            } else if (result.get("sentence_embedding").isPresent()) {
-                sentenceEmbedding = (float[][]) result.get("sentence_embedding").get().getValue();
-            } else if (result.get(0) != null) {
-                // 最初の出力を使用
-                Object value = result.get(0).getValue();
-                if (value instanceof float[][][]) {
-                    lastHiddenState = (float[][][]) value;
-                } else if (value instanceof float[][]) {
-                    sentenceEmbedding = (float[][]) value;
-                }
-            }
-
-            List<float[]> embeddings = new ArrayList<>();
-
-            if (sentenceEmbedding != null) {
-                // 直接sentence embeddingが出力される場合
-                for (int i = 0; i < batchSize; i++) {
-                    embeddings.add(normalize(sentenceEmbedding[i]));
-                }
-            } else if (lastHiddenState != null) {
-                // last_hidden_stateからmean poolingでembeddingを計算
-                for (int i = 0; i < batchSize; i++) {
-                    float[] embedding = meanPooling(lastHiddenState[i], paddedAttentionMask[i]);
-                    embeddings.add(normalize(embedding));
-                }
-            } else {
-                throw new EmbeddingException("モデル出力からEmbeddingを抽出できません: " + config.getModelName());
+    /**
+     * バッチ単位でEmbedding推論を実行する。
+     *
+     * <p>セッションプールから借りたセッションで推論する（全セッション使用中は返却を待つ）。
+     * 入力テンソルは再利用するダイレクトバッファ（{@link InputBuffers}）から作成し、
+     * 出力はフラットな {@link FloatBuffer} として読み取る。</p>
+     *
+     * @param inputIds 全入力のトークンID（入力順）
+     * @param batch 推論するバッチ
+     * @return Embeddingベクトルのリスト（{@code batch.indices()} の順）
+     */
+    private List<float[]> processBatch(long[][] inputIds, LengthBuckets.Batch batch)
+            throws OrtException, InterruptedException {
+        long[] shape = {batch.indices().length, batch.sequenceLength()};
+        OrtSession session = sessionPool.acquire();
+        InputBuffers buffers = inputBufferPool.poll();
+        if (buffers == null) {
+            buffers = new InputBuffers(config.getBatchSize() * config.getMaxTokens());
+        }
+        try {
+            buffers.fill(inputIds, batch.indices(), batch.sequenceLength());
+
+            // 推論実行（キャンセル時はterminateで打ち切る。RunOptions解放前に登録解除する）
+            try (OnnxTensor ids = OnnxTensor.createTensor(environment, buffers.inputIds(), shape);
+                 OnnxTensor mask = OnnxTensor.createTensor(environment, buffers.attentionMask(), shape);
+                 OrtSession.RunOptions runOptions = new OrtSession.RunOptions();
+                 CancellationScope.Handle registration = CancellationScope.onCancel(() -> terminate(runOptions));
+                 OrtSession.Result result = session.run(
+                         Map.of("input_ids", ids, "attention_mask", mask), runOptions)) {
+                return extractEmbeddings(result, inputIds, batch);
             }
-
-            return embeddings;
-
         } finally {
-            // 入力テンソルを解放
-            for (OnnxTensor tensor : inputs.values()) {
-                tensor.close();
-            }
+            inputBufferPool.offer(buffers);
+            sessionPool.release(session);
         }
     }
 
     /**
-     * Mean Poolingでシーケンス出力から文ベクトルを計算する。
+     * 推論結果から文ベクトルを取り出す。
      *
-     * @param hiddenState シーケンスの隠れ状態 [seqLen][hiddenSize]
-     * @param attentionMask アテンションマスク [seqLen]
-     * @return Mean Poolingされたベクトル
+     * <p>モデルによって出力形式が異なるため、last_hidden_state（Mean Poolingする）、
+     * sentence_embedding、最初の出力の順に試す。</p>
+     *
+     * @param result 推論結果
+     * @param inputIds 全入力のトークンID（入力順）
+     * @param batch 推論したバッチ
+     * @return L2正規化したEmbeddingベクトルのリスト（{@code batch.indices()} の順）
      */
-    private float[] meanPooling(float[][] hiddenState, long[] attentionMask) {
-        int seqLen = hiddenState.length;
-        int hiddenSize = hiddenState[0].length;
-
-        float[] sum = new float[hiddenSize];
-        float count = 0;
-
-        for (int i = 0; i < seqLen; i++) {
-            if (attentionMask[i] == 1) {
-                for (int j = 0; j < hiddenSize; j++) {
-                    sum[j] += hiddenState[i][j];
-                }
-                count++;
-            }
+    private List<float[]> extractEmbeddings(OrtSession.Result result, long[][] inputIds,
+            LengthBuckets.Batch batch) {
+        OnnxValue output = result.get("last_hidden_state")
+                .or(() -> result.get("sentence_embedding"))
+                .orElseGet(() -> (result.size() > 0) ? result.get(0) : null);
+        FloatBuffer values = (output instanceof OnnxTensor tensor) ? tensor.getFloatBuffer() : null;
+        if (values == null) {
+            throw new EmbeddingException("モデル出力からEmbeddingを抽出できません: " + config.getModelName());
         }
-
-        if (count > 0) {
-            for (int j = 0; j < hiddenSize; j++) {
-                sum[j] /= count;
+        long[] outputShape = ((OnnxTensor) output).getInfo().getShape();
+        int batchSize = batch.indices().length;
+
+        List<float[]> embeddings = new ArrayList<>(batchSize);
+        if (outputShape.length == 3) {
+            // last_hidden_stateからmean poolingでembeddingを計算
+            int sequenceLength = (int) outputShape[1];
+            int hiddenSize = (int) outputShape[2];
+            for (int i = 0; i < batchSize; i++) {
+                embeddings.add(EmbeddingPooling.meanPoolNormalized(
+                        values, i, sequenceLength, hiddenSize, inputIds[batch.indices()[i]].length));
+            }
+        } else if (outputShape.length == 2) {
+            // 直接sentence embeddingが出力される場合
+            int hiddenSize = (int) outputShape[1];
+            for (int i = 0; i < batchSize; i++) {
+                embeddings.add(EmbeddingPooling.normalized(values, i, hiddenSize));
             }
+        } else {
+            throw new EmbeddingException("モデル出力からEmbeddingを抽出できません: " + config.getModelName());
         }
+        return embeddings;
+    }
 
-        return sum;
+    /**
+     * バケット別のメトリクスを記録する。
+     *
+     * @param bucket バケット上限
+     * @param elapsedNanos 推論時間
+     * @param tokens 推論したトークン数
+     * @param padded パディングのトークン数
+     */
+    private void recordBucket(int bucket, long elapsedNanos, int tokens, int padded) {
+        BucketMeters meters = bucketMeters.computeIfAbsent(bucket, b -> {
+            String tag = String.valueOf(b);
+            return new BucketMeters(
+                    Timer.builder("embedding.inference")
+                            .tag("model", config.getModelName())
+                            .tag("bucket", tag)
+                            .description("トークン長バケット別のONNX推論時間")
+                            .register(meterRegistry),
+                    Counter.builder("embedding.tokens")
+                            .tag("model", config.getModelName())
+                            .tag("bucket", tag)
+                            .description("推論したトークン数（パディングを除く）")
+                            .register(meterRegistry),
+                    Counter.builder("embedding.tokens.padded")
+                            .tag("model", config.getModelName())
+                            .tag("bucket", tag)
+                            .description("パディングとして推論したトークン数")
+                            .register(meterRegistry));
+        });
+        meters.inference().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.tokens().increment(tokens);
+        meters.padded().increment(padded);
     }
 
     /**
-     * ベクトルをL2正規化する。
+     * 実行中の推論の打ち切りを要求する。
      *
-     * @param vector 入力ベクトル
-     * @return L2正規化されたベクトル
+     * @param runOptions 推論実行オプション
      */
-    private float[] normalize(float[] vector) {
-        float norm = 0;
-        for (float v : vector) {
-            norm += v * v;
+    private void terminate(OrtSession.RunOptions runOptions) {
+        try {
+            runOptions.setTerminate(true);
+            logger.debug("{}: 推論の打ち切りを要求", config.getModelName());
+        } catch (OrtException e) {
+            logger.debug("{}: 推論の打ち切りに失敗: {}", config.getModelName(), e.getMessage());
         }
-        norm = (float) Math.sqrt(norm);
+    }
 
-        if (norm > 0) {
-            float[] normalized = new float[vector.length];
-            for (int i = 0; i < vector.length; i++) {
-                normalized[i] = vector[i] / norm;
-            }
-            return normalized;
+    /**
+     * バケット別のメトリクス。
+     *
+     * @param inference 推論時間
+     * @param tokens トークン数
+     * @param padded パディングのトークン数
+     */
+    private record BucketMeters(Timer inference, Counter tokens, Counter padded) {
+    }
+
+    /**
+     * 1回の {@link #embedBatch(List)} 内でのバケット別集計（デバッグログ用）。
+     */
+    private static final class BucketStats {
+
+        private int texts;
+        private int batches;
+        private long tokens;
+        private long padded;
+        private long nanos;
+
+        void add(LengthBuckets.Batch batch, int batchTokens, int batchPadded, long elapsedNanos) {
+            texts += batch.indices().length;
+            batches++;
+            tokens += batchTokens;
+            padded += batchPadded;
+            nanos += elapsedNanos;
         }
-        return vector;
     }
 
     @Override
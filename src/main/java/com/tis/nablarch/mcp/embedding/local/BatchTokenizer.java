@@ -0,0 +1,179 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import com.tis.nablarch.mcp.common.ContentHash;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.OnnxModelConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * トークンID列のキャッシュ付きバッチトークナイザー。
+ *
+ * <p>キャッシュにないテキストのみを {@link HuggingFaceTokenizer#batchEncode} でまとめて
+ * トークナイズする（トークナイザー内部で並列に処理される）。同じバッチ内の重複テキストも1回だけ処理する。
+ * ライセンスヘッダーや定型のJavadoc・表ヘッダーなど、取込で繰り返し現れるチャンクの再トークナイズを省く。</p>
+ *
+ * <p>キャッシュキーはテキストのSHA-256ハッシュとし、長いテキスト本文をキーとして保持しない。
+ * サイズ上限を超えた場合は最も古く参照されたエントリから削除する。
+ * 返却するトークンID配列はキャッシュと共有されるため、呼び出し元で変更しないこと。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code embedding.tokenizer.cache.requests} - ヒット/ミス回数（tag: model, result）</li>
+ * </ul>
+ */
+final class BatchTokenizer {
+
+    private final Function<List<String>, List<long[]>> encoder;
+    private final int maxSize;
+    private final Map<String, long[]> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param modelName モデル名（メトリクスのタグに使用）
+     * @param encoder テキストのリストをトークンID列のリストに変換する処理
+     * @param maxSize キャッシュの最大エントリ数（0以下の場合はキャッシュしない）
+     * @param meterRegistry Micrometerレジストリ
+     */
+    BatchTokenizer(String modelName, Function<List<String>, List<long[]>> encoder,
+            int maxSize, MeterRegistry meterRegistry) {
+        this.encoder = encoder;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.hitCounter = requestCounter(meterRegistry, modelName, "hit");
+        this.missCounter = requestCounter(meterRegistry, modelName, "miss");
+    }
+
+    /**
+     * HuggingFaceトークナイザーを使用するインスタンスを生成する。
+     *
+     * @param tokenizer トークナイザー
+     * @param config ONNXモデル設定（最大トークン長・キャッシュサイズ）
+     * @param meterRegistry Micrometerレジストリ
+     * @return バッチトークナイザー
+     */
+    static BatchTokenizer of(HuggingFaceTokenizer tokenizer, OnnxModelConfig config, MeterRegistry meterRegistry) {
+        int maxTokens = config.getMaxTokens();
+        return new BatchTokenizer(config.getModelName(), texts -> {
+            Encoding[] encodings = tokenizer.batchEncode(texts, true, true);
+            List<long[]> ids = new ArrayList<>(encodings.length);
+            for (Encoding encoding : encodings) {
+                ids.add(trim(encoding.getIds(), encoding.getAttentionMask(), maxTokens));
+            }
+            return ids;
+        }, config.getTokenCacheSize(), meterRegistry);
+    }
+
+    /**
+     * テキストをトークナイズする。
+     *
+     * @param texts テキストのリスト
+     * @return トークンID列（入力順）
+     */
+    long[][] encode(List<String> texts) {
+        long[][] ids = new long[texts.size()][];
+        String[] keys = new String[texts.size()];
+        Map<String, List<Integer>> misses = new LinkedHashMap<>();
+        List<String> missTexts = new ArrayList<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            if (maxSize > 0) {
+                keys[i] = ContentHash.sha256Hex(texts.get(i));
+                long[] cached;
+                synchronized (cache) {
+                    cached = cache.get(keys[i]);
+                }
+                if (cached != null) {
+                    hitCounter.increment();
+                    ids[i] = cached;
+                    continue;
+                }
+                missCounter.increment();
+            }
+            String key = (keys[i] != null) ? keys[i] : String.valueOf(i);
+            List<Integer> positions = misses.get(key);
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                misses.put(key, positions);
+                missTexts.add(texts.get(i));
+            }
+            positions.add(i);
+        }
+        if (missTexts.isEmpty()) {
+            return ids;
+        }
+
+        List<long[]> encoded = encoder.apply(missTexts);
+        int index = 0;
+        for (Map.Entry<String, List<Integer>> miss : misses.entrySet()) {
+            long[] tokens = encoded.get(index++);
+            for (int position : miss.getValue()) {
+                ids[position] = tokens;
+            }
+            if (maxSize > 0) {
+                put(miss.getKey(), tokens);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 現在のキャッシュエントリ数を返す。
+     *
+     * @return エントリ数
+     */
+    int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * トークンID列を最大トークン長で切り詰め、末尾のパディングを除く。
+     *
+     * <p>トークナイザー設定でパディングが有効な場合も実トークンの長さを返す
+     * （パディングはバッチ単位で行う）。</p>
+     *
+     * @param ids トークンID
+     * @param attentionMask アテンションマスク
+     * @param maxTokens 最大トークン長
+     * @return 切り詰めたトークンID
+     */
+    static long[] trim(long[] ids, long[] attentionMask, int maxTokens) {
+        int length = Math.min(ids.length, maxTokens);
+        while (length > 0 && attentionMask[length - 1] == 0) {
+            length--;
+        }
+        return (length < ids.length) ? Arrays.copyOf(ids, length) : ids;
+    }
+
+    private void put(String key, long[] tokens) {
+        synchronized (cache) {
+            cache.put(key, tokens);
+            var it = cache.values().iterator();
+            while (cache.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String model, String result) {
+        return Counter.builder("embedding.tokenizer.cache.requests")
+                .tag("model", model)
+                .tag("result", result)
+                .description("トークナイズ結果キャッシュの参照回数")
+                .register(registry);
+    }
+}
@@ -1,6 +1,8 @@
 package com.tis.nablarch.mcp.embedding.local;
 
 import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -39,4 +41,15 @@ public class BgeM3OnnxEmbeddingClient extends AbstractOnnxEmbeddingClient {
     public BgeM3OnnxEmbeddingClient(EmbeddingProperties properties) {
         super(properties.getLocal().getDocument());
     }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param properties Embedding設定プロパティ
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public BgeM3OnnxEmbeddingClient(EmbeddingProperties properties, MeterRegistry meterRegistry) {
+        super(properties.getLocal().getDocument(), meterRegistry);
+    }
 }
@@ -1,6 +1,8 @@
 package com.tis.nablarch.mcp.embedding.local;
 
 import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -38,4 +40,15 @@ public class CodeSageOnnxEmbeddingClient extends AbstractOnnxEmbeddingClient {
     public CodeSageOnnxEmbeddingClient(EmbeddingProperties properties) {
         super(properties.getLocal().getCode());
     }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param properties Embedding設定プロパティ
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public CodeSageOnnxEmbeddingClient(EmbeddingProperties properties, MeterRegistry meterRegistry) {
+        super(properties.getLocal().getCode(), meterRegistry);
+    }
 }
@@ -0,0 +1,313 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import com.tis.nablarch.mcp.common.CancellationScope;
+import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 同時に到着した単一テキストのEmbedding要求を1回のバッチ推論にまとめるマイクロバッチャー。
+ *
+ * <p>HTTPモードでは複数セッションの検索がそれぞれ {@code embed(text)} を呼び出し、
+ * バッチサイズ1の推論が並ぶ。本クラスは要求をキューに積み、先頭の要求の到着から
+ * 最大待ち時間が経過するか最大件数に達した時点で、まとめてバッチ推論を実行し
+ * 各呼び出し元の結果を返す。</p>
+ *
+ * <p>バッチ推論は専用のディスパッチスレッドで実行する。ディスパッチスレッドは
+ * セッションプールのセッション数だけ起動し、推論中に溜まった要求は空いたスレッドがまとめて処理する。
+ * 呼び出し元の {@link CancellationScope} がキャンセルされた場合は待機を打ち切る。
+ * 未実行の要求はバッチから除外し、実行中のバッチは含まれる全要求がキャンセルされた時点で
+ * バッチ推論用のスコープをキャンセルして推論を打ち切る（他の要求が待っている間は中断しない）。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code embedding.batch.size} - 1回のバッチ推論にまとめた要求数（DistributionSummary）</li>
+ *   <li>{@code embedding.batch.wait} - 要求がバッチ推論の開始を待った時間（Timer）</li>
+ * </ul>
+ */
+final class EmbeddingMicroBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingMicroBatcher.class);
+
+    private final String modelName;
+    private final Function<List<String>, List<float[]>> batchFunction;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> dispatchers;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+
+    private volatile boolean closed;
+
+    /**
+     * コンストラクタ。ディスパッチスレッドを1つ開始する。
+     *
+     * @param modelName モデル名（スレッド名・メトリクスのタグに使用）
+     * @param batchFunction テキストのリストをEmbeddingベクトルのリストに変換するバッチ推論
+     * @param maxBatchSize 1回のバッチ推論にまとめる最大件数
+     * @param maxWait 先頭の要求の到着から推論開始までの最大待ち時間
+     * @param meterRegistry Micrometerレジストリ（nullの場合はメトリクスを公開しない）
+     */
+    EmbeddingMicroBatcher(String modelName, Function<List<String>, List<float[]>> batchFunction,
+            int maxBatchSize, Duration maxWait, MeterRegistry meterRegistry) {
+        this(modelName, batchFunction, maxBatchSize, maxWait, 1, meterRegistry);
+    }
+
+    /**
+     * コンストラクタ。ディスパッチスレッドを開始する。
+     *
+     * @param modelName モデル名（スレッド名・メトリクスのタグに使用）
+     * @param batchFunction テキストのリストをEmbeddingベクトルのリストに変換するバッチ推論
+     * @param maxBatchSize 1回のバッチ推論にまとめる最大件数
+     * @param maxWait 先頭の要求の到着から推論開始までの最大待ち時間
+     * @param concurrency 同時に実行するバッチ推論の数（ディスパッチスレッド数）
+     * @param meterRegistry Micrometerレジストリ（nullの場合はメトリクスを公開しない）
+     */
+    EmbeddingMicroBatcher(String modelName, Function<List<String>, List<float[]>> batchFunction,
+            int maxBatchSize, Duration maxWait, int concurrency, MeterRegistry meterRegistry) {
+        this.modelName = modelName;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = Math.max(0L, maxWait.toNanos());
+
+        MeterRegistry registry = (meterRegistry != null) ? meterRegistry : new SimpleMeterRegistry();
+        this.batchSizeSummary = DistributionSummary.builder("embedding.batch.size")
+                .tag("model", modelName)
+                .description("1回のバッチ推論にまとめた単一テキストEmbedding要求数")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.waitTimer = Timer.builder("embedding.batch.wait")
+                .tag("model", modelName)
+                .description("単一テキストEmbedding要求がバッチ推論の開始を待った時間")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        int threads = Math.max(1, concurrency);
+        this.dispatchers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread dispatcher = new Thread(this::dispatchLoop, "embedding-batcher-" + modelName + "-" + (i + 1));
+            dispatcher.setDaemon(true);
+            dispatchers.add(dispatcher);
+        }
+        dispatchers.forEach(Thread::start);
+        log.info("Embeddingマイクロバッチを開始: model={}, maxBatchSize={}, maxWait={}, concurrency={}",
+                modelName, this.maxBatchSize, maxWait, threads);
+    }
+
+    /**
+     * テキストを次のバッチ推論に加え、結果が得られるまで待機する。
+     *
+     * @param text 入力テキスト
+     * @return Embeddingベクトル
+     * @throws EmbeddingException 推論失敗・キャンセル・停止済みの場合
+     */
+    float[] embed(String text) {
+        if (closed) {
+            throw new EmbeddingException("Embeddingマイクロバッチは停止済み: " + modelName);
+        }
+        if (CancellationScope.isCurrentCancelled()) {
+            throw new EmbeddingException("Embedding推論がキャンセルされました: " + modelName);
+        }
+        Pending pending = new Pending(text, System.nanoTime());
+        queue.add(pending);
+        if (closed) {
+            // close() のキュー破棄と競合した要求を取り残さない
+            pending.future.completeExceptionally(
+                    new EmbeddingException("Embeddingマイクロバッチは停止済み: " + modelName));
+        }
+
+        try (CancellationScope.Handle registration =
+                     CancellationScope.onCancel(() -> pending.future.cancel(false))) {
+            return pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.cancel(false);
+            throw new EmbeddingException("Embedding推論の待機中に割り込まれました: " + modelName, e);
+        } catch (CancellationException e) {
+            throw new EmbeddingException("Embedding推論がキャンセルされました: " + modelName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EmbeddingException embeddingException) {
+                throw embeddingException;
+            }
+            throw new EmbeddingException("Embedding生成に失敗: " + modelName, e.getCause());
+        }
+    }
+
+    /**
+     * ディスパッチスレッドを停止し、未処理の要求を失敗させる。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatchers.forEach(Thread::interrupt);
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending pending : remaining) {
+            pending.future.completeExceptionally(
+                    new EmbeddingException("Embeddingマイクロバッチは停止済み: " + modelName));
+        }
+    }
+
+    /**
+     * キューから要求を集めてバッチ推論を実行するループ。
+     */
+    private void dispatchLoop() {
+        while (!closed) {
+            List<Pending> batch;
+            try {
+                batch = collectBatch();
+            } catch (InterruptedException e) {
+                break;
+            }
+            dispatch(batch);
+        }
+        log.debug("Embeddingマイクロバッチを停止: {}", modelName);
+    }
+
+    /**
+     * 先頭の要求を待ち、最大待ち時間または最大件数に達するまで後続の要求を集める。
+     *
+     * <p>待ち時間は先頭の要求がキューに入った時点から数えるため、
+     * 直前のバッチ推論中に溜まった要求は待たずに即座にまとめられる。</p>
+     *
+     * @return バッチに含める要求
+     * @throws InterruptedException 停止のため割り込まれた場合
+     */
+    private List<Pending> collectBatch() throws InterruptedException {
+        Pending first = queue.take();
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        long deadline = first.enqueuedNanos + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * 集めた要求のバッチ推論を実行し、各要求に結果を返す。
+     *
+     * @param collected 集めた要求
+     */
+    private void dispatch(List<Pending> collected) {
+        long now = System.nanoTime();
+        List<Pending> batch = new ArrayList<>(collected.size());
+        for (Pending pending : collected) {
+            // 待機中にキャンセルされた要求は推論しない
+            if (!pending.future.isDone()) {
+                waitTimer.record(now - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+                batch.add(pending);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizeSummary.record(batch.size());
+
+        CancellationScope batchScope = cancelWhenAllCancelled(batch);
+        try (CancellationScope.Handle bound = batchScope.bind()) {
+            infer(batch);
+        }
+    }
+
+    /**
+     * バッチ推論用のスコープを生成する。バッチ内の全要求がキャンセルされた時点でスコープをキャンセルする。
+     *
+     * @param batch バッチに含める要求
+     * @return バッチ推論用のスコープ
+     */
+    private static CancellationScope cancelWhenAllCancelled(List<Pending> batch) {
+        CancellationScope scope = CancellationScope.create();
+        AtomicInteger waiting = new AtomicInteger(batch.size());
+        for (Pending pending : batch) {
+            pending.future.whenComplete((vector, error) -> {
+                if (pending.future.isCancelled() && waiting.decrementAndGet() == 0) {
+                    scope.cancel();
+                }
+            });
+        }
+        return scope;
+    }
+
+    /**
+     * バッチ推論を実行し、各要求に結果を返す。
+     *
+     * @param batch バッチに含める要求
+     */
+    private void infer(List<Pending> batch) {
+        try {
+            complete(batch, batchFunction.apply(batch.stream().map(Pending::text).toList()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // 特定の入力が原因の失敗を他の要求に波及させないよう、1件ずつ再実行する
+            log.debug("{}: バッチ推論に失敗したため1件ずつ再実行: {}", modelName, e.getMessage());
+            for (Pending pending : batch) {
+                if (pending.future.isDone()) {
+                    continue;
+                }
+                if (closed) {
+                    pending.future.completeExceptionally(e);
+                    continue;
+                }
+                try {
+                    complete(List.of(pending), batchFunction.apply(List.of(pending.text)));
+                } catch (RuntimeException single) {
+                    pending.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private void complete(List<Pending> batch, List<float[]> vectors) {
+        if (vectors.size() != batch.size()) {
+            throw new EmbeddingException("バッチ推論の結果件数が要求件数と一致しません: "
+                    + vectors.size() + " != " + batch.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(vectors.get(i));
+        }
+    }
+
+    /**
+     * 推論待ちの要求。
+     *
+     * @param text 入力テキスト
+     * @param enqueuedNanos キューに入った時刻（{@link System#nanoTime()}）
+     * @param future 結果の受け渡し先
+     */
+    private record Pending(String text, long enqueuedNanos, CompletableFuture<float[]> future) {
+
+        Pending(String text, long enqueuedNanos) {
+            this(text, enqueuedNanos, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import java.nio.FloatBuffer;
+
+/**
+ * ONNXモデルの出力テンソルから文ベクトルを計算するユーティリティ。
+ *
+ * <p>出力はフラットな {@link FloatBuffer}（行優先）から直接読み取り、
+ * 文ごとに結果の {@code float[]} を1つ確保するだけで、トークン単位の配列確保は行わない。</p>
+ */
+final class EmbeddingPooling {
+
+    private EmbeddingPooling() {
+    }
+
+    /**
+     * {@code last_hidden_state} [batch][sequence][hidden] の1行をMean Poolingし、L2正規化する。
+     *
+     * <p>パディングは各行の末尾にあるため、先頭 {@code tokens} 個の位置を合計する。
+     * トークン数での除算はL2正規化で打ち消される（ベクトルの向きを変えない）ため省略し、
+     * 合計と正規化を同じ配列上で行う。</p>
+     *
+     * @param hiddenStates 出力テンソルのデータ
+     * @param row バッチ内の行
+     * @param sequenceLength シーケンス長
+     * @param hiddenSize 隠れ層の次元数
+     * @param tokens 行の実トークン数（パディングを除く）
+     * @return L2正規化された文ベクトル
+     */
+    static float[] meanPoolNormalized(FloatBuffer hiddenStates, int row, int sequenceLength,
+            int hiddenSize, int tokens) {
+        float[] vector = new float[hiddenSize];
+        int offset = row * sequenceLength * hiddenSize;
+        int end = offset + Math.min(tokens, sequenceLength) * hiddenSize;
+        for (int position = offset; position < end; position += hiddenSize) {
+            for (int j = 0; j < hiddenSize; j++) {
+                vector[j] += hiddenStates.get(position + j);
+            }
+        }
+        return normalizeInPlace(vector);
+    }
+
+    /**
+     * {@code sentence_embedding} [batch][hidden] の1行をL2正規化して返す。
+     *
+     * @param embeddings 出力テンソルのデータ
+     * @param row バッチ内の行
+     * @param hiddenSize 次元数
+     * @return L2正規化された文ベクトル
+     */
+    static float[] normalized(FloatBuffer embeddings, int row, int hiddenSize) {
+        float[] vector = new float[hiddenSize];
+        embeddings.get(row * hiddenSize, vector);
+        return normalizeInPlace(vector);
+    }
+
+    /**
+     * ベクトルをその場でL2正規化する。ノルムが0の場合はそのまま返す。
+     *
+     * @param vector 入力ベクトル
+     * @return 正規化した入力ベクトル自身
+     */
+    static float[] normalizeInPlace(float[] vector) {
+        float norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = (float) Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= norm;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,122 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * ONNX入力テンソル用の再利用可能なダイレクトバッファ。
+ *
+ * <p>ダイレクトバッファから作成したテンソルはONNX Runtimeがバッファのメモリをそのまま参照するため、
+ * {@code long[][]} からの作成時に発生するJavaヒープ上のコピーとネイティブ側へのコピーが不要になる。
+ * バッファは推論ごとに確保せず使い回す。テンソルの使用中（推論完了まで）は
+ * 他の推論で使用しないこと。</p>
+ */
+final class InputBuffers {
+
+    private static final int LONG_BYTES = Long.BYTES;
+
+    private LongBuffer inputIds;
+    private LongBuffer attentionMask;
+    private LongBuffer typeIds;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param capacity 初期容量（要素数 = バッチサイズ × シーケンス長）
+     */
+    InputBuffers(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * バッチの入力をパディングしながら書き込む。
+     *
+     * <p>各行はトークンIDを詰めた後、シーケンス長まで0（パディング）で埋める。
+     * アテンションマスクは実トークン位置を1、パディング位置を0とする。</p>
+     *
+     * @param tokenIds 全入力のトークンID（入力順）
+     * @param indices バッチに含める入力の位置
+     * @param sequenceLength パディング後のシーケンス長
+     */
+    void fill(long[][] tokenIds, int[] indices, int sequenceLength) {
+        int size = indices.length * sequenceLength;
+        if (inputIds.capacity() < size) {
+            allocate(size);
+        }
+        inputIds.clear();
+        attentionMask.clear();
+        for (int index : indices) {
+            long[] ids = tokenIds[index];
+            inputIds.put(ids);
+            for (int t = 0; t < ids.length; t++) {
+                attentionMask.put(1L);
+            }
+            for (int t = ids.length; t < sequenceLength; t++) {
+                inputIds.put(0L);
+                attentionMask.put(0L);
+            }
+        }
+        inputIds.flip();
+        attentionMask.flip();
+    }
+
+    /**
+     * バッチのトークンタイプID（{@code token_type_ids}）をパディングしながら書き込む。
+     *
+     * <p>文ペアを入力するモデル（Cross-Encoder）のうち、トークンタイプIDを入力に取るモデルで使用する。
+     * バッファは初回の呼び出し時に確保する。パディング位置は0とする。</p>
+     *
+     * @param tokenTypeIds 全入力のトークンタイプID（入力順。各行の長さはトークンIDと同じ）
+     * @param indices バッチに含める入力の位置
+     * @param sequenceLength パディング後のシーケンス長
+     */
+    void fillTypeIds(long[][] tokenTypeIds, int[] indices, int sequenceLength) {
+        int size = indices.length * sequenceLength;
+        if (typeIds == null || typeIds.capacity() < size) {
+            typeIds = ByteBuffer.allocateDirect(Math.max(size, inputIds.capacity()) * LONG_BYTES)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        typeIds.clear();
+        for (int index : indices) {
+            long[] types = tokenTypeIds[index];
+            typeIds.put(types);
+            for (int t = types.length; t < sequenceLength; t++) {
+                typeIds.put(0L);
+            }
+        }
+        typeIds.flip();
+    }
+
+    /**
+     * 書き込み済みのトークンIDバッファを返す。
+     *
+     * @return トークンID（position=0, limit=要素数）
+     */
+    LongBuffer inputIds() {
+        return inputIds;
+    }
+
+    /**
+     * 書き込み済みのアテンションマスクバッファを返す。
+     *
+     * @return アテンションマスク（position=0, limit=要素数）
+     */
+    LongBuffer attentionMask() {
+        return attentionMask;
+    }
+
+    /**
+     * 書き込み済みのトークンタイプIDバッファを返す。
+     *
+     * @return トークンタイプID（position=0, limit=要素数。{@link #fillTypeIds} を呼び出していない場合はnull）
+     */
+    LongBuffer typeIds() {
+        return typeIds;
+    }
+
+    private void allocate(int capacity) {
+        inputIds = ByteBuffer.allocateDirect(capacity * LONG_BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        attentionMask = ByteBuffer.allocateDirect(capacity * LONG_BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+}
@@ -0,0 +1,83 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * トークン長によるバッチ分割の計画。
+ *
+ * <p>バッチ内の全テキストは最長のテキストに合わせてパディングされるため、
+ * 表の1行（数十トークン）と長い節（数百トークン）が同じバッチに混在すると
+ * 推論の大半がパディングに費やされる。本クラスは入力をトークン長で昇順に並べ、
+ * 2の累乗ごとのバケット（32, 64, 128, ... 最大トークン長）に振り分けたうえで、
+ * バケット内をバッチサイズごとに分割する。各バッチのシーケンス長はバッチ内の最長に揃える。</p>
+ */
+final class LengthBuckets {
+
+    /**
+     * 最小のバケット上限（トークン数）。
+     */
+    static final int MIN_BUCKET = 32;
+
+    private LengthBuckets() {
+    }
+
+    /**
+     * トークン長が属するバケットの上限を返す。
+     *
+     * @param length トークン長
+     * @param maxTokens 最大トークン長（最上位のバケット上限）
+     * @return バケット上限（{@link #MIN_BUCKET} 以上の2の累乗、またはmaxTokens）
+     */
+    static int bucketOf(int length, int maxTokens) {
+        int bucket = MIN_BUCKET;
+        while (bucket < length && bucket < maxTokens) {
+            bucket <<= 1;
+        }
+        return Math.min(bucket, Math.max(maxTokens, MIN_BUCKET));
+    }
+
+    /**
+     * 入力をバケットごとのバッチに分割する。
+     *
+     * @param lengths 各入力のトークン長（入力順）
+     * @param batchSize 1バッチの最大件数
+     * @param maxTokens 最大トークン長
+     * @return バッチのリスト（短いバケットから順）
+     */
+    static List<Batch> plan(int[] lengths, int batchSize, int maxTokens) {
+        int size = Math.max(1, batchSize);
+        int[] order = IntStream.range(0, lengths.length).boxed()
+                .sorted(Comparator.comparingInt(i -> lengths[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        List<Batch> batches = new ArrayList<>();
+        int start = 0;
+        while (start < order.length) {
+            int bucket = bucketOf(lengths[order[start]], maxTokens);
+            int end = start + 1;
+            while (end < order.length && end - start < size
+                    && bucketOf(lengths[order[end]], maxTokens) == bucket) {
+                end++;
+            }
+            int[] indices = Arrays.copyOfRange(order, start, end);
+            batches.add(new Batch(bucket, indices, lengths[order[end - 1]]));
+            start = end;
+        }
+        return batches;
+    }
+
+    /**
+     * 1回の推論で処理するバッチ。
+     *
+     * @param bucket バケット上限（トークン数）
+     * @param indices 含まれる入力の元の位置（トークン長の昇順）
+     * @param sequenceLength パディング後のシーケンス長（バッチ内の最長）
+     */
+    record Batch(int bucket, int[] indices, int sequenceLength) {
+    }
+}
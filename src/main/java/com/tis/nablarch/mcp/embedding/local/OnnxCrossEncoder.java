@@ -0,0 +1,296 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.util.PairList;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.tis.nablarch.mcp.common.CancellationScope;
+import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.OnnxModelConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ONNX Runtimeで実行するCross-Encoder（bge-reranker等）。
+ *
+ * <p>クエリと各パッセージのペアを1つの入力としてモデルに渡し、関連度スコア（0〜1）を返す。
+ * セッションプール（{@link OnnxSessionPool}）・入力バッファ（{@link InputBuffers}）・
+ * トークン長バケット（{@link LengthBuckets}）はEmbeddingクライアントと同じ仕組みを使用する。</p>
+ *
+ * <p>入力のトークン数は次のとおり制限する。</p>
+ * <ul>
+ *   <li>クエリは {@code queryMaxTokens} トークンに切り詰める</li>
+ *   <li>ペア全体が {@code max-tokens} を超える場合はパッセージ側を切り詰める</li>
+ * </ul>
+ *
+ * <p>出力（{@code logits}）が [batch, 1] 又は [batch] の場合はシグモイドを、
+ * [batch, 2] の場合は正例クラスの確率をスコアとする。
+ * モデルが {@code token_type_ids} を入力に取る場合（BERT系）はトークナイザーのタイプIDを渡す。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code rerank.inference} - 1回の推論時間（Timer、tag: model, bucket）</li>
+ * </ul>
+ */
+public class OnnxCrossEncoder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnnxCrossEncoder.class);
+
+    private final OnnxModelConfig config;
+    private final int queryMaxTokens;
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, Timer> inferenceTimers = new ConcurrentHashMap<>();
+    private final Queue<InputBuffers> inputBufferPool = new ConcurrentLinkedQueue<>();
+
+    private OrtEnvironment environment;
+    private OnnxSessionPool sessionPool;
+    private HuggingFaceTokenizer tokenizer;
+    private boolean tokenTypeInput;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param config ONNXモデル設定（max-tokensはクエリとパッセージのペア全体の上限）
+     * @param queryMaxTokens クエリの最大トークン数（0以下の場合は切り詰めない）
+     * @param meterRegistry Micrometerレジストリ（nullの場合はメトリクスを公開しない）
+     */
+    public OnnxCrossEncoder(OnnxModelConfig config, int queryMaxTokens, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.queryMaxTokens = queryMaxTokens;
+        this.meterRegistry = (meterRegistry != null) ? meterRegistry : new SimpleMeterRegistry();
+    }
+
+    /**
+     * モデルとトークナイザーを初期化する。
+     */
+    public void init() {
+        try {
+            logger.info("Cross-Encoderモデルをロード中: {}", config.getModelName());
+            this.environment = OrtEnvironment.getEnvironment();
+            this.sessionPool = OnnxSessionPool.create(environment, config);
+            // ペアが上限を超える場合はパッセージ（2番目の入力）のみを切り詰める
+            this.tokenizer = HuggingFaceTokenizer.newInstance(Path.of(config.getTokenizerPath()), Map.of(
+                    "truncation", "only_second",
+                    "maxLength", String.valueOf(config.getMaxTokens()),
+                    "padding", "false"));
+            OrtSession session = sessionPool.acquire();
+            try {
+                this.tokenTypeInput = session.getInputNames().contains("token_type_ids");
+            } finally {
+                sessionPool.release(session);
+            }
+            logger.info("Cross-Encoderモデルのロード完了: {} (token_type_ids={})",
+                    config.getModelName(), tokenTypeInput);
+        } catch (OrtException | IOException e) {
+            throw new EmbeddingException("Cross-Encoderモデルの初期化に失敗: " + config.getModelName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingException("Cross-Encoderモデルの初期化が中断されました: " + config.getModelName(), e);
+        }
+    }
+
+    /**
+     * クエリと各パッセージの関連度スコアを計算する。
+     *
+     * @param query クエリ
+     * @param passages パッセージのリスト
+     * @return 関連度スコア（0〜1、パッセージの順）
+     */
+    public float[] score(String query, List<String> passages) {
+        if (passages.isEmpty()) {
+            return new float[0];
+        }
+        try {
+            checkCancelled();
+            String cappedQuery = capQuery(query);
+            PairList<String, String> pairs = new PairList<>(passages.size());
+            for (String passage : passages) {
+                pairs.add(cappedQuery, passage);
+            }
+            Encoding[] encodings = tokenizer.batchEncode(pairs);
+
+            long[][] inputIds = new long[encodings.length][];
+            long[][] typeIds = tokenTypeInput ? new long[encodings.length][] : null;
+            for (int i = 0; i < encodings.length; i++) {
+                inputIds[i] = BatchTokenizer.trim(
+                        encodings[i].getIds(), encodings[i].getAttentionMask(), config.getMaxTokens());
+                if (typeIds != null) {
+                    typeIds[i] = Arrays.copyOf(encodings[i].getTypeIds(), inputIds[i].length);
+                }
+            }
+
+            int[] lengths = Arrays.stream(inputIds).mapToInt(ids -> ids.length).toArray();
+            float[] scores = new float[passages.size()];
+            for (LengthBuckets.Batch batch
+                    : LengthBuckets.plan(lengths, config.getBatchSize(), config.getMaxTokens())) {
+                checkCancelled();
+                long start = System.nanoTime();
+                float[] batchScores = infer(inputIds, typeIds, batch);
+                timer(batch.bucket()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                for (int i = 0; i < batch.indices().length; i++) {
+                    scores[batch.indices()[i]] = batchScores[i];
+                }
+            }
+            return scores;
+        } catch (OrtException e) {
+            throw new EmbeddingException("Cross-Encoderの推論に失敗: " + config.getModelName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingException("Cross-Encoderの推論が中断されました: " + config.getModelName(), e);
+        }
+    }
+
+    /**
+     * モデル名を返す。
+     *
+     * @return モデル名
+     */
+    public String getModelName() {
+        return config.getModelName();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (sessionPool != null) {
+                sessionPool.close();
+            }
+            if (tokenizer != null) {
+                tokenizer.close();
+            }
+            logger.info("Cross-Encoderモデルをアンロード: {}", config.getModelName());
+        } catch (Exception e) {
+            logger.warn("Cross-Encoderモデルのクリーンアップ中にエラー: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 出力のlogitsを関連度スコアに変換する。
+     *
+     * @param logits 出力テンソルのデータ
+     * @param shape 出力テンソルの形状
+     * @param batchSize バッチサイズ
+     * @return 関連度スコア（0〜1）
+     */
+    static float[] toScores(FloatBuffer logits, long[] shape, int batchSize) {
+        int width = (shape.length == 1) ? 1 : (shape.length == 2) ? (int) shape[1] : -1;
+        float[] scores = new float[batchSize];
+        if (width == 1) {
+            for (int i = 0; i < batchSize; i++) {
+                scores[i] = sigmoid(logits.get(i));
+            }
+        } else if (width == 2) {
+            // 2クラス分類: softmaxの正例確率 = sigmoid(正例 - 負例)
+            for (int i = 0; i < batchSize; i++) {
+                scores[i] = sigmoid(logits.get(2 * i + 1) - logits.get(2 * i));
+            }
+        } else {
+            throw new EmbeddingException("Cross-Encoderの出力形状に対応していません: " + Arrays.toString(shape));
+        }
+        return scores;
+    }
+
+    private static float sigmoid(float x) {
+        return (float) (1.0 / (1.0 + Math.exp(-x)));
+    }
+
+    /**
+     * クエリを最大トークン数に切り詰める。
+     *
+     * @param query クエリ
+     * @return 切り詰めたクエリ（上限以内の場合はそのまま）
+     */
+    private String capQuery(String query) {
+        if (queryMaxTokens <= 0) {
+            return query;
+        }
+        long[] ids = tokenizer.encode(query, false, false).getIds();
+        if (ids.length <= queryMaxTokens) {
+            return query;
+        }
+        return tokenizer.decode(Arrays.copyOf(ids, queryMaxTokens), true);
+    }
+
+    private float[] infer(long[][] inputIds, long[][] typeIds, LengthBuckets.Batch batch)
+            throws OrtException, InterruptedException {
+        long[] shape = {batch.indices().length, batch.sequenceLength()};
+        OrtSession session = sessionPool.acquire();
+        InputBuffers buffers = inputBufferPool.poll();
+        if (buffers == null) {
+            buffers = new InputBuffers(config.getBatchSize() * config.getMaxTokens());
+        }
+        OnnxTensor types = null;
+        try {
+            buffers.fill(inputIds, batch.indices(), batch.sequenceLength());
+            Map<String, OnnxTensor> inputs = new HashMap<>();
+            if (typeIds != null) {
+                buffers.fillTypeIds(typeIds, batch.indices(), batch.sequenceLength());
+                types = OnnxTensor.createTensor(environment, buffers.typeIds(), shape);
+                inputs.put("token_type_ids", types);
+            }
+            // 推論実行（キャンセル時はterminateで打ち切る。RunOptions解放前に登録解除する）
+            try (OnnxTensor ids = OnnxTensor.createTensor(environment, buffers.inputIds(), shape);
+                 OnnxTensor mask = OnnxTensor.createTensor(environment, buffers.attentionMask(), shape)) {
+                inputs.put("input_ids", ids);
+                inputs.put("attention_mask", mask);
+                try (OrtSession.RunOptions runOptions = new OrtSession.RunOptions();
+                     CancellationScope.Handle registration = CancellationScope.onCancel(() -> terminate(runOptions));
+                     OrtSession.Result result = session.run(inputs, runOptions)) {
+                    OnnxValue output = result.get("logits").orElseGet(() -> (result.size() > 0) ? result.get(0) : null);
+                    if (!(output instanceof OnnxTensor tensor)) {
+                        throw new EmbeddingException("Cross-Encoderの出力を取得できません: " + config.getModelName());
+                    }
+                    return toScores(tensor.getFloatBuffer(), tensor.getInfo().getShape(), batch.indices().length);
+                }
+            }
+        } finally {
+            if (types != null) {
+                types.close();
+            }
+            inputBufferPool.offer(buffers);
+            sessionPool.release(session);
+        }
+    }
+
+    private void checkCancelled() {
+        if (CancellationScope.isCurrentCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new EmbeddingException("Cross-Encoderの推論がキャンセルされました: " + config.getModelName());
+        }
+    }
+
+    private void terminate(OrtSession.RunOptions runOptions) {
+        try {
+            runOptions.setTerminate(true);
+            logger.debug("{}: 推論の打ち切りを要求", config.getModelName());
+        } catch (OrtException e) {
+            logger.debug("{}: 推論の打ち切りに失敗: {}", config.getModelName(), e.getMessage());
+        }
+    }
+
+    private Timer timer(int bucket) {
+        return inferenceTimers.computeIfAbsent(bucket, b -> Timer.builder("rerank.inference")
+                .tag("model", config.getModelName())
+                .tag("bucket", String.valueOf(b))
+                .description("トークン長バケット別のCross-Encoder推論時間")
+                .register(meterRegistry));
+    }
+}
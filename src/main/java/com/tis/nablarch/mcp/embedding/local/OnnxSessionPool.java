@@ -0,0 +1,209 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.OnnxModelConfig;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.SessionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 同一モデルのONNX Runtimeセッションのプール。
+ *
+ * <p>{@code session.pool-size} 個のセッションを生成し、推論ごとに1つを貸し出す。
+ * 各セッションの演算内スレッド数を抑えて複数セッションで並列に推論することで、
+ * 小さなバッチが並ぶ検索時のスループットを上げる。</p>
+ *
+ * <p>ロードするモデルファイルは次の優先順で決定する。</p>
+ * <ol>
+ *   <li>{@code session.optimized-model-path} が存在すれば、最適化済みモデルとしてロード</li>
+ *   <li>{@code session.quantized-model-path} が存在すれば、INT8量子化モデルとしてロード</li>
+ *   <li>{@code model-path}</li>
+ * </ol>
+ * <p>optimized-model-pathが指定されていて存在しない場合は、2・3のモデルをロードした際の
+ * 最適化結果をそのパスに保存する（次回起動時から最適化を省略できる）。
+ * 元のモデルを変更した場合は保存済みファイルを削除すること。</p>
+ */
+final class OnnxSessionPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OnnxSessionPool.class);
+
+    private final List<OrtSession> sessions;
+    private final BlockingQueue<OrtSession> idle;
+
+    private OnnxSessionPool(List<OrtSession> sessions) {
+        this.sessions = sessions;
+        this.idle = new ArrayBlockingQueue<>(sessions.size(), false, sessions);
+    }
+
+    /**
+     * 設定に従ってセッションを生成する。
+     *
+     * @param environment ONNX Runtime環境
+     * @param config ONNXモデル設定
+     * @return セッションプール
+     * @throws OrtException セッションの生成に失敗した場合
+     */
+    static OnnxSessionPool create(OrtEnvironment environment, OnnxModelConfig config) throws OrtException {
+        SessionConfig sessionConfig = config.getSession();
+        int poolSize = Math.max(1, sessionConfig.getPoolSize());
+        int intraOpThreads = resolveIntraOpThreads(sessionConfig, Runtime.getRuntime().availableProcessors());
+
+        String optimizedPath = sessionConfig.getOptimizedModelPath();
+        boolean hasOptimized = isPresent(optimizedPath) && Files.isRegularFile(Path.of(optimizedPath));
+        String modelPath = hasOptimized ? optimizedPath : resolveSourceModelPath(config);
+        String saveOptimizedTo = (!hasOptimized && isPresent(optimizedPath)) ? optimizedPath : null;
+
+        List<OrtSession> sessions = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                // 最適化結果の保存は最初のセッションのみで行う
+                try (OrtSession.SessionOptions options =
+                             options(sessionConfig, intraOpThreads, (i == 0) ? saveOptimizedTo : null)) {
+                    sessions.add(environment.createSession(modelPath, options));
+                }
+            }
+        } catch (OrtException | RuntimeException e) {
+            sessions.forEach(OnnxSessionPool::closeQuietly);
+            throw e;
+        }
+
+        log.info("ONNXセッションを生成: model={}, file={}, poolSize={}, intraOpThreads={}, interOpThreads={},"
+                + " optimizationLevel={}, memoryArena={}, memoryPattern={}",
+                config.getModelName(), modelPath, poolSize, intraOpThreads, sessionConfig.getInterOpThreads(),
+                sessionConfig.getOptimizationLevel(), sessionConfig.isMemoryArena(), sessionConfig.isMemoryPattern());
+        if (saveOptimizedTo != null) {
+            log.info("最適化済みモデルを保存: {}", saveOptimizedTo);
+        }
+        return new OnnxSessionPool(sessions);
+    }
+
+    /**
+     * セッションを借りる。全セッションが使用中の場合は返却を待つ。
+     *
+     * @return セッション（使用後は {@link #release(OrtSession)} で返却すること）
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    OrtSession acquire() throws InterruptedException {
+        return idle.take();
+    }
+
+    /**
+     * 借りたセッションを返却する。
+     *
+     * @param session セッション
+     */
+    void release(OrtSession session) {
+        idle.offer(session);
+    }
+
+    /**
+     * セッション数を返す。
+     *
+     * @return セッション数
+     */
+    int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(OnnxSessionPool::closeQuietly);
+    }
+
+    /**
+     * 演算内スレッド数を解決する。
+     *
+     * @param config セッション設定
+     * @param processors 利用可能なCPUコア数
+     * @return 演算内スレッド数（明示指定がなければコア数をセッション数で等分）
+     */
+    static int resolveIntraOpThreads(SessionConfig config, int processors) {
+        if (config.getIntraOpThreads() > 0) {
+            return config.getIntraOpThreads();
+        }
+        return Math.max(1, processors / Math.max(1, config.getPoolSize()));
+    }
+
+    /**
+     * グラフ最適化レベルを解決する。
+     *
+     * @param name レベル名（none / basic / extended / all）
+     * @return 最適化レベル（不明な値の場合はall）
+     */
+    static OrtSession.SessionOptions.OptLevel resolveOptimizationLevel(String name) {
+        String level = (name != null) ? name.toLowerCase(Locale.ROOT) : "all";
+        return switch (level) {
+            case "none" -> OrtSession.SessionOptions.OptLevel.NO_OPT;
+            case "basic" -> OrtSession.SessionOptions.OptLevel.BASIC_OPT;
+            case "extended" -> OrtSession.SessionOptions.OptLevel.EXTENDED_OPT;
+            case "all" -> OrtSession.SessionOptions.OptLevel.ALL_OPT;
+            default -> {
+                log.warn("不明なグラフ最適化レベル: {}。allを使用する", name);
+                yield OrtSession.SessionOptions.OptLevel.ALL_OPT;
+            }
+        };
+    }
+
+    /**
+     * 量子化モデルが存在すればそのパスを、なければmodel-pathを返す。
+     *
+     * @param config ONNXモデル設定
+     * @return ロードするモデルファイルのパス
+     */
+    static String resolveSourceModelPath(OnnxModelConfig config) {
+        String quantizedPath = config.getSession().getQuantizedModelPath();
+        if (isPresent(quantizedPath)) {
+            if (Files.isRegularFile(Path.of(quantizedPath))) {
+                return quantizedPath;
+            }
+            log.warn("量子化モデルが見つからないため元のモデルを使用する: {}", quantizedPath);
+        }
+        return config.getModelPath();
+    }
+
+    private static OrtSession.SessionOptions options(
+            SessionConfig config, int intraOpThreads, String saveOptimizedTo) throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        try {
+            options.setIntraOpNumThreads(intraOpThreads);
+            if (config.getInterOpThreads() > 0) {
+                options.setInterOpNumThreads(config.getInterOpThreads());
+                if (config.getInterOpThreads() > 1) {
+                    options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.PARALLEL);
+                }
+            }
+            options.setOptimizationLevel(resolveOptimizationLevel(config.getOptimizationLevel()));
+            options.setCPUArenaAllocator(config.isMemoryArena());
+            options.setMemoryPatternOptimization(config.isMemoryPattern());
+            if (saveOptimizedTo != null) {
+                options.setOptimizedModelFilePath(saveOptimizedTo);
+            }
+            return options;
+        } catch (OrtException | RuntimeException e) {
+            options.close();
+            throw e;
+        }
+    }
+
+    private static boolean isPresent(String path) {
+        return path != null && !path.isBlank();
+    }
+
+    private static void closeQuietly(OrtSession session) {
+        try {
+            session.close();
+        } catch (OrtException e) {
+            log.warn("ONNXセッションのクローズに失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.common.ContentHash;
+import com.tis.nablarch.mcp.db.repository.EmbeddingCacheRepository;
+import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 保存済みのEmbeddingを再利用するEmbedding生成処理。
+ *
+ * <p>チャンク本文のSHA-256をキーに {@link EmbeddingCacheRepository} を参照し、
+ * 同じモデルで同じ本文のベクトルが保存済みであれば再利用する。
+ * 保存されていない本文のみをEmbeddingClientで生成し、結果を保存する。
+ * 同じバッチ内で重複する本文も1回だけ生成する。</p>
+ *
+ * <p>公式Docsは更新日時を取得できず、増分取り込みでも全ページを取り込み直すため、
+ * 本文に変更のないチャンクの推論を省くことで再取り込みの時間の大半を削減する。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "nablarch.mcp.ingestion.enabled", havingValue = "true", matchIfMissing = false)
+public class ContentHashEmbedder {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentHashEmbedder.class);
+
+    private final EmbeddingCacheRepository repository;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param repository Embeddingキャッシュリポジトリ
+     */
+    public ContentHashEmbedder(EmbeddingCacheRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * テキストのEmbeddingを取得する。保存済みのベクトルがあれば再利用する。
+     *
+     * @param client Embeddingクライアント（モデル名をキャッシュのキーに使用する）
+     * @param texts テキストのリスト
+     * @return Embeddingベクトルのリスト（入力順）
+     */
+    public List<float[]> embedBatch(EmbeddingClient client, List<String> texts) {
+        String model = client.getModelName();
+        String[] hashes = new String[texts.size()];
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            hashes[i] = ContentHash.sha256Hex(texts.get(i));
+            distinct.putIfAbsent(hashes[i], texts.get(i));
+        }
+
+        Map<String, float[]> vectors = repository.findByHashes(model, distinct.keySet());
+        int reused = vectors.size();
+
+        List<String> missHashes = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        for (Map.Entry<String, String> entry : distinct.entrySet()) {
+            if (!vectors.containsKey(entry.getKey())) {
+                missHashes.add(entry.getKey());
+                missTexts.add(entry.getValue());
+            }
+        }
+        if (!missTexts.isEmpty()) {
+            List<float[]> embedded = client.embedBatch(missTexts);
+            Map<String, float[]> created = new LinkedHashMap<>();
+            for (int i = 0; i < missHashes.size(); i++) {
+                created.put(missHashes.get(i), embedded.get(i));
+            }
+            repository.saveAll(model, created);
+            vectors.putAll(created);
+        }
+
+        log.debug("Embedding取得: model={}, texts={}, reused={}, embedded={}",
+                model, texts.size(), reused, missTexts.size());
+        return Arrays.stream(hashes).map(vectors::get).toList();
+    }
+}
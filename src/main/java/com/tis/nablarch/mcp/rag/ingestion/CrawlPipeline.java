@@ -0,0 +1,347 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.rag.chunking.DocumentChunkDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 取得→パース・チャンキング→Embedding・格納をステージごとに並行実行するクローリングパイプライン。
+ *
+ * <p>各ステージは上限付きキューで接続し、ネットワーク待ち・HTMLパース・ONNX推論を重ねて実行する。
+ * 後段が詰まった場合は前段がキューへの投入で待機するため、取得済みHTMLが際限なく溜まることはない。</p>
+ * <ol>
+ *   <li>取得: {@code fetchConcurrency} スレッドで並行取得。同一ホストへの間隔は {@link HostRateLimiter} で制御</li>
+ *   <li>パース・チャンキング: {@code parseConcurrency} スレッドで並行処理</li>
+ *   <li>Embedding・格納: 呼び出しスレッドでチャンクを {@code batchSize} 件ずつまとめて処理</li>
+ * </ol>
+ *
+ * <p>個別ページの失敗は隔離し、他のページの処理を続行する。格納順序はページの取得完了順となる。
+ * 取得処理が未変更（null）を返したページはパース以降を省略し、成功として数える。</p>
+ *
+ * <p>各ページの結果は {@link Checkpoint} に通知する。チャンクを含むページは、
+ * そのチャンクの格納が完了した時点で格納済みとして通知する。</p>
+ */
+final class CrawlPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlPipeline.class);
+
+    /** パースステージへの終了通知 */
+    private static final Fetched END = new Fetched(null, null, null);
+
+    /** 通知を受け取らないチェックポイント */
+    private static final Checkpoint NO_CHECKPOINT = new Checkpoint() { };
+
+    /**
+     * ページ取得処理。
+     */
+    @FunctionalInterface
+    interface Fetcher {
+
+        /**
+         * ページを取得する。
+         *
+         * @param url URL
+         * @return HTML（前回の取り込みから変更がなく、処理を省略する場合はnull）
+         * @throws Exception 取得に失敗した場合
+         */
+        String fetch(String url) throws Exception;
+    }
+
+    /**
+     * パース・チャンキング処理。
+     */
+    @FunctionalInterface
+    interface PageProcessor {
+
+        /**
+         * HTMLをチャンクに分割する。
+         *
+         * @param url URL
+         * @param html HTML
+         * @return チャンクのリスト
+         * @throws Exception 処理に失敗した場合
+         */
+        List<DocumentChunkDto> process(String url, String html) throws Exception;
+    }
+
+    /**
+     * Embedding・格納処理。
+     */
+    @FunctionalInterface
+    interface ChunkSink {
+
+        /**
+         * チャンクをEmbeddingして格納する。
+         *
+         * @param chunks チャンクのリスト
+         * @throws Exception 処理に失敗した場合
+         */
+        void store(List<DocumentChunkDto> chunks) throws Exception;
+    }
+
+    /**
+     * ページ単位の処理結果の通知先。呼び出しスレッド（Embedding・格納ステージ）から呼び出す。
+     */
+    interface Checkpoint {
+
+        /**
+         * チャンクの格納が完了したページを通知する（チャンクなし・未変更のページを含む）。
+         *
+         * @param chunkCounts URL→格納したチャンク数（取得完了順）
+         */
+        default void stored(Map<String, Integer> chunkCounts) {
+        }
+
+        /**
+         * 失敗したページを通知する。
+         *
+         * @param url URL
+         * @param error エラーメッセージ
+         */
+        default void failed(String url, String error) {
+        }
+    }
+
+    private final String name;
+    private final int fetchConcurrency;
+    private final int parseConcurrency;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final HostRateLimiter rateLimiter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param name パイプライン名（スレッド名に使用）
+     * @param fetchConcurrency 取得の並行数
+     * @param parseConcurrency パース・チャンキングの並行数
+     * @param queueCapacity ステージ間キューの容量（ページ数）
+     * @param batchSize Embedding・格納の単位（チャンク数）
+     * @param rateLimiter ホスト単位のリクエスト間隔制御
+     */
+    CrawlPipeline(String name, int fetchConcurrency, int parseConcurrency, int queueCapacity,
+            int batchSize, HostRateLimiter rateLimiter) {
+        this.name = name;
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.parseConcurrency = Math.max(1, parseConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * URL一覧を処理する。
+     *
+     * @param urls 処理対象のURLリスト
+     * @param fetcher ページ取得処理
+     * @param processor パース・チャンキング処理
+     * @param sink Embedding・格納処理
+     * @return 取り込み結果
+     */
+    IngestionResult run(List<String> urls, Fetcher fetcher, PageProcessor processor, ChunkSink sink) {
+        return run(urls, fetcher, processor, sink, NO_CHECKPOINT);
+    }
+
+    /**
+     * URL一覧を処理し、ページ単位の処理結果をチェックポイントに通知する。
+     *
+     * @param urls 処理対象のURLリスト
+     * @param fetcher ページ取得処理
+     * @param processor パース・チャンキング処理
+     * @param sink Embedding・格納処理
+     * @param checkpoint 処理結果の通知先
+     * @return 取り込み結果
+     */
+    IngestionResult run(List<String> urls, Fetcher fetcher, PageProcessor processor, ChunkSink sink,
+            Checkpoint checkpoint) {
+        BlockingQueue<Fetched> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Page> pages = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService fetchPool = Executors.newFixedThreadPool(fetchConcurrency, threads(name + "-fetch-"));
+        ExecutorService parsePool = Executors.newFixedThreadPool(parseConcurrency, threads(name + "-parse-"));
+
+        int success = 0;
+        int unchanged = 0;
+        List<String> errors = new ArrayList<>();
+        try {
+            AtomicInteger remaining = new AtomicInteger(urls.size());
+            for (String url : urls) {
+                fetchPool.execute(() -> fetch(url, fetcher, fetched, remaining));
+            }
+            for (int i = 0; i < parseConcurrency; i++) {
+                parsePool.execute(() -> parse(processor, fetched, pages));
+            }
+
+            List<DocumentChunkDto> pending = new ArrayList<>();
+            Map<String, Integer> pendingUrls = new LinkedHashMap<>();
+            // チャンクのないページ（未変更を含む）は次の格納時にまとめて通知する
+            Map<String, Integer> settled = new LinkedHashMap<>();
+            for (int i = 0; i < urls.size(); i++) {
+                Page page = pages.take();
+                if (page.error() != null) {
+                    errors.add("[" + page.url() + "] " + page.error());
+                    checkpoint.failed(page.url(), page.error());
+                    continue;
+                }
+                success++;
+                if (page.unchanged()) {
+                    unchanged++;
+                }
+                if (page.chunks().isEmpty()) {
+                    settled.put(page.url(), 0);
+                    continue;
+                }
+                pending.addAll(page.chunks());
+                pendingUrls.put(page.url(), page.chunks().size());
+                if (pending.size() >= batchSize) {
+                    success -= store(sink, pending, pendingUrls, errors, checkpoint);
+                    pending = new ArrayList<>();
+                    pendingUrls = new LinkedHashMap<>();
+                    settled = notifySettled(checkpoint, settled);
+                }
+            }
+            if (!pending.isEmpty()) {
+                success -= store(sink, pending, pendingUrls, errors, checkpoint);
+            }
+            notifySettled(checkpoint, settled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add("[" + name + "] 処理が中断された: " + e.getMessage());
+        } finally {
+            fetchPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+        if (unchanged > 0) {
+            log.info("未変更のためスキップしたページ: {}件", unchanged);
+        }
+        return new IngestionResult(urls.size(), success, errors.size(), errors);
+    }
+
+    private void fetch(String url, Fetcher fetcher, BlockingQueue<Fetched> fetched, AtomicInteger remaining) {
+        try {
+            Fetched result;
+            try {
+                rateLimiter.acquire(url);
+                String html = fetcher.fetch(url);
+                if (html == null) {
+                    result = new Fetched(url, null, null);
+                } else if (html.isBlank()) {
+                    result = new Fetched(url, null, "空のレスポンス");
+                } else {
+                    result = new Fetched(url, html, null);
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable e) {
+                // Errorも含めてページの失敗として扱う（未処理のページが残ると格納側が待ち続けるため）
+                log.warn("ドキュメント取得失敗（障害隔離）: url={}, error={}", url, errorMessage(e));
+                result = new Fetched(url, null, errorMessage(e));
+            }
+            fetched.put(result);
+            if (remaining.decrementAndGet() == 0) {
+                for (int i = 0; i < parseConcurrency; i++) {
+                    fetched.put(END);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void parse(PageProcessor processor, BlockingQueue<Fetched> fetched, BlockingQueue<Page> pages) {
+        try {
+            while (true) {
+                Fetched item = fetched.take();
+                if (item == END) {
+                    return;
+                }
+                Page page;
+                if (item.error() != null) {
+                    page = new Page(item.url(), List.of(), item.error(), false);
+                } else if (item.html() == null) {
+                    page = new Page(item.url(), List.of(), null, true);
+                } else {
+                    try {
+                        page = new Page(item.url(), processor.process(item.url(), item.html()), null, false);
+                    } catch (Throwable e) {
+                        log.warn("ドキュメント取り込み失敗（障害隔離）: url={}, error={}", item.url(), errorMessage(e));
+                        page = new Page(item.url(), List.of(), errorMessage(e), false);
+                    }
+                }
+                pages.put(page);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * チャンクを格納する。失敗した場合は含まれる全ページをエラーとして記録する。
+     *
+     * @param sink Embedding・格納処理
+     * @param chunks チャンクのリスト
+     * @param urls チャンクの取得元ページ→チャンク数
+     * @param errors エラーメッセージの出力先
+     * @param checkpoint 処理結果の通知先
+     * @return 失敗したページ数
+     */
+    private static int store(ChunkSink sink, List<DocumentChunkDto> chunks, Map<String, Integer> urls,
+            List<String> errors, Checkpoint checkpoint) {
+        try {
+            sink.store(chunks);
+        } catch (Exception e) {
+            log.warn("チャンクのEmbedding/格納に失敗: pages={}, error={}", urls.size(), e.getMessage());
+            for (String url : urls.keySet()) {
+                errors.add("[" + url + "] " + e.getMessage());
+                checkpoint.failed(url, e.getMessage());
+            }
+            return urls.size();
+        }
+        checkpoint.stored(urls);
+        return 0;
+    }
+
+    /**
+     * ページの失敗として記録するエラーメッセージを返す。
+     * メッセージのない例外（{@link StackOverflowError} 等）は例外クラス名とする（nullは成功を表すため）。
+     *
+     * @param e 発生した例外
+     * @return エラーメッセージ
+     */
+    private static String errorMessage(Throwable e) {
+        return (e.getMessage() != null) ? e.getMessage() : e.getClass().getName();
+    }
+
+    private static Map<String, Integer> notifySettled(Checkpoint checkpoint, Map<String, Integer> settled) {
+        if (settled.isEmpty()) {
+            return settled;
+        }
+        checkpoint.stored(settled);
+        return new LinkedHashMap<>();
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Fetched(String url, String html, String error) {
+    }
+
+    private record Page(String url, List<DocumentChunkDto> chunks, String error, boolean unchanged) {
+    }
+}
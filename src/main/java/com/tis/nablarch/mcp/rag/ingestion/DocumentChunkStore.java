@@ -0,0 +1,101 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
+import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import com.tis.nablarch.mcp.rag.chunking.DocumentChunkDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * チャンクのEmbedding生成とdocument_chunksへの格納を行う、取り込みパイプライン共通の処理。
+ *
+ * <p>Embeddingはバッチサイズ単位で生成する。{@link ContentHashEmbedder} が設定されている場合は
+ * 本文に変更のないチャンクの保存済みベクトルを再利用する。</p>
+ *
+ * <p>{@link DocumentChunkCopyWriter} が設定されている場合は、全チャンクをCOPYで一括格納する。
+ * 設定されていない場合は1行ずつJPAで保存し、Embeddingを更新した後にコーパス世代を加算する。
+ * いずれの場合も同じページ（ソースとURL）の既存チャンクは置き換えられるため、
+ * 1ページ分のチャンクは1回の {@link #store} にまとめて渡すこと。</p>
+ */
+final class DocumentChunkStore {
+
+    private final EmbeddingClient embeddingClient;
+    private final DocumentChunkRepository repository;
+    private final ContentHashEmbedder contentHashEmbedder;
+    private final DocumentChunkCopyWriter copyWriter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param embeddingClient Embeddingクライアント
+     * @param repository ドキュメントチャンクリポジトリ
+     * @param contentHashEmbedder 保存済みEmbeddingを再利用するEmbedding生成処理（nullの場合は毎回生成する）
+     * @param copyWriter COPYによる一括書き込み（nullの場合は1行ずつ保存する）
+     */
+    DocumentChunkStore(EmbeddingClient embeddingClient, DocumentChunkRepository repository,
+            ContentHashEmbedder contentHashEmbedder, DocumentChunkCopyWriter copyWriter) {
+        this.embeddingClient = embeddingClient;
+        this.repository = repository;
+        this.contentHashEmbedder = contentHashEmbedder;
+        this.copyWriter = copyWriter;
+    }
+
+    /**
+     * チャンクのEmbeddingを生成して格納する。
+     *
+     * <p>全チャンクのEmbedding生成が完了してから書き込むため、生成に失敗した場合は既存のチャンクを変更しない。</p>
+     *
+     * @param chunks 格納対象のチャンクリスト
+     * @param batchSize Embedding生成のバッチサイズ
+     * @param toEntity チャンクDTOからエンティティへの変換
+     */
+    void store(List<DocumentChunkDto> chunks, int batchSize, Function<DocumentChunkDto, DocumentChunk> toEntity) {
+        List<DocumentChunk> entities = new ArrayList<>(chunks.size());
+        List<float[]> vectors = new ArrayList<>(chunks.size());
+
+        for (int i = 0; i < chunks.size(); i += batchSize) {
+            List<DocumentChunkDto> batch = chunks.subList(i, Math.min(i + batchSize, chunks.size()));
+            List<String> texts = batch.stream()
+                    .map(DocumentChunkDto::content)
+                    .toList();
+            List<float[]> embeddings = embed(texts);
+
+            for (int j = 0; j < batch.size(); j++) {
+                entities.add(toEntity.apply(batch.get(j)));
+                vectors.add(embeddings.get(j));
+            }
+        }
+
+        if (copyWriter != null) {
+            copyWriter.write(entities, vectors);
+            return;
+        }
+
+        // COPYによる書き込みと同様に、同じページの既存チャンクを削除してから保存する
+        entities.stream()
+                .filter(entity -> entity.getUrl() != null)
+                .map(entity -> Map.entry(entity.getSource(), entity.getUrl()))
+                .distinct()
+                .forEach(page -> repository.deleteBySourceAndUrl(page.getKey(), page.getValue()));
+        for (int i = 0; i < entities.size(); i++) {
+            DocumentChunk saved = repository.save(entities.get(i));
+            // Embedding更新（PGvectorとしてバインド）
+            repository.updateEmbedding(saved.getId(), vectors.get(i));
+        }
+        if (!entities.isEmpty()) {
+            repository.bumpCorpusGeneration();
+        }
+    }
+
+    private List<float[]> embed(List<String> texts) {
+        if (contentHashEmbedder == null) {
+            return embeddingClient.embedBatch(texts);
+        }
+        return contentHashEmbedder.embedBatch(embeddingClient, texts);
+    }
+}
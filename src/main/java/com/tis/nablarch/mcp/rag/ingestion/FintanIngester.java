@@ -1,6 +1,7 @@
 package com.tis.nablarch.mcp.rag.ingestion;
 
 import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
 import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
 import com.tis.nablarch.mcp.rag.chunking.ChunkingService;
@@ -11,15 +12,18 @@ import com.tis.nablarch.mcp.rag.parser.MarkdownDocumentParser;
 import com.tis.nablarch.mcp.rag.parser.ParsedDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -50,13 +54,18 @@ public class FintanIngester implements DocumentIngester {
     private static final String SOURCE_NAME = "fintan";
     private static final String SOURCE_TYPE = "documentation";
 
+    /** ページ取得のタイムアウト */
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(30);
+
     private final MarkdownDocumentParser markdownParser;
     private final HtmlDocumentParser htmlParser;
     private final ChunkingService chunkingService;
-    private final EmbeddingClient embeddingClient;
     private final DocumentChunkRepository repository;
     private final WebClient webClient;
     private final FintanIngestionConfig config;
+    private final DocumentChunkStore chunkStore;
+    private final PageCache pageCache;
+    private final IngestionJobService jobService;
 
     /**
      * コンストラクタ。
@@ -77,13 +86,47 @@ public class FintanIngester implements DocumentIngester {
             DocumentChunkRepository repository,
             WebClient webClient,
             FintanIngestionConfig config) {
+        this(markdownParser, htmlParser, chunkingService, embeddingClient, repository, webClient, config,
+                null, null, null, null);
+    }
+
+    /**
+     * コンストラクタ（保存済みEmbeddingの再利用・ページキャッシュ・COPYによる一括書き込み・ジョブ記録あり）。
+     *
+     * @param markdownParser Markdownパーサー
+     * @param htmlParser HTMLパーサー
+     * @param chunkingService チャンキングサービス
+     * @param embeddingClient Embeddingクライアント（Jina v4）
+     * @param repository ドキュメントチャンクリポジトリ
+     * @param webClient HTTPクライアント
+     * @param config Fintan取込設定
+     * @param contentHashEmbedder 保存済みEmbeddingを再利用するEmbedding生成処理（nullの場合は毎回生成する）
+     * @param pageCache 取得ページのディスクキャッシュ（nullの場合は毎回取得する）
+     * @param copyWriter COPYによる一括書き込み（nullの場合は1行ずつ保存する）
+     * @param jobService 取り込みジョブサービス（nullの場合は処理状態を記録しない）
+     */
+    @Autowired
+    public FintanIngester(
+            MarkdownDocumentParser markdownParser,
+            HtmlDocumentParser htmlParser,
+            ChunkingService chunkingService,
+            @org.springframework.beans.factory.annotation.Qualifier("document") EmbeddingClient embeddingClient,
+            DocumentChunkRepository repository,
+            WebClient webClient,
+            FintanIngestionConfig config,
+            ContentHashEmbedder contentHashEmbedder,
+            PageCache pageCache,
+            DocumentChunkCopyWriter copyWriter,
+            IngestionJobService jobService) {
         this.markdownParser = markdownParser;
         this.htmlParser = htmlParser;
         this.chunkingService = chunkingService;
-        this.embeddingClient = embeddingClient;
         this.repository = repository;
         this.webClient = webClient;
         this.config = config;
+        this.chunkStore = new DocumentChunkStore(embeddingClient, repository, contentHashEmbedder, copyWriter);
+        this.pageCache = pageCache;
+        this.jobService = jobService;
     }
 
     /**
@@ -101,7 +144,7 @@ public class FintanIngester implements DocumentIngester {
         log.info("Fintan全記事取込を開始します (tags: {})", config.getSearchTags());
 
         List<String> articleUrls = fetchArticleUrls();
-        return processArticles(articleUrls);
+        return processArticles(articleUrls, IngestionJob.MODE_FULL);
     }
 
     /**
@@ -134,7 +177,7 @@ public class FintanIngester implements DocumentIngester {
 
         log.info("増分取込: 全{}件中、新規{}件を取込", articleUrls.size(), newUrls.size());
 
-        return processArticles(newUrls);
+        return processArticles(newUrls, IngestionJob.MODE_INCREMENTAL);
     }
 
     @Override
@@ -155,18 +198,24 @@ public class FintanIngester implements DocumentIngester {
         log.debug("Fintan記事一覧取得: {}", searchUrl);
 
         try {
-            String html = webClient.get()
-                    .uri(searchUrl)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+            String html = isPageCacheEnabled()
+                    ? pageCache.fetch(webClient, searchUrl, FETCH_TIMEOUT).html()
+                    : webClient.get()
+                            .uri(searchUrl)
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .block();
 
             if (html == null || html.isBlank()) {
                 log.warn("Fintan記事一覧が空です: {}", searchUrl);
                 return List.of();
             }
 
-            return extractArticleUrls(html);
+            List<String> urls = extractArticleUrls(html);
+            if (isPageCacheEnabled()) {
+                pageCache.commit(searchUrl);
+            }
+            return urls;
         } catch (Exception e) {
             log.error("Fintan記事一覧の取得に失敗: {}", e.getMessage(), e);
             return List.of();
@@ -217,12 +266,19 @@ public class FintanIngester implements DocumentIngester {
      * 記事リストを処理する。
      *
      * <p>各記事について取得→パース→チャンキング→Embedding→格納を実行する。
-     * 個別記事の障害は隔離し、他の記事の処理を継続する。</p>
+     * 個別記事の障害は隔離し、他の記事の処理を継続する。
+     * 記事ごとの処理状態をジョブに記録し、未完了のジョブを再開した場合は格納済みの記事を処理しない。
+     * ページキャッシュには、チャンクの格納が完了した記事のみを保存する。</p>
      *
-     * @param articleUrls 記事URLリスト
+     * @param urls 記事URLリスト
+     * @param mode 取り込みモード
      * @return 取込結果
      */
-    private IngestionResult processArticles(List<String> articleUrls) {
+    private IngestionResult processArticles(List<String> urls, String mode) {
+        IngestionJob job = (jobService != null)
+                ? jobService.start(SOURCE_NAME, mode, urls)
+                : IngestionJob.untracked(SOURCE_NAME, mode, urls);
+        List<String> articleUrls = job.targets();
         int processed = 0;
         int success = 0;
         int errors = 0;
@@ -231,24 +287,32 @@ public class FintanIngester implements DocumentIngester {
         for (String url : articleUrls) {
             processed++;
             try {
-                processArticle(url);
+                int chunkCount = processArticle(url);
+                if (isPageCacheEnabled()) {
+                    pageCache.commit(url);
+                }
+                job.stored(Map.of(url, chunkCount));
                 success++;
                 log.info("記事取込完了 ({}/{}): {}", processed, articleUrls.size(), url);
             } catch (Exception e) {
                 errors++;
                 String errorMsg = String.format("記事取込失敗 [%s]: %s", url, e.getMessage());
                 errorMessages.add(errorMsg);
+                if (isPageCacheEnabled()) {
+                    pageCache.discard(url);
+                }
+                job.failed(url, e.getMessage());
                 log.warn(errorMsg, e);
             }
 
-            // robots.txt準拠のディレイ
-            if (processed < articleUrls.size()) {
+            // robots.txt準拠のディレイ（オフラインモードではネットワークにアクセスしないため不要）
+            if (processed < articleUrls.size() && !(isPageCacheEnabled() && pageCache.isOffline())) {
                 sleep(config.getDelayMs());
             }
         }
 
         log.info("Fintan取込完了: 処理={}, 成功={}, エラー={}", processed, success, errors);
-        return new IngestionResult(processed, success, errors, errorMessages);
+        return job.finish(new IngestionResult(processed, success, errors, errorMessages));
     }
 
     /**
@@ -257,10 +321,14 @@ public class FintanIngester implements DocumentIngester {
      * <p>リトライ付きで記事を取得し、パース→チャンキング→Embedding→格納を実行する。</p>
      *
      * @param url 記事URL
+     * @return 格納したチャンク数
      * @throws RuntimeException リトライ上限を超えて失敗した場合
      */
-    void processArticle(String url) {
-        String content = fetchWithRetry(url);
+    int processArticle(String url) {
+        // ページキャッシュ有効時は条件付きGETで取得し、未変更（304）の場合は保存済みの本文を使用する
+        String content = isPageCacheEnabled()
+                ? withRetry(url, () -> pageCache.fetch(webClient, url, FETCH_TIMEOUT).html())
+                : fetchWithRetry(url);
 
         // コンテンツタイプ判定とパース
         List<ParsedDocument> parsedDocs = parseContent(content, url);
@@ -273,11 +341,12 @@ public class FintanIngester implements DocumentIngester {
 
         if (allChunks.isEmpty()) {
             log.debug("チャンク生成なし: {}", url);
-            return;
+            return 0;
         }
 
         // Embeddingとバッチ格納
         embedAndStore(allChunks, url);
+        return allChunks.size();
     }
 
     /**
@@ -318,39 +387,14 @@ public class FintanIngester implements DocumentIngester {
     /**
      * チャンクのEmbeddingを生成し、DBに格納する。
      *
-     * <p>バッチサイズに応じてEmbeddingを分割生成し、
-     * 各チャンクをDocumentChunkエンティティとして保存した後、
-     * Embeddingベクトルをネイティブクエリで更新する。</p>
+     * <p>バッチサイズに応じてEmbeddingを分割生成し、{@link DocumentChunkStore} で格納する
+     * （COPYによる一括書き込みが有効な場合は記事単位でまとめて書き込む）。</p>
      *
      * @param chunks チャンクDTOリスト
      * @param sourceUrl 元記事のURL
      */
     private void embedAndStore(List<DocumentChunkDto> chunks, String sourceUrl) {
-        int batchSize = config.getBatchSize();
-
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, chunks.size());
-            List<DocumentChunkDto> batch = chunks.subList(i, end);
-
-            // バッチEmbedding生成
-            List<String> contents = batch.stream()
-                    .map(DocumentChunkDto::content)
-                    .toList();
-            List<float[]> embeddings = embeddingClient.embedBatch(contents);
-
-            // 格納
-            for (int j = 0; j < batch.size(); j++) {
-                DocumentChunkDto chunkDto = batch.get(j);
-                float[] embedding = embeddings.get(j);
-
-                DocumentChunk entity = toEntity(chunkDto, sourceUrl);
-                DocumentChunk saved = repository.save(entity);
-
-                // Embeddingベクトルをネイティブクエリで更新
-                String vectorStr = toVectorString(embedding);
-                repository.updateEmbedding(saved.getId(), vectorStr);
-            }
-        }
+        chunkStore.store(chunks, config.getBatchSize(), dto -> toEntity(dto, sourceUrl));
 
         log.debug("チャンク格納完了: {}件 (URL: {})", chunks.size(), sourceUrl);
     }
@@ -385,41 +429,39 @@ public class FintanIngester implements DocumentIngester {
     }
 
     /**
-     * float配列をpgvectorのベクトル文字列表現に変換する。
+     * リトライ付きでURLのコンテンツを取得する。
      *
-     * @param embedding Embeddingベクトル
-     * @return "[0.1,0.2,...]" 形式の文字列
+     * @param url 取得対象URL
+     * @return コンテンツ文字列
+     * @throws RuntimeException リトライ上限を超えて失敗した場合
      */
-    private String toVectorString(float[] embedding) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            if (i > 0) {
-                sb.append(",");
-            }
-            sb.append(embedding[i]);
-        }
-        sb.append("]");
-        return sb.toString();
+    String fetchWithRetry(String url) {
+        return withRetry(url, () -> webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block());
+    }
+
+    private boolean isPageCacheEnabled() {
+        return pageCache != null && pageCache.isEnabled();
     }
 
     /**
-     * リトライ付きでURLのコンテンツを取得する。
+     * 空でないコンテンツが得られるまで、リトライ上限まで取得処理を繰り返す。
      *
-     * @param url 取得対象URL
+     * @param url 取得対象URL（ログ・エラーメッセージ用）
+     * @param fetcher 取得処理
      * @return コンテンツ文字列
      * @throws RuntimeException リトライ上限を超えて失敗した場合
      */
-    String fetchWithRetry(String url) {
+    private String withRetry(String url, Supplier<String> fetcher) {
         int maxRetries = config.getMaxRetries();
         Exception lastException = null;
 
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                String content = webClient.get()
-                        .uri(url)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
+                String content = fetcher.get();
 
                 if (content != null && !content.isBlank()) {
                     return content;
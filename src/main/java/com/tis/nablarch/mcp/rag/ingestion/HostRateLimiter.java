@@ -0,0 +1,83 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * ホスト単位のトークンバケットによるリクエスト間隔の制御。
+ *
+ * <p>複数スレッドで並行してクローリングする場合も、同じホストへのリクエストが
+ * {@code requestsPerSecond} を超えないようにする（robots.txtのCrawl-delay相当の配慮）。
+ * バケットの容量は1とし、連続したリクエストのバーストは許可しない。</p>
+ */
+final class HostRateLimiter {
+
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final Map<String, Long> nextAvailable = new HashMap<>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param requestsPerSecond ホストごとの毎秒リクエスト数（0以下の場合は制限しない）
+     */
+    HostRateLimiter(double requestsPerSecond) {
+        this(requestsPerSecond, System::nanoTime);
+    }
+
+    /**
+     * コンストラクタ（時刻の注入用）。
+     *
+     * @param requestsPerSecond ホストごとの毎秒リクエスト数（0以下の場合は制限しない）
+     * @param clock 現在時刻（ナノ秒）
+     */
+    HostRateLimiter(double requestsPerSecond, LongSupplier clock) {
+        this.intervalNanos = (requestsPerSecond > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+        this.clock = clock;
+    }
+
+    /**
+     * URLのホストへのリクエストが許可されるまで待機する。
+     *
+     * @param url リクエスト先のURL
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    void acquire(String url) throws InterruptedException {
+        long waitNanos = reserve(url);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * URLのホストへのリクエスト枠を予約し、枠が使えるまでの待ち時間を返す。
+     *
+     * @param url リクエスト先のURL
+     * @return 待ち時間（ナノ秒、すぐに送信できる場合は0）
+     */
+    long reserve(String url) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        String host = hostOf(url);
+        long now = clock.getAsLong();
+        synchronized (nextAvailable) {
+            Long next = nextAvailable.get(host);
+            long slot = (next == null || next - now < 0) ? now : next;
+            nextAvailable.put(host, slot + intervalNanos);
+            return slot - now;
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return (host != null) ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
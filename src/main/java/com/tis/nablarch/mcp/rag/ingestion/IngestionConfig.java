@@ -3,6 +3,8 @@ package com.tis.nablarch.mcp.rag.ingestion;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * ドキュメント取り込みパイプラインの設定プロパティ。
  *
@@ -15,6 +17,10 @@ public class IngestionConfig {
 
     private OfficialDocsConfig officialDocs = new OfficialDocsConfig();
 
+    private PageCacheConfig pageCache = new PageCacheConfig();
+
+    private JobConfig job = new JobConfig();
+
     public OfficialDocsConfig getOfficialDocs() {
         return officialDocs;
     }
@@ -23,6 +29,22 @@ public class IngestionConfig {
         this.officialDocs = officialDocs;
     }
 
+    public PageCacheConfig getPageCache() {
+        return pageCache;
+    }
+
+    public void setPageCache(PageCacheConfig pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    public JobConfig getJob() {
+        return job;
+    }
+
+    public void setJob(JobConfig job) {
+        this.job = job;
+    }
+
     /**
      * Nablarch公式ドキュメント取り込みの設定。
      */
@@ -34,9 +56,21 @@ public class IngestionConfig {
         /** バッチ処理のサイズ（1回のEmbedding API呼び出しで処理するチャンク数） */
         private int batchSize = 20;
 
-        /** クローリング間隔（ミリ秒） */
+        /** クローリング間隔（ミリ秒）。requestsPerSecondが未指定の場合のホストごとのリクエスト間隔 */
         private long delayMs = 1000;
 
+        /** ホストごとの毎秒リクエスト数（0以下の場合はdelayMsから算出。delayMsも0の場合は制限しない） */
+        private double requestsPerSecond = 0;
+
+        /** ページ取得の並行数 */
+        private int concurrency = 4;
+
+        /** パース・チャンキングの並行数（0以下の場合はCPUコア数） */
+        private int parseConcurrency = 0;
+
+        /** ステージ間キューの容量（ページ数） */
+        private int queueCapacity = 32;
+
         /** HTTP障害時の最大リトライ回数 */
         private int maxRetries = 3;
 
@@ -67,6 +101,38 @@ public class IngestionConfig {
             this.delayMs = delayMs;
         }
 
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getParseConcurrency() {
+            return parseConcurrency;
+        }
+
+        public void setParseConcurrency(int parseConcurrency) {
+            this.parseConcurrency = parseConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
         public int getMaxRetries() {
             return maxRetries;
         }
@@ -83,4 +149,93 @@ public class IngestionConfig {
             this.enabled = enabled;
         }
     }
+
+    /**
+     * 取得ページのディスクキャッシュの設定（全データソース共通）。
+     */
+    public static class PageCacheConfig {
+
+        /** キャッシュの有効/無効（有効時は条件付きGETで未変更ページの再取得を省く） */
+        private boolean enabled = false;
+
+        /** キャッシュの保存先ディレクトリ */
+        private String directory = "data/page-cache";
+
+        /** オフラインモード（ネットワークにアクセスせず、キャッシュのみから取り込む） */
+        private boolean offline = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public boolean isOffline() {
+            return offline;
+        }
+
+        public void setOffline(boolean offline) {
+            this.offline = offline;
+        }
+    }
+
+    /**
+     * 取り込みジョブ（チェックポイント・並行実行）の設定（全データソース共通）。
+     */
+    public static class JobConfig {
+
+        /** ページ単位の処理状態をingestion_jobs / ingestion_job_urlsに記録する */
+        private boolean checkpoint = true;
+
+        /** 最新ジョブが完了していない場合に再開し、格納済みのページを処理しない */
+        private boolean resume = true;
+
+        /** 再開するジョブの最終更新からの経過時間の上限（超えた場合は新しいジョブで全ページを処理する。0で制限なし） */
+        private Duration resumeMaxAge = Duration.ofHours(24);
+
+        /** 同時に実行するIngester数（1で逐次実行、0以下で全Ingesterを同時に実行） */
+        private int parallelism = 1;
+
+        public boolean isCheckpoint() {
+            return checkpoint;
+        }
+
+        public void setCheckpoint(boolean checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        public boolean isResume() {
+            return resume;
+        }
+
+        public void setResume(boolean resume) {
+            this.resume = resume;
+        }
+
+        public Duration getResumeMaxAge() {
+            return resumeMaxAge;
+        }
+
+        public void setResumeMaxAge(Duration resumeMaxAge) {
+            this.resumeMaxAge = resumeMaxAge;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
 }
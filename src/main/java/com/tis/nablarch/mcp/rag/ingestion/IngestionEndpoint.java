@@ -0,0 +1,60 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 取り込みジョブの状態を返すActuatorエンドポイント（{@code /actuator/ingestion}）。
+ *
+ * <p>データソースごとの直近のジョブの進捗（処理速度・残り時間の見込みを含む）と、
+ * ingestion_jobsに記録された最近のジョブの集計を返す。
+ * HTTPモードで公開する場合は {@code management.endpoints.web.exposure.include} に
+ * {@code ingestion} を含めること。</p>
+ */
+@Component
+@Endpoint(id = "ingestion")
+@ConditionalOnProperty(name = "nablarch.mcp.ingestion.enabled", havingValue = "true", matchIfMissing = false)
+public class IngestionEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionEndpoint.class);
+
+    /** 返却する記録済みジョブの最大件数 */
+    private static final int RECENT_JOBS = 20;
+
+    private final IngestionJobService jobService;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jobService 取り込みジョブサービス
+     */
+    public IngestionEndpoint(IngestionJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * 取り込みジョブの状態を返す。
+     *
+     * @return {@code active}（直近のジョブの進捗）と {@code recent}（記録済みジョブの集計）
+     */
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("active", jobService.progress());
+        try {
+            status.put("recent", jobService.recentJobs(RECENT_JOBS));
+        } catch (RuntimeException e) {
+            log.warn("記録済み取り込みジョブの取得に失敗: {}", e.getMessage());
+            status.put("recent", List.of());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,234 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.db.repository.IngestionJobRepository;
+import com.tis.nablarch.mcp.db.repository.IngestionJobRepository.UrlCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 実行中の取り込みジョブ。
+ *
+ * <p>ページの処理結果（{@link CrawlPipeline.Checkpoint}）を受け取り、進捗を集計する。
+ * ジョブIDがある場合は、格納が完了したバッチごとにURLの処理状態をingestion_job_urlsに記録する。
+ * 失敗したページは次の格納時（又は終了時）にまとめて記録する。</p>
+ *
+ * <p>チェックポイントの記録は格納のコミット後に行うため、停止のタイミングによっては
+ * 格納済みのページが未記録のまま残り、再開時に再処理される。
+ * チャンクの格納（{@link DocumentChunkStore}）は同じページの既存チャンクを置き換えるため、チャンクは重複しない。</p>
+ *
+ * <p>失敗したページがある場合はジョブを {@code PARTIAL} で終了し、次回の取り込みで再開して
+ * 失敗したページを再処理する。失敗したページの再処理は1回のみとし、再処理した実行でも失敗したページが
+ * 残った場合はジョブを完了する（次回の取り込みは新しいジョブで全ページを処理し、
+ * 格納済みのページを処理しない再開が続かないようにする）。</p>
+ *
+ * <p>チェックポイントの記録に失敗しても取り込みは継続する（再開時の再処理範囲が広がるのみ）。</p>
+ */
+final class IngestionJob implements CrawlPipeline.Checkpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJob.class);
+
+    /** 取り込みモード: フル取り込み */
+    static final String MODE_FULL = "full";
+
+    /** 取り込みモード: 増分取り込み */
+    static final String MODE_INCREMENTAL = "incremental";
+
+    private final String source;
+    private final String mode;
+    private final IngestionJobRepository repository;
+    private final Long id;
+    private final List<String> targets;
+    private final int totalUrls;
+    private final boolean retry;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final Instant startedAt;
+
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong chunks = new AtomicLong();
+    private final List<UrlCheckpoint> buffered = new ArrayList<>();
+    private int batchNo;
+    private volatile String status = IngestionJobRepository.STATUS_RUNNING;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param source データソース名
+     * @param mode 取り込みモード
+     * @param repository ジョブリポジトリ（nullの場合は記録しない）
+     * @param id ジョブID（nullの場合は記録しない）
+     * @param targets この実行で処理するURL（再開前に格納済みのURLを除く）
+     * @param totalUrls 対象URL数（再開前に格納済みのURLを含む）
+     * @param retry {@code PARTIAL} で終了したジョブを再開し、失敗したページを再処理する実行の場合true
+     * @param nanoClock 経過時間の計測に使用する時計（ナノ秒）
+     */
+    IngestionJob(String source, String mode, IngestionJobRepository repository, Long id,
+            List<String> targets, int totalUrls, boolean retry, LongSupplier nanoClock) {
+        this.source = source;
+        this.mode = mode;
+        this.repository = (id != null) ? repository : null;
+        this.id = id;
+        this.targets = List.copyOf(targets);
+        this.totalUrls = totalUrls;
+        this.retry = retry;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.startedAt = Instant.now();
+    }
+
+    /**
+     * 処理状態を記録しないジョブを生成する。
+     *
+     * @param source データソース名
+     * @param mode 取り込みモード
+     * @param urls 処理するURL
+     * @return ジョブ
+     */
+    static IngestionJob untracked(String source, String mode, List<String> urls) {
+        return new IngestionJob(source, mode, null, null, urls, urls.size(), false, System::nanoTime);
+    }
+
+    /**
+     * この実行で処理するURLを返す。
+     *
+     * @return 再開前に格納済みのURLを除いたURL（元の順序）
+     */
+    List<String> targets() {
+        return targets;
+    }
+
+    /**
+     * 再開前に格納済みだったURL数を返す。
+     *
+     * @return URL数
+     */
+    int resumedCount() {
+        return totalUrls - targets.size();
+    }
+
+    @Override
+    public void stored(Map<String, Integer> chunkCounts) {
+        List<UrlCheckpoint> checkpoints;
+        synchronized (this) {
+            batchNo++;
+            checkpoints = new ArrayList<>(buffered);
+            buffered.clear();
+            for (Map.Entry<String, Integer> entry : chunkCounts.entrySet()) {
+                checkpoints.add(new UrlCheckpoint(
+                        entry.getKey(), IngestionJobRepository.URL_DONE, entry.getValue(), batchNo, null));
+                chunks.addAndGet(entry.getValue());
+            }
+        }
+        done.addAndGet(chunkCounts.size());
+        save(checkpoints);
+    }
+
+    @Override
+    public void failed(String url, String error) {
+        failed.incrementAndGet();
+        synchronized (this) {
+            buffered.add(new UrlCheckpoint(url, IngestionJobRepository.URL_FAILED, 0, null, error));
+        }
+    }
+
+    /**
+     * ジョブを終了する。失敗したページがある場合は次回の取り込みで再開される状態で終了する。
+     *
+     * @param result この実行の取り込み結果
+     * @return 再開前に格納済みだったページを成功として加えた取り込み結果
+     */
+    IngestionResult finish(IngestionResult result) {
+        end(endStatus());
+        int resumed = resumedCount();
+        if (resumed > 0) {
+            log.info("{}: 前回の取り込みで格納済みの{}件を再開時にスキップ", source, resumed);
+        }
+        return new IngestionResult(result.processedCount() + resumed, result.successCount() + resumed,
+                result.errorCount(), result.errors());
+    }
+
+    private String endStatus() {
+        int failedUrls = failed.get();
+        if (failedUrls == 0) {
+            return IngestionJobRepository.STATUS_COMPLETED;
+        }
+        if (retry) {
+            log.warn("{}: 失敗したページの再処理後も失敗が残ったため、ジョブを完了する（次回は新しいジョブで取り込む）:"
+                    + " jobId={}, failed={}", source, id, failedUrls);
+            return IngestionJobRepository.STATUS_COMPLETED;
+        }
+        log.warn("{}: 失敗したページを次回の取り込みで再処理する: jobId={}, failed={}", source, id, failedUrls);
+        return IngestionJobRepository.STATUS_PARTIAL;
+    }
+
+    /**
+     * 例外によりジョブを終了する。次回の取り込みで再開される。
+     *
+     * @param e 発生した例外
+     */
+    void abort(Exception e) {
+        log.warn("{}: 取り込みジョブが異常終了（次回再開）: jobId={}, error={}", source, id, e.getMessage());
+        end(IngestionJobRepository.STATUS_FAILED);
+    }
+
+    /**
+     * 現在の進捗を返す。
+     *
+     * @return 進捗
+     */
+    IngestionProgress progress() {
+        long elapsedNanos = Math.max(1, nanoClock.getAsLong() - startNanos);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        int processed = done.get() + failed.get();
+        double urlRate = processed / seconds;
+        double chunkRate = chunks.get() / seconds;
+        int remaining = Math.max(0, targets.size() - processed);
+        long eta;
+        if (remaining == 0) {
+            eta = 0;
+        } else {
+            eta = (urlRate > 0) ? (long) Math.ceil(remaining / urlRate) : -1;
+        }
+        return new IngestionProgress(source, mode, id, status, totalUrls, resumedCount() + done.get(),
+                resumedCount(), failed.get(), chunks.get(), urlRate, chunkRate, eta,
+                startedAt, (long) seconds);
+    }
+
+    private void end(String endStatus) {
+        List<UrlCheckpoint> checkpoints;
+        synchronized (this) {
+            checkpoints = new ArrayList<>(buffered);
+            buffered.clear();
+        }
+        save(checkpoints);
+        status = endStatus;
+        if (repository != null) {
+            try {
+                repository.finish(id, endStatus);
+            } catch (RuntimeException e) {
+                log.warn("{}: 取り込みジョブの終了状態の記録に失敗: jobId={}, error={}", source, id, e.getMessage());
+            }
+        }
+    }
+
+    private void save(List<UrlCheckpoint> checkpoints) {
+        if (repository == null || checkpoints.isEmpty()) {
+            return;
+        }
+        try {
+            repository.saveCheckpoints(id, checkpoints);
+        } catch (RuntimeException e) {
+            log.warn("{}: チェックポイントの記録に失敗: jobId={}, pages={}, error={}",
+                    source, id, checkpoints.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.db.repository.IngestionJobRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 取り込みジョブの開始・再開と進捗の公開。
+ *
+ * <p>{@code ingestion.job.checkpoint=true} の場合、取り込みごとにingestion_jobsにジョブを作成し、
+ * ページ単位の処理状態を記録する。同じデータソース・モードの最新ジョブが完了しておらず、
+ * 最終更新から {@code ingestion.job.resume-max-age} 以内の場合（{@code ingestion.job.resume=true}）は
+ * そのジョブを再開し、格納済みのページを処理対象から除く。
+ * 上限を超えたジョブは再開せず、新しいジョブで全ページを処理する（古い格納結果をスキップし続けないようにする）。</p>
+ *
+ * <p>データソースごとに直近のジョブの進捗を保持し、メトリクスと {@link IngestionEndpoint} で公開する。</p>
+ *
+ * <p>記録するメトリクス（tag: source）:</p>
+ * <ul>
+ *   <li>{@code ingestion.job.urls} - 対象・格納済み・失敗のURL数（tag: state = total / completed / failed）</li>
+ *   <li>{@code ingestion.job.chunks} - 格納したチャンク数</li>
+ *   <li>{@code ingestion.job.url.rate} - 毎秒の処理ページ数</li>
+ *   <li>{@code ingestion.job.chunk.rate} - 毎秒の格納チャンク数</li>
+ *   <li>{@code ingestion.job.eta} - 残りページの処理見込み秒数（算出できない場合は-1）</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "nablarch.mcp.ingestion.enabled", havingValue = "true", matchIfMissing = false)
+public class IngestionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJobService.class);
+
+    private final IngestionJobRepository repository;
+    private final IngestionConfig.JobConfig config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final Map<String, AtomicReference<IngestionJob>> latest = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param repository ジョブリポジトリ
+     * @param ingestionConfig 取り込み設定
+     * @param meterRegistry Micrometerレジストリ
+     */
+    public IngestionJobService(IngestionJobRepository repository, IngestionConfig ingestionConfig,
+            MeterRegistry meterRegistry) {
+        this(repository, ingestionConfig, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * コンストラクタ（時計を指定）。
+     *
+     * @param repository ジョブリポジトリ
+     * @param ingestionConfig 取り込み設定
+     * @param meterRegistry Micrometerレジストリ
+     * @param nanoClock 経過時間の計測に使用する時計（ナノ秒）
+     */
+    IngestionJobService(IngestionJobRepository repository, IngestionConfig ingestionConfig,
+            MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.repository = repository;
+        this.config = ingestionConfig.getJob();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * ジョブを開始する。完了していないジョブがあれば再開する。
+     *
+     * <p>ジョブの作成に失敗した場合は処理状態を記録せずに取り込みを続行する。</p>
+     *
+     * @param source データソース名
+     * @param mode 取り込みモード（full / incremental）
+     * @param urls 処理対象のURL
+     * @return ジョブ
+     */
+    IngestionJob start(String source, String mode, List<String> urls) {
+        IngestionJob job;
+        if (!config.isCheckpoint()) {
+            job = new IngestionJob(source, mode, null, null, urls, urls.size(), false, nanoClock);
+        } else {
+            job = startTracked(source, mode, urls);
+        }
+        register(source).set(job);
+        return job;
+    }
+
+    /**
+     * データソースごとの直近のジョブの進捗を返す。
+     *
+     * @return 進捗（データソース名順）
+     */
+    public List<IngestionProgress> progress() {
+        return latest.values().stream()
+                .map(AtomicReference::get)
+                .filter(Objects::nonNull)
+                .map(IngestionJob::progress)
+                .sorted(Comparator.comparing(IngestionProgress::source))
+                .toList();
+    }
+
+    /**
+     * 記録済みのジョブの集計を返す。
+     *
+     * @param limit 最大件数
+     * @return ジョブの集計（新しい順。チェックポイントを記録しない場合は空）
+     */
+    public List<IngestionJobRepository.JobSummary> recentJobs(int limit) {
+        if (!config.isCheckpoint()) {
+            return List.of();
+        }
+        return repository.findRecent(limit);
+    }
+
+    private IngestionJob startTracked(String source, String mode, List<String> urls) {
+        try {
+            Optional<IngestionJobRepository.ResumableJob> resumable = config.isResume()
+                    ? repository.findResumable(source, mode, config.getResumeMaxAge())
+                    : Optional.empty();
+            if (resumable.isPresent()) {
+                long id = resumable.get().id();
+                boolean retry = IngestionJobRepository.STATUS_PARTIAL.equals(resumable.get().status());
+                Set<String> doneUrls = repository.findDoneUrls(id);
+                repository.resume(id, urls.size());
+                List<String> targets = urls.stream()
+                        .filter(url -> !doneUrls.contains(url))
+                        .toList();
+                log.info("{}: 取り込みジョブを再開: jobId={}, mode={}, status={}, 格納済み={}件, 残り={}件",
+                        source, id, mode, resumable.get().status(), urls.size() - targets.size(), targets.size());
+                return new IngestionJob(source, mode, repository, id, targets, urls.size(), retry, nanoClock);
+            }
+            long id = repository.create(source, mode, urls.size());
+            log.info("{}: 取り込みジョブを開始: jobId={}, mode={}, urls={}", source, id, mode, urls.size());
+            return new IngestionJob(source, mode, repository, id, urls, urls.size(), false, nanoClock);
+        } catch (RuntimeException e) {
+            log.warn("{}: 取り込みジョブを記録できないため、チェックポイントなしで実行する: {}", source, e.getMessage());
+            return new IngestionJob(source, mode, null, null, urls, urls.size(), false, nanoClock);
+        }
+    }
+
+    private AtomicReference<IngestionJob> register(String source) {
+        return latest.computeIfAbsent(source, s -> {
+            AtomicReference<IngestionJob> ref = new AtomicReference<>();
+            gauge("ingestion.job.urls", s, "total", ref, p -> p.totalUrls(), "取り込みジョブの対象URL数");
+            gauge("ingestion.job.urls", s, "completed", ref, p -> p.completedUrls(), "取り込みジョブの格納済みURL数");
+            gauge("ingestion.job.urls", s, "failed", ref, p -> p.failedUrls(), "取り込みジョブの失敗URL数");
+            gauge("ingestion.job.chunks", s, null, ref, p -> p.chunks(), "取り込みジョブで格納したチャンク数");
+            gauge("ingestion.job.url.rate", s, null, ref, IngestionProgress::urlsPerSecond, "毎秒の処理ページ数");
+            gauge("ingestion.job.chunk.rate", s, null, ref, IngestionProgress::chunksPerSecond, "毎秒の格納チャンク数");
+            gauge("ingestion.job.eta", s, null, ref, p -> p.etaSeconds(), "残りページの処理見込み秒数");
+            return ref;
+        });
+    }
+
+    private void gauge(String name, String source, String state, AtomicReference<IngestionJob> ref,
+            ToDoubleFunction<IngestionProgress> value, String description) {
+        Gauge.Builder<AtomicReference<IngestionJob>> builder = Gauge.builder(name, ref, r -> {
+            IngestionJob job = r.get();
+            return (job != null) ? value.applyAsDouble(job.progress()) : Double.NaN;
+        }).tag("source", source).description(description);
+        if (state != null) {
+            builder.tag("state", state);
+        }
+        builder.register(meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import java.time.Instant;
+
+/**
+ * 取り込みジョブの進捗。
+ *
+ * <p>処理速度はこの実行で処理したページ数・チャンク数を経過時間で割った値とし、
+ * 再開前に格納済みだったページは含めない。</p>
+ *
+ * @param source データソース名
+ * @param mode 取り込みモード（full / incremental）
+ * @param jobId ジョブID（チェックポイントを記録しない場合はnull）
+ * @param status ジョブ状態
+ * @param totalUrls 対象URL数（再開前に格納済みのURLを含む）
+ * @param completedUrls 格納済みURL数（再開前に格納済みのURLを含む）
+ * @param resumedUrls 再開前に格納済みだったURL数
+ * @param failedUrls この実行で失敗したURL数
+ * @param chunks この実行で格納したチャンク数
+ * @param urlsPerSecond 毎秒の処理ページ数
+ * @param chunksPerSecond 毎秒の格納チャンク数
+ * @param etaSeconds 残りページの処理に要する見込み秒数（算出できない場合は-1）
+ * @param startedAt 開始日時
+ * @param elapsedSeconds 経過秒数
+ */
+public record IngestionProgress(
+        String source,
+        String mode,
+        Long jobId,
+        String status,
+        int totalUrls,
+        int completedUrls,
+        int resumedUrls,
+        int failedUrls,
+        long chunks,
+        double urlsPerSecond,
+        double chunksPerSecond,
+        long etaSeconds,
+        Instant startedAt,
+        long elapsedSeconds
+) {
+}
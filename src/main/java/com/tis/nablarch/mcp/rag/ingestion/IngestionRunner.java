@@ -2,11 +2,16 @@ package com.tis.nablarch.mcp.rag.ingestion;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ドキュメント取込の手動実行ランナー。
@@ -15,6 +20,9 @@ import java.util.List;
  * 登録されている全Ingesterの{@link DocumentIngester#ingestAll()}を実行する。
  * 取込完了後にアプリケーションを終了する。</p>
  *
+ * <p>{@code ingestion.job.parallelism} が2以上（又は0以下）の場合は複数のIngesterを並行して実行する。
+ * 途中で停止した場合、次回の実行は各データソースの未完了ジョブを再開する（{@link IngestionJobService}）。</p>
+ *
  * <p>実行例:</p>
  * <pre>{@code
  * java -jar nablarch-mcp-server.jar \
@@ -30,34 +38,68 @@ public class IngestionRunner implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(IngestionRunner.class);
 
     private final List<DocumentIngester> ingesters;
+    private final int parallelism;
 
     public IngestionRunner(List<DocumentIngester> ingesters) {
+        this(ingesters, new IngestionConfig());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param ingesters 実行するIngester
+     * @param ingestionConfig 取り込み設定
+     */
+    @Autowired
+    public IngestionRunner(List<DocumentIngester> ingesters, IngestionConfig ingestionConfig) {
         this.ingesters = ingesters;
+        int configured = ingestionConfig.getJob().getParallelism();
+        this.parallelism = Math.max(1, (configured > 0) ? Math.min(configured, ingesters.size()) : ingesters.size());
     }
 
     @Override
     public void run(String... args) throws Exception {
         logger.info("=== ドキュメント取込を開始 ===");
-        logger.info("登録Ingester数: {}", ingesters.size());
+        logger.info("登録Ingester数: {}, 並行数: {}", ingesters.size(), parallelism);
 
-        for (DocumentIngester ingester : ingesters) {
-            logger.info("--- {} の取込を開始 ---", ingester.getSourceName());
+        if (parallelism <= 1) {
+            for (DocumentIngester ingester : ingesters) {
+                ingest(ingester);
+            }
+        } else {
+            AtomicInteger counter = new AtomicInteger(1);
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                    r -> new Thread(r, "ingestion-" + counter.getAndIncrement()));
             try {
-                IngestionResult result = ingester.ingestAll();
-                logger.info("{} 取込完了: processed={}, success={}, errors={}",
-                        ingester.getSourceName(),
-                        result.processedCount(),
-                        result.successCount(),
-                        result.errorCount());
-                if (result.errorCount() > 0) {
-                    result.errors().forEach(e -> logger.warn("  エラー: {}", e));
+                List<Future<?>> futures = ingesters.stream()
+                        .<Future<?>>map(ingester -> pool.submit(() -> ingest(ingester)))
+                        .toList();
+                for (Future<?> future : futures) {
+                    future.get();
                 }
-            } catch (Exception e) {
-                logger.error("{} 取込失敗: {}", ingester.getSourceName(), e.getMessage(), e);
+            } finally {
+                pool.shutdownNow();
             }
         }
 
         logger.info("=== ドキュメント取込完了。アプリケーションを終了します ===");
         System.exit(0);
     }
+
+    private void ingest(DocumentIngester ingester) {
+        logger.info("--- {} の取込を開始 ---", ingester.getSourceName());
+        try {
+            IngestionResult result = ingester.ingestAll();
+            logger.info("{} 取込完了: processed={}, success={}, errors={}",
+                    ingester.getSourceName(),
+                    result.processedCount(),
+                    result.successCount(),
+                    result.errorCount());
+            if (result.errorCount() > 0) {
+                result.errors().forEach(e -> logger.warn("  エラー: {}", e));
+            }
+        } catch (Exception e) {
+            logger.error("{} 取込失敗: {}", ingester.getSourceName(), e.getMessage(), e);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.tis.nablarch.mcp.rag.ingestion;
 
 import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
 import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
 import com.tis.nablarch.mcp.rag.chunking.ChunkingService;
@@ -9,6 +10,7 @@ import com.tis.nablarch.mcp.rag.parser.HtmlDocumentParser;
 import com.tis.nablarch.mcp.rag.parser.ParsedDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -18,9 +20,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Nablarch公式ドキュメント取り込みサービス。
@@ -31,12 +33,14 @@ import java.util.stream.Collectors;
  * <p>処理フロー:</p>
  * <ol>
  *   <li>インデックスページからドキュメントURL一覧を取得</li>
- *   <li>各URLのHTMLを取得（robots.txt準拠のディレイ付き）</li>
+ *   <li>各URLのHTMLを並行して取得（ホストごとのリクエスト間隔を制御）</li>
  *   <li>HtmlDocumentParserでパース</li>
  *   <li>ChunkingServiceでチャンク分割</li>
  *   <li>EmbeddingClientでバッチEmbedding生成</li>
  *   <li>DocumentChunkRepositoryでpgvectorに格納</li>
  * </ol>
+ * <p>取得・パース/チャンク分割・Embedding/格納は {@link CrawlPipeline} で並行に実行する。
+ * ページ単位の処理状態は {@link IngestionJobService} で記録し、途中で停止した取り込みは次回再開する。</p>
  *
  * <p>個別ドキュメントの障害は隔離し、1ページの失敗が他のページの処理を妨げない。
  * HTTP 429/5xxエラーに対しては指数バックオフでリトライする。</p>
@@ -50,6 +54,9 @@ public class OfficialDocsIngester implements DocumentIngester {
     /** データソース名 */
     private static final String SOURCE_NAME = "nablarch-official-docs";
 
+    /** ページ取得のタイムアウト */
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(30);
+
     /** HTMLリンク抽出パターン（href属性） */
     private static final Pattern LINK_PATTERN = Pattern.compile(
             "href=\"([^\"]+\\.html)\"");
@@ -57,9 +64,10 @@ public class OfficialDocsIngester implements DocumentIngester {
     private final WebClient webClient;
     private final HtmlDocumentParser htmlParser;
     private final ChunkingService chunkingService;
-    private final EmbeddingClient embeddingClient;
-    private final DocumentChunkRepository repository;
     private final IngestionConfig.OfficialDocsConfig config;
+    private final DocumentChunkStore chunkStore;
+    private final PageCache pageCache;
+    private final IngestionJobService jobService;
 
     /**
      * コンストラクタ。
@@ -76,11 +84,39 @@ public class OfficialDocsIngester implements DocumentIngester {
             @org.springframework.beans.factory.annotation.Qualifier("document") EmbeddingClient embeddingClient,
             DocumentChunkRepository repository,
             IngestionConfig ingestionConfig) {
+        this(htmlParser, chunkingService, embeddingClient, repository, ingestionConfig, null, null, null, null);
+    }
+
+    /**
+     * コンストラクタ（保存済みEmbeddingの再利用・ページキャッシュ・COPYによる一括書き込み・ジョブ記録あり）。
+     *
+     * @param htmlParser HTMLドキュメントパーサー
+     * @param chunkingService チャンキングサービス
+     * @param embeddingClient Embeddingクライアント（Jina用）
+     * @param repository ドキュメントチャンクリポジトリ
+     * @param ingestionConfig 取り込み設定
+     * @param contentHashEmbedder 保存済みEmbeddingを再利用するEmbedding生成処理（nullの場合は毎回生成する）
+     * @param pageCache 取得ページのディスクキャッシュ（nullの場合は毎回取得する）
+     * @param copyWriter COPYによる一括書き込み（nullの場合は1行ずつ保存する）
+     * @param jobService 取り込みジョブサービス（nullの場合は処理状態を記録しない）
+     */
+    @Autowired
+    public OfficialDocsIngester(
+            HtmlDocumentParser htmlParser,
+            ChunkingService chunkingService,
+            @org.springframework.beans.factory.annotation.Qualifier("document") EmbeddingClient embeddingClient,
+            DocumentChunkRepository repository,
+            IngestionConfig ingestionConfig,
+            ContentHashEmbedder contentHashEmbedder,
+            PageCache pageCache,
+            DocumentChunkCopyWriter copyWriter,
+            IngestionJobService jobService) {
         this(htmlParser, chunkingService, embeddingClient, repository, ingestionConfig,
                 WebClient.builder()
                         .codecs(configurer -> configurer.defaultCodecs()
                                 .maxInMemorySize(10 * 1024 * 1024))
-                        .build());
+                        .build(),
+                contentHashEmbedder, pageCache, copyWriter, jobService);
     }
 
     /**
@@ -100,12 +136,42 @@ public class OfficialDocsIngester implements DocumentIngester {
             DocumentChunkRepository repository,
             IngestionConfig ingestionConfig,
             WebClient webClient) {
+        this(htmlParser, chunkingService, embeddingClient, repository, ingestionConfig, webClient,
+                null, null, null, null);
+    }
+
+    /**
+     * テスト用コンストラクタ（WebClient・保存済みEmbeddingの再利用処理・ページキャッシュ・一括書き込み・ジョブ記録を注入可能）。
+     *
+     * @param htmlParser HTMLドキュメントパーサー
+     * @param chunkingService チャンキングサービス
+     * @param embeddingClient Embeddingクライアント
+     * @param repository ドキュメントチャンクリポジトリ
+     * @param ingestionConfig 取り込み設定
+     * @param webClient HTTPクライアント
+     * @param contentHashEmbedder 保存済みEmbeddingを再利用するEmbedding生成処理（nullの場合は毎回生成する）
+     * @param pageCache 取得ページのディスクキャッシュ（nullの場合は毎回取得する）
+     * @param copyWriter COPYによる一括書き込み（nullの場合は1行ずつ保存する）
+     * @param jobService 取り込みジョブサービス（nullの場合は処理状態を記録しない）
+     */
+    public OfficialDocsIngester(
+            HtmlDocumentParser htmlParser,
+            ChunkingService chunkingService,
+            EmbeddingClient embeddingClient,
+            DocumentChunkRepository repository,
+            IngestionConfig ingestionConfig,
+            WebClient webClient,
+            ContentHashEmbedder contentHashEmbedder,
+            PageCache pageCache,
+            DocumentChunkCopyWriter copyWriter,
+            IngestionJobService jobService) {
         this.htmlParser = htmlParser;
         this.chunkingService = chunkingService;
-        this.embeddingClient = embeddingClient;
-        this.repository = repository;
         this.config = ingestionConfig.getOfficialDocs();
         this.webClient = webClient;
+        this.chunkStore = new DocumentChunkStore(embeddingClient, repository, contentHashEmbedder, copyWriter);
+        this.pageCache = pageCache;
+        this.jobService = jobService;
     }
 
     @Override
@@ -124,7 +190,7 @@ public class OfficialDocsIngester implements DocumentIngester {
         }
 
         logger.info("{}件のドキュメントURLを検出", urls.size());
-        return processUrls(urls);
+        return processUrls(urls, false);
     }
 
     @Override
@@ -136,14 +202,15 @@ public class OfficialDocsIngester implements DocumentIngester {
 
         logger.info("公式Docsの増分取り込みを開始: since={}", since);
 
-        // 公式ドキュメントにはLast-Modified情報がないため、
-        // 増分取り込みでも全URLを対象にする（Embedding比較で変更検出）
+        // 更新日時で対象URLを絞り込めないため、増分取り込みでも全URLを対象にする。
+        // ページキャッシュ有効時は条件付きGETで未変更（304）のページをスキップし、
+        // 変更のあったページも本文に変更のないチャンクは保存済みEmbeddingを再利用する
         List<String> urls = discoverDocumentUrls();
         if (urls.isEmpty()) {
             return IngestionResult.empty();
         }
 
-        return processUrls(urls);
+        return processUrls(urls, true);
     }
 
     @Override
@@ -159,7 +226,7 @@ public class OfficialDocsIngester implements DocumentIngester {
     List<String> discoverDocumentUrls() {
         String baseUrl = config.getBaseUrl();
         try {
-            String indexHtml = fetchHtml(baseUrl);
+            String indexHtml = fetchPage(baseUrl).html();
             if (indexHtml == null || indexHtml.isBlank()) {
                 return List.of();
             }
@@ -173,6 +240,7 @@ public class OfficialDocsIngester implements DocumentIngester {
                     urls.add(fullUrl);
                 }
             }
+            commitPage(baseUrl);
             return urls;
         } catch (Exception e) {
             logger.error("インデックスページの取得に失敗: {}", e.getMessage(), e);
@@ -183,85 +251,106 @@ public class OfficialDocsIngester implements DocumentIngester {
     /**
      * URL一覧を処理し、取り込み結果を返す。
      *
+     * <p>取得・パース・Embeddingを {@link CrawlPipeline} でステージごとに並行実行する。
+     * 同一ホストへのリクエスト間隔は requestsPerSecond（未指定の場合は delayMs）で制御する。
+     * 未完了のジョブを再開した場合は、格納済みのページを処理しない。
+     * ページキャッシュには、チャンクの格納が完了したページのみを保存する。</p>
+     *
      * @param urls 処理対象のURLリスト
+     * @param skipUnchanged ページキャッシュで未変更と判定されたページを処理しない場合true
      * @return 取り込み結果
      */
-    private IngestionResult processUrls(List<String> urls) {
-        int processed = urls.size();
-        int success = 0;
-        List<String> errors = new ArrayList<>();
-
-        // チャンクをバッチ処理用に蓄積
-        List<DocumentChunkDto> pendingChunks = new ArrayList<>();
-        List<String> pendingUrls = new ArrayList<>();
-
-        for (int i = 0; i < urls.size(); i++) {
-            String url = urls.get(i);
-
-            try {
-                // クローリングディレイ（初回以外）
-                if (i > 0 && config.getDelayMs() > 0) {
-                    Thread.sleep(config.getDelayMs());
-                }
-
-                // HTML取得（リトライ付き）
-                String html = fetchHtmlWithRetry(url);
-                if (html == null || html.isBlank()) {
-                    errors.add("[" + url + "] 空のレスポンス");
-                    continue;
-                }
-
-                // パース
-                List<ParsedDocument> parsedDocs = htmlParser.parse(html, url);
-                if (parsedDocs.isEmpty()) {
-                    logger.debug("パース結果が空: {}", url);
-                    success++;
-                    continue;
-                }
-
-                // チャンキング
-                for (ParsedDocument parsedDoc : parsedDocs) {
-                    List<DocumentChunkDto> chunks = chunkingService.chunk(parsedDoc);
-                    pendingChunks.addAll(chunks);
-                    for (int c = 0; c < chunks.size(); c++) {
-                        pendingUrls.add(url);
-                    }
-                }
-
-                // バッチサイズに達したらEmbedding+格納
-                if (pendingChunks.size() >= config.getBatchSize()) {
-                    embedAndStore(pendingChunks);
-                    pendingChunks.clear();
-                    pendingUrls.clear();
+    private IngestionResult processUrls(List<String> urls, boolean skipUnchanged) {
+        int parseConcurrency = (config.getParseConcurrency() > 0)
+                ? config.getParseConcurrency()
+                : Runtime.getRuntime().availableProcessors();
+        CrawlPipeline pipeline = new CrawlPipeline("official-docs", config.getConcurrency(), parseConcurrency,
+                config.getQueueCapacity(), config.getBatchSize(), new HostRateLimiter(requestsPerSecond()));
+
+        String mode = skipUnchanged ? IngestionJob.MODE_INCREMENTAL : IngestionJob.MODE_FULL;
+        IngestionJob job = (jobService != null)
+                ? jobService.start(SOURCE_NAME, mode, urls)
+                : IngestionJob.untracked(SOURCE_NAME, mode, urls);
+        IngestionResult pipelineResult;
+        try {
+            pipelineResult = pipeline.run(job.targets(), url -> {
+                PageCache.Page page = fetchPageWithRetry(url);
+                if (skipUnchanged && page.notModified()) {
+                    return null;
                 }
-
-                success++;
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                errors.add("[" + url + "] 処理が中断された: " + e.getMessage());
-                break;
-            } catch (Exception e) {
-                logger.warn("ドキュメント取り込み失敗（障害隔離）: url={}, error={}", url, e.getMessage());
-                errors.add("[" + url + "] " + e.getMessage());
+                return (page.html() != null) ? page.html() : "";
+            }, this::parseAndChunk, this::embedAndStore, committingPages(job));
+        } catch (RuntimeException e) {
+            if (isPageCacheEnabled()) {
+                job.targets().forEach(pageCache::discard);
             }
+            job.abort(e);
+            throw e;
         }
+        IngestionResult result = job.finish(pipelineResult);
+        logger.info("公式Docs取り込み完了: processed={}, success={}, errors={}",
+                result.processedCount(), result.successCount(), result.errorCount());
+        return result;
+    }
 
-        // 残りのチャンクを処理
-        if (!pendingChunks.isEmpty()) {
-            try {
-                embedAndStore(pendingChunks);
-            } catch (Exception e) {
-                logger.error("残りチャンクのEmbedding/格納に失敗: {}", e.getMessage(), e);
-                // 残りチャンクの失敗は全体のエラーとして記録
-                errors.add("[batch-remainder] 残りチャンクの処理に失敗: " + e.getMessage());
+    /**
+     * 格納が完了したページをページキャッシュに保存し、失敗したページを破棄するチェックポイントを返す。
+     *
+     * @param job 取り込みジョブ
+     * @return チェックポイント（ページキャッシュ無効時はジョブそのもの）
+     */
+    private CrawlPipeline.Checkpoint committingPages(IngestionJob job) {
+        if (!isPageCacheEnabled()) {
+            return job;
+        }
+        return new CrawlPipeline.Checkpoint() {
+            @Override
+            public void stored(Map<String, Integer> chunkCounts) {
+                chunkCounts.keySet().forEach(pageCache::commit);
+                job.stored(chunkCounts);
             }
+
+            @Override
+            public void failed(String url, String error) {
+                pageCache.discard(url);
+                job.failed(url, error);
+            }
+        };
+    }
+
+    /**
+     * HTMLをパースしてチャンクに分割する。
+     *
+     * @param url 取得元のURL
+     * @param html HTMLコンテンツ
+     * @return チャンクリスト（パース結果が空の場合は空リスト）
+     */
+    private List<DocumentChunkDto> parseAndChunk(String url, String html) {
+        List<ParsedDocument> parsedDocs = htmlParser.parse(html, url);
+        if (parsedDocs.isEmpty()) {
+            logger.debug("パース結果が空: {}", url);
+            return List.of();
+        }
+        List<DocumentChunkDto> chunks = new ArrayList<>();
+        for (ParsedDocument parsedDoc : parsedDocs) {
+            chunks.addAll(chunkingService.chunk(parsedDoc));
         }
+        return chunks;
+    }
 
-        IngestionResult result = new IngestionResult(processed, success, errors.size(), errors);
-        logger.info("公式Docs取り込み完了: processed={}, success={}, errors={}",
-                result.processedCount(), result.successCount(), result.errorCount());
-        return result;
+    /**
+     * ホストごとの毎秒リクエスト数を返す。
+     *
+     * @return 毎秒リクエスト数（0の場合は制限しない）
+     */
+    private double requestsPerSecond() {
+        if (isPageCacheEnabled() && pageCache.isOffline()) {
+            return 0;
+        }
+        if (config.getRequestsPerSecond() > 0) {
+            return config.getRequestsPerSecond();
+        }
+        return (config.getDelayMs() > 0) ? 1000.0 / config.getDelayMs() : 0;
     }
 
     /**
@@ -274,31 +363,8 @@ public class OfficialDocsIngester implements DocumentIngester {
             return;
         }
 
-        // バッチサイズ単位で処理
-        int batchSize = config.getBatchSize();
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, chunks.size());
-            List<DocumentChunkDto> batch = chunks.subList(i, end);
-
-            // テキスト抽出
-            List<String> texts = batch.stream()
-                    .map(DocumentChunkDto::content)
-                    .collect(Collectors.toList());
-
-            // Embedding生成
-            List<float[]> embeddings = embeddingClient.embedBatch(texts);
-
-            // DB格納
-            for (int j = 0; j < batch.size(); j++) {
-                DocumentChunkDto chunkDto = batch.get(j);
-                DocumentChunk entity = toEntity(chunkDto);
-                DocumentChunk saved = repository.save(entity);
-
-                // Embedding更新（pgvectorはネイティブクエリ経由）
-                String embeddingStr = arrayToVectorString(embeddings.get(j));
-                repository.updateEmbedding(saved.getId(), embeddingStr);
-            }
-        }
+        // バッチサイズ単位でEmbedding生成（本文が変わっていないチャンクは保存済みのベクトルを再利用）し、格納
+        chunkStore.store(chunks, config.getBatchSize(), this::toEntity);
 
         logger.debug("{}件のチャンクをEmbedding+格納完了", chunks.size());
     }
@@ -320,36 +386,18 @@ public class OfficialDocsIngester implements DocumentIngester {
     }
 
     /**
-     * float配列をpgvectorのベクトル文字列に変換する。
-     *
-     * @param embedding ベクトル配列
-     * @return "[0.1, 0.2, ...]" 形式の文字列
-     */
-    static String arrayToVectorString(float[] embedding) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            if (i > 0) {
-                sb.append(",");
-            }
-            sb.append(embedding[i]);
-        }
-        sb.append("]");
-        return sb.toString();
-    }
-
-    /**
-     * リトライ付きでHTMLを取得する。
+     * リトライ付きでページを取得する。
      *
      * <p>HTTP 429/5xxエラーに対して指数バックオフでリトライする。</p>
      *
      * @param url 取得対象のURL
-     * @return HTMLコンテンツ
+     * @return 取得結果
      */
-    String fetchHtmlWithRetry(String url) {
+    PageCache.Page fetchPageWithRetry(String url) {
         int maxRetries = config.getMaxRetries();
         for (int attempt = 0; attempt <= maxRetries; attempt++) {
             try {
-                return fetchHtml(url);
+                return fetchPage(url);
             } catch (Exception e) {
                 if (attempt >= maxRetries) {
                     throw new RuntimeException("HTML取得失敗（リトライ上限）: " + url, e);
@@ -369,6 +417,31 @@ public class OfficialDocsIngester implements DocumentIngester {
         throw new RuntimeException("HTML取得失敗: " + url);
     }
 
+    /**
+     * 指定URLのページを取得する。
+     *
+     * <p>ページキャッシュ有効時は条件付きGETで取得し、未変更の場合は保存済みの本文を返す。</p>
+     *
+     * @param url 取得対象のURL
+     * @return 取得結果
+     */
+    PageCache.Page fetchPage(String url) {
+        if (!isPageCacheEnabled()) {
+            return new PageCache.Page(fetchHtml(url), false);
+        }
+        return pageCache.fetch(webClient, url, FETCH_TIMEOUT);
+    }
+
+    private void commitPage(String url) {
+        if (isPageCacheEnabled()) {
+            pageCache.commit(url);
+        }
+    }
+
+    private boolean isPageCacheEnabled() {
+        return pageCache != null && pageCache.isEnabled();
+    }
+
     /**
      * 指定URLのHTMLコンテンツを取得する。
      *
@@ -380,7 +453,7 @@ public class OfficialDocsIngester implements DocumentIngester {
                 .uri(url)
                 .retrieve()
                 .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(30))
+                .timeout(FETCH_TIMEOUT)
                 .block();
     }
 
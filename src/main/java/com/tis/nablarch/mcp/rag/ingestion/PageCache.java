@@ -0,0 +1,243 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.common.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 取得したページのディスクキャッシュ。
+ *
+ * <p>ページ本文とETag/Last-Modifiedヘッダーを {@code ingestion.page-cache.directory} に保存し、
+ * 次回の取得時は条件付きGET（If-None-Match / If-Modified-Since）を送信する。
+ * 304 Not Modifiedの場合は保存済みの本文を返し、未変更であることを通知する。</p>
+ *
+ * <p>{@code offline=true} の場合はネットワークにアクセスせず、保存済みの本文のみを返す
+ * （再現可能な再構築・ベンチマーク用）。保存されていないページはエラーとする。</p>
+ *
+ * <p>取得したページはすぐには保存せず、{@link #commit(String)} で保存する。
+ * 取り込み側はチャンクの格納が完了してから保存するため、格納に失敗したページは
+ * 次回の取り込みで未変更と判定されず、再度取り込まれる。</p>
+ *
+ * <p>ファイル名はURLのSHA-256とし、本文（{@code .html}）とヘッダー（{@code .properties}）を
+ * 一時ファイルからの置き換えで書き込む。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "nablarch.mcp.ingestion.enabled", havingValue = "true", matchIfMissing = false)
+public class PageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PageCache.class);
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "last-modified";
+    private static final String KEY_FETCHED_AT = "fetched-at";
+
+    private final IngestionConfig.PageCacheConfig config;
+    private final Path directory;
+
+    /** 取得済みで未保存のページ（URL→ページ） */
+    private final Map<String, Entry> staged = new ConcurrentHashMap<>();
+
+    /**
+     * 取得結果。
+     *
+     * @param html ページ本文
+     * @param notModified 前回の取得から変更がない場合true（304 Not Modified、またはオフライン）
+     */
+    public record Page(String html, boolean notModified) {
+    }
+
+    /**
+     * 保存済みのページ。
+     *
+     * @param html ページ本文
+     * @param etag ETagヘッダー（なければnull）
+     * @param lastModified Last-Modifiedヘッダー（なければnull）
+     */
+    record Entry(String html, String etag, String lastModified) {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param ingestionConfig 取り込み設定
+     */
+    public PageCache(IngestionConfig ingestionConfig) {
+        this.config = ingestionConfig.getPageCache();
+        this.directory = Path.of(config.getDirectory());
+    }
+
+    /**
+     * キャッシュが有効かどうかを返す。
+     *
+     * @return 有効（オフラインモードを含む）の場合true
+     */
+    public boolean isEnabled() {
+        return config.isEnabled() || config.isOffline();
+    }
+
+    /**
+     * オフラインモードかどうかを返す。
+     *
+     * @return オフラインモードの場合true
+     */
+    public boolean isOffline() {
+        return config.isOffline();
+    }
+
+    /**
+     * ページを取得する。保存済みであれば条件付きGETを送信する。
+     *
+     * <p>変更があったページは {@link #commit(String)} を呼び出すまで保存しない。</p>
+     *
+     * @param webClient HTTPクライアント
+     * @param url 取得対象のURL
+     * @param timeout タイムアウト
+     * @return 取得結果
+     * @throws IllegalStateException オフラインモードで保存されていないページの場合
+     */
+    public Page fetch(WebClient webClient, String url, Duration timeout) {
+        Entry cached = read(url);
+        if (config.isOffline()) {
+            if (cached == null) {
+                throw new IllegalStateException("オフラインモードでキャッシュにないページ: " + url);
+            }
+            return new Page(cached.html(), true);
+        }
+
+        return webClient.get()
+                .uri(url)
+                .headers(headers -> {
+                    if (cached != null && cached.etag() != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, cached.etag());
+                    }
+                    if (cached != null && cached.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+                        log.debug("未変更（304）: {}", url);
+                        return response.releaseBody().thenReturn(new Page(cached.html(), true));
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    String etag = headers.getETag();
+                    String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(html -> {
+                                if (!html.isBlank()) {
+                                    staged.put(url, new Entry(html, etag, lastModified));
+                                }
+                                return new Page(html, false);
+                            });
+                })
+                .timeout(timeout)
+                .block();
+    }
+
+    /**
+     * 取得したページを保存する。取得後に変更がなかった（304）ページや、
+     * 既に保存・破棄したページの場合は何もしない。
+     *
+     * @param url URL
+     */
+    public void commit(String url) {
+        Entry entry = staged.remove(url);
+        if (entry != null) {
+            write(url, entry.html(), entry.etag(), entry.lastModified());
+        }
+    }
+
+    /**
+     * 取得したページを保存せずに破棄する。次回の取得は保存済みの検証用ヘッダーで行う。
+     *
+     * @param url URL
+     */
+    public void discard(String url) {
+        staged.remove(url);
+    }
+
+    /**
+     * 保存済みのページを読み込む。
+     *
+     * @param url URL
+     * @return 保存済みのページ（保存されていない場合はnull）
+     */
+    Entry read(String url) {
+        Path htmlFile = file(url, ".html");
+        Path metaFile = file(url, ".properties");
+        if (!Files.isRegularFile(htmlFile) || !Files.isRegularFile(metaFile)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            Properties meta = new Properties();
+            meta.load(reader);
+            String html = Files.readString(htmlFile, StandardCharsets.UTF_8);
+            return new Entry(html, meta.getProperty(KEY_ETAG), meta.getProperty(KEY_LAST_MODIFIED));
+        } catch (IOException e) {
+            log.warn("ページキャッシュの読み込みに失敗: url={}, error={}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * ページを保存する。書き込みに失敗した場合は警告ログを出力して続行する。
+     *
+     * @param url URL
+     * @param html ページ本文
+     * @param etag ETagヘッダー（なければnull）
+     * @param lastModified Last-Modifiedヘッダー（なければnull）
+     */
+    void write(String url, String html, String etag, String lastModified) {
+        Properties meta = new Properties();
+        meta.setProperty(KEY_URL, url);
+        meta.setProperty(KEY_FETCHED_AT, Instant.now().toString());
+        if (etag != null) {
+            meta.setProperty(KEY_ETAG, etag);
+        }
+        if (lastModified != null) {
+            meta.setProperty(KEY_LAST_MODIFIED, lastModified);
+        }
+        try {
+            Files.createDirectories(directory);
+            Path htmlTemp = Files.createTempFile(directory, "page-", ".tmp");
+            Files.writeString(htmlTemp, html, StandardCharsets.UTF_8);
+            Path metaTemp = Files.createTempFile(directory, "page-", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(metaTemp, StandardCharsets.UTF_8)) {
+                meta.store(writer, null);
+            }
+            Files.move(htmlTemp, file(url, ".html"), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(metaTemp, file(url, ".properties"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // 保存に失敗しても取得結果は使用できるため、取り込みは続行する
+            log.warn("ページキャッシュの書き込みに失敗: url={}, error={}", url, e.getMessage());
+        }
+    }
+
+    private Path file(String url, String extension) {
+        return directory.resolve(ContentHash.sha256Hex(url) + extension);
+    }
+}
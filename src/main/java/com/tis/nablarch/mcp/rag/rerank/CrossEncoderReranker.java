@@ -1,16 +1,22 @@
 package com.tis.nablarch.mcp.rag.rerank;
 
 import com.tis.nablarch.mcp.rag.search.SearchResult;
+import com.tis.nablarch.mcp.rag.search.SearchResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Cross-Encoderリランキング実装。
@@ -21,10 +27,17 @@ import java.util.List;
  * <p>Top-50候補から → Top-K (5-10) に絞り込む。
  * API呼び出しが失敗した場合は、元のスコア順をそのまま返却する（degraded mode）。</p>
  *
+ * <p>採点済みのペアのスコアは {@link RerankScoreCache} に保持し、APIにはキャッシュにない候補のみを送る。
+ * キャッシュが有効な場合は、送った全候補のスコアを保持するため {@code top_n} を送信件数とする。</p>
+ *
+ * <h3>有効化条件</h3>
+ * <p>{@code nablarch.mcp.rerank.provider=api}（既定）の場合に有効化される。</p>
+ *
  * @see Reranker
  * @see RerankProperties
  */
 @Service
+@ConditionalOnProperty(name = "nablarch.mcp.rerank.provider", havingValue = "api", matchIfMissing = true)
 @EnableConfigurationProperties(RerankProperties.class)
 public class CrossEncoderReranker implements Reranker {
 
@@ -32,9 +45,10 @@ public class CrossEncoderReranker implements Reranker {
 
     private final WebClient webClient;
     private final RerankProperties properties;
+    private final RerankScoreCache scoreCache;
 
     /**
-     * コンストラクタ。
+     * コンストラクタ（スコアキャッシュなし）。
      *
      * @param webClientBuilder WebClientビルダー
      * @param properties リランキング設定
@@ -42,7 +56,24 @@ public class CrossEncoderReranker implements Reranker {
     public CrossEncoderReranker(
             WebClient.Builder webClientBuilder,
             RerankProperties properties) {
+        this(webClientBuilder, properties, null);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param webClientBuilder WebClientビルダー
+     * @param properties リランキング設定
+     * @param meterRegistry Micrometerレジストリ（nullの場合はスコアをキャッシュしない）
+     */
+    @Autowired
+    public CrossEncoderReranker(
+            WebClient.Builder webClientBuilder,
+            RerankProperties properties,
+            MeterRegistry meterRegistry) {
         this.properties = properties;
+        this.scoreCache = RerankScoreCache.of(
+                properties.getJina().getModel(), properties.getScoreCache(), meterRegistry);
         this.webClient = webClientBuilder
                 .baseUrl(properties.getJina().getBaseUrl())
                 .defaultHeader("Authorization", "Bearer " + properties.getJina().getApiKey())
@@ -68,7 +99,7 @@ public class CrossEncoderReranker implements Reranker {
     }
 
     /**
-     * Jina Reranker APIを呼び出してリランキングを実行する。
+     * Jina Reranker APIのスコアでリランキングを実行する。
      *
      * @param query クエリ
      * @param candidates 候補リスト
@@ -76,18 +107,48 @@ public class CrossEncoderReranker implements Reranker {
      * @return リランキング済み結果
      */
     private List<SearchResult> doRerank(String query, List<SearchResult> candidates, int topK) {
+        double[] scores = scoreCache.scores(query, candidates, misses -> requestScores(
+                query, misses, scoreCache.isEnabled() ? misses.size() : Math.min(topK, misses.size())));
+
+        // SearchResultを再構築（スコアをrerankerスコアで置換、スコアが返却されなかった候補は除く）
+        return IntStream.range(0, candidates.size())
+                .filter(i -> !Double.isNaN(scores[i]))
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(topK)
+                .map(i -> {
+                    SearchResult original = candidates.get(i);
+                    return new SearchResult(
+                            original.id(),
+                            original.content(),
+                            scores[i],
+                            original.metadata(),
+                            original.sourceUrl()
+                    );
+                })
+                .toList();
+    }
+
+    /**
+     * Jina Reranker APIを呼び出して候補のスコアを取得する。
+     *
+     * @param query クエリ
+     * @param candidates 候補リスト
+     * @param topN APIが返却する上位件数
+     * @return 関連度スコア（候補の順、返却されなかった候補はNaN）
+     */
+    private double[] requestScores(String query, List<SearchResult> candidates, int topN) {
         // 候補のcontentをドキュメントリストに変換
         List<String> documents = candidates.stream()
                 .map(SearchResult::content)
                 .toList();
 
         // APIリクエスト構築
-        int effectiveTopN = Math.min(topK, candidates.size());
         RerankRequest request = new RerankRequest(
                 properties.getJina().getModel(),
                 query,
                 documents,
-                effectiveTopN,
+                topN,
                 false
         );
 
@@ -100,36 +161,30 @@ public class CrossEncoderReranker implements Reranker {
                 .block(timeout);
 
         if (response == null || response.results() == null || response.results().isEmpty()) {
-            log.warn("リランキングAPIレスポンスが空。元のスコア順で返却。");
-            return fallback(candidates, topK);
+            throw new IllegalStateException("リランキングAPIレスポンスが空");
         }
 
-        // レスポンスからSearchResultを再構築（スコアをrerankerスコアで置換）
-        return response.results().stream()
-                .filter(r -> r.index() >= 0 && r.index() < candidates.size())
-                .sorted(Comparator.comparingDouble(RerankResponse.Result::relevanceScore).reversed())
-                .limit(topK)
-                .map(r -> {
-                    SearchResult original = candidates.get(r.index());
-                    return new SearchResult(
-                            original.id(),
-                            original.content(),
-                            r.relevanceScore(),
-                            original.metadata(),
-                            original.sourceUrl()
-                    );
-                })
-                .toList();
+        double[] scores = new double[candidates.size()];
+        Arrays.fill(scores, Double.NaN);
+        for (RerankResponse.Result result : response.results()) {
+            if (result.index() >= 0 && result.index() < candidates.size()) {
+                scores[result.index()] = result.relevanceScore();
+            }
+        }
+        return scores;
     }
 
     /**
      * フォールバック: 元のスコア順で上位topK件を返す。
      *
+     * <p>リランキングしていない結果のため、検索結果キャッシュには格納させない。</p>
+     *
      * @param candidates 候補リスト
      * @param topK 返却件数
      * @return 元のスコア降順でtopK件
      */
     private List<SearchResult> fallback(List<SearchResult> candidates, int topK) {
+        SearchResultCache.markUncacheable(SearchResultCache.REASON_RERANK_SKIPPED);
         return candidates.stream()
                 .sorted(Comparator.comparingDouble(SearchResult::score).reversed())
                 .limit(topK)
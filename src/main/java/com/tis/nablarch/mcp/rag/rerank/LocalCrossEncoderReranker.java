@@ -0,0 +1,169 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.embedding.local.OnnxCrossEncoder;
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import com.tis.nablarch.mcp.rag.search.SearchResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ローカルCross-Encoderリランキング実装。
+ *
+ * <p>多言語Cross-Encoder（bge-reranker-v2-m3等）をONNX Runtimeでプロセス内実行し、
+ * ハイブリッド検索結果の候補をクエリとの関連度で再順位付けする。
+ * 外部APIを呼び出さないため、ネットワークに接続できない環境でもリランキングが機能する。</p>
+ *
+ * <p>候補はクエリとのペアとしてバッチ推論する（{@link OnnxCrossEncoder}）。
+ * 推論が失敗した場合は、元のスコア順をそのまま返却する（degraded mode）。</p>
+ *
+ * <p>採点済みのペアのスコアは {@link RerankScoreCache} に保持し、推論はキャッシュにない候補のみで行う。</p>
+ *
+ * <h3>有効化条件</h3>
+ * <p>{@code nablarch.mcp.rerank.provider=local} の場合に有効化される。</p>
+ *
+ * @see Reranker
+ * @see RerankProperties.Local
+ */
+@Service
+@ConditionalOnProperty(name = "nablarch.mcp.rerank.provider", havingValue = "local")
+@EnableConfigurationProperties(RerankProperties.class)
+public class LocalCrossEncoderReranker implements Reranker {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalCrossEncoderReranker.class);
+
+    private final RerankProperties properties;
+    private final OnnxCrossEncoder encoder;
+    private final RerankScoreCache scoreCache;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param properties リランキング設定
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public LocalCrossEncoderReranker(RerankProperties properties, MeterRegistry meterRegistry) {
+        this(properties, new OnnxCrossEncoder(
+                properties.getLocal(), properties.getLocal().getQueryMaxTokens(), meterRegistry), meterRegistry);
+    }
+
+    /**
+     * テスト用コンストラクタ（スコアキャッシュなし）。
+     *
+     * @param properties リランキング設定
+     * @param encoder Cross-Encoder
+     */
+    LocalCrossEncoderReranker(RerankProperties properties, OnnxCrossEncoder encoder) {
+        this(properties, encoder, null);
+    }
+
+    /**
+     * テスト用コンストラクタ。
+     *
+     * @param properties リランキング設定
+     * @param encoder Cross-Encoder
+     * @param meterRegistry Micrometerレジストリ（nullの場合はスコアをキャッシュしない）
+     */
+    LocalCrossEncoderReranker(RerankProperties properties, OnnxCrossEncoder encoder, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.encoder = encoder;
+        this.scoreCache = RerankScoreCache.of(
+                properties.getLocal().getModelName(), properties.getScoreCache(), meterRegistry);
+    }
+
+    /**
+     * モデルをロードする。
+     */
+    @PostConstruct
+    public void init() {
+        encoder.init();
+    }
+
+    /**
+     * モデルをアンロードする。
+     */
+    @PreDestroy
+    public void close() {
+        encoder.close();
+    }
+
+    @Override
+    public List<SearchResult> rerank(String query, List<SearchResult> candidates, int topK) {
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (topK < 1) {
+            topK = properties.getLocal().getTopK();
+        }
+
+        double[] scores;
+        try {
+            scores = scoreCache.scores(query, candidates, misses -> score(query, misses));
+        } catch (RuntimeException e) {
+            log.warn("ローカルリランキング失敗。元のスコア順で返却（degraded mode）: {}", e.getMessage());
+            return fallback(candidates, topK);
+        }
+
+        // スコアをCross-Encoderの関連度で置換
+        return IntStream.range(0, candidates.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(topK)
+                .map(i -> {
+                    SearchResult original = candidates.get(i);
+                    return new SearchResult(
+                            original.id(),
+                            original.content(),
+                            scores[i],
+                            original.metadata(),
+                            original.sourceUrl()
+                    );
+                })
+                .toList();
+    }
+
+    /**
+     * 候補をCross-Encoderで採点する。
+     *
+     * @param query クエリ
+     * @param candidates 候補
+     * @return 関連度スコア（候補の順）
+     */
+    private double[] score(String query, List<SearchResult> candidates) {
+        float[] scores = encoder.score(query, candidates.stream().map(SearchResult::content).toList());
+        double[] result = new double[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            result[i] = scores[i];
+        }
+        return result;
+    }
+
+    /**
+     * フォールバック: 元のスコア順で上位topK件を返す。
+     *
+     * <p>リランキングしていない結果のため、検索結果キャッシュには格納させない。</p>
+     *
+     * @param candidates 候補リスト
+     * @param topK 返却件数
+     * @return 元のスコア降順でtopK件
+     */
+    private List<SearchResult> fallback(List<SearchResult> candidates, int topK) {
+        SearchResultCache.markUncacheable(SearchResultCache.REASON_RERANK_SKIPPED);
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble(SearchResult::score).reversed())
+                .limit(topK)
+                .toList();
+    }
+}
@@ -0,0 +1,280 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import com.tis.nablarch.mcp.rag.search.SearchResultCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * カスケードリランキング。
+ *
+ * <p>ハイブリッド検索のスコアを1段目のスコアとして候補を絞り込み、
+ * 残った候補のみを2段目の {@link Reranker}（Cross-Encoder）に渡す。
+ * 候補数は次の順に決定する。</p>
+ * <ol>
+ *   <li>topK × {@code candidate-multiplier}（下限 {@code min-candidates}）件に絞る</li>
+ *   <li>1段目スコアが最上位の {@code min-score-ratio} 倍未満の候補を除く（topK件は残す）</li>
+ *   <li>検索リクエストの残りバジェット（{@code budget-ms}）で推論できる件数に絞る</li>
+ * </ol>
+ * <p>1件あたりの推論コストは直近のリランキング時間から指数移動平均で推定する
+ * （固定のオーバーヘッドを含むため、少数の候補では多めに見積もる）。
+ * 残りバジェットでtopK件も推論できない場合はリランキングを省略し、1段目の順位で返す（early exit）。
+ * 省略した結果は検索結果キャッシュに格納させない（{@link SearchResultCache#markUncacheable(String)}）。</p>
+ *
+ * <p>一時的な遅延で推定が高止まりし、リランキングが省略され続けないように次の補正を行う。</p>
+ * <ul>
+ *   <li>初回の計測（モデルのウォームアップを含む）は推定に使用しない</li>
+ *   <li>1回の計測値は現在の推定の {@value #MAX_SAMPLE_RATIO} 倍までに制限する</li>
+ *   <li>省略するたびに推定をこれまでの最小の計測値に向けて減衰させる</li>
+ *   <li>{@code probe-interval} 回続けて省略した後の要求は、topK件のみをリランキングしてコストを再計測する</li>
+ * </ul>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code rerank.cascade.requests} - 判定ごとの件数（tag: decision = full / pruned / skipped / probe）</li>
+ *   <li>{@code rerank.cascade.pairs} - リランキングしたクエリ・候補ペア数（DistributionSummary）</li>
+ *   <li>{@code rerank.cascade.pairs.saved} - 絞り込みで省いたペア数（Counter）</li>
+ *   <li>{@code rerank.cascade.pair.cost} - 推定した1ペアあたりの推論時間（Gauge、秒）</li>
+ * </ul>
+ *
+ * @see RerankProperties.Cascade
+ */
+@Component
+@EnableConfigurationProperties(RerankProperties.class)
+public class RerankCascade {
+
+    private static final Logger log = LoggerFactory.getLogger(RerankCascade.class);
+
+    /**
+     * 推論コストの指数移動平均の平滑化係数。
+     */
+    static final double COST_SMOOTHING = 0.2;
+
+    /**
+     * 推定に使用しない初回の計測回数（モデルのウォームアップ）。
+     */
+    static final int WARMUP_SAMPLES = 1;
+
+    /**
+     * 現在の推定に対する1回の計測値の上限倍率。
+     */
+    static final double MAX_SAMPLE_RATIO = 4.0;
+
+    private final Reranker reranker;
+    private final RerankProperties.Cascade config;
+    private final LongSupplier nanoClock;
+    private final AtomicLong pairCostNanos = new AtomicLong();
+    private final AtomicInteger skipsSinceProbe = new AtomicInteger();
+    private long samples;
+    private long floorPairCostNanos;
+    private final Counter fullCounter;
+    private final Counter prunedCounter;
+    private final Counter skippedCounter;
+    private final Counter probeCounter;
+    private final Counter savedPairsCounter;
+    private final DistributionSummary pairsSummary;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param reranker 2段目のリランカー
+     * @param properties リランキング設定
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public RerankCascade(Reranker reranker, RerankProperties properties, MeterRegistry meterRegistry) {
+        this(reranker, properties.getCascade(), meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * テスト用コンストラクタ。
+     *
+     * @param reranker 2段目のリランカー
+     * @param config カスケード設定
+     * @param meterRegistry Micrometerレジストリ
+     * @param nanoClock 経過時間の計測に使用する時計（ナノ秒）
+     */
+    RerankCascade(Reranker reranker, RerankProperties.Cascade config,
+            MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.reranker = reranker;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.fullCounter = decisionCounter(meterRegistry, "full");
+        this.prunedCounter = decisionCounter(meterRegistry, "pruned");
+        this.skippedCounter = decisionCounter(meterRegistry, "skipped");
+        this.probeCounter = decisionCounter(meterRegistry, "probe");
+        this.savedPairsCounter = Counter.builder("rerank.cascade.pairs.saved")
+                .description("カスケードで省いたリランキングのペア数")
+                .register(meterRegistry);
+        this.pairsSummary = DistributionSummary.builder("rerank.cascade.pairs")
+                .description("リクエストあたりのリランキングしたペア数")
+                .register(meterRegistry);
+        Gauge.builder("rerank.cascade.pair.cost", pairCostNanos, c -> c.get() / 1e9)
+                .description("推定した1ペアあたりのリランキング時間（秒）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 絞り込みを行わず全候補をリランキングするインスタンスを生成する。
+     *
+     * @param reranker リランカー
+     * @return カスケード
+     */
+    public static RerankCascade disabled(Reranker reranker) {
+        RerankProperties.Cascade config = new RerankProperties.Cascade();
+        config.setEnabled(false);
+        return new RerankCascade(reranker, config, new SimpleMeterRegistry(), System::nanoTime);
+    }
+
+    /**
+     * 候補を絞り込んでリランキングする。
+     *
+     * @param query クエリ
+     * @param candidates ハイブリッド検索結果（1段目のスコア付き）
+     * @param topK 返却件数
+     * @param startNanos 検索リクエストの開始時刻（{@link System#nanoTime()}）
+     * @return リランキング済みの検索結果（最大topK件）
+     */
+    public List<SearchResult> rerank(String query, List<SearchResult> candidates, int topK, long startNanos) {
+        if (!config.isEnabled() || candidates.isEmpty()) {
+            return reranker.rerank(query, candidates, topK);
+        }
+
+        List<SearchResult> ranked = candidates.stream()
+                .sorted(Comparator.comparingDouble(SearchResult::score).reversed())
+                .toList();
+        int keep = Math.min(topK, ranked.size());
+        int affordable = affordablePairs(startNanos);
+        if (affordable < keep) {
+            if (!dueForProbe()) {
+                decayCost();
+                skippedCounter.increment();
+                savedPairsCounter.increment(ranked.size());
+                log.debug("リランキングのバジェット不足。1段目の順位で返却: candidates={}, affordable={}",
+                        ranked.size(), affordable);
+                SearchResultCache.markUncacheable(SearchResultCache.REASON_RERANK_SKIPPED);
+                return ranked.subList(0, keep);
+            }
+            probeCounter.increment();
+            log.debug("推論コストを再計測するためtopK件をリランキング: candidates={}, affordable={}",
+                    ranked.size(), affordable);
+            return rerankAndMeasure(query, ranked, keep, topK);
+        }
+
+        skipsSinceProbe.set(0);
+        int limit = Math.min(candidateLimit(ranked, topK), affordable);
+        (limit < ranked.size() ? prunedCounter : fullCounter).increment();
+        log.debug("カスケードリランキング: candidates={}, reranked={}, topK={}", ranked.size(), limit, topK);
+        return rerankAndMeasure(query, ranked, limit, topK);
+    }
+
+    private List<SearchResult> rerankAndMeasure(String query, List<SearchResult> ranked, int limit, int topK) {
+        savedPairsCounter.increment(ranked.size() - limit);
+        pairsSummary.record(limit);
+        long start = nanoClock.getAsLong();
+        List<SearchResult> results = reranker.rerank(query, ranked.subList(0, limit), topK);
+        recordCost(nanoClock.getAsLong() - start, limit);
+        return results;
+    }
+
+    /**
+     * 1段目のスコアからリランキングする候補数を決定する。
+     *
+     * @param ranked 1段目のスコア降順の候補
+     * @param topK 返却件数
+     * @return 候補数（topK件以上、候補数以下）
+     */
+    int candidateLimit(List<SearchResult> ranked, int topK) {
+        int keep = Math.min(topK, ranked.size());
+        int adaptive = Math.max(topK * config.getCandidateMultiplier(), config.getMinCandidates());
+        int limit = Math.max(keep, Math.min(ranked.size(), adaptive));
+        double top = ranked.get(0).score();
+        if (config.getMinScoreRatio() > 0 && top > 0) {
+            double floor = top * config.getMinScoreRatio();
+            while (limit > keep && ranked.get(limit - 1).score() < floor) {
+                limit--;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * 残りバジェットで推論できるペア数を返す。
+     *
+     * @param startNanos 検索リクエストの開始時刻
+     * @return ペア数（バジェット無制限又は推論コスト未計測の場合は {@link Integer#MAX_VALUE}）
+     */
+    private int affordablePairs(long startNanos) {
+        long cost = pairCostNanos.get();
+        if (config.getBudgetMs() <= 0 || cost <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        long remaining = startNanos + TimeUnit.MILLISECONDS.toNanos(config.getBudgetMs()) - nanoClock.getAsLong();
+        return (remaining <= 0) ? 0 : (int) Math.min(Integer.MAX_VALUE, remaining / cost);
+    }
+
+    /**
+     * リランキングを省略する代わりに推論コストを再計測するかを判定する。
+     *
+     * @return {@code probe-interval} 回続けて省略した場合true（カウンタを0に戻す）
+     */
+    private boolean dueForProbe() {
+        int interval = config.getProbeInterval();
+        if (interval <= 0) {
+            return false;
+        }
+        return skipsSinceProbe.getAndUpdate(skips -> (skips >= interval) ? 0 : skips + 1) >= interval;
+    }
+
+    private synchronized void recordCost(long elapsedNanos, int pairs) {
+        if (pairs <= 0) {
+            return;
+        }
+        long sample = Math.max(1, elapsedNanos / pairs);
+        if (++samples <= WARMUP_SAMPLES) {
+            log.debug("初回のリランキング時間は推論コストの推定に使用しない: pairCost={}ns", sample);
+            return;
+        }
+        floorPairCostNanos = (floorPairCostNanos <= 0) ? sample : Math.min(floorPairCostNanos, sample);
+        long current = pairCostNanos.get();
+        if (current <= 0) {
+            pairCostNanos.set(sample);
+            return;
+        }
+        double capped = Math.min(sample, current * MAX_SAMPLE_RATIO);
+        pairCostNanos.set(Math.round(current * (1 - COST_SMOOTHING) + capped * COST_SMOOTHING));
+    }
+
+    /**
+     * リランキングを省略した際に、推論コストの推定をこれまでの最小の計測値に向けて減衰させる。
+     */
+    private synchronized void decayCost() {
+        long current = pairCostNanos.get();
+        if (current > floorPairCostNanos) {
+            pairCostNanos.set(Math.max(floorPairCostNanos,
+                    Math.round(current * (1 - COST_SMOOTHING) + floorPairCostNanos * COST_SMOOTHING)));
+        }
+    }
+
+    private static Counter decisionCounter(MeterRegistry registry, String decision) {
+        return Counter.builder("rerank.cascade.requests")
+                .tag("decision", decision)
+                .description("カスケードリランキングの判定回数")
+                .register(registry);
+    }
+}
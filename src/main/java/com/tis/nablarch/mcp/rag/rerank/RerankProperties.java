@@ -1,17 +1,51 @@
 package com.tis.nablarch.mcp.rag.rerank;
 
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * リランキング設定プロパティ。
  *
- * <p>{@code nablarch.mcp.rerank} プレフィクスで設定値をバインドする。</p>
+ * <p>{@code nablarch.mcp.rerank} プレフィクスで設定値をバインドする。
+ * {@code provider} で使用するリランカーを切り替える。</p>
+ * <ul>
+ *   <li>{@code api} - Jina Reranker APIを呼び出す（{@link CrossEncoderReranker}）</li>
+ *   <li>{@code local} - ONNX RuntimeでCross-Encoderを実行する（{@link LocalCrossEncoderReranker}）</li>
+ * </ul>
  */
 @ConfigurationProperties(prefix = "nablarch.mcp.rerank")
 public class RerankProperties {
 
+    private String provider = "api";
+
     private final Jina jina = new Jina();
 
+    private final Local local = new Local();
+
+    private final Cascade cascade = new Cascade();
+
+    private final ScoreCache scoreCache = new ScoreCache();
+
+    /**
+     * リランキングプロバイダを返す。
+     *
+     * @return プロバイダ（api / local）
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * リランキングプロバイダを設定する。
+     *
+     * @param provider プロバイダ（api / local）
+     */
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
     /**
      * Jina Reranker設定を返す。
      *
@@ -21,6 +55,33 @@ public class RerankProperties {
         return jina;
     }
 
+    /**
+     * ローカルCross-Encoder設定を返す。
+     *
+     * @return ローカル設定
+     */
+    public Local getLocal() {
+        return local;
+    }
+
+    /**
+     * カスケードリランキング設定を返す。
+     *
+     * @return カスケード設定
+     */
+    public Cascade getCascade() {
+        return cascade;
+    }
+
+    /**
+     * リランキングスコアキャッシュ設定を返す。
+     *
+     * @return スコアキャッシュ設定
+     */
+    public ScoreCache getScoreCache() {
+        return scoreCache;
+    }
+
     /**
      * Jina Reranker API設定。
      */
@@ -122,4 +183,251 @@ public class RerankProperties {
             this.topK = topK;
         }
     }
+
+    /**
+     * ローカルCross-Encoder（ONNX）設定。
+     *
+     * <p>モデルファイル・トークナイザー・セッションの設定はEmbeddingのローカルモデルと共通。
+     * {@code max-tokens} はクエリとパッセージのペア全体の上限で、超える場合はパッセージ側を切り詰める。</p>
+     */
+    public static class Local extends EmbeddingProperties.OnnxModelConfig {
+
+        private int queryMaxTokens = 64;
+        private int topK = 10;
+
+        /**
+         * コンストラクタ。Cross-Encoder向けの既定値を設定する。
+         */
+        public Local() {
+            setModelName("BAAI/bge-reranker-v2-m3");
+            setBatchSize(16);
+        }
+
+        /**
+         * クエリの最大トークン数を返す。
+         *
+         * @return クエリの最大トークン数（0以下の場合は切り詰めない）
+         */
+        public int getQueryMaxTokens() {
+            return queryMaxTokens;
+        }
+
+        /**
+         * クエリの最大トークン数を設定する。
+         *
+         * @param queryMaxTokens クエリの最大トークン数
+         */
+        public void setQueryMaxTokens(int queryMaxTokens) {
+            this.queryMaxTokens = queryMaxTokens;
+        }
+
+        /**
+         * デフォルトのtopK値を返す。
+         *
+         * @return topK値
+         */
+        public int getTopK() {
+            return topK;
+        }
+
+        /**
+         * デフォルトのtopK値を設定する。
+         *
+         * @param topK topK値
+         */
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+    }
+
+    /**
+     * カスケードリランキング設定。
+     *
+     * <p>1段目（ハイブリッド検索のスコア）で候補を絞り込み、残った候補のみを
+     * Cross-Encoderに渡す（{@link RerankCascade}）。</p>
+     */
+    public static class Cascade {
+
+        private boolean enabled = true;
+        private int candidateMultiplier = 4;
+        private int minCandidates = 10;
+        private double minScoreRatio = 0.5;
+        private long budgetMs = 300;
+        private int probeInterval = 20;
+
+        /**
+         * カスケードを有効にするかを返す。
+         *
+         * @return 有効な場合true（falseの場合は全候補をリランキングする）
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * カスケードを有効にするかを設定する。
+         *
+         * @param enabled 有効にする場合true
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * topKに対するリランキング候補数の倍率を返す。
+         *
+         * @return 倍率（候補数 = topK × 倍率）
+         */
+        public int getCandidateMultiplier() {
+            return candidateMultiplier;
+        }
+
+        /**
+         * topKに対するリランキング候補数の倍率を設定する。
+         *
+         * @param candidateMultiplier 倍率
+         */
+        public void setCandidateMultiplier(int candidateMultiplier) {
+            this.candidateMultiplier = candidateMultiplier;
+        }
+
+        /**
+         * リランキング候補数の下限を返す。
+         *
+         * @return 候補数の下限
+         */
+        public int getMinCandidates() {
+            return minCandidates;
+        }
+
+        /**
+         * リランキング候補数の下限を設定する。
+         *
+         * @param minCandidates 候補数の下限
+         */
+        public void setMinCandidates(int minCandidates) {
+            this.minCandidates = minCandidates;
+        }
+
+        /**
+         * 1段目スコアの足切り比率を返す。
+         *
+         * @return 最上位スコアに対する比率（これ未満の候補はtopK件を超える分を除外する。0で無効）
+         */
+        public double getMinScoreRatio() {
+            return minScoreRatio;
+        }
+
+        /**
+         * 1段目スコアの足切り比率を設定する。
+         *
+         * @param minScoreRatio 最上位スコアに対する比率
+         */
+        public void setMinScoreRatio(double minScoreRatio) {
+            this.minScoreRatio = minScoreRatio;
+        }
+
+        /**
+         * 検索リクエストあたりのレイテンシバジェット（ミリ秒）を返す。
+         *
+         * @return バジェット（ミリ秒、0以下で無制限）
+         */
+        public long getBudgetMs() {
+            return budgetMs;
+        }
+
+        /**
+         * 検索リクエストあたりのレイテンシバジェット（ミリ秒）を設定する。
+         *
+         * @param budgetMs バジェット（ミリ秒）
+         */
+        public void setBudgetMs(long budgetMs) {
+            this.budgetMs = budgetMs;
+        }
+
+        /**
+         * 推論コストを再計測するまでの連続省略回数を返す。
+         *
+         * @return 回数（この回数続けてリランキングを省略した後、topK件のみをリランキングする。0以下で無効）
+         */
+        public int getProbeInterval() {
+            return probeInterval;
+        }
+
+        /**
+         * 推論コストを再計測するまでの連続省略回数を設定する。
+         *
+         * @param probeInterval 回数
+         */
+        public void setProbeInterval(int probeInterval) {
+            this.probeInterval = probeInterval;
+        }
+    }
+
+    /**
+     * リランキングスコアキャッシュ設定。
+     *
+     * <p>クエリ・候補ペアのスコアを保持し、採点済みのペアを推論/API呼び出しの対象から除く
+     * （{@link RerankScoreCache}）。</p>
+     */
+    public static class ScoreCache {
+
+        private boolean enabled = true;
+        private int maxSize = 20000;
+        private Duration ttl = Duration.ofMinutes(30);
+
+        /**
+         * キャッシュを有効にするかを返す。
+         *
+         * @return 有効な場合true
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * キャッシュを有効にするかを設定する。
+         *
+         * @param enabled 有効にする場合true
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * 最大エントリ数（ペア単位、LRUで削除）を返す。
+         *
+         * @return 最大エントリ数
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * 最大エントリ数（ペア単位、LRUで削除）を設定する。
+         *
+         * @param maxSize 最大エントリ数
+         */
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * エントリの有効期間を返す。
+         *
+         * @return 有効期間
+         */
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        /**
+         * エントリの有効期間を設定する。
+         *
+         * @param ttl 有効期間
+         */
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
 }
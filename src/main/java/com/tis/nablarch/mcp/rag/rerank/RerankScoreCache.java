@@ -0,0 +1,251 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * リランキングスコアのキャッシュ。
+ *
+ * <p>クエリ・候補ペアの関連度スコアを「モデル名 + 正規化済みクエリ + チャンクのテーブル + チャンクID」をキーとして保持し、
+ * 同じクエリでtopK・検索モード・フィルタを変えて繰り返し検索した場合に、
+ * 採点済みのペアをCross-Encoder推論/API呼び出しの対象から除く。
+ * キャッシュはLRU方式のサイズ上限とTTLの両方で削除される。
+ * 再取込でチャンクを入れ替えた場合はIDが変わるため、古いエントリは参照されずに削除を待つ。
+ * document_chunksとcode_chunksはそれぞれ独立した連番のIDを持つため、
+ * 候補のメタデータ {@code table} でテーブルを区別する。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code rerank.cache.requests} - ペア単位のヒット/ミス回数（tag: model, result）</li>
+ *   <li>{@code rerank.cache.evictions} - 削除回数（tag: model, cause=size|expired）</li>
+ *   <li>{@code rerank.cache.size} - 現在のエントリ数（Gauge）</li>
+ * </ul>
+ */
+final class RerankScoreCache {
+
+    private final String model;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<CacheKey, CacheEntry> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiredEvictionCounter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param model モデル名
+     * @param config キャッシュ設定
+     * @param meterRegistry Micrometerレジストリ
+     * @param clock TTL判定に使用する時計
+     */
+    RerankScoreCache(String model, RerankProperties.ScoreCache config, MeterRegistry meterRegistry, Clock clock) {
+        this.model = model;
+        this.enabled = config.isEnabled() && config.getMaxSize() > 0;
+        this.maxSize = config.getMaxSize();
+        this.ttlMillis = config.getTtl().toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.hitCounter = requestCounter(meterRegistry, model, "hit");
+        this.missCounter = requestCounter(meterRegistry, model, "miss");
+        this.sizeEvictionCounter = evictionCounter(meterRegistry, model, "size");
+        this.expiredEvictionCounter = evictionCounter(meterRegistry, model, "expired");
+        Gauge.builder("rerank.cache.size", this, RerankScoreCache::size)
+                .tag("model", model)
+                .description("リランキングスコアキャッシュのエントリ数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 設定に応じたキャッシュを生成する。
+     *
+     * @param model モデル名
+     * @param config キャッシュ設定
+     * @param meterRegistry Micrometerレジストリ（nullの場合はキャッシュしない）
+     * @return キャッシュ（無効時は常に全候補を採点するインスタンス）
+     */
+    static RerankScoreCache of(String model, RerankProperties.ScoreCache config, MeterRegistry meterRegistry) {
+        if (meterRegistry == null) {
+            RerankProperties.ScoreCache disabled = new RerankProperties.ScoreCache();
+            disabled.setEnabled(false);
+            return new RerankScoreCache(model, disabled, new SimpleMeterRegistry(), Clock.systemUTC());
+        }
+        return new RerankScoreCache(model, config, meterRegistry, Clock.systemUTC());
+    }
+
+    /**
+     * キャッシュが有効かを返す。
+     *
+     * @return 有効な場合true
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 候補の関連度スコアを返す。キャッシュにない候補のみを採点処理に渡す。
+     *
+     * <p>採点処理が返す配列は渡した候補の順に対応させ、採点しなかった候補は {@link Double#NaN} とする。
+     * NaNのスコアはキャッシュしない。</p>
+     *
+     * @param query クエリ
+     * @param candidates 候補
+     * @param scorer 未採点の候補を採点する処理
+     * @return 関連度スコア（候補の順、採点されなかった候補はNaN）
+     */
+    double[] scores(String query, List<SearchResult> candidates, Function<List<SearchResult>, double[]> scorer) {
+        if (!enabled) {
+            return scorer.apply(candidates);
+        }
+        String normalized = normalize(query);
+        long now = clock.millis();
+        double[] scores = new double[candidates.size()];
+        CacheKey[] keys = new CacheKey[candidates.size()];
+        List<Integer> missPositions = new ArrayList<>();
+
+        synchronized (entries) {
+            for (int i = 0; i < candidates.size(); i++) {
+                SearchResult candidate = candidates.get(i);
+                keys[i] = new CacheKey(model, normalized, chunkTable(candidate), candidate.id());
+                CacheEntry entry = entries.get(keys[i]);
+                if (entry != null && entry.isExpired(now)) {
+                    entries.remove(keys[i]);
+                    expiredEvictionCounter.increment();
+                    entry = null;
+                }
+                if (entry != null) {
+                    scores[i] = entry.score();
+                } else {
+                    missPositions.add(i);
+                }
+            }
+        }
+        hitCounter.increment(candidates.size() - missPositions.size());
+        missCounter.increment(missPositions.size());
+        if (missPositions.isEmpty()) {
+            return scores;
+        }
+
+        // 採点はロック外で実行する（同一キーの同時ミスは重複計算を許容）
+        List<SearchResult> misses = missPositions.stream().map(candidates::get).toList();
+        double[] missScores = scorer.apply(misses);
+
+        synchronized (entries) {
+            for (int m = 0; m < missPositions.size(); m++) {
+                int position = missPositions.get(m);
+                scores[position] = missScores[m];
+                if (!Double.isNaN(missScores[m])) {
+                    entries.put(keys[position], new CacheEntry(missScores[m], now + ttlMillis));
+                }
+            }
+            evictOverflow();
+        }
+        return scores;
+    }
+
+    /**
+     * 現在のキャッシュエントリ数を返す。
+     *
+     * @return エントリ数
+     */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * キャッシュキー用にクエリ文字列を正規化する。
+     *
+     * <p>NFKC正規化を行い、連続する空白を1つに畳み込んで前後の空白を除去する。</p>
+     *
+     * @param text クエリ文字列
+     * @return 正規化済み文字列
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 候補のチャンクが格納されているテーブル名を返す。
+     *
+     * @param candidate 候補
+     * @return テーブル名（メタデータにない場合はnull）
+     */
+    private static String chunkTable(SearchResult candidate) {
+        return (candidate.metadata() != null) ? candidate.metadata().get("table") : null;
+    }
+
+    /**
+     * サイズ上限を超えたエントリを最も古く参照されたものから削除する。
+     * 呼び出し元で {@code entries} のロックを保持していること。
+     */
+    private void evictOverflow() {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            sizeEvictionCounter.increment();
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String model, String result) {
+        return Counter.builder("rerank.cache.requests")
+                .tag("model", model)
+                .tag("result", result)
+                .description("リランキングスコアキャッシュの参照回数（ペア単位）")
+                .register(registry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry registry, String model, String cause) {
+        return Counter.builder("rerank.cache.evictions")
+                .tag("model", model)
+                .tag("cause", cause)
+                .description("リランキングスコアキャッシュの削除回数")
+                .register(registry);
+    }
+
+    /**
+     * キャッシュキー。
+     *
+     * @param model モデル名
+     * @param query 正規化済みクエリ
+     * @param table チャンクのテーブル名
+     * @param chunkId チャンクID
+     */
+    private record CacheKey(String model, String query, String table, String chunkId) {
+    }
+
+    /**
+     * キャッシュエントリ。
+     *
+     * @param score 関連度スコア
+     * @param expiresAtMillis 有効期限（エポックミリ秒）
+     */
+    private record CacheEntry(double score, long expiresAtMillis) {
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * document_chunks / code_chunks を対象としたインメモリBM25転置インデックス。
+ *
+ * <p>{@link BM25Tokenizer}で分割したトークンごとにポスティング（チャンク番号と出現頻度）を保持し、
+ * Okapi BM25でスコアリングする。両テーブルを単一コーパスとして統計量（文書数・平均長・DF）を
+ * 計算するため、テーブル間でスコアを直接比較できる。</p>
+ *
+ * <pre>
+ * score(D, Q) = Σ IDF(q) * tf(q, D) * (k1 + 1) / (tf(q, D) + k1 * (1 - b + b * |D| / avgdl))
+ * IDF(q)      = ln(1 + (N - df(q) + 0.5) / (df(q) + 0.5))
+ * </pre>
+ *
+ * <p>メモリ使用量を抑えるため本文は保持せず、チャンクIDとフィルタ用メタデータのみを保持する。
+ * 本文は検索後に上位K件分だけDBから取得する。インスタンスは不変で、スレッドセーフ。</p>
+ */
+final class BM25Index {
+
+    private final Map<String, Postings> postings;
+    private final long[] ids;
+    private final ChunkMetadata[] metadata;
+    private final int[] lengths;
+    private final double avgLength;
+    private final double k1;
+    private final double b;
+
+    private BM25Index(Builder builder, double k1, double b) {
+        this.postings = new HashMap<>(builder.postings.size() * 2);
+        builder.postings.forEach((term, p) -> postings.put(term, p.trim()));
+        int n = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, n);
+        this.metadata = Arrays.copyOf(builder.metadata, n);
+        this.lengths = Arrays.copyOf(builder.lengths, n);
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        this.avgLength = (n > 0) ? Math.max(1.0, (double) total / n) : 1.0;
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * インデックス構築用のビルダーを生成する。
+     *
+     * @return ビルダー
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * インデックス内のチャンク数を返す。
+     *
+     * @return チャンク数
+     */
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * クエリトークンでBM25検索を行う。
+     *
+     * <p>クエリ内で重複するトークンは1回として扱う。
+     * フィルタ条件は{@link BM25SearchService}のSQL検索と同じ意味で適用する。</p>
+     *
+     * @param queryTokens クエリトークン列
+     * @param filters メタデータフィルタ条件
+     * @param topK 返却する件数
+     * @return スコア降順のヒット
+     */
+    List<Hit> search(List<String> queryTokens, SearchFilters filters, int topK) {
+        int n = ids.length;
+        if (n == 0 || queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        float[] scores = new float[n];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        for (String term : new LinkedHashSet<>(queryTokens)) {
+            Postings p = postings.get(term);
+            if (p == null) {
+                continue;
+            }
+            double idf = Math.log(1.0 + (n - p.size + 0.5) / (p.size + 0.5));
+            for (int i = 0; i < p.size; i++) {
+                int doc = p.docs[i];
+                int tf = p.freqs[i];
+                double norm = k1 * (1.0 - b + b * lengths[doc] / avgLength);
+                if (scores[doc] == 0f) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+                scores[doc] += (float) (idf * tf * (k1 + 1.0) / (tf + norm));
+            }
+        }
+
+        PriorityQueue<Hit> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Hit::score));
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (!metadata[doc].matches(filters)) {
+                continue;
+            }
+            heap.offer(new Hit(ids[doc], metadata[doc].documentTable(), scores[doc]));
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    /**
+     * 検索ヒット。
+     *
+     * @param id チャンクID
+     * @param documentTable document_chunksのチャンクの場合true（code_chunksの場合false）
+     * @param score BM25スコア
+     */
+    record Hit(long id, boolean documentTable, double score) {
+    }
+
+    /**
+     * トークンごとのポスティングリスト。
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        Postings trim() {
+            docs = Arrays.copyOf(docs, size);
+            freqs = Arrays.copyOf(freqs, size);
+            return this;
+        }
+    }
+
+    /**
+     * インデックスのビルダー（スレッドセーフではない）。
+     */
+    static final class Builder {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<ChunkMetadata, ChunkMetadata> interned = new HashMap<>();
+        private long[] ids = new long[1024];
+        private ChunkMetadata[] metadata = new ChunkMetadata[1024];
+        private int[] lengths = new int[1024];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * document_chunksのチャンクを追加する。
+         *
+         * @param id チャンクID
+         * @param content 本文
+         * @param module モジュール名
+         * @param language 言語
+         * @param appType アプリケーション種別
+         * @param source ソース
+         * @param sourceType ソース種別
+         * @return このビルダー
+         */
+        Builder addDocument(long id, String content, String module, String language,
+                String appType, String source, String sourceType) {
+            return add(id, true, content, module, language, appType, source, sourceType);
+        }
+
+        /**
+         * code_chunksのチャンクを追加する。
+         *
+         * @param id チャンクID
+         * @param content 本文
+         * @param module モジュール名
+         * @param language 言語
+         * @return このビルダー
+         */
+        Builder addCode(long id, String content, String module, String language) {
+            return add(id, false, content, module, language, null, null, null);
+        }
+
+        /**
+         * インデックスを構築する。
+         *
+         * @param k1 BM25のk1パラメータ（TF飽和）
+         * @param b BM25のbパラメータ（文書長正規化）
+         * @return 構築したインデックス
+         */
+        BM25Index build(double k1, double b) {
+            return new BM25Index(this, k1, b);
+        }
+
+        private Builder add(long id, boolean document, String content, String module, String language,
+                String appType, String source, String sourceType) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                metadata = Arrays.copyOf(metadata, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            int doc = size++;
+            ids[doc] = id;
+            // メタデータの組み合わせは少数のため、同値のインスタンスを共有してメモリを抑える
+            ChunkMetadata meta = new ChunkMetadata(document, module, language, appType, source, sourceType);
+            metadata[doc] = interned.computeIfAbsent(meta, m -> m);
+
+            List<String> tokens = BM25Tokenizer.tokenize(content);
+            lengths[doc] = tokens.size();
+            Map<String, Integer> termFreqs = new HashMap<>();
+            for (String token : tokens) {
+                termFreqs.merge(token, 1, Integer::sum);
+            }
+            termFreqs.forEach((term, freq) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).add(doc, freq));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BM25インデックスの構築・定期再構築を管理するコンポーネント。
+ *
+ * <p>{@code nablarch.mcp.search.bm25.engine=index} の場合、起動後にバックグラウンドで
+ * document_chunks / code_chunks の全チャンクを読み込んで{@link BM25Index}を構築し、
+ * コーパス世代（チャンクを格納するたびに加算されるカウンタ）を {@code generation-check-interval} ごとに確認し、
+ * インデックス構築時の世代から変化していれば再構築して差し替える。{@code refresh-interval} を経過した場合も再構築する。
+ * 構築完了までは {@link #current()} がnullを返し、{@link BM25SearchService}はSQL検索で応答する。</p>
+ *
+ * <p>チャンクはID順のキーセットページングで読み込み、本文全件を一度に保持しない。</p>
+ */
+@Component
+public class BM25IndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(BM25IndexManager.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final String DOCUMENT_PAGE_SQL =
+            "SELECT id, content, module, language, app_type, source, source_type FROM document_chunks"
+            + " WHERE id > :last_id ORDER BY id LIMIT :page_size";
+
+    private static final String CODE_PAGE_SQL =
+            "SELECT id, content, module, language FROM code_chunks"
+            + " WHERE id > :last_id ORDER BY id LIMIT :page_size";
+
+    /**
+     * コーパス世代を取得できない状態を表す値。
+     */
+    static final long UNKNOWN_GENERATION = -1;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SearchResultCacheRepository generationRepository;
+    private final SearchProperties.Bm25Config config;
+    private volatile BM25Index index;
+    private volatile long indexedGeneration = UNKNOWN_GENERATION;
+    private volatile long builtAtMillis;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param generationRepository コーパス世代を参照するリポジトリ
+     * @param searchProperties 検索設定プロパティ
+     */
+    public BM25IndexManager(NamedParameterJdbcTemplate jdbcTemplate,
+            SearchResultCacheRepository generationRepository, SearchProperties searchProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.generationRepository = generationRepository;
+        this.config = searchProperties.getBm25();
+    }
+
+    /**
+     * インデックスエンジン有効時、バックグラウンドでの構築と定期再構築を開始する。
+     */
+    @PostConstruct
+    public void start() {
+        if (!isIndexEngine()) {
+            log.info("BM25インデックスは無効（engine={}）。SQL検索を使用する", config.getEngine());
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new SearchExecutor.NamedThreadFactory("bm25-index-"));
+        long checkMillis = checkIntervalMillis();
+        if (checkMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshIfStale, 0, checkMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler.execute(this::refresh);
+        }
+    }
+
+    /**
+     * バックグラウンドの再構築を停止する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 現在のインデックスを返す。
+     *
+     * @return インデックス（未構築・無効時はnull）
+     */
+    BM25Index current() {
+        return index;
+    }
+
+    /**
+     * BM25検索が指定したコーパス世代のチャンクを参照しているかを返す。
+     *
+     * <p>インデックスエンジン無効時と構築完了前はSQL検索で応答するため常にtrueとする。</p>
+     *
+     * @param corpusGeneration コーパス世代
+     * @return インデックスが指定した世代から構築されている場合true
+     */
+    public boolean isCurrent(long corpusGeneration) {
+        return !isIndexEngine() || index == null || indexedGeneration == corpusGeneration;
+    }
+
+    /**
+     * インデックスを再構築して差し替える。
+     *
+     * <p>構築前にコーパス世代を取得し、インデックスの世代として保持する
+     * （構築中にチャンクが格納された場合は世代が変化するため、次回の確認で再構築される）。
+     * 構築に失敗した場合は既存のインデックスを維持する。</p>
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            long generation = currentGeneration();
+            BM25Index built = build();
+            this.index = built;
+            this.indexedGeneration = generation;
+            this.builtAtMillis = System.currentTimeMillis();
+            log.info("BM25インデックスを構築: chunks={}, generation={}, elapsed={}ms",
+                    built.size(), generation, builtAtMillis - start);
+        } catch (RuntimeException e) {
+            log.warn("BM25インデックスの構築に失敗。既存のインデックスを維持する: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * インデックスが古くなっている場合に再構築する。
+     *
+     * <p>未構築の場合、コーパス世代がインデックス構築時から変化した場合、
+     * 又は {@code refresh-interval} を経過した場合に再構築する。</p>
+     */
+    void refreshIfStale() {
+        if (index == null) {
+            refresh();
+            return;
+        }
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        if (refreshMillis > 0 && System.currentTimeMillis() - builtAtMillis >= refreshMillis) {
+            refresh();
+            return;
+        }
+        if (config.getGenerationCheckInterval().toMillis() <= 0) {
+            return;
+        }
+        long latest = currentGeneration();
+        if (latest != UNKNOWN_GENERATION && latest != indexedGeneration) {
+            log.debug("コーパス世代が更新されたためBM25インデックスを再構築: generation={} -> {}",
+                    indexedGeneration, latest);
+            refresh();
+        }
+    }
+
+    /**
+     * 両テーブルの全チャンクを読み込んでインデックスを構築する。
+     *
+     * @return 構築したインデックス
+     */
+    BM25Index build() {
+        BM25Index.Builder builder = BM25Index.builder();
+
+        long lastId = 0L;
+        while (true) {
+            List<Long> pageIds = jdbcTemplate.query(DOCUMENT_PAGE_SQL, pageParams(lastId), (rs, rowNum) -> {
+                long id = rs.getLong("id");
+                builder.addDocument(id, rs.getString("content"),
+                        rs.getString("module"), rs.getString("language"),
+                        rs.getString("app_type"), rs.getString("source"), rs.getString("source_type"));
+                return id;
+            });
+            if (pageIds.isEmpty()) {
+                break;
+            }
+            lastId = pageIds.get(pageIds.size() - 1);
+        }
+
+        lastId = 0L;
+        while (true) {
+            List<Long> pageIds = jdbcTemplate.query(CODE_PAGE_SQL, pageParams(lastId), (rs, rowNum) -> {
+                long id = rs.getLong("id");
+                builder.addCode(id, rs.getString("content"),
+                        rs.getString("module"), rs.getString("language"));
+                return id;
+            });
+            if (pageIds.isEmpty()) {
+                break;
+            }
+            lastId = pageIds.get(pageIds.size() - 1);
+        }
+
+        return builder.build(config.getK1(), config.getB());
+    }
+
+    private long currentGeneration() {
+        try {
+            return generationRepository.currentGeneration();
+        } catch (RuntimeException e) {
+            log.debug("コーパス世代の取得に失敗: {}", e.getMessage());
+            return UNKNOWN_GENERATION;
+        }
+    }
+
+    /**
+     * 再構築要否の確認間隔を返す。
+     *
+     * @return 世代の確認間隔と再構築間隔のうち短い方（ミリ秒。いずれも0の場合は0）
+     */
+    private long checkIntervalMillis() {
+        long checkMillis = config.getGenerationCheckInterval().toMillis();
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        if (checkMillis <= 0) {
+            return Math.max(refreshMillis, 0);
+        }
+        return (refreshMillis > 0) ? Math.min(checkMillis, refreshMillis) : checkMillis;
+    }
+
+    private boolean isIndexEngine() {
+        return SearchProperties.Bm25Config.ENGINE_INDEX.equalsIgnoreCase(config.getEngine());
+    }
+
+    private static MapSqlParameterSource pageParams(long lastId) {
+        return new MapSqlParameterSource()
+                .addValue("last_id", lastId)
+                .addValue("page_size", PAGE_SIZE);
+    }
+}
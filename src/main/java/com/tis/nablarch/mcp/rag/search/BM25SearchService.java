@@ -2,6 +2,7 @@ package com.tis.nablarch.mcp.rag.search;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -16,10 +17,15 @@ import java.util.Map;
 /**
  * BM25キーワード検索サービス。
  *
- * <p>pg_trgm（trigram）のILIKE検索とsimilarity関数を使用した
- * キーワード検索を提供する。PostgreSQL標準のFTS（to_tsvector/to_tsquery）
- * は日本語テキストの空白区切りトークナイズに非対応のため、
- * pg_trgmベースのILIKE検索に置き換えた。</p>
+ * <p>{@code nablarch.mcp.search.bm25.engine} により検索エンジンを切り替える:</p>
+ * <ul>
+ *   <li>{@code index} — {@link BM25IndexManager}が構築したインメモリ転置インデックス
+ *       （{@link BM25Index}）でOkapi BM25スコアリングを行い、上位K件の本文のみDBから取得する。
+ *       日本語は文字bigramでトークナイズする。インデックス構築完了まではsqlで応答する。</li>
+ *   <li>{@code sql} — pg_trgm（trigram）のILIKE検索とsimilarity関数によるキーワード検索。
+ *       PostgreSQL標準のFTS（to_tsvector/to_tsquery）は日本語テキストの
+ *       空白区切りトークナイズに非対応のため、pg_trgmベースのILIKE検索を用いる。</li>
+ * </ul>
  *
  * <p>検索対象テーブル:</p>
  * <ul>
@@ -27,6 +33,13 @@ import java.util.Map;
  *   <li>{@code code_chunks} — コードチャンク</li>
  * </ul>
  *
+ * <p>sqlエンジンのクエリモード（{@code nablarch.mcp.search.bm25.query-mode}）:</p>
+ * <ul>
+ *   <li>{@code union} — 両テーブルを{@code UNION ALL}で結合した1文で検索し、
+ *       上位K件の統合をDB側で行う（1回のラウンドトリップ・接続取得で完結する）</li>
+ *   <li>{@code per-table} — テーブルごとに検索し、Java側でマージする</li>
+ * </ul>
+ *
  * @see SearchResult
  * @see SearchFilters
  */
@@ -35,22 +48,70 @@ public class BM25SearchService {
 
     private static final Logger log = LoggerFactory.getLogger(BM25SearchService.class);
 
+    /** UNION ALLで結合した1文で検索するクエリモード。 */
+    static final String QUERY_MODE_UNION = "union";
+
+    /** テーブルごとに検索するクエリモード。 */
+    static final String QUERY_MODE_PER_TABLE = "per-table";
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean unionQuery;
+    private final BM25IndexManager indexManager;
 
     /**
      * コンストラクタ。
      *
      * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param searchProperties 検索設定プロパティ
+     * @param indexManager BM25インデックス管理
+     */
+    @Autowired
+    public BM25SearchService(NamedParameterJdbcTemplate jdbcTemplate, SearchProperties searchProperties,
+            BM25IndexManager indexManager) {
+        this(jdbcTemplate, searchProperties.getBm25().getQueryMode(), indexManager);
+    }
+
+    /**
+     * テスト用コンストラクタ（テーブルごとに検索する）。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
      */
     public BM25SearchService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, QUERY_MODE_PER_TABLE);
+    }
+
+    /**
+     * クエリモード指定のコンストラクタ（SQL検索のみ）。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param queryMode クエリモード（union / per-table）
+     */
+    BM25SearchService(NamedParameterJdbcTemplate jdbcTemplate, String queryMode) {
+        this(jdbcTemplate, queryMode, null);
+    }
+
+    /**
+     * クエリモード・インデックス管理指定のコンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param queryMode SQL検索時のクエリモード（union / per-table）
+     * @param indexManager BM25インデックス管理（nullの場合はSQL検索のみ）
+     */
+    BM25SearchService(NamedParameterJdbcTemplate jdbcTemplate, String queryMode, BM25IndexManager indexManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.indexManager = indexManager;
+        this.unionQuery = !QUERY_MODE_PER_TABLE.equalsIgnoreCase(queryMode);
+        if (unionQuery && !QUERY_MODE_UNION.equalsIgnoreCase(queryMode)) {
+            log.warn("不明なBM25クエリモード: {}。unionを使用する", queryMode);
+        }
     }
 
     /**
      * キーワード検索を実行する。
      *
      * <p>document_chunksテーブルとcode_chunksテーブルの両方を検索し、
-     * スコア降順で統合した結果を返す。</p>
+     * スコア降順で統合した結果を返す。BM25インデックスが利用可能な場合はインデックスで検索し、
+     * それ以外はSQLで検索する（unionモードでは1文で検索する）。</p>
      *
      * @param query 検索クエリ（自然言語またはキーワード）
      * @param filters メタデータフィルタ条件（nullの場合フィルタなし）
@@ -67,16 +128,85 @@ public class BM25SearchService {
         }
 
         SearchFilters effectiveFilters = (filters != null) ? filters : SearchFilters.NONE;
+
+        BM25Index index = (indexManager != null) ? indexManager.current() : null;
+        if (index != null) {
+            return searchIndex(index, query, effectiveFilters, topK);
+        }
+
         List<String> keywords = extractKeywords(query);
 
         log.debug("BM25検索実行: query='{}', keywords={}, topK={}", query, keywords, topK);
 
+        if (unionQuery) {
+            return searchUnion(query, keywords, effectiveFilters, topK);
+        }
+
         List<SearchResult> docResults = searchTable("document_chunks", query, keywords, effectiveFilters, topK);
         List<SearchResult> codeResults = searchTable("code_chunks", query, keywords, effectiveFilters, topK);
 
         return mergeAndSort(docResults, codeResults, topK);
     }
 
+    /**
+     * BM25インデックスで検索し、上位K件の本文をDBから取得する。
+     *
+     * <p>インデックス構築後に削除されたチャンクは結果から除外する。</p>
+     *
+     * @param index BM25インデックス
+     * @param query 検索クエリ
+     * @param filters メタデータフィルタ条件
+     * @param topK 返却する結果数
+     * @return 検索結果リスト（BM25スコア降順）
+     */
+    private List<SearchResult> searchIndex(BM25Index index, String query, SearchFilters filters, int topK) {
+        List<BM25Index.Hit> hits = index.search(BM25Tokenizer.tokenize(query), filters, topK);
+        log.debug("BM25インデックス検索: query='{}', hits={}", query, hits.size());
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, SearchResult> docRows = fetchRows(hits, true,
+                "SELECT id, content, module, language, source, source_type, app_type, url"
+                + " FROM document_chunks WHERE id IN (:ids)");
+        Map<Long, SearchResult> codeRows = fetchRows(hits, false,
+                "SELECT id, content, module, language, repo, chunk_type, file_path"
+                + " FROM code_chunks WHERE id IN (:ids)");
+
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        for (BM25Index.Hit hit : hits) {
+            SearchResult row = (hit.documentTable() ? docRows : codeRows).get(hit.id());
+            if (row != null) {
+                results.add(new SearchResult(row.id(), row.content(), hit.score(), row.metadata(), row.sourceUrl()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * ヒットしたチャンクの本文・メタデータを1テーブル分まとめて取得する。
+     *
+     * @param hits 検索ヒット
+     * @param isDocTable document_chunksの場合true
+     * @param sql 取得SQL（{@code :ids}でID一覧を受け取る）
+     * @return チャンクIDごとの行（スコアは未設定）
+     */
+    private Map<Long, SearchResult> fetchRows(List<BM25Index.Hit> hits, boolean isDocTable, String sql) {
+        List<Long> ids = hits.stream()
+                .filter(hit -> hit.documentTable() == isDocTable)
+                .map(BM25Index.Hit::id)
+                .toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, SearchResult> rows = new HashMap<>();
+        jdbcTemplate.query(sql, new MapSqlParameterSource("ids", ids), (rs, rowNum) -> {
+            rows.put(rs.getLong("id"), mapRow(rs, isDocTable, 0.0));
+            return null;
+        });
+        return rows;
+    }
+
     /**
      * 指定テーブルに対してキーワード検索を実行する。
      *
@@ -101,15 +231,89 @@ public class BM25SearchService {
         }
 
         StringBuilder sql = new StringBuilder();
+        MapSqlParameterSource params = keywordParams(originalQuery, keywords);
+        appendTableSelect(sql, params, isDocTable, keywords, filters, false);
+
+        sql.append(" ORDER BY bm25_score DESC");
+        sql.append(" LIMIT :top_k");
+        params.addValue("top_k", topK);
+
+        log.debug("BM25検索SQL ({}): {}", tableName, sql);
+
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> mapRow(rs, isDocTable, rs.getDouble("bm25_score")));
+    }
+
+    /**
+     * 両テーブルを{@code UNION ALL}で結合した1文でキーワード検索を実行する。
+     *
+     * <p>各テーブルの上位K件を取得してから全体の上位K件に絞り込むため、
+     * テーブルごとに検索してマージする場合と同じ結果になる。</p>
+     *
+     * @param originalQuery 元のクエリ文字列（similarity計算用）
+     * @param keywords 抽出済みキーワードリスト
+     * @param filters メタデータフィルタ条件
+     * @param topK 返却する結果数
+     * @return 検索結果リスト（スコア降順）
+     */
+    private List<SearchResult> searchUnion(
+            String originalQuery, List<String> keywords, SearchFilters filters, int topK) {
+
+        if (keywords.isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder();
+        MapSqlParameterSource params = keywordParams(originalQuery, keywords);
+        sql.append("(");
+        appendTableSelect(sql, params, true, keywords, filters, true);
+        sql.append(" ORDER BY bm25_score DESC LIMIT :top_k)");
+        sql.append(" UNION ALL (");
+        appendTableSelect(sql, params, false, keywords, filters, true);
+        sql.append(" ORDER BY bm25_score DESC LIMIT :top_k)");
+        sql.append(" ORDER BY bm25_score DESC LIMIT :top_k");
+        params.addValue("top_k", topK);
+
+        log.debug("BM25検索SQL (union): {}", sql);
+
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> mapRow(rs, "document_chunks".equals(rs.getString("chunk_table")),
+                        rs.getDouble("bm25_score")));
+    }
+
+    /**
+     * 1テーブル分のSELECT文（フィルタ条件まで）を組み立てる。
+     *
+     * @param sql SQL文字列ビルダー
+     * @param params パラメータソース
+     * @param isDocTable document_chunksテーブルの場合true
+     * @param keywords 抽出済みキーワードリスト
+     * @param filters メタデータフィルタ条件
+     * @param unionColumns UNION ALL用に両テーブル共通の列構成で射影する場合true
+     */
+    private void appendTableSelect(
+            StringBuilder sql, MapSqlParameterSource params, boolean isDocTable,
+            List<String> keywords, SearchFilters filters, boolean unionColumns) {
+
         sql.append("SELECT id, content, ");
         sql.append("similarity(content, :original_query) AS bm25_score, ");
         sql.append("module, language, ");
-        if (isDocTable) {
+        if (unionColumns) {
+            if (isDocTable) {
+                sql.append("source, source_type, app_type, url, ");
+                sql.append("CAST(NULL AS VARCHAR) AS repo, CAST(NULL AS VARCHAR) AS chunk_type, ");
+                sql.append("CAST(NULL AS TEXT) AS file_path, 'document_chunks' AS chunk_table ");
+            } else {
+                sql.append("CAST(NULL AS VARCHAR) AS source, CAST(NULL AS VARCHAR) AS source_type, ");
+                sql.append("CAST(NULL AS VARCHAR) AS app_type, CAST(NULL AS TEXT) AS url, ");
+                sql.append("repo, chunk_type, file_path, 'code_chunks' AS chunk_table ");
+            }
+        } else if (isDocTable) {
             sql.append("source, source_type, app_type, url ");
         } else {
             sql.append("repo, chunk_type, file_path ");
         }
-        sql.append("FROM ").append(tableName);
+        sql.append("FROM ").append(isDocTable ? "document_chunks" : "code_chunks");
 
         // ILIKE条件：全キーワードをAND結合
         sql.append(" WHERE ");
@@ -121,22 +325,23 @@ public class BM25SearchService {
             sql.append("content ILIKE :").append(paramName);
         }
 
+        appendFilters(sql, params, filters, isDocTable);
+    }
+
+    /**
+     * similarity計算用のクエリとILIKE用キーワードのパラメータを生成する。
+     *
+     * @param originalQuery 元のクエリ文字列
+     * @param keywords 抽出済みキーワードリスト
+     * @return パラメータソース
+     */
+    private MapSqlParameterSource keywordParams(String originalQuery, List<String> keywords) {
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("original_query", originalQuery);
         for (int i = 0; i < keywords.size(); i++) {
             params.addValue("kw" + i, "%" + escapeIlike(keywords.get(i)) + "%");
         }
-
-        appendFilters(sql, params, filters, isDocTable);
-
-        sql.append(" ORDER BY bm25_score DESC");
-        sql.append(" LIMIT :top_k");
-        params.addValue("top_k", topK);
-
-        log.debug("BM25検索SQL ({}): {}", tableName, sql);
-
-        return jdbcTemplate.query(sql.toString(), params,
-                (rs, rowNum) -> mapRow(rs, rowNum, isDocTable));
+        return params;
     }
 
     /**
@@ -226,12 +431,12 @@ public class BM25SearchService {
      * ResultSetからSearchResultにマッピングする。
      *
      * @param rs ResultSet
-     * @param rowNum 行番号
      * @param isDocTable document_chunksテーブルの場合true
+     * @param score スコア
      * @return SearchResult
      * @throws SQLException SQL例外
      */
-    private SearchResult mapRow(ResultSet rs, int rowNum, boolean isDocTable) throws SQLException {
+    private SearchResult mapRow(ResultSet rs, boolean isDocTable, double score) throws SQLException {
         Map<String, String> metadata = new HashMap<>();
         putIfNotNull(metadata, "module", rs.getString("module"));
         putIfNotNull(metadata, "language", rs.getString("language"));
@@ -248,11 +453,12 @@ public class BM25SearchService {
             putIfNotNull(metadata, "file_path", rs.getString("file_path"));
             sourceUrl = rs.getString("file_path");
         }
+        metadata.put("table", isDocTable ? "document_chunks" : "code_chunks");
 
         return new SearchResult(
                 rs.getString("id"),
                 rs.getString("content"),
-                rs.getDouble("bm25_score"),
+                score,
                 metadata,
                 sourceUrl
         );
@@ -0,0 +1,131 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * BM25インデックス用のトークナイザー。
+ *
+ * <p>日本語（漢字・ひらがな・カタカナ）の連続部分は文字bigramに分割し、
+ * 英数字の連続部分は単語として扱う。形態素解析辞書を必要とせず、
+ * 「ハンドラキュー」のような複合語の部分一致にも対応できる。</p>
+ *
+ * <p>処理内容:</p>
+ * <ol>
+ *   <li>NFKC正規化（全角英数・半角カナの統一）</li>
+ *   <li>日本語の連続部分 → 文字bigram（1文字のみの場合はunigram）</li>
+ *   <li>英数字の連続部分 → 小文字化した単語。CamelCaseの場合は構成語も追加する
+ *       （例: {@code UniversalDao} → {@code universaldao, universal, dao}）</li>
+ *   <li>記号・空白 → 区切り文字として除去</li>
+ * </ol>
+ */
+final class BM25Tokenizer {
+
+    private BM25Tokenizer() {
+    }
+
+    /**
+     * テキストをトークン列に分割する。
+     *
+     * @param text 入力テキスト（nullの場合は空リスト）
+     * @return トークン列（出現順、重複あり）
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+            if (isJapanese(cp)) {
+                int end = i;
+                while (end < length && isJapanese(normalized.codePointAt(end))) {
+                    end += Character.charCount(normalized.codePointAt(end));
+                }
+                addBigrams(normalized.substring(i, end), tokens);
+                i = end;
+            } else if (isWordChar(cp)) {
+                int end = i;
+                while (end < length && isWordChar(normalized.codePointAt(end))) {
+                    end += Character.charCount(normalized.codePointAt(end));
+                }
+                addWord(normalized.substring(i, end), tokens);
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 日本語の連続部分を文字bigramに分割する。
+     */
+    private static void addBigrams(String run, List<String> tokens) {
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1) {
+            tokens.add(run);
+            return;
+        }
+        for (int i = 0; i + 1 < cps.length; i++) {
+            tokens.add(new String(cps, i, 2));
+        }
+    }
+
+    /**
+     * 英数字の連続部分を単語として追加する。CamelCaseの場合は構成語も追加する。
+     */
+    private static void addWord(String word, List<String> tokens) {
+        tokens.add(word.toLowerCase(Locale.ROOT));
+
+        List<String> parts = splitCamelCase(word);
+        if (parts.size() > 1) {
+            for (String part : parts) {
+                tokens.add(part.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * CamelCase・数字境界で単語を分割する（例: {@code HTTPClient2} → {@code HTTP, Client, 2}）。
+     */
+    private static List<String> splitCamelCase(String word) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < word.length(); i++) {
+            char prev = word.charAt(i - 1);
+            char cur = word.charAt(i);
+            boolean boundary = (Character.isLowerCase(prev) && Character.isUpperCase(cur))
+                    || (Character.isLetter(prev) != Character.isLetter(cur))
+                    || (Character.isUpperCase(prev) && Character.isUpperCase(cur)
+                        && i + 1 < word.length() && Character.isLowerCase(word.charAt(i + 1)));
+            if (boundary) {
+                parts.add(word.substring(start, i));
+                start = i;
+            }
+        }
+        parts.add(word.substring(start));
+        return parts;
+    }
+
+    private static boolean isJapanese(int cp) {
+        // 長音符「ー」と踊り字「々」はCOMMONスクリプトのため個別に判定する
+        if (cp == 0x30FC || cp == 0x3005) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static boolean isWordChar(int cp) {
+        return Character.isLetterOrDigit(cp) && !isJapanese(cp);
+    }
+}
@@ -0,0 +1,119 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.common.CancellationScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * キャンセル可能なJdbcTemplate。
+ *
+ * <p>実行するStatementを呼び出しスレッドの{@link CancellationScope}に登録し、
+ * スコープのキャンセル時に{@link Statement#cancel()}でサーバ側のクエリを中断する。
+ * あわせてクエリタイムアウトを設定し、キャンセルが届かない場合の上限とする。</p>
+ *
+ * <p>タイムアウトで打ち切られた検索レッグのクエリがDB接続とPostgreSQLの
+ * ワーカーを占有し続けることを防ぐ。</p>
+ *
+ * <p>中断処理はStatementの実行完了時（正常終了・SQLException）に登録解除する。
+ * それ以外の例外で終了した場合も、同じスレッドで次のStatementを実行する時点で登録解除する。</p>
+ */
+class CancellableJdbcTemplate extends JdbcTemplate {
+
+    private static final Logger log = LoggerFactory.getLogger(CancellableJdbcTemplate.class);
+
+    /**
+     * 実行中のStatementの中断処理の登録解除ハンドル（Statementは呼び出しスレッドで実行される）。
+     */
+    private final ThreadLocal<CancellationScope.Handle> statementHook = new ThreadLocal<>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param dataSource データソース
+     */
+    CancellableJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * 既存のNamedParameterJdbcTemplateと同じデータソース・設定を使用する、
+     * キャンセル可能なNamedParameterJdbcTemplateを生成する。
+     *
+     * <p>フェッチサイズ・最大行数・例外変換等の設定は元のテンプレートから引き継ぐ。
+     * クエリタイムアウトは元のテンプレートの値とレッグタイムアウトの短い方とする。
+     * データソースを取得できない場合（モック等）は元のテンプレートをそのまま返す。</p>
+     *
+     * @param template 元のテンプレート
+     * @param queryTimeout クエリタイムアウト（秒未満は切り上げ）
+     * @return キャンセル可能なテンプレート
+     */
+    static NamedParameterJdbcTemplate wrap(NamedParameterJdbcTemplate template, Duration queryTimeout) {
+        JdbcTemplate base = template.getJdbcTemplate();
+        if (base == null || base.getDataSource() == null) {
+            return template;
+        }
+        CancellableJdbcTemplate cancellable = new CancellableJdbcTemplate(base.getDataSource());
+        cancellable.setExceptionTranslator(base.getExceptionTranslator());
+        cancellable.setFetchSize(base.getFetchSize());
+        cancellable.setMaxRows(base.getMaxRows());
+        cancellable.setIgnoreWarnings(base.isIgnoreWarnings());
+        cancellable.setSkipResultsProcessing(base.isSkipResultsProcessing());
+        cancellable.setSkipUndeclaredResults(base.isSkipUndeclaredResults());
+        cancellable.setResultsMapCaseInsensitive(base.isResultsMapCaseInsensitive());
+        int seconds = (int) Math.max(1L, (queryTimeout.toMillis() + 999L) / 1000L);
+        cancellable.setQueryTimeout((base.getQueryTimeout() > 0) ? Math.min(base.getQueryTimeout(), seconds) : seconds);
+
+        NamedParameterJdbcTemplate wrapped = new NamedParameterJdbcTemplate(cancellable);
+        wrapped.setCacheLimit(template.getCacheLimit());
+        return wrapped;
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        releaseStatementHook();
+        statementHook.set(CancellationScope.onCancel(() -> cancelQuietly(stmt)));
+    }
+
+    @Override
+    protected void handleWarnings(Statement stmt) throws SQLException {
+        // 正常終了時（Statementのクローズ前）に呼ばれる
+        releaseStatementHook();
+        super.handleWarnings(stmt);
+    }
+
+    @Override
+    protected DataAccessException translateException(String task, String sql, SQLException ex) {
+        // SQLException発生時（Statementのクローズ前）に呼ばれる
+        releaseStatementHook();
+        return super.translateException(task, sql, ex);
+    }
+
+    /**
+     * 呼び出しスレッドで実行したStatementの中断処理を登録解除する。
+     */
+    void releaseStatementHook() {
+        CancellationScope.Handle handle = statementHook.get();
+        if (handle != null) {
+            statementHook.remove();
+            handle.close();
+        }
+    }
+
+    private static void cancelQuietly(Statement stmt) {
+        try {
+            stmt.cancel();
+            log.debug("実行中のクエリをキャンセル");
+        } catch (SQLException e) {
+            log.debug("クエリのキャンセルに失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tis.nablarch.mcp.rag.search;
+
+/**
+ * インメモリインデックスが保持するチャンクのフィルタ用メタデータ。
+ *
+ * <p>{@link #matches(SearchFilters)} はSQL検索のWHERE句と同じ条件で判定する
+ * （module / app_type はNULLも一致扱い、source / source_type / app_type は
+ * document_chunksのみに適用）。</p>
+ *
+ * @param documentTable document_chunksのチャンクの場合true（code_chunksの場合false）
+ * @param module モジュール名
+ * @param language 言語
+ * @param appType アプリケーション種別（document_chunksのみ）
+ * @param source ソース（document_chunksのみ）
+ * @param sourceType ソース種別（document_chunksのみ）
+ */
+record ChunkMetadata(
+        boolean documentTable,
+        String module,
+        String language,
+        String appType,
+        String source,
+        String sourceType
+) {
+
+    /**
+     * フィルタ条件に一致するかを判定する。
+     *
+     * @param filters フィルタ条件
+     * @return 一致する場合true
+     */
+    boolean matches(SearchFilters filters) {
+        if (filters.module() != null && module != null && !filters.module().equals(module)) {
+            return false;
+        }
+        if (filters.language() != null && !filters.language().equals(language)) {
+            return false;
+        }
+        if (!documentTable) {
+            return true;
+        }
+        if (filters.appType() != null && appType != null && !filters.appType().equals(appType)) {
+            return false;
+        }
+        if (filters.source() != null && !filters.source().equals(source)) {
+            return false;
+        }
+        return filters.sourceType() == null || filters.sourceType().equals(sourceType);
+    }
+}
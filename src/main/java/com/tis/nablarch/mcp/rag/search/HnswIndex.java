@@ -0,0 +1,393 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * インメモリHNSW（Hierarchical Navigable Small World）ベクトルインデックス。
+ *
+ * <p>1テーブル分のEmbeddingを保持し、コサイン類似度による近似最近傍検索を行う。
+ * ベクトルは追加時にL2正規化して保持するため、類似度は内積で計算する
+ * （pgvectorの {@code 1 - (embedding <=> query)} と同じ値域）。</p>
+ *
+ * <ul>
+ *   <li>{@code m} — 各ノードが上位層で保持する近傍数（第0層は{@code 2 * m}）</li>
+ *   <li>{@code efConstruction} — 追加時の近傍探索幅（大きいほど高精度・低速）</li>
+ *   <li>{@code efSearch} — 検索時の近傍探索幅（{@link #search}の引数で指定）</li>
+ * </ul>
+ *
+ * <p>メタデータフィルタはグラフ探索中に適用し、条件に一致するノードのみを結果候補とする
+ * （一致しないノードも探索の経路としては使用する）。
+ * 検索は読み取りロック、追加は書き込みロックで排他するためスレッドセーフ。
+ * ノードの削除には対応しない。</p>
+ */
+final class HnswIndex {
+
+    private static final int[] NO_LINKS = new int[0];
+
+    private final int dimensions;
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> nodeById = new HashMap<>();
+
+    private float[][] vectors = new float[1024][];
+    private long[] ids = new long[1024];
+    private ChunkMetadata[] metadata = new ChunkMetadata[1024];
+    private int[][][] links = new int[1024][][];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param dimensions ベクトルの次元数
+     * @param m 上位層の近傍数
+     * @param efConstruction 追加時の近傍探索幅
+     * @param seed 層の乱択に使用する乱数シード
+     */
+    HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        if (dimensions < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException(
+                    "HNSWパラメータが不正: dimensions=" + dimensions + ", m=" + m
+                    + ", efConstruction=" + efConstruction);
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxLinksLayer0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * インデックス内のベクトル数を返す。
+     *
+     * @return ベクトル数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ベクトルの次元数を返す。
+     *
+     * @return 次元数
+     */
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * ベクトルを追加する。登録済みのIDの場合は何もしない。
+     *
+     * @param id チャンクID
+     * @param vector Embeddingベクトル（正規化されていなくてもよい）
+     * @param meta フィルタ用メタデータ
+     * @return 追加した場合true
+     * @throws IllegalArgumentException 次元数が一致しない場合
+     */
+    boolean add(long id, float[] vector, ChunkMetadata meta) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "ベクトルの次元数が一致しない: expected=" + dimensions + ", actual=" + vector.length);
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            if (nodeById.containsKey(id)) {
+                return false;
+            }
+            int node = allocate(id, normalized, meta);
+            int level = randomLevel();
+            links[node] = new int[level + 1][];
+            Arrays.fill(links[node], NO_LINKS);
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return true;
+            }
+
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > level; layer--) {
+                current = greedyClosest(normalized, current, layer);
+            }
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(normalized, current, efConstruction, layer, null);
+                int[] neighbors = selectNeighbors(candidates, m);
+                links[node][layer] = neighbors;
+                for (int neighbor : neighbors) {
+                    connect(neighbor, node, layer);
+                }
+                current = candidates.get(0).node();
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 近似最近傍検索を行う。
+     *
+     * @param query クエリベクトル（正規化されていなくてもよい）
+     * @param topK 返却する件数
+     * @param efSearch 探索幅（topK未満の場合はtopKを使用）
+     * @param filters メタデータフィルタ条件
+     * @return 類似度降順のヒット
+     */
+    List<Hit> search(float[] query, int topK, int efSearch, SearchFilters filters) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "クエリの次元数が一致しない: expected=" + dimensions + ", actual=" + query.length);
+        }
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                current = greedyClosest(normalized, current, layer);
+            }
+            List<Candidate> candidates = searchLayer(
+                    normalized, current, Math.max(efSearch, topK), 0, filters);
+
+            List<Hit> hits = new ArrayList<>(Math.min(topK, candidates.size()));
+            for (Candidate candidate : candidates) {
+                if (hits.size() == topK) {
+                    break;
+                }
+                hits.add(new Hit(ids[candidate.node()], candidate.similarity()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 指定層で類似度が上がる方向に貪欲に移動し、最も近いノードを返す。
+     */
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float best = dot(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : linksAt(current, layer)) {
+                float similarity = dot(query, vectors[neighbor]);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 指定層でビームサーチを行い、類似度降順の候補を最大ef件返す。
+     *
+     * @param filters nullでない場合、一致するノードのみを結果に含める
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int layer, SearchFilters filters) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::similarity).reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::similarity));
+
+        Candidate start = new Candidate(entry, dot(query, vectors[entry]));
+        visited.set(entry);
+        frontier.add(start);
+        if (accepts(entry, filters)) {
+            results.add(start);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.similarity() < results.peek().similarity()) {
+                break;
+            }
+            for (int neighbor : linksAt(closest.node(), layer)) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float similarity = dot(query, vectors[neighbor]);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(neighbor, similarity);
+                    frontier.add(candidate);
+                    if (accepts(neighbor, filters)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        return sorted;
+    }
+
+    /**
+     * 近傍選択ヒューリスティック。既に選択した近傍よりも基準ノードに近い候補を優先し、
+     * 多様な方向の近傍を残す。不足分は類似度順に補充する。
+     *
+     * @param candidates 類似度降順の候補
+     * @param max 選択する最大数
+     * @return 選択した近傍ノード
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        boolean[] taken = new boolean[candidates.size()];
+        int count = 0;
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            Candidate candidate = candidates.get(i);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (dot(vectors[candidate.node()], vectors[selected[j]]) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate.node();
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            if (!taken[i]) {
+                selected[count++] = candidates.get(i).node();
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 既存ノードに新規ノードへのリンクを追加する。上限を超えた場合は近傍を選び直す。
+     */
+    private void connect(int node, int newNeighbor, int layer) {
+        int[] current = links[node][layer];
+        int max = (layer == 0) ? maxLinksLayer0 : m;
+        if (current.length < max) {
+            int[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = newNeighbor;
+            links[node][layer] = extended;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int neighbor : current) {
+            candidates.add(new Candidate(neighbor, dot(vectors[node], vectors[neighbor])));
+        }
+        candidates.add(new Candidate(newNeighbor, dot(vectors[node], vectors[newNeighbor])));
+        candidates.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        links[node][layer] = selectNeighbors(candidates, max);
+    }
+
+    private int[] linksAt(int node, int layer) {
+        int[][] nodeLinks = links[node];
+        return (layer < nodeLinks.length) ? nodeLinks[layer] : NO_LINKS;
+    }
+
+    private boolean accepts(int node, SearchFilters filters) {
+        return filters == null || metadata[node].matches(filters);
+    }
+
+    private int allocate(long id, float[] vector, ChunkMetadata meta) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            vectors = Arrays.copyOf(vectors, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            metadata = Arrays.copyOf(metadata, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        int node = size++;
+        vectors[node] = vector;
+        ids[node] = id;
+        metadata[node] = meta;
+        nodeById.put(id, node);
+        return node;
+    }
+
+    /**
+     * 層を乱択する（{@code floor(-ln(U) / ln(m))}）。
+     */
+    private int randomLevel() {
+        double u = 1.0 - random.nextDouble();
+        return (int) Math.floor(-Math.log(u) * levelMultiplier);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0.0) {
+            return normalized;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 検索ヒット。
+     *
+     * @param id チャンクID
+     * @param similarity コサイン類似度
+     */
+    record Hit(long id, double similarity) {
+    }
+
+    /**
+     * 探索中の候補ノード。
+     *
+     * @param node ノード番号
+     * @param similarity クエリとのコサイン類似度
+     */
+    private record Candidate(int node, float similarity) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import com.tis.nablarch.mcp.db.repository.VectorColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * インメモリHNSWインデックスの構築・再構築を管理するコンポーネント。
+ *
+ * <p>{@code nablarch.mcp.search.vector.engine=hnsw} の場合、起動後にバックグラウンドで
+ * document_chunks / code_chunks のEmbeddingを読み込んでテーブルごとに{@link HnswIndex}を構築する。
+ * 両テーブルはEmbeddingモデルが異なるため、インデックスも別々に保持する。</p>
+ *
+ * <p>取り込みはバッチプロセス（{@code IngestionRunner}）で別途行われるため、
+ * {@code sync-interval} ごとにコーパス世代（チャンクを格納するたびに加算されるカウンタ）を確認し、
+ * インデックス構築時の世代から変化していれば両テーブルのインデックスを構築し直して差し替える。
+ * 取り込みはページ単位で既存チャンクを削除して再登録するため、差分追加ではなく再構築により
+ * 削除・置き換えられたチャンクをインデックスから除く。再構築中は既存のインデックスで応答する
+ * （差し替えまでの間、メモリ使用量は一時的に2倍になる）。</p>
+ *
+ * <p>初回の構築が完了するまでは{@link #current(String)}がnullを返し、
+ * {@link VectorSearchService}はpgvectorで応答する。</p>
+ */
+@Component
+public class HnswIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswIndexManager.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * コーパス世代を取得できない状態を表す値。
+     */
+    static final long UNKNOWN_GENERATION = -1;
+
+    private static final String DOCUMENT_PAGE_SQL =
+            "SELECT id, embedding, module, language, app_type, source, source_type"
+            + " FROM document_chunks"
+            + " WHERE embedding IS NOT NULL AND id > :last_id ORDER BY id LIMIT :page_size";
+
+    private static final String CODE_PAGE_SQL =
+            "SELECT id, embedding, module, language"
+            + " FROM code_chunks"
+            + " WHERE embedding IS NOT NULL AND id > :last_id ORDER BY id LIMIT :page_size";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SearchResultCacheRepository generationRepository;
+    private final SearchProperties.VectorConfig config;
+    private volatile Map<String, HnswIndex> indexes;
+    private volatile long indexedGeneration = UNKNOWN_GENERATION;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param generationRepository コーパス世代を参照するリポジトリ
+     * @param searchProperties 検索設定プロパティ
+     */
+    public HnswIndexManager(NamedParameterJdbcTemplate jdbcTemplate,
+            SearchResultCacheRepository generationRepository, SearchProperties searchProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.generationRepository = generationRepository;
+        this.config = searchProperties.getVector();
+    }
+
+    /**
+     * HNSWエンジン有効時、バックグラウンドでの構築と定期的な世代の確認を開始する。
+     */
+    @PostConstruct
+    public void start() {
+        if (!isHnswEngine()) {
+            log.info("HNSWインデックスは無効（engine={}）。pgvectorで検索する", config.getEngine());
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new SearchExecutor.NamedThreadFactory("hnsw-index-"));
+        long intervalSeconds = config.getHnsw().getSyncInterval().toSeconds();
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshIfStale, 0, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler.execute(this::refresh);
+        }
+    }
+
+    /**
+     * バックグラウンドの構築を停止する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 指定テーブルの検索可能なインデックスを返す。
+     *
+     * @param tableName テーブル名
+     * @return インデックス（初回構築未完了・チャンクなし・無効時はnull）
+     */
+    HnswIndex current(String tableName) {
+        Map<String, HnswIndex> built = indexes;
+        return (built != null) ? built.get(tableName) : null;
+    }
+
+    /**
+     * ベクトル検索が指定したコーパス世代のチャンクを参照しているかを返す。
+     *
+     * <p>HNSWエンジン無効時と初回構築完了前はpgvectorで応答するため常にtrueとする。</p>
+     *
+     * @param corpusGeneration コーパス世代
+     * @return インデックスが指定した世代から構築されている場合true
+     */
+    public boolean isCurrent(long corpusGeneration) {
+        return !isHnswEngine() || indexes == null || indexedGeneration == corpusGeneration;
+    }
+
+    /**
+     * インデックスが古くなっている場合に再構築する。
+     *
+     * <p>未構築の場合、又はコーパス世代がインデックス構築時から変化した場合に再構築する。
+     * 世代を取得できない場合は既存のインデックスを維持する。</p>
+     */
+    public void refreshIfStale() {
+        if (indexes == null) {
+            refresh();
+            return;
+        }
+        long latest = currentGeneration();
+        if (latest != UNKNOWN_GENERATION && latest != indexedGeneration) {
+            log.debug("コーパス世代が更新されたためHNSWインデックスを再構築: generation={} -> {}",
+                    indexedGeneration, latest);
+            refresh();
+        }
+    }
+
+    /**
+     * 両テーブルのインデックスを構築して差し替える。
+     *
+     * <p>構築前にコーパス世代を取得し、インデックスの世代として保持する
+     * （構築中にチャンクが格納された場合は世代が変化するため、次回の確認で再構築される）。
+     * いずれかのテーブルの読み込みに失敗した場合は既存のインデックスを維持する。</p>
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            long generation = currentGeneration();
+            HnswIndex documents = build("document_chunks", DOCUMENT_PAGE_SQL, true);
+            HnswIndex code = build("code_chunks", CODE_PAGE_SQL, false);
+            Map<String, HnswIndex> built = new HashMap<>();
+            if (documents != null) {
+                built.put("document_chunks", documents);
+            }
+            if (code != null) {
+                built.put("code_chunks", code);
+            }
+            this.indexes = Map.copyOf(built);
+            this.indexedGeneration = generation;
+            log.info("HNSWインデックスを構築: documents={}, code={}, generation={}, elapsed={}ms",
+                    (documents != null) ? documents.size() : 0, (code != null) ? code.size() : 0,
+                    generation, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("HNSWインデックスの構築に失敗。既存のインデックスを維持する: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * テーブルの全チャンクをID順のキーセットページングで読み込んでインデックスを構築する。
+     * 最初のベクトルの次元数でインデックスを生成する。
+     *
+     * @return インデックス（チャンクがない場合はnull）
+     */
+    private HnswIndex build(String tableName, String pageSql, boolean document) {
+        SearchProperties.HnswConfig hnsw = config.getHnsw();
+        HnswIndex[] index = new HnswIndex[1];
+        long lastId = 0L;
+        while (true) {
+            List<Long> pageIds = jdbcTemplate.query(pageSql, pageParams(lastId), (rs, rowNum) -> {
+                long id = rs.getLong("id");
+                float[] vector = VectorColumns.read(rs, "embedding");
+                if (index[0] == null) {
+                    index[0] = new HnswIndex(vector.length, hnsw.getM(), hnsw.getEfConstruction(),
+                            tableName.hashCode());
+                }
+                index[0].add(id, vector, metadata(rs, document));
+                return id;
+            });
+            if (pageIds.isEmpty()) {
+                return index[0];
+            }
+            lastId = pageIds.get(pageIds.size() - 1);
+        }
+    }
+
+    private long currentGeneration() {
+        try {
+            return generationRepository.currentGeneration();
+        } catch (RuntimeException e) {
+            log.debug("コーパス世代の取得に失敗: {}", e.getMessage());
+            return UNKNOWN_GENERATION;
+        }
+    }
+
+    private boolean isHnswEngine() {
+        return SearchProperties.VectorConfig.ENGINE_HNSW.equalsIgnoreCase(config.getEngine());
+    }
+
+    private static ChunkMetadata metadata(ResultSet rs, boolean document) throws SQLException {
+        if (document) {
+            return new ChunkMetadata(true, rs.getString("module"), rs.getString("language"),
+                    rs.getString("app_type"), rs.getString("source"), rs.getString("source_type"));
+        }
+        return new ChunkMetadata(false, rs.getString("module"), rs.getString("language"), null, null, null);
+    }
+
+    private static MapSqlParameterSource pageParams(long lastId) {
+        return new MapSqlParameterSource()
+                .addValue("last_id", lastId)
+                .addValue("page_size", PAGE_SIZE);
+    }
+}
@@ -1,7 +1,9 @@
 package com.tis.nablarch.mcp.rag.search;
 
+import com.tis.nablarch.mcp.common.CancellationScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -11,7 +13,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * ハイブリッド検索サービス。
@@ -30,6 +36,9 @@ import java.util.concurrent.TimeUnit;
  * <p>グレースフルデグレード: 一方の検索が失敗した場合、
  * もう一方の結果のみで応答する。両方失敗時は空リストを返す。</p>
  *
+ * <p>BM25・ベクトルの各レッグはcommon ForkJoinPoolではなく、
+ * 検索専用の有界スレッドプール（{@link SearchExecutor}）上で実行する。</p>
+ *
  * @see BM25SearchService
  * @see VectorSearchService
  * @see SearchMode
@@ -58,18 +67,35 @@ public class HybridSearchService {
 
     private final BM25SearchService bm25SearchService;
     private final VectorSearchService vectorSearchService;
+    private final SearchExecutor searchExecutor;
 
     /**
      * コンストラクタ。
      *
      * @param bm25SearchService BM25キーワード検索サービス
      * @param vectorSearchService ベクトル類似度検索サービス
+     * @param searchExecutor 検索処理用スレッドプール
      */
+    @Autowired
     public HybridSearchService(
             BM25SearchService bm25SearchService,
-            VectorSearchService vectorSearchService) {
+            VectorSearchService vectorSearchService,
+            SearchExecutor searchExecutor) {
         this.bm25SearchService = bm25SearchService;
         this.vectorSearchService = vectorSearchService;
+        this.searchExecutor = searchExecutor;
+    }
+
+    /**
+     * テスト用コンストラクタ（呼び出しスレッドで逐次実行）。
+     *
+     * @param bm25SearchService BM25キーワード検索サービス
+     * @param vectorSearchService ベクトル類似度検索サービス
+     */
+    public HybridSearchService(
+            BM25SearchService bm25SearchService,
+            VectorSearchService vectorSearchService) {
+        this(bm25SearchService, vectorSearchService, SearchExecutor.direct());
     }
 
     /**
@@ -108,8 +134,12 @@ public class HybridSearchService {
     /**
      * HYBRID モードの検索を実行する。
      *
-     * <p>BM25検索とベクトル検索を{@link CompletableFuture}で並列実行し、
-     * RRFで統合する。一方が失敗した場合はもう一方の結果のみで応答する。</p>
+     * <p>BM25検索とベクトル検索を{@link SearchExecutor}上の{@link CompletableFuture}で並列実行し、
+     * RRFで統合する。一方が失敗した場合（スレッドプール飽和による拒否・タイムアウトを含む）は
+     * もう一方の結果のみで応答し、部分結果として検索結果キャッシュに格納しない
+     * （{@link SearchResultCache#markUncacheable(String)}）。
+     * レッグ内で指示されたキャッシュしない理由（ベクトル検索の一方のテーブルの失敗など）も
+     * ワーカースレッドで受け取り、呼び出しスレッドで改めて指示する。</p>
      *
      * @param query 検索クエリ
      * @param filters フィルタ条件
@@ -119,23 +149,29 @@ public class HybridSearchService {
     private List<SearchResult> executeHybridSearch(
             String query, SearchFilters filters, int topK) {
 
-        CompletableFuture<List<SearchResult>> bm25Future = CompletableFuture
-                .supplyAsync(() -> bm25SearchService.search(query, filters, CANDIDATE_K))
+        AtomicReference<String> uncacheable = new AtomicReference<>();
+        CompletableFuture<List<SearchResult>> bm25Future =
+                supplyLeg(() -> bm25SearchService.search(query, filters, CANDIDATE_K), uncacheable)
                 .exceptionally(ex -> {
                     log.warn("BM25検索が失敗。ベクトル検索のみで応答: {}", ex.getMessage());
+                    uncacheable.compareAndSet(null, SearchResultCache.REASON_PARTIAL);
                     return Collections.emptyList();
                 });
 
-        CompletableFuture<List<SearchResult>> vectorFuture = CompletableFuture
-                .supplyAsync(() -> vectorSearchService.search(query, filters, CANDIDATE_K))
+        CompletableFuture<List<SearchResult>> vectorFuture =
+                supplyLeg(() -> vectorSearchService.search(query, filters, CANDIDATE_K), uncacheable)
                 .orTimeout(VECTOR_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                 .exceptionally(ex -> {
                     log.warn("ベクトル検索が失敗。BM25検索のみで応答: {}", ex.getMessage());
+                    uncacheable.compareAndSet(null, SearchResultCache.REASON_PARTIAL);
                     return Collections.emptyList();
                 });
 
         List<SearchResult> bm25Results = bm25Future.join();
         List<SearchResult> vectorResults = vectorFuture.join();
+        if (uncacheable.get() != null) {
+            SearchResultCache.markUncacheable(uncacheable.get());
+        }
 
         if (bm25Results.isEmpty() && vectorResults.isEmpty()) {
             log.info("BM25・ベクトル検索ともに結果なし: query='{}'", query);
@@ -153,6 +189,49 @@ public class HybridSearchService {
         return rrfMerge(bm25Results, vectorResults, topK, DEFAULT_RRF_K);
     }
 
+    /**
+     * 検索レッグを検索スレッドプールで非同期実行する。
+     *
+     * <p>スレッドプールが飽和して拒否された場合は、例外完了したFutureを返す
+     * （呼び出し側のexceptionallyで空結果にフォールバックする）。</p>
+     *
+     * <p>返却したFutureがタイムアウト等で例外完了した場合は、レッグの
+     * {@link CancellationScope}をキャンセルしてワーカーに割り込み、
+     * 実行中のクエリ・推論を中断する（放置されたクエリがDB接続を占有し続けないようにする）。</p>
+     *
+     * @param leg 検索処理
+     * @param uncacheable レッグ内で指示されたキャッシュしない理由の格納先（最初の理由のみ保持する）
+     * @return 検索結果のFuture
+     */
+    private CompletableFuture<List<SearchResult>> supplyLeg(
+            Supplier<List<SearchResult>> leg, AtomicReference<String> uncacheable) {
+        CancellationScope scope = CancellationScope.create();
+        CompletableFuture<List<SearchResult>> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = searchExecutor.executor().submit(() -> {
+                try (CancellationScope.Handle binding = scope.bind()) {
+                    SearchResultCache.Captured<List<SearchResult>> captured = SearchResultCache.capture(leg);
+                    if (captured.uncacheableReason() != null) {
+                        uncacheable.compareAndSet(null, captured.uncacheableReason());
+                    }
+                    result.complete(captured.value());
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((results, error) -> {
+            if (error != null) {
+                scope.cancel();
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
     /**
      * Reciprocal Rank Fusion (RRF) で2つの検索結果を統合する。
      *
@@ -0,0 +1,416 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.pgvector.PGvector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * document_chunks / code_chunks に対するpgvectorのSQLアクセスをまとめたクラス。
+ *
+ * <p>コサイン距離演算子（{@code <=>}）による類似度検索と、
+ * インメモリインデックスの検索結果をID指定で取得する本文ハイドレーションを提供する。</p>
+ *
+ * <p>検索パラメータ設定が指定された場合、類似度検索はトランザクション内で実行し、
+ * インデックスの探索幅（{@code hnsw.ef_search} / {@code ivfflat.probes}）と反復スキャンを
+ * {@code SET LOCAL} で設定する。設定はトランザクション終了時に破棄されるため、
+ * 接続プールを共有する他の処理には影響しない。
+ * 反復スキャンはpgvector 0.8.0以降のみ対応するため、初回の検索時に拡張のバージョンを確認し、
+ * 0.8.0未満の場合は設定しない。</p>
+ *
+ * <p>量子化検索（halfvec / binary）が有効な場合は、量子化した式のHNSWインデックス
+ * （{@code db/quantization/{halfvec,binary}/R__*.sql}。{@code spring.flyway.locations} に追加して適用する）で
+ * {@code topK * rescore-factor}件の候補を取得し、
+ * 候補のみを全精度ベクトルのコサイン距離で並べ替えてtopK件を返す。
+ * インデックスの走査量は1/2（halfvec）〜1/32（binary）になる。</p>
+ */
+final class PgVectorSearcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PgVectorSearcher.class);
+
+    /** hnsw.ef_searchの上限（pgvectorの制約）。 */
+    private static final int MAX_EF_SEARCH = 1000;
+
+    private static final Set<String> ITERATIVE_SCAN_MODES = Set.of("off", "relaxed_order", "strict_order");
+
+    /** embedding列の次元数（V1マイグレーションの vector(1024)）。量子化式インデックスの型と一致させる。 */
+    static final int VECTOR_DIMENSIONS = 1024;
+
+    private static final String HALFVEC_DISTANCE =
+            "CAST(embedding AS halfvec(" + VECTOR_DIMENSIONS + "))"
+            + " <=> CAST(:query_vec AS halfvec(" + VECTOR_DIMENSIONS + "))";
+
+    private static final String BINARY_DISTANCE =
+            "CAST(binary_quantize(embedding) AS bit(" + VECTOR_DIMENSIONS + "))"
+            + " <~> binary_quantize(CAST(:query_vec AS vector))";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final boolean ivfflat;
+    private final int efSearch;
+    private final int probes;
+    private final String iterativeScan;
+    private final String coarseDistance;
+    private final int rescoreFactor;
+    private volatile Boolean iterativeScanSupported;
+
+    /**
+     * コンストラクタ（検索パラメータはサーバー既定値）。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     */
+    PgVectorSearcher(NamedParameterJdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, null, new SearchProperties.PgvectorConfig());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param transactionOperations SET LOCALを有効にするトランザクション（nullの場合は検索パラメータを設定しない）
+     * @param config pgvector検索パラメータ設定
+     */
+    PgVectorSearcher(NamedParameterJdbcTemplate jdbcTemplate,
+            TransactionOperations transactionOperations, SearchProperties.PgvectorConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.ivfflat = "ivfflat".equalsIgnoreCase(config.getIndexType());
+        Profile profile = Profile.of(config.getProfile());
+        this.efSearch = (config.getEfSearch() > 0) ? config.getEfSearch() : profile.efSearch;
+        this.probes = (config.getProbes() > 0) ? config.getProbes() : profile.probes;
+        this.iterativeScan = resolveIterativeScan(config.getIterativeScan(), ivfflat);
+        this.coarseDistance = resolveCoarseDistance(config.getQuantization());
+        this.rescoreFactor = Math.max(1, config.getRescoreFactor());
+    }
+
+    /**
+     * 指定テーブルに対してベクトル類似度検索を実行する。
+     *
+     * @param tableName 検索対象テーブル名
+     * @param embedding クエリベクトル（{@link PGvector}としてバインドする）
+     * @param filters メタデータフィルタ条件
+     * @param topK 返却する結果数
+     * @return 検索結果リスト
+     */
+    List<SearchResult> search(String tableName, float[] embedding, SearchFilters filters, int topK) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT id, content, ");
+        sql.append("1 - (embedding <=> CAST(:query_vec AS vector)) AS vector_score");
+        appendMetadataColumns(sql, tableName);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("query_vec", new PGvector(embedding));
+
+        int indexLimit = topK;
+        if (coarseDistance != null) {
+            // 量子化インデックスで候補を絞り込み、外側のクエリで全精度ベクトルにより再スコアリングする
+            indexLimit = topK * rescoreFactor;
+            sql.append(" FROM (SELECT id, content, embedding");
+            appendMetadataColumns(sql, tableName);
+            sql.append(" FROM ").append(tableName);
+            sql.append(" WHERE embedding IS NOT NULL");
+            appendFilters(sql, params, filters, tableName);
+            sql.append(" ORDER BY ").append(coarseDistance);
+            sql.append(" LIMIT :candidates) candidates");
+            params.addValue("candidates", indexLimit);
+        } else {
+            sql.append(" FROM ").append(tableName);
+            sql.append(" WHERE embedding IS NOT NULL");
+            appendFilters(sql, params, filters, tableName);
+        }
+
+        sql.append(" ORDER BY embedding <=> CAST(:query_vec AS vector)");
+        sql.append(" LIMIT :top_k");
+        params.addValue("top_k", topK);
+
+        log.debug("ベクトル検索SQL ({}): {}", tableName, sql);
+
+        if (transactionOperations == null) {
+            return jdbcTemplate.query(sql.toString(), params,
+                    (rs, rowNum) -> mapRow(rs, tableName, rs.getDouble("vector_score")));
+        }
+        int searchLimit = indexLimit;
+        boolean iterative = !"off".equals(iterativeScan) && isIterativeScanSupported();
+        List<SearchResult> results = transactionOperations.execute(status -> {
+            applySearchSettings(searchLimit, iterative);
+            return jdbcTemplate.query(sql.toString(), params,
+                    (rs, rowNum) -> mapRow(rs, tableName, rs.getDouble("vector_score")));
+        });
+        if (results.size() < topK && !SearchFilters.NONE.equals(filters)) {
+            log.debug("フィルタ適用後の件数がtopK未満: table={}, count={}, topK={}",
+                    tableName, results.size(), topK);
+        }
+        return results;
+    }
+
+    /**
+     * 実行中のトランザクションにインデックス検索パラメータを設定する。
+     *
+     * <p>HNSWはef_search件までしか候補を返さないため、ef_searchはインデックスから取得する件数以上とする。</p>
+     *
+     * @param indexLimit インデックスから取得する件数（量子化検索時は再スコアリング前の候補数）
+     * @param iterative 反復スキャンを設定する場合true
+     */
+    private void applySearchSettings(int indexLimit, boolean iterative) {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        String prefix = ivfflat ? "ivfflat" : "hnsw";
+        if (ivfflat) {
+            jdbc.execute("SET LOCAL ivfflat.probes = " + probes);
+        } else {
+            jdbc.execute("SET LOCAL hnsw.ef_search = " + Math.min(Math.max(efSearch, indexLimit), MAX_EF_SEARCH));
+        }
+        if (iterative) {
+            jdbc.execute("SET LOCAL " + prefix + ".iterative_scan = " + iterativeScan);
+        }
+    }
+
+    /**
+     * pgvector拡張が反復スキャン（0.8.0以降）に対応しているかを返す。
+     *
+     * <p>初回の呼び出し時に拡張のバージョンを取得して結果を保持する。
+     * 検索のトランザクションの外で確認する（失敗した文でトランザクションを中断させないため）。
+     * 取得に失敗した場合は保持せず、その検索では反復スキャンを設定しない。</p>
+     */
+    private boolean isIterativeScanSupported() {
+        Boolean supported = iterativeScanSupported;
+        if (supported != null) {
+            return supported;
+        }
+        try {
+            List<String> versions = jdbcTemplate.getJdbcOperations().queryForList(
+                    "SELECT extversion FROM pg_extension WHERE extname = 'vector'", String.class);
+            String version = versions.isEmpty() ? null : versions.get(0);
+            supported = supportsIterativeScan(version);
+            if (!supported) {
+                log.warn("pgvector {} は反復スキャンに対応しない（0.8.0以降）。iterative-scan={} を無視する",
+                        version, iterativeScan);
+            }
+            iterativeScanSupported = supported;
+            return supported;
+        } catch (RuntimeException e) {
+            log.debug("pgvectorのバージョンを取得できないため反復スキャンを設定しない: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * pgvectorのバージョンが反復スキャン（0.8.0以降）に対応しているかを判定する。
+     *
+     * @param version 拡張のバージョン（例: {@code 0.8.0}）
+     * @return 対応している場合true（バージョンを解釈できない場合はfalse）
+     */
+    static boolean supportsIterativeScan(String version) {
+        if (version == null) {
+            return false;
+        }
+        String[] parts = version.split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = (parts.length > 1) ? Integer.parseInt(parts[1]) : 0;
+            return major > 0 || minor >= 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 量子化方式に対応する候補絞り込み用の距離式を返す。
+     *
+     * @param quantization 量子化方式（none / halfvec / binary）
+     * @return 距離式（量子化しない場合はnull）
+     */
+    private static String resolveCoarseDistance(String quantization) {
+        if ("halfvec".equalsIgnoreCase(quantization)) {
+            return HALFVEC_DISTANCE;
+        }
+        if ("binary".equalsIgnoreCase(quantization)) {
+            return BINARY_DISTANCE;
+        }
+        if (quantization != null && !"none".equalsIgnoreCase(quantization)) {
+            log.warn("不明な量子化方式: {}。量子化しない", quantization);
+        }
+        return null;
+    }
+
+    /**
+     * 反復スキャンの設定値を検証する。不明な値の場合はoffを使用する。
+     * IVFFlatはstrict_orderに対応しないためrelaxed_orderを使用する。
+     */
+    private static String resolveIterativeScan(String value, boolean ivfflat) {
+        String mode = (value != null) ? value.toLowerCase(Locale.ROOT) : "off";
+        if (!ITERATIVE_SCAN_MODES.contains(mode)) {
+            log.warn("不明な反復スキャン設定: {}。offを使用する", value);
+            return "off";
+        }
+        if (ivfflat && "strict_order".equals(mode)) {
+            log.warn("ivfflatはstrict_orderに対応しない。relaxed_orderを使用する");
+            return "relaxed_order";
+        }
+        return mode;
+    }
+
+    /**
+     * ID指定でチャンクの本文・メタデータを取得する。
+     *
+     * <p>返却する{@link SearchResult}のスコアは0.0で、呼び出し側で類似度に置き換える。
+     * 削除済みのIDは結果に含まれない。</p>
+     *
+     * @param tableName 取得対象テーブル名
+     * @param ids チャンクID
+     * @return チャンクIDをキーとする検索結果
+     */
+    Map<Long, SearchResult> fetchByIds(String tableName, Collection<Long> ids) {
+        Map<Long, SearchResult> rows = new HashMap<>();
+        if (ids.isEmpty()) {
+            return rows;
+        }
+        StringBuilder sql = new StringBuilder("SELECT id, content");
+        appendMetadataColumns(sql, tableName);
+        sql.append(" FROM ").append(tableName).append(" WHERE id IN (:ids)");
+
+        List<SearchResult> fetched = jdbcTemplate.query(sql.toString(),
+                new MapSqlParameterSource("ids", ids), (rs, rowNum) -> mapRow(rs, tableName, 0.0));
+        for (SearchResult row : fetched) {
+            rows.put(Long.valueOf(row.id()), row);
+        }
+        return rows;
+    }
+
+    /**
+     * メタデータカラムをSELECT句に追加する。
+     *
+     * @param sql SQL文字列ビルダー
+     * @param tableName テーブル名
+     */
+    private void appendMetadataColumns(StringBuilder sql, String tableName) {
+        if ("document_chunks".equals(tableName)) {
+            sql.append(", source, source_type, module, app_type, language, fqcn, url");
+        } else {
+            sql.append(", repo, chunk_type, module, language, fqcn, file_path");
+        }
+    }
+
+    /**
+     * メタデータフィルタ条件をSQL WHERE句に追加する。
+     *
+     * <p>テーブルごとにカラム名が異なるため、テーブル名に応じてフィルタを適用する。</p>
+     *
+     * @param sql SQL文字列ビルダー
+     * @param params パラメータソース
+     * @param filters フィルタ条件
+     * @param tableName テーブル名
+     */
+    private void appendFilters(
+            StringBuilder sql, MapSqlParameterSource params,
+            SearchFilters filters, String tableName) {
+
+        if (filters.appType() != null && "document_chunks".equals(tableName)) {
+            sql.append(" AND (app_type = :app_type OR app_type IS NULL)");
+            params.addValue("app_type", filters.appType());
+        }
+        if (filters.module() != null) {
+            sql.append(" AND (module = :module OR module IS NULL)");
+            params.addValue("module", filters.module());
+        }
+        if (filters.source() != null && "document_chunks".equals(tableName)) {
+            sql.append(" AND source = :source");
+            params.addValue("source", filters.source());
+        }
+        if (filters.sourceType() != null && "document_chunks".equals(tableName)) {
+            sql.append(" AND source_type = :source_type");
+            params.addValue("source_type", filters.sourceType());
+        }
+        if (filters.language() != null) {
+            sql.append(" AND language = :language");
+            params.addValue("language", filters.language());
+        }
+    }
+
+    /**
+     * ResultSetからSearchResultにマッピングする。
+     *
+     * @param rs ResultSet
+     * @param tableName テーブル名（メタデータカラム判定用）
+     * @param score 類似度スコア
+     * @return SearchResult
+     * @throws SQLException SQL例外
+     */
+    private SearchResult mapRow(ResultSet rs, String tableName, double score) throws SQLException {
+        Map<String, String> metadata = new HashMap<>();
+
+        if ("document_chunks".equals(tableName)) {
+            putIfNotNull(metadata, "source", rs.getString("source"));
+            putIfNotNull(metadata, "source_type", rs.getString("source_type"));
+            putIfNotNull(metadata, "app_type", rs.getString("app_type"));
+            putIfNotNull(metadata, "language", rs.getString("language"));
+            putIfNotNull(metadata, "fqcn", rs.getString("fqcn"));
+        } else {
+            putIfNotNull(metadata, "repo", rs.getString("repo"));
+            putIfNotNull(metadata, "chunk_type", rs.getString("chunk_type"));
+            putIfNotNull(metadata, "language", rs.getString("language"));
+            putIfNotNull(metadata, "fqcn", rs.getString("fqcn"));
+            putIfNotNull(metadata, "file_path", rs.getString("file_path"));
+        }
+        putIfNotNull(metadata, "module", rs.getString("module"));
+        metadata.put("table", tableName);
+
+        String sourceUrl = "document_chunks".equals(tableName) ? rs.getString("url") : null;
+
+        return new SearchResult(
+                String.valueOf(rs.getLong("id")),
+                rs.getString("content"),
+                score,
+                metadata,
+                sourceUrl
+        );
+    }
+
+    /**
+     * 値がnullでない場合のみMapに追加する。
+     */
+    private void putIfNotNull(Map<String, String> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * 再現率とレイテンシのプロファイル。
+     */
+    private enum Profile {
+
+        FAST(40, 5),
+        BALANCED(100, 10),
+        ACCURATE(200, 20);
+
+        private final int efSearch;
+        private final int probes;
+
+        Profile(int efSearch, int probes) {
+            this.efSearch = efSearch;
+            this.probes = probes;
+        }
+
+        static Profile of(String name) {
+            for (Profile profile : values()) {
+                if (profile.name().equalsIgnoreCase(name)) {
+                    return profile;
+                }
+            }
+            log.warn("不明な検索プロファイル: {}。balancedを使用する", name);
+            return BALANCED;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 検索処理専用の有界スレッドプール。
+ *
+ * <p>JDBC・Embedding推論などのブロッキング処理を並列実行するため、
+ * CPU処理向けに設計されたcommon ForkJoinPoolとは分離したプールを提供する。
+ * 同時実行数・キュー長はいずれも上限付きで、キュー満杯時の挙動は
+ * {@code rejection-policy} で切り替える（abort / caller-runs）。</p>
+ *
+ * <p>{@code thread-type: virtual} の場合は仮想スレッドでワーカーを生成する。
+ * 仮想スレッドはJava 21以降でのみ利用可能なため、リフレクションで解決し、
+ * 未対応のJVMではプラットフォームスレッドにフォールバックする。</p>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code search.executor.active} - 実行中タスク数（Gauge）</li>
+ *   <li>{@code search.executor.pool.size} - 現在のワーカー数（Gauge）</li>
+ *   <li>{@code search.executor.queue.size} - 実行待ちタスク数（Gauge）</li>
+ *   <li>{@code search.executor.rejected} - 拒否されたタスク数（Counter）</li>
+ * </ul>
+ *
+ * <p>Spring Bootの {@code applicationTaskExecutor} 自動構成に干渉しないよう、
+ * {@link java.util.concurrent.Executor} 自体はBean登録せず本クラス経由で公開する。</p>
+ *
+ * @see SearchProperties.ExecutorConfig
+ */
+@Component
+public class SearchExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchExecutor.class);
+
+    private final ExecutorService executor;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param properties 検索設定プロパティ
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public SearchExecutor(SearchProperties properties, MeterRegistry meterRegistry) {
+        this(createThreadPool(properties.getExecutor(), meterRegistry));
+    }
+
+    /**
+     * 任意のExecutorServiceを使用するコンストラクタ。
+     *
+     * @param executor 検索処理を実行するExecutorService
+     */
+    public SearchExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 呼び出しスレッドで即時実行するSearchExecutorを生成する（テスト・逐次実行用）。
+     *
+     * @return 逐次実行のSearchExecutor
+     */
+    public static SearchExecutor direct() {
+        return new SearchExecutor(new DirectExecutorService());
+    }
+
+    /**
+     * 検索処理用のExecutorServiceを返す。
+     *
+     * @return ExecutorService
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * スレッドプールを停止する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        log.debug("検索スレッドプールを停止");
+    }
+
+    /**
+     * 設定に従ってスレッドプールを生成し、メトリクスを登録する。
+     *
+     * @param config スレッドプール設定
+     * @param meterRegistry Micrometerレジストリ
+     * @return スレッドプール
+     */
+    static ThreadPoolExecutor createThreadPool(
+            SearchProperties.ExecutorConfig config, MeterRegistry meterRegistry) {
+        int poolSize = Math.max(1, config.getPoolSize());
+        int queueCapacity = Math.max(1, config.getQueueCapacity());
+        ThreadFactory threadFactory = resolveThreadFactory(config.getThreadType());
+
+        Counter rejected = Counter.builder("search.executor.rejected")
+                .description("検索スレッドプールで拒否されたタスク数")
+                .register(meterRegistry);
+        RejectedExecutionHandler policy = resolveRejectionPolicy(config.getRejectionPolicy());
+        RejectedExecutionHandler countingPolicy = (task, pool) -> {
+            rejected.increment();
+            policy.rejectedExecution(task, pool);
+        };
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                countingPolicy);
+        pool.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("search.executor.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("検索スレッドプールの実行中タスク数")
+                .register(meterRegistry);
+        Gauge.builder("search.executor.pool.size", pool, ThreadPoolExecutor::getPoolSize)
+                .description("検索スレッドプールの現在のワーカー数")
+                .register(meterRegistry);
+        Gauge.builder("search.executor.queue.size", pool, p -> p.getQueue().size())
+                .description("検索スレッドプールの実行待ちタスク数")
+                .register(meterRegistry);
+
+        log.info("検索スレッドプールを初期化: threadType={}, poolSize={}, queueCapacity={}, rejectionPolicy={}",
+                config.getThreadType(), poolSize, queueCapacity, config.getRejectionPolicy());
+        return pool;
+    }
+
+    /**
+     * 拒否ポリシー名からハンドラを解決する。
+     *
+     * @param name ポリシー名（abort / caller-runs）
+     * @return 拒否ハンドラ
+     */
+    static RejectedExecutionHandler resolveRejectionPolicy(String name) {
+        if ("caller-runs".equalsIgnoreCase(name)) {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+        if (name != null && !"abort".equalsIgnoreCase(name)) {
+            log.warn("不明な拒否ポリシー: {}。abortを使用する", name);
+        }
+        return new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    /**
+     * スレッド種別からThreadFactoryを解決する。
+     *
+     * @param threadType スレッド種別（platform / virtual）
+     * @return ThreadFactory
+     */
+    static ThreadFactory resolveThreadFactory(String threadType) {
+        if ("virtual".equalsIgnoreCase(threadType)) {
+            try {
+                // Thread.ofVirtual().name("search-vt-", 1).factory()（Java 21+）
+                Method ofVirtual = Thread.class.getMethod("ofVirtual");
+                Object builder = ofVirtual.invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class)
+                        .invoke(builder, "search-vt-", 1L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn("仮想スレッドが利用できないJVMのため、プラットフォームスレッドを使用する: {}",
+                        e.toString());
+            }
+        }
+        return new NamedThreadFactory("search-");
+    }
+
+    /**
+     * 名前付きデーモンスレッドを生成するThreadFactory。
+     */
+    static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * 呼び出しスレッドで即時実行するExecutorService。
+     */
+    private static final class DirectExecutorService extends AbstractExecutorService {
+
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 検索パイプライン設定プロパティ。
+ *
+ * <p>application.yamlの {@code nablarch.mcp.search} 配下の設定を保持する。</p>
+ *
+ * @see SearchExecutor
+ * @see VectorSearchService
+ */
+@Component
+@ConfigurationProperties(prefix = "nablarch.mcp.search")
+public class SearchProperties {
+
+    private ExecutorConfig executor = new ExecutorConfig();
+    private VectorConfig vector = new VectorConfig();
+    private Bm25Config bm25 = new Bm25Config();
+
+    public ExecutorConfig getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorConfig executor) {
+        this.executor = executor;
+    }
+
+    public VectorConfig getVector() {
+        return vector;
+    }
+
+    public void setVector(VectorConfig vector) {
+        this.vector = vector;
+    }
+
+    public Bm25Config getBm25() {
+        return bm25;
+    }
+
+    public void setBm25(Bm25Config bm25) {
+        this.bm25 = bm25;
+    }
+
+    /**
+     * 検索処理の並列実行に使用するスレッドプールの設定。
+     */
+    public static class ExecutorConfig {
+
+        /**
+         * スレッド種別。
+         * platform: 通常のプラットフォームスレッド
+         * virtual: 仮想スレッド（Java 21以降。未対応のJVMではplatformにフォールバック）
+         */
+        private String threadType = "platform";
+
+        /**
+         * 同時実行スレッド数の上限。
+         */
+        private int poolSize = 16;
+
+        /**
+         * 実行待ちキューの上限。
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * キュー満杯時の拒否ポリシー。
+         * abort: 即座に拒否し、呼び出し側の部分結果フォールバックに任せる
+         * caller-runs: 呼び出しスレッド（Tomcatリクエストスレッド等）で実行する
+         */
+        private String rejectionPolicy = "abort";
+
+        public String getThreadType() {
+            return threadType;
+        }
+
+        public void setThreadType(String threadType) {
+            this.threadType = threadType;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getRejectionPolicy() {
+            return rejectionPolicy;
+        }
+
+        public void setRejectionPolicy(String rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+        }
+    }
+
+    /**
+     * ベクトル検索の設定。
+     */
+    public static class VectorConfig {
+
+        /** pgvectorのSQLで類似度検索するエンジン。 */
+        public static final String ENGINE_PGVECTOR = "pgvector";
+
+        /** インメモリHNSWインデックスで類似度検索するエンジン。 */
+        public static final String ENGINE_HNSW = "hnsw";
+
+        /**
+         * 類似度検索エンジン。
+         * pgvector: PostgreSQL上でコサイン距離検索
+         * hnsw: インメモリHNSWインデックスで検索し、本文のみID指定でDBから取得（構築完了まではpgvectorで応答）
+         */
+        private String engine = ENGINE_PGVECTOR;
+
+        /**
+         * document_chunks / code_chunks 各レッグ（Embedding + pgvector検索）のタイムアウト。
+         * タイムアウトしたレッグは空結果として扱い、もう一方の結果のみで応答する。
+         */
+        private Duration legTimeout = Duration.ofSeconds(8);
+
+        private HnswConfig hnsw = new HnswConfig();
+
+        private PgvectorConfig pgvector = new PgvectorConfig();
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public void setEngine(String engine) {
+            this.engine = engine;
+        }
+
+        public Duration getLegTimeout() {
+            return legTimeout;
+        }
+
+        public void setLegTimeout(Duration legTimeout) {
+            this.legTimeout = legTimeout;
+        }
+
+        public HnswConfig getHnsw() {
+            return hnsw;
+        }
+
+        public void setHnsw(HnswConfig hnsw) {
+            this.hnsw = hnsw;
+        }
+
+        public PgvectorConfig getPgvector() {
+            return pgvector;
+        }
+
+        public void setPgvector(PgvectorConfig pgvector) {
+            this.pgvector = pgvector;
+        }
+    }
+
+    /**
+     * pgvectorのインデックス検索パラメータの設定。
+     *
+     * <p>検索ごとにトランザクション内で {@code SET LOCAL} し、接続プール内の他の処理に影響させない。</p>
+     */
+    public static class PgvectorConfig {
+
+        /**
+         * ベクトルインデックスの種別（hnsw / ivfflat）。
+         * V3マイグレーションはこの値がhnswの場合のみIVFFlatインデックスをHNSWに置き換える。
+         */
+        private String indexType = "hnsw";
+
+        /**
+         * 再現率とレイテンシのプロファイル（fast / balanced / accurate）。
+         * fast: ef_search=40, probes=5 / balanced: ef_search=100, probes=10 / accurate: ef_search=200, probes=20
+         */
+        private String profile = "balanced";
+
+        /**
+         * hnsw.ef_search（0の場合はプロファイルの値。topK未満の場合はtopKを使用）。
+         */
+        private int efSearch;
+
+        /**
+         * ivfflat.probes（0の場合はプロファイルの値）。
+         */
+        private int probes;
+
+        /**
+         * 反復インデックススキャン（off / relaxed_order / strict_order。pgvector 0.8.0以降）。
+         * メタデータフィルタで候補が除外された場合もtopK件に達するまでインデックスの走査を継続する。
+         * pgvector 0.8.0未満の場合は設定しない。
+         */
+        private String iterativeScan = "relaxed_order";
+
+        /**
+         * 量子化検索（none / halfvec / binary）。
+         * halfvec / binaryの場合、量子化インデックスで {@code topK * rescore-factor} 件の候補を取得し、
+         * 全精度ベクトルで再スコアリングしてtopK件を返す。
+         * 量子化インデックスは {@code spring.flyway.locations} に {@code classpath:db/quantization/<方式>}
+         * を追加して作成する（noneの場合は作成しない）。
+         */
+        private String quantization = "none";
+
+        /**
+         * 量子化検索で再スコアリングする候補数の倍率（topKに対する倍数）。
+         */
+        private int rescoreFactor = 4;
+
+        public String getIndexType() {
+            return indexType;
+        }
+
+        public void setIndexType(String indexType) {
+            this.indexType = indexType;
+        }
+
+        public String getProfile() {
+            return profile;
+        }
+
+        public void setProfile(String profile) {
+            this.profile = profile;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public int getProbes() {
+            return probes;
+        }
+
+        public void setProbes(int probes) {
+            this.probes = probes;
+        }
+
+        public String getIterativeScan() {
+            return iterativeScan;
+        }
+
+        public void setIterativeScan(String iterativeScan) {
+            this.iterativeScan = iterativeScan;
+        }
+
+        public String getQuantization() {
+            return quantization;
+        }
+
+        public void setQuantization(String quantization) {
+            this.quantization = quantization;
+        }
+
+        public int getRescoreFactor() {
+            return rescoreFactor;
+        }
+
+        public void setRescoreFactor(int rescoreFactor) {
+            this.rescoreFactor = rescoreFactor;
+        }
+    }
+
+    /**
+     * インメモリHNSWインデックスの設定。
+     */
+    public static class HnswConfig {
+
+        /**
+         * 各ノードが保持する近傍数（第0層はこの2倍）。
+         */
+        private int m = 16;
+
+        /**
+         * インデックス構築時の近傍探索幅。
+         */
+        private int efConstruction = 200;
+
+        /**
+         * 検索時の近傍探索幅（topK未満の場合はtopKを使用）。
+         */
+        private int efSearch = 64;
+
+        /**
+         * コーパス世代を確認し、変化していればインデックスを再構築する間隔（0で起動時のみ構築）。
+         */
+        private Duration syncInterval = Duration.ofMinutes(1);
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public Duration getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+    }
+
+    /**
+     * BM25キーワード検索の設定。
+     */
+    public static class Bm25Config {
+
+        /** インメモリBM25インデックスで検索するエンジン。 */
+        public static final String ENGINE_INDEX = "index";
+
+        /** pg_trgm（ILIKE + similarity）でSQL検索するエンジン。 */
+        public static final String ENGINE_SQL = "sql";
+
+        /**
+         * 検索エンジン。
+         * index: インメモリBM25転置インデックス（日本語bigram。構築完了まではsqlで応答）
+         * sql: pg_trgmのILIKE検索とsimilarityによるランキング
+         */
+        private String engine = ENGINE_INDEX;
+
+        /**
+         * BM25のk1パラメータ（単語頻度の飽和度）。
+         */
+        private double k1 = 1.2;
+
+        /**
+         * BM25のbパラメータ（文書長による正規化の強さ。0〜1）。
+         */
+        private double b = 0.75;
+
+        /**
+         * インデックスの再構築間隔。0の場合は起動時のみ構築する。
+         */
+        private Duration refreshInterval = Duration.ofMinutes(10);
+
+        /**
+         * コーパス世代の確認間隔。世代がインデックス構築時から変化していれば再構築する。
+         * 0の場合は世代を確認しない（{@code refresh-interval} ごとの再構築のみ）。
+         */
+        private Duration generationCheckInterval = Duration.ofSeconds(10);
+
+        /**
+         * SQL検索時のクエリモード。
+         * union: document_chunks / code_chunks をUNION ALLで結合した1文で検索する
+         * per-table: テーブルごとに検索し、Java側でマージする
+         */
+        private String queryMode = "union";
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public void setEngine(String engine) {
+            this.engine = engine;
+        }
+
+        public double getK1() {
+            return k1;
+        }
+
+        public void setK1(double k1) {
+            this.k1 = k1;
+        }
+
+        public double getB() {
+            return b;
+        }
+
+        public void setB(double b) {
+            this.b = b;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getGenerationCheckInterval() {
+            return generationCheckInterval;
+        }
+
+        public void setGenerationCheckInterval(Duration generationCheckInterval) {
+            this.generationCheckInterval = generationCheckInterval;
+        }
+
+        public String getQueryMode() {
+            return queryMode;
+        }
+
+        public void setQueryMode(String queryMode) {
+            this.queryMode = queryMode;
+        }
+    }
+}
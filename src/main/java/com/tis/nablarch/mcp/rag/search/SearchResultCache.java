@@ -0,0 +1,444 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tis.nablarch.mcp.common.ContentHash;
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 検索結果キャッシュ（semantic_searchのハイブリッド検索＋リランキングの結果）。
+ *
+ * <p>「正規化済みクエリ + フィルタ + 検索モード + topK」をキーとして最終結果を保持し、
+ * 同じ質問の繰り返しではEmbedding推論・pgvector検索・リランキングを行わない。</p>
+ * <ul>
+ *   <li>L1: プロセス内のLRUキャッシュ（サイズ上限とTTLで削除）</li>
+ *   <li>L2: search_result_cacheテーブル（{@code shared=true} の場合。複数インスタンスで共有）</li>
+ * </ul>
+ *
+ * <p>各エントリは格納時のコーパス世代（チャンクを格納するたびに加算されるカウンタ）を保持し、
+ * 現在の世代と一致しないエントリは参照しない。世代は {@code generation-refresh} 間隔でDBから再取得し、
+ * 変化した場合はL1を全消去してL2の古い世代のエントリを削除する。
+ * 世代を取得できない場合（テーブル未作成・DB障害）はキャッシュを使用しない。</p>
+ *
+ * <p>次の結果は返却するがキャッシュしない（同じ質問の次回の検索で完全な結果を得るため）。</p>
+ * <ul>
+ *   <li>空の結果</li>
+ *   <li>検索処理が {@link #markUncacheable(String)} を呼び出した結果
+ *       （検索レッグの失敗・タイムアウトによる部分結果、リランキングを省略した結果）</li>
+ *   <li>BM25インデックスが現在の世代から構築されていない間の結果（KEYWORD / HYBRIDモード）</li>
+ *   <li>HNSWインデックスが現在の世代から構築されていない間の結果（VECTOR / HYBRIDモード）</li>
+ * </ul>
+ *
+ * <p>記録するメトリクス:</p>
+ * <ul>
+ *   <li>{@code search.cache.requests} - 参照回数（tag: result=hit|miss|bypass, tier=l1|l2|none）</li>
+ *   <li>{@code search.cache.size} - L1のエントリ数（Gauge）</li>
+ *   <li>{@code search.cache.generation} - 現在のコーパス世代（Gauge）</li>
+ *   <li>{@code search.cache.uncacheable} - キャッシュしなかった検索結果の件数（tag: reason）</li>
+ * </ul>
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final TypeReference<List<SearchResult>> RESULTS_TYPE = new TypeReference<>() { };
+
+    /**
+     * 世代を取得できない状態を表す値。
+     */
+    static final long UNKNOWN_GENERATION = -1;
+
+    /**
+     * キャッシュしない理由: 検索レッグの失敗・タイムアウトによる部分結果。
+     */
+    public static final String REASON_PARTIAL = "partial";
+
+    /**
+     * キャッシュしない理由: リランキングを省略した結果。
+     */
+    public static final String REASON_RERANK_SKIPPED = "rerank_skipped";
+
+    /**
+     * キャッシュしない理由: BM25・HNSWインデックスが現在のコーパス世代から構築されていない。
+     */
+    static final String REASON_INDEX_STALE = "index_stale";
+
+    /**
+     * 実行中の検索処理のキャッシュしない理由（要素0。検索処理の実行中のみ設定される）。
+     */
+    private static final ThreadLocal<String[]> UNCACHEABLE_REASON = new ThreadLocal<>();
+
+    private final SearchResultCacheRepository repository;
+    private final SearchResultCacheProperties config;
+    private final BM25IndexManager indexManager;
+    private final HnswIndexManager hnswIndexManager;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object generationLock = new Object();
+    private volatile long generation = UNKNOWN_GENERATION;
+    private volatile long generationCheckedAt = -1;
+
+    private final Counter l1HitCounter;
+    private final Counter l2HitCounter;
+    private final Counter missCounter;
+    private final Counter bypassCounter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param repository 検索結果キャッシュリポジトリ
+     * @param config キャッシュ設定
+     * @param indexManager BM25インデックス管理
+     * @param hnswIndexManager HNSWインデックス管理
+     * @param meterRegistry Micrometerレジストリ
+     */
+    @Autowired
+    public SearchResultCache(SearchResultCacheRepository repository, SearchResultCacheProperties config,
+            BM25IndexManager indexManager, HnswIndexManager hnswIndexManager, MeterRegistry meterRegistry) {
+        this(repository, config, indexManager, hnswIndexManager, meterRegistry, Clock.systemUTC());
+    }
+
+    /**
+     * テスト用コンストラクタ（時計注入可能）。
+     *
+     * @param repository 検索結果キャッシュリポジトリ
+     * @param config キャッシュ設定
+     * @param indexManager BM25インデックス管理（nullの場合はインデックスの世代を確認しない）
+     * @param hnswIndexManager HNSWインデックス管理（nullの場合はインデックスの世代を確認しない）
+     * @param meterRegistry Micrometerレジストリ
+     * @param clock TTL・世代の再取得間隔の判定に使用する時計
+     */
+    SearchResultCache(SearchResultCacheRepository repository, SearchResultCacheProperties config,
+            BM25IndexManager indexManager, HnswIndexManager hnswIndexManager, MeterRegistry meterRegistry,
+            Clock clock) {
+        this.repository = repository;
+        this.config = config;
+        this.indexManager = indexManager;
+        this.hnswIndexManager = hnswIndexManager;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.l1HitCounter = requestCounter(meterRegistry, "hit", "l1");
+        this.l2HitCounter = requestCounter(meterRegistry, "hit", "l2");
+        this.missCounter = requestCounter(meterRegistry, "miss", "none");
+        this.bypassCounter = requestCounter(meterRegistry, "bypass", "none");
+        Gauge.builder("search.cache.size", this, SearchResultCache::size)
+                .description("検索結果キャッシュ（L1）のエントリ数")
+                .register(meterRegistry);
+        Gauge.builder("search.cache.generation", this, c -> c.generation)
+                .description("検索結果キャッシュが参照しているコーパス世代")
+                .register(meterRegistry);
+    }
+
+    /**
+     * キャッシュを使用しないインスタンスを生成する。
+     *
+     * @return 常に検索を実行するキャッシュ
+     */
+    public static SearchResultCache disabled() {
+        SearchResultCacheProperties config = new SearchResultCacheProperties();
+        config.setEnabled(false);
+        return new SearchResultCache(null, config, null, null, new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+
+    /**
+     * 実行中の検索結果をキャッシュしないよう指示する。
+     *
+     * <p>{@link #get} に渡した検索処理から、検索処理と同じスレッドで呼び出す。
+     * 検索結果は呼び出し元に返却されるが格納しない。
+     * {@link #get} の外（キャッシュを経由しない検索）で呼び出した場合は何もしない。
+     * 別スレッドで実行する処理からの指示は {@link #capture(Supplier)} で受け取り、
+     * 検索処理のスレッドで改めて呼び出す。</p>
+     *
+     * @param reason 理由（メトリクスのタグに使用する）
+     */
+    public static void markUncacheable(String reason) {
+        String[] slot = UNCACHEABLE_REASON.get();
+        if (slot != null && slot[0] == null) {
+            slot[0] = reason;
+        }
+    }
+
+    /**
+     * 処理を実行し、処理中に {@link #markUncacheable(String)} で指示された理由とともに結果を返す。
+     *
+     * <p>並列実行する検索レッグなど、{@link #get} に渡した検索処理とは別のスレッドで実行する処理に使用する。
+     * 呼び出し元は結果を受け取った検索処理のスレッドで理由を {@link #markUncacheable(String)} に渡す。</p>
+     *
+     * @param task 実行する処理
+     * @param <T> 処理結果の型
+     * @return 処理結果とキャッシュしない理由
+     */
+    public static <T> Captured<T> capture(Supplier<T> task) {
+        String[] uncacheable = new String[1];
+        String[] outer = UNCACHEABLE_REASON.get();
+        UNCACHEABLE_REASON.set(uncacheable);
+        try {
+            T value = task.get();
+            return new Captured<>(value, uncacheable[0]);
+        } finally {
+            if (outer != null) {
+                UNCACHEABLE_REASON.set(outer);
+            } else {
+                UNCACHEABLE_REASON.remove();
+            }
+        }
+    }
+
+    /**
+     * キャッシュされた検索結果を返す。キャッシュにない場合は検索を実行して格納する。
+     *
+     * @param query クエリ
+     * @param filters フィルタ
+     * @param mode 検索モード
+     * @param topK 返却件数
+     * @param search 検索処理（ハイブリッド検索＋リランキング）
+     * @return 検索結果
+     */
+    public List<SearchResult> get(String query, SearchFilters filters, SearchMode mode, int topK,
+            Supplier<List<SearchResult>> search) {
+        if (!config.isEnabled()) {
+            return search.get();
+        }
+        long currentGeneration = currentGeneration();
+        if (currentGeneration == UNKNOWN_GENERATION) {
+            bypassCounter.increment();
+            return search.get();
+        }
+
+        CacheKey key = new CacheKey(normalize(query), filters, mode, topK);
+        long now = clock.millis();
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.generation() == currentGeneration && now < entry.expiresAtMillis()) {
+                    l1HitCounter.increment();
+                    return entry.results();
+                }
+                entries.remove(key);
+            }
+        }
+
+        if (config.isShared()) {
+            Optional<List<SearchResult>> shared = findShared(key, currentGeneration, now);
+            if (shared.isPresent()) {
+                l2HitCounter.increment();
+                putLocal(key, shared.get(), currentGeneration, now);
+                return shared.get();
+            }
+        }
+
+        missCounter.increment();
+        // インデックスの世代は検索前に確認する（検索中の再構築で古いインデックスの結果を格納しないため）
+        boolean indexCurrent = isIndexCurrent(mode, currentGeneration);
+        Captured<List<SearchResult>> captured = capture(search);
+        List<SearchResult> results = List.copyOf(captured.value());
+
+        if (results.isEmpty()) {
+            return results;
+        }
+        String reason = (captured.uncacheableReason() != null)
+                ? captured.uncacheableReason() : (indexCurrent ? null : REASON_INDEX_STALE);
+        if (reason != null) {
+            uncacheableCounter(reason).increment();
+            log.debug("検索結果をキャッシュしない: reason={}", reason);
+            return results;
+        }
+        putLocal(key, results, currentGeneration, now);
+        if (config.isShared()) {
+            saveShared(key, results, currentGeneration);
+        }
+        return results;
+    }
+
+    /**
+     * L1のエントリ数を返す。
+     *
+     * @return エントリ数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 現在のコーパス世代を返す。再取得間隔を過ぎている場合はDBから取得する。
+     *
+     * @return コーパス世代（取得できない場合は {@link #UNKNOWN_GENERATION}）
+     */
+    long currentGeneration() {
+        long refreshMillis = config.getGenerationRefresh().toMillis();
+        if (generationCheckedAt >= 0 && clock.millis() - generationCheckedAt < refreshMillis) {
+            return generation;
+        }
+        synchronized (generationLock) {
+            long now = clock.millis();
+            if (generationCheckedAt >= 0 && now - generationCheckedAt < refreshMillis) {
+                return generation;
+            }
+            try {
+                long latest = repository.currentGeneration();
+                if (generation != UNKNOWN_GENERATION && latest != generation) {
+                    onGenerationChanged(latest);
+                }
+                generation = latest;
+            } catch (RuntimeException e) {
+                if (generation != UNKNOWN_GENERATION) {
+                    log.warn("コーパス世代を取得できないため検索結果キャッシュを使用しない: {}", e.getMessage());
+                }
+                generation = UNKNOWN_GENERATION;
+            }
+            generationCheckedAt = now;
+            return generation;
+        }
+    }
+
+    /**
+     * キャッシュキー用にクエリ文字列を正規化する。
+     *
+     * <p>NFKC正規化を行い、連続する空白を1つに畳み込んで前後の空白を除去する。</p>
+     *
+     * @param text クエリ文字列
+     * @return 正規化済み文字列
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 検索モードが参照するインデックスが現在の世代から構築されているかを返す。
+     * KEYWORDモードはBM25、VECTORモードはHNSW、HYBRIDモードは両方のインデックスを確認する。
+     */
+    private boolean isIndexCurrent(SearchMode mode, long currentGeneration) {
+        boolean bm25Current = mode == SearchMode.VECTOR
+                || indexManager == null || indexManager.isCurrent(currentGeneration);
+        boolean hnswCurrent = mode == SearchMode.KEYWORD
+                || hnswIndexManager == null || hnswIndexManager.isCurrent(currentGeneration);
+        return bm25Current && hnswCurrent;
+    }
+
+    private void onGenerationChanged(long latest) {
+        int cleared;
+        synchronized (entries) {
+            cleared = entries.size();
+            entries.clear();
+        }
+        log.debug("コーパス世代が更新されたため検索結果キャッシュを消去: generation={}, entries={}", latest, cleared);
+        if (config.isShared()) {
+            try {
+                repository.deleteStale(latest);
+            } catch (RuntimeException e) {
+                log.debug("共有キャッシュの古いエントリの削除に失敗: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void putLocal(CacheKey key, List<SearchResult> results, long entryGeneration, long now) {
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(results, entryGeneration, now + config.getTtl().toMillis()));
+            Iterator<CacheEntry> it = entries.values().iterator();
+            while (entries.size() > Math.max(1, config.getMaxSize()) && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private Optional<List<SearchResult>> findShared(CacheKey key, long entryGeneration, long now) {
+        try {
+            Instant since = Instant.ofEpochMilli(now).minus(config.getTtl());
+            Optional<String> json = repository.find(key.hash(), entryGeneration, since);
+            if (json.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(List.copyOf(JSON.readValue(json.get(), RESULTS_TYPE)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("共有キャッシュの参照に失敗: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void saveShared(CacheKey key, List<SearchResult> results, long entryGeneration) {
+        try {
+            repository.save(key.hash(), entryGeneration, JSON.writeValueAsString(results));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("共有キャッシュへの格納に失敗: {}", e.getMessage());
+        }
+    }
+
+    private Counter uncacheableCounter(String reason) {
+        return Counter.builder("search.cache.uncacheable")
+                .tag("reason", reason)
+                .description("キャッシュしなかった検索結果の件数")
+                .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result, String tier) {
+        return Counter.builder("search.cache.requests")
+                .tag("result", result)
+                .tag("tier", tier)
+                .description("検索結果キャッシュの参照回数")
+                .register(registry);
+    }
+
+    /**
+     * キャッシュキー。
+     *
+     * @param query 正規化済みクエリ
+     * @param filters フィルタ
+     * @param mode 検索モード
+     * @param topK 返却件数
+     */
+    private record CacheKey(String query, SearchFilters filters, SearchMode mode, int topK) {
+
+        String hash() {
+            return ContentHash.sha256Hex(toString());
+        }
+    }
+
+    /**
+     * キャッシュエントリ。
+     *
+     * @param results 検索結果
+     * @param generation 格納時のコーパス世代
+     * @param expiresAtMillis 有効期限（エポックミリ秒）
+     */
+    private record CacheEntry(List<SearchResult> results, long generation, long expiresAtMillis) {
+    }
+
+    /**
+     * {@link #capture(Supplier)} の実行結果。
+     *
+     * @param value 処理結果
+     * @param uncacheableReason キャッシュしない理由（指示がなかった場合はnull）
+     * @param <T> 処理結果の型
+     */
+    public record Captured<T>(T value, String uncacheableReason) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 検索結果キャッシュ設定プロパティ。
+ *
+ * <p>application.yamlの {@code nablarch.mcp.search.result-cache} 配下の設定を保持する。</p>
+ *
+ * @see SearchResultCache
+ */
+@Component
+@ConfigurationProperties(prefix = "nablarch.mcp.search.result-cache")
+public class SearchResultCacheProperties {
+
+    /**
+     * キャッシュの有効/無効。
+     */
+    private boolean enabled = true;
+
+    /**
+     * プロセス内キャッシュ（L1）の最大エントリ数（LRUで削除）。
+     */
+    private int maxSize = 1000;
+
+    /**
+     * エントリの有効期間（L1・L2共通）。
+     * インメモリインデックス（BM25/HNSW）の再構築による結果の変化はこの期間で反映される。
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * コーパス世代をDBから再取得する間隔。
+     * 取込後、最大この期間は格納前の世代のキャッシュを返す。
+     */
+    private Duration generationRefresh = Duration.ofSeconds(1);
+
+    /**
+     * 共有キャッシュ（L2、search_result_cacheテーブル）を使用するか。
+     * 複数インスタンスで検索結果を共有する場合に有効にする。
+     */
+    private boolean shared = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getGenerationRefresh() {
+        return generationRefresh;
+    }
+
+    public void setGenerationRefresh(Duration generationRefresh) {
+        this.generationRefresh = generationRefresh;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+}
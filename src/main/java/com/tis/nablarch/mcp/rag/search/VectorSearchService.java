@@ -1,20 +1,28 @@
 package com.tis.nablarch.mcp.rag.search;
 
+import com.tis.nablarch.mcp.common.CancellationScope;
+import com.tis.nablarch.mcp.embedding.CachingEmbeddingClient;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * ベクトル類似度検索サービス。
@@ -29,6 +37,25 @@ import java.util.StringJoiner;
  *   <li>{@code code_chunks} — local: CodeSage-small-v2 / api: Voyage-code-3</li>
  * </ul>
  *
+ * <p>クエリEmbeddingは{@link CachingEmbeddingClient}でキャッシュされ、
+ * 同一クエリの再検索ではモデル推論を省略する。</p>
+ *
+ * <p>document_chunks / code_chunks の各レッグ（Embedding生成 + pgvector検索）は
+ * {@link SearchExecutor}上で並列実行される。一方のレッグが失敗・タイムアウトした場合は
+ * もう一方の結果のみで応答する（部分結果フォールバック）。</p>
+ *
+ * <p>タイムアウト・キャンセルされたレッグは{@link CancellationScope}経由で
+ * 実行中のpgvectorクエリ（{@code Statement.cancel()}）とEmbedding推論を中断し、
+ * DB接続・CPUを即座に解放する。</p>
+ *
+ * <p>{@code nablarch.mcp.search.vector.engine=hnsw} の場合は{@link HnswIndexManager}が保持する
+ * インメモリHNSWインデックスで近傍検索を行い、PostgreSQLへはヒットしたチャンクの本文取得のみを行う。
+ * インデックスの初回構築が完了するまではpgvectorで検索する。</p>
+ *
+ * <p>pgvectorで検索する場合は、{@code nablarch.mcp.search.vector.pgvector} の設定に従い
+ * インデックスの探索幅と反復スキャンをクエリごとに {@code SET LOCAL} で設定する
+ * （詳細は{@link PgVectorSearcher}）。</p>
+ *
  * @see SearchResult
  * @see SearchFilters
  * @see BM25SearchService
@@ -38,24 +65,97 @@ public class VectorSearchService {
 
     private static final Logger log = LoggerFactory.getLogger(VectorSearchService.class);
 
-    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PgVectorSearcher pgVectorSearcher;
+    private final HnswIndexManager hnswIndexManager;
+    private final int efSearch;
     private final EmbeddingClient documentEmbeddingClient;
     private final EmbeddingClient codeEmbeddingClient;
+    private final SearchExecutor searchExecutor;
+    private final long legTimeoutNanos;
+
+    /**
+     * テスト用コンストラクタ（インメモリHNSWインデックスなし、pgvector検索パラメータを設定しない）。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param documentEmbeddingClient ドキュメント用Embeddingクライアント（local: BGE-M3 / api: Jina v4）
+     * @param codeEmbeddingClient コード用Embeddingクライアント（local: CodeSage / api: Voyage-code-3）
+     * @param embeddingProperties Embedding設定プロパティ
+     * @param meterRegistry Micrometerレジストリ
+     * @param searchExecutor 検索処理用スレッドプール
+     * @param searchProperties 検索設定プロパティ
+     */
+    VectorSearchService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            EmbeddingClient documentEmbeddingClient,
+            EmbeddingClient codeEmbeddingClient,
+            EmbeddingProperties embeddingProperties,
+            MeterRegistry meterRegistry,
+            SearchExecutor searchExecutor,
+            SearchProperties searchProperties) {
+        this(jdbcTemplate, documentEmbeddingClient, codeEmbeddingClient, embeddingProperties,
+                meterRegistry, searchExecutor, searchProperties, null, null);
+    }
 
     /**
      * コンストラクタ。
      *
+     * <p>クエリEmbeddingキャッシュの設定が有効な場合、各Embeddingクライアントを
+     * {@link CachingEmbeddingClient}でラップする。pgvectorクエリは
+     * レッグタイムアウトをクエリタイムアウトとする{@link CancellableJdbcTemplate}で実行する。</p>
+     *
      * @param jdbcTemplate Spring NamedParameterJdbcTemplate
      * @param documentEmbeddingClient ドキュメント用Embeddingクライアント（local: BGE-M3 / api: Jina v4）
      * @param codeEmbeddingClient コード用Embeddingクライアント（local: CodeSage / api: Voyage-code-3）
+     * @param embeddingProperties Embedding設定プロパティ
+     * @param meterRegistry Micrometerレジストリ
+     * @param searchExecutor 検索処理用スレッドプール
+     * @param searchProperties 検索設定プロパティ
+     * @param hnswIndexManager HNSWインデックス管理（nullの場合は常にpgvectorで検索）
+     * @param transactionOperations pgvector検索パラメータをSET LOCALするトランザクション
+     *        （nullの場合は検索パラメータを設定しない）
      */
+    @Autowired
     public VectorSearchService(
             NamedParameterJdbcTemplate jdbcTemplate,
             @Qualifier("document") EmbeddingClient documentEmbeddingClient,
-            @Qualifier("code") EmbeddingClient codeEmbeddingClient) {
-        this.jdbcTemplate = jdbcTemplate;
+            @Qualifier("code") EmbeddingClient codeEmbeddingClient,
+            EmbeddingProperties embeddingProperties,
+            MeterRegistry meterRegistry,
+            SearchExecutor searchExecutor,
+            SearchProperties searchProperties,
+            HnswIndexManager hnswIndexManager,
+            TransactionOperations transactionOperations) {
+        this.pgVectorSearcher = new PgVectorSearcher(
+                CancellableJdbcTemplate.wrap(jdbcTemplate, searchProperties.getVector().getLegTimeout()),
+                transactionOperations, searchProperties.getVector().getPgvector());
+        this.hnswIndexManager = hnswIndexManager;
+        this.efSearch = searchProperties.getVector().getHnsw().getEfSearch();
+        this.documentEmbeddingClient = CachingEmbeddingClient.wrap(
+                documentEmbeddingClient, embeddingProperties.getQueryCache(), meterRegistry);
+        this.codeEmbeddingClient = CachingEmbeddingClient.wrap(
+                codeEmbeddingClient, embeddingProperties.getQueryCache(), meterRegistry);
+        this.searchExecutor = searchExecutor;
+        this.legTimeoutNanos = searchProperties.getVector().getLegTimeout().toNanos();
+    }
+
+    /**
+     * テスト用コンストラクタ（クエリEmbeddingキャッシュなし、逐次実行）。
+     *
+     * @param jdbcTemplate Spring NamedParameterJdbcTemplate
+     * @param documentEmbeddingClient ドキュメント用Embeddingクライアント
+     * @param codeEmbeddingClient コード用Embeddingクライアント
+     */
+    VectorSearchService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            EmbeddingClient documentEmbeddingClient,
+            EmbeddingClient codeEmbeddingClient) {
+        this.pgVectorSearcher = new PgVectorSearcher(jdbcTemplate);
+        this.hnswIndexManager = null;
+        this.efSearch = new SearchProperties().getVector().getHnsw().getEfSearch();
         this.documentEmbeddingClient = documentEmbeddingClient;
         this.codeEmbeddingClient = codeEmbeddingClient;
+        this.searchExecutor = SearchExecutor.direct();
+        this.legTimeoutNanos = new SearchProperties().getVector().getLegTimeout().toNanos();
     }
 
     /**
@@ -65,6 +165,9 @@ public class VectorSearchService {
      * 両テーブルに対してコサイン類似度検索を実行する。結果はスコア降順で
      * マージされ、topK件に制限される。</p>
      *
+     * <p>一方のテーブルの検索が失敗・タイムアウトした場合はもう一方の結果のみで応答し、
+     * 部分結果として検索結果キャッシュに格納しない（{@link SearchResultCache#markUncacheable(String)}）。</p>
+     *
      * @param query 検索クエリ（自然言語テキスト）
      * @param filters メタデータフィルタ条件（nullの場合フィルタなし）
      * @param topK 返却する結果数（1以上）
@@ -83,167 +186,139 @@ public class VectorSearchService {
 
         log.debug("ベクトル検索実行: query='{}', topK={}", query, topK);
 
-        // ドキュメント用Embedding生成（Jina v4）
-        float[] docEmbedding = documentEmbeddingClient.embed(query);
-        String docVectorStr = toVectorString(docEmbedding);
-
-        // コード用Embedding生成（Voyage-code-3）
-        float[] codeEmbedding = codeEmbeddingClient.embed(query);
-        String codeVectorStr = toVectorString(codeEmbedding);
-
-        List<SearchResult> docResults = searchTable(
-                "document_chunks", docVectorStr, effectiveFilters, topK);
-        List<SearchResult> codeResults = searchTable(
-                "code_chunks", codeVectorStr, effectiveFilters, topK);
+        // ドキュメント用（local: BGE-M3 / api: Jina v4）とコード用（local: CodeSage / api: Voyage-code-3）の
+        // Embedding生成 + pgvector検索を並列実行する
+        SearchLeg docLeg = new SearchLeg(CancellationScope.create(), () -> searchLeg(
+                "document_chunks", documentEmbeddingClient, query, effectiveFilters, topK));
+        SearchLeg codeLeg = new SearchLeg(CancellationScope.create(), () -> searchLeg(
+                "code_chunks", codeEmbeddingClient, query, effectiveFilters, topK));
+        long deadline = System.nanoTime() + legTimeoutNanos;
+        submit(docLeg);
+        submit(codeLeg);
+
+        // プールが飽和して未着手のレッグは呼び出しスレッドで実行する（着手済みなら何もしない）
+        docLeg.run();
+        codeLeg.run();
+
+        LegOutcome docOutcome = awaitLeg(docLeg, "document_chunks", deadline);
+        LegOutcome codeOutcome = awaitLeg(codeLeg, "code_chunks", deadline);
+
+        if (docOutcome.failure() != null && codeOutcome.failure() != null) {
+            throw asRuntimeException(docOutcome.failure());
+        }
+        if (docOutcome.failure() != null || codeOutcome.failure() != null) {
+            SearchResultCache.markUncacheable(SearchResultCache.REASON_PARTIAL);
+        }
 
-        return mergeAndSort(docResults, codeResults, topK);
+        return mergeAndSort(docOutcome.results(), codeOutcome.results(), topK);
     }
 
     /**
-     * 指定テーブルに対してベクトル類似度検索を実行する。
+     * 1テーブル分のレッグ（Embedding生成 + pgvector検索）を実行する。
      *
      * @param tableName 検索対象テーブル名
-     * @param vectorStr ベクトル文字列（"[0.1,0.2,...]"形式）
+     * @param embeddingClient テーブルに対応するEmbeddingクライアント
+     * @param query 検索クエリ
      * @param filters メタデータフィルタ条件
      * @param topK 返却する結果数
      * @return 検索結果リスト
      */
-    private List<SearchResult> searchTable(
-            String tableName, String vectorStr, SearchFilters filters, int topK) {
-
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT id, content, ");
-        sql.append("1 - (embedding <=> CAST(:query_vec AS vector)) AS vector_score");
-        appendMetadataColumns(sql, tableName);
-        sql.append(" FROM ").append(tableName);
-        sql.append(" WHERE embedding IS NOT NULL");
-
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("query_vec", vectorStr);
-
-        appendFilters(sql, params, filters, tableName);
-
-        sql.append(" ORDER BY embedding <=> CAST(:query_vec AS vector)");
-        sql.append(" LIMIT :top_k");
-        params.addValue("top_k", topK);
-
-        log.debug("ベクトル検索SQL ({}): {}", tableName, sql);
-
-        return jdbcTemplate.query(sql.toString(), params,
-                (rs, rowNum) -> mapRow(rs, tableName));
-    }
-
-    /**
-     * メタデータカラムをSELECT句に追加する。
-     *
-     * @param sql SQL文字列ビルダー
-     * @param tableName テーブル名
-     */
-    private void appendMetadataColumns(StringBuilder sql, String tableName) {
-        if ("document_chunks".equals(tableName)) {
-            sql.append(", source, source_type, module, app_type, language, fqcn, url");
-        } else {
-            sql.append(", repo, chunk_type, module, language, fqcn, file_path");
+    private List<SearchResult> searchLeg(
+            String tableName, EmbeddingClient embeddingClient,
+            String query, SearchFilters filters, int topK) {
+        float[] embedding = embeddingClient.embed(query);
+        HnswIndex index = (hnswIndexManager != null) ? hnswIndexManager.current(tableName) : null;
+        if (index != null && index.dimensions() == embedding.length) {
+            return searchIndex(index, tableName, embedding, filters, topK);
         }
+        return pgVectorSearcher.search(tableName, embedding, filters, topK);
     }
 
     /**
-     * メタデータフィルタ条件をSQL WHERE句に追加する。
+     * インメモリHNSWインデックスで近傍検索し、ヒットしたチャンクの本文をDBから取得する。
      *
-     * <p>テーブルごとにカラム名が異なるため、テーブル名に応じてフィルタを適用する。</p>
+     * <p>インデックス構築後に削除されたチャンクは本文が取得できないため結果から除外する。
+     * 除外によりtopK件に満たなくなった場合は、次回の再構築までの間pgvectorで検索し直す。</p>
      *
-     * @param sql SQL文字列ビルダー
-     * @param params パラメータソース
-     * @param filters フィルタ条件
-     * @param tableName テーブル名
+     * @param index 検索対象のインデックス
+     * @param tableName 検索対象テーブル名
+     * @param embedding クエリベクトル
+     * @param filters メタデータフィルタ条件
+     * @param topK 返却する結果数
+     * @return 検索結果リスト（類似度降順）
      */
-    private void appendFilters(
-            StringBuilder sql, MapSqlParameterSource params,
-            SearchFilters filters, String tableName) {
-
-        if (filters.appType() != null && "document_chunks".equals(tableName)) {
-            sql.append(" AND (app_type = :app_type OR app_type IS NULL)");
-            params.addValue("app_type", filters.appType());
-        }
-        if (filters.module() != null) {
-            sql.append(" AND (module = :module OR module IS NULL)");
-            params.addValue("module", filters.module());
-        }
-        if (filters.source() != null && "document_chunks".equals(tableName)) {
-            sql.append(" AND source = :source");
-            params.addValue("source", filters.source());
+    private List<SearchResult> searchIndex(
+            HnswIndex index, String tableName, float[] embedding, SearchFilters filters, int topK) {
+        List<HnswIndex.Hit> hits = index.search(embedding, topK, efSearch, filters);
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (HnswIndex.Hit hit : hits) {
+            scores.put(hit.id(), hit.similarity());
         }
-        if (filters.sourceType() != null && "document_chunks".equals(tableName)) {
-            sql.append(" AND source_type = :source_type");
-            params.addValue("source_type", filters.sourceType());
-        }
-        if (filters.language() != null) {
-            sql.append(" AND language = :language");
-            params.addValue("language", filters.language());
+        Map<Long, SearchResult> rows = pgVectorSearcher.fetchByIds(tableName, scores.keySet());
+
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        scores.forEach((id, score) -> {
+            SearchResult row = rows.get(id);
+            if (row != null) {
+                results.add(new SearchResult(row.id(), row.content(), score, row.metadata(), row.sourceUrl()));
+            }
+        });
+        if (results.size() < hits.size() && results.size() < topK) {
+            log.debug("削除済みチャンクがHNSWインデックスにヒットしたためpgvectorで検索: table={}", tableName);
+            return pgVectorSearcher.search(tableName, embedding, filters, topK);
         }
+        return results;
     }
 
     /**
-     * ResultSetからSearchResultにマッピングする。
+     * レッグを検索スレッドプールに投入する。
+     * プールが飽和している場合は投入せず、呼び出しスレッドでの実行に任せる。
      *
-     * @param rs ResultSet
-     * @param tableName テーブル名（メタデータカラム判定用）
-     * @return SearchResult
-     * @throws SQLException SQL例外
+     * @param leg 投入するレッグ
      */
-    private SearchResult mapRow(ResultSet rs, String tableName) throws SQLException {
-        Map<String, String> metadata = new HashMap<>();
-
-        if ("document_chunks".equals(tableName)) {
-            putIfNotNull(metadata, "source", rs.getString("source"));
-            putIfNotNull(metadata, "source_type", rs.getString("source_type"));
-            putIfNotNull(metadata, "app_type", rs.getString("app_type"));
-            putIfNotNull(metadata, "language", rs.getString("language"));
-            putIfNotNull(metadata, "fqcn", rs.getString("fqcn"));
-        } else {
-            putIfNotNull(metadata, "repo", rs.getString("repo"));
-            putIfNotNull(metadata, "chunk_type", rs.getString("chunk_type"));
-            putIfNotNull(metadata, "language", rs.getString("language"));
-            putIfNotNull(metadata, "fqcn", rs.getString("fqcn"));
-            putIfNotNull(metadata, "file_path", rs.getString("file_path"));
+    private void submit(FutureTask<List<SearchResult>> leg) {
+        try {
+            searchExecutor.executor().execute(leg);
+        } catch (RejectedExecutionException e) {
+            log.debug("検索スレッドプールが飽和。呼び出しスレッドで実行する");
         }
-        putIfNotNull(metadata, "module", rs.getString("module"));
-        metadata.put("table", tableName);
-
-        String sourceUrl = "document_chunks".equals(tableName) ? rs.getString("url") : null;
-
-        return new SearchResult(
-                String.valueOf(rs.getLong("id")),
-                rs.getString("content"),
-                rs.getDouble("vector_score"),
-                metadata,
-                sourceUrl
-        );
     }
 
     /**
-     * 値がnullでない場合のみMapに追加する。
+     * レッグの完了を待機し、結果または失敗原因を返す。
+     *
+     * <p>期限までに完了しない場合はレッグをキャンセル（実行中のクエリ・推論を中断）し、
+     * タイムアウトとして扱う。</p>
+     *
+     * @param leg 待機対象のレッグ
+     * @param tableName テーブル名（ログ出力用）
+     * @param deadline 待機期限（{@link System#nanoTime()}基準）
+     * @return レッグの実行結果
      */
-    private void putIfNotNull(Map<String, String> map, String key, String value) {
-        if (value != null) {
-            map.put(key, value);
+    private LegOutcome awaitLeg(FutureTask<List<SearchResult>> leg, String tableName, long deadline) {
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            return new LegOutcome(leg.get(remaining, TimeUnit.NANOSECONDS), null);
+        } catch (TimeoutException e) {
+            leg.cancel(true);
+            log.warn("ベクトル検索レッグがタイムアウト。部分結果で応答: table={}", tableName);
+            return new LegOutcome(List.of(), e);
+        } catch (ExecutionException e) {
+            log.warn("ベクトル検索レッグが失敗。部分結果で応答: table={}, error={}",
+                    tableName, e.getCause().getMessage());
+            return new LegOutcome(List.of(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            leg.cancel(true);
+            return new LegOutcome(List.of(), e);
         }
     }
 
-    /**
-     * float配列をpgvectorのベクトル文字列形式に変換する。
-     *
-     * <p>例: {@code [0.1, 0.2, 0.3]} → {@code "[0.1,0.2,0.3]"}</p>
-     *
-     * @param vector float配列
-     * @return ベクトル文字列
-     */
-    static String toVectorString(float[] vector) {
-        StringJoiner joiner = new StringJoiner(",", "[", "]");
-        for (float v : vector) {
-            joiner.add(String.valueOf(v));
+    private static RuntimeException asRuntimeException(Throwable t) {
+        if (t instanceof RuntimeException re) {
+            return re;
         }
-        return joiner.toString();
+        return new IllegalStateException("ベクトル検索に失敗: " + t.getMessage(), t);
     }
 
     /**
@@ -266,4 +341,42 @@ public class VectorSearchService {
                 .limit(topK)
                 .toList();
     }
+
+    /**
+     * キャンセル時に実行中のクエリ・推論を中断する検索レッグ。
+     *
+     * <p>実行中は{@link CancellationScope}を実行スレッドにバインドし、
+     * {@link #cancel(boolean)}でスコープをキャンセルする。</p>
+     */
+    private static final class SearchLeg extends FutureTask<List<SearchResult>> {
+
+        private final CancellationScope scope;
+
+        SearchLeg(CancellationScope scope, Callable<List<SearchResult>> body) {
+            super(() -> {
+                try (CancellationScope.Handle binding = scope.bind()) {
+                    return body.call();
+                }
+            });
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                scope.cancel();
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * レッグの実行結果。
+     *
+     * @param results 検索結果（失敗時は空）
+     * @param failure 失敗原因（成功時はnull）
+     */
+    private record LegOutcome(List<SearchResult> results, Throwable failure) {
+    }
 }
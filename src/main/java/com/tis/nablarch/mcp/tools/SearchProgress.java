@@ -0,0 +1,62 @@
+package com.tis.nablarch.mcp.tools;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+
+/**
+ * 検索の途中経過をMCPクライアントへ通知する。
+ *
+ * <p>ツール呼び出し中にMCPのログ通知（{@code notifications/message}）を送信する。
+ * HTTPトランスポートではSSEストリームで即時に配信されるため、クライアントは
+ * リランキングの完了を待たずにハイブリッド検索の暫定結果を参照できる。</p>
+ *
+ * <p>通知のloggerは {@code semantic_search/<stage>}、レベルはinfoとする。
+ * 通知が不要なクライアントは {@code logging/setLevel} でwarning以上を指定すれば受信しない。
+ * MCPセッションを伴わない呼び出し（ユニットテスト等）では何もしない。</p>
+ */
+@FunctionalInterface
+interface SearchProgress {
+
+    /**
+     * 通知しない実装。
+     */
+    SearchProgress NONE = (stage, message) -> { };
+
+    /**
+     * 途中経過を通知する。
+     *
+     * @param stage 段階（hybrid / reranked）
+     * @param message 通知本文
+     */
+    void publish(String stage, String message);
+
+    /**
+     * ツールコンテキストのMCPセッションへ通知するインスタンスを返す。
+     *
+     * @param toolContext ツールコンテキスト（null可）
+     * @return 通知処理（MCPセッションがない場合は {@link #NONE}）
+     */
+    static SearchProgress of(ToolContext toolContext) {
+        if (toolContext == null) {
+            return NONE;
+        }
+        return McpToolUtils.getMcpExchange(toolContext)
+                .<SearchProgress>map(exchange -> (stage, message) -> send(exchange, stage, message))
+                .orElse(NONE);
+    }
+
+    private static void send(McpSyncServerExchange exchange, String stage, String message) {
+        try {
+            exchange.loggingNotification(new McpSchema.LoggingMessageNotification(
+                    McpSchema.LoggingLevel.INFO, "semantic_search/" + stage, message));
+        } catch (RuntimeException e) {
+            // 途中経過の通知失敗で検索を失敗させない
+            Logger log = LoggerFactory.getLogger(SearchProgress.class);
+            log.debug("検索の途中経過の通知に失敗: stage={}, error={}", stage, e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.tis.nablarch.mcp.tools;
 
+import com.tis.nablarch.mcp.rag.rerank.RerankCascade;
 import com.tis.nablarch.mcp.rag.rerank.Reranker;
 import com.tis.nablarch.mcp.rag.search.HybridSearchService;
 import com.tis.nablarch.mcp.rag.search.SearchFilters;
 import com.tis.nablarch.mcp.rag.search.SearchMode;
 import com.tis.nablarch.mcp.rag.search.SearchResult;
+import com.tis.nablarch.mcp.rag.search.SearchResultCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.tis.nablarch.mcp.rag.query.QueryAnalyzer;
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +18,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MCPツール: semantic_search。
@@ -28,8 +32,17 @@ import java.util.Map;
  * <p>パイプライン:
  * クエリ → [QueryAnalyzer(optional)] → HybridSearch → Rerank → 結果整形</p>
  *
+ * <p>リランキングはカスケード（{@link RerankCascade}）で行い、
+ * ハイブリッド検索のスコアで絞り込んだ候補のみをCross-Encoderに渡す。
+ * 最終結果は {@link SearchResultCache} に保持し、同じ検索の繰り返しでは検索を実行しない。</p>
+ *
+ * <p>MCPセッション経由の呼び出しでは、ハイブリッド検索の暫定順位とリランキング後の順位を
+ * 途中経過として通知する（{@link SearchProgress}）。ツールの戻り値は従来どおり最終結果のみとする。</p>
+ *
  * @see HybridSearchService
  * @see Reranker
+ * @see RerankCascade
+ * @see SearchResultCache
  */
 @Service
 public class SemanticSearchTool {
@@ -42,12 +55,18 @@ public class SemanticSearchTool {
     static final int DEFAULT_TOP_K = 5;
 
     /**
-     * ハイブリッド検索からリランキングに渡す候補数。
+     * ハイブリッド検索から取得する候補数（リランキングに渡す件数はカスケードで絞り込む）。
      */
     static final int CANDIDATE_K = 50;
 
+    /**
+     * 途中経過の通知に含める本文の最大文字数。
+     */
+    static final int PREVIEW_LENGTH = 200;
+
     private final HybridSearchService hybridSearchService;
-    private final Reranker reranker;
+    private final RerankCascade rerankCascade;
+    private final SearchResultCache resultCache;
 
     /**
      * QueryAnalyzer（足軽8号が並行実装中。未注入時はnull）。
@@ -67,8 +86,36 @@ public class SemanticSearchTool {
     public SemanticSearchTool(
             HybridSearchService hybridSearchService,
             Reranker reranker) {
+        this(hybridSearchService, RerankCascade.disabled(reranker));
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param hybridSearchService ハイブリッド検索サービス
+     * @param rerankCascade カスケードリランキング
+     */
+    public SemanticSearchTool(
+            HybridSearchService hybridSearchService,
+            RerankCascade rerankCascade) {
+        this(hybridSearchService, rerankCascade, SearchResultCache.disabled());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param hybridSearchService ハイブリッド検索サービス
+     * @param rerankCascade カスケードリランキング
+     * @param resultCache 検索結果キャッシュ
+     */
+    @Autowired
+    public SemanticSearchTool(
+            HybridSearchService hybridSearchService,
+            RerankCascade rerankCascade,
+            SearchResultCache resultCache) {
         this.hybridSearchService = hybridSearchService;
-        this.reranker = reranker;
+        this.rerankCascade = rerankCascade;
+        this.resultCache = resultCache;
     }
 
     /**
@@ -81,6 +128,7 @@ public class SemanticSearchTool {
      * @param sourceType コンテンツ種別フィルタ（documentation, code, javadoc, config, standard）
      * @param topK 返却する結果数（1-50、デフォルト5）
      * @param mode 検索モード（hybrid, vector, keyword、デフォルトhybrid）
+     * @param toolContext ツールコンテキスト（MCPセッションへの途中経過の通知に使用）
      * @return 検索結果のMarkdownフォーマット文字列
      */
     @Tool(name = "semantic_search", description = "Semantic search over the Nablarch knowledge base. "
@@ -108,7 +156,44 @@ public class SemanticSearchTool {
             Integer topK,
             @ToolParam(description = "Search mode: hybrid (default), vector, keyword",
                     required = false)
-            String mode) {
+            String mode,
+            ToolContext toolContext) {
+        return search(query, appType, module, source, sourceType, topK, mode,
+                SearchProgress.of(toolContext));
+    }
+
+    /**
+     * Nablarch知識ベースに対するセマンティック検索を実行する（途中経過を通知しない）。
+     *
+     * @param query 検索クエリ
+     * @param appType アプリケーション種別フィルタ
+     * @param module モジュール名フィルタ
+     * @param source データソースフィルタ
+     * @param sourceType コンテンツ種別フィルタ
+     * @param topK 返却する結果数（1-50、デフォルト5）
+     * @param mode 検索モード（hybrid, vector, keyword、デフォルトhybrid）
+     * @return 検索結果のMarkdownフォーマット文字列
+     */
+    public String semanticSearch(String query, String appType, String module, String source,
+            String sourceType, Integer topK, String mode) {
+        return search(query, appType, module, source, sourceType, topK, mode, SearchProgress.NONE);
+    }
+
+    /**
+     * 入力を検証して検索を実行する。
+     *
+     * @param query 検索クエリ
+     * @param appType アプリケーション種別フィルタ
+     * @param module モジュール名フィルタ
+     * @param source データソースフィルタ
+     * @param sourceType コンテンツ種別フィルタ
+     * @param topK 返却する結果数
+     * @param mode 検索モード
+     * @param progress 途中経過の通知先
+     * @return 検索結果のMarkdownフォーマット文字列
+     */
+    String search(String query, String appType, String module, String source,
+            String sourceType, Integer topK, String mode, SearchProgress progress) {
 
         if (query == null || query.isBlank()) {
             return ErrorResponseBuilder.of(ErrorCode.MCP_TOOL_002)
@@ -127,7 +212,7 @@ public class SemanticSearchTool {
         );
 
         try {
-            return doSearch(query, filters, effectiveTopK, effectiveMode);
+            return doSearch(query, filters, effectiveTopK, effectiveMode, progress);
         } catch (Exception e) {
             log.error("semantic_search実行中にエラーが発生: {}", e.getMessage(), e);
             throw ErrorResponseBuilder.of(ErrorCode.MCP_TOOL_004)
@@ -144,31 +229,87 @@ public class SemanticSearchTool {
      * @param filters フィルタ
      * @param topK 返却件数
      * @param mode 検索モード
+     * @param progress 途中経過の通知先
      * @return Markdown形式の検索結果
      */
     private String doSearch(
-            String query, SearchFilters filters, int topK, SearchMode mode) {
+            String query, SearchFilters filters, int topK, SearchMode mode, SearchProgress progress) {
 
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         // QueryAnalyzerが注入されている場合はクエリ拡張を行う（将来対応）
         String effectiveQuery = query;
         // TODO: QueryAnalyzer統合（足軽8号のWBS 2.2.14完了後）
 
+        List<SearchResult> results = resultCache.get(effectiveQuery, filters, mode, topK,
+                () -> searchAndRerank(effectiveQuery, filters, topK, mode, startNanos, progress));
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        return formatResults(query, mode, results, elapsed);
+    }
+
+    /**
+     * ハイブリッド検索とリランキングを実行する。
+     *
+     * @param query クエリ
+     * @param filters フィルタ
+     * @param topK 返却件数
+     * @param mode 検索モード
+     * @param startNanos 検索リクエストの開始時刻（{@link System#nanoTime()}）
+     * @param progress 途中経過の通知先
+     * @return リランキング済みの検索結果
+     */
+    private List<SearchResult> searchAndRerank(String query, SearchFilters filters, int topK,
+            SearchMode mode, long startNanos, SearchProgress progress) {
         // ハイブリッド検索で候補取得（リランキング用にCANDIDATE_K件取得）
         List<SearchResult> candidates = hybridSearchService.search(
-                effectiveQuery, filters, CANDIDATE_K, mode);
-
-        // リランキング
-        List<SearchResult> results;
+                query, filters, CANDIDATE_K, mode);
         if (candidates.isEmpty()) {
-            results = candidates;
-        } else {
-            results = reranker.rerank(effectiveQuery, candidates, topK);
+            return candidates;
         }
+        // リランキングを待たずにハイブリッド検索の暫定順位を通知する
+        progress.publish("hybrid", formatProgress("hybrid",
+                candidates.subList(0, Math.min(topK, candidates.size())), elapsedMillis(startNanos)));
 
-        long elapsed = System.currentTimeMillis() - startTime;
-        return formatResults(query, mode, results, elapsed);
+        // リランキング（1段目のスコアとバジェットで候補を絞り込む）
+        List<SearchResult> reranked = rerankCascade.rerank(query, candidates, topK, startNanos);
+        progress.publish("reranked", formatProgress("reranked", reranked, elapsedMillis(startNanos)));
+        return reranked;
+    }
+
+    /**
+     * 途中経過の通知本文を整形する。
+     *
+     * <p>本文全体は最終結果で返すため、各結果はスコア・ソース・URLと
+     * 本文の先頭（{@value #PREVIEW_LENGTH}文字）のみとする。</p>
+     *
+     * @param stage 段階（hybrid / reranked）
+     * @param results 検索結果
+     * @param elapsedMs 検索開始からの経過時間（ミリ秒）
+     * @return 通知本文
+     */
+    String formatProgress(String stage, List<SearchResult> results, long elapsedMs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[").append(stage).append("] ").append(results.size()).append("件 (")
+                .append(elapsedMs).append("ms)");
+        if ("hybrid".equals(stage)) {
+            sb.append(" ※リランキング前の暫定順位");
+        }
+        sb.append("\n");
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult r = results.get(i);
+            sb.append(i + 1).append(". (").append(String.format("%.3f", r.score())).append(")");
+            Map<String, String> meta = r.metadata();
+            if (meta != null && meta.get("source") != null) {
+                sb.append(" ").append(meta.get("source"));
+            }
+            if (r.sourceUrl() != null && !r.sourceUrl().isBlank()) {
+                sb.append(" | ").append(r.sourceUrl());
+            }
+            sb.append("\n   ").append(preview(r.content())).append("\n");
+        }
+        return sb.toString();
     }
 
     /**
@@ -245,6 +386,18 @@ public class SemanticSearchTool {
         };
     }
 
+    private static String preview(String content) {
+        if (content == null) {
+            return "";
+        }
+        String text = content.strip().replaceAll("\\s+", " ");
+        return (text.length() <= PREVIEW_LENGTH) ? text : text.substring(0, PREVIEW_LENGTH) + "…";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
     private String nullIfBlank(String s) {
         return (s != null && !s.isBlank()) ? s : null;
     }
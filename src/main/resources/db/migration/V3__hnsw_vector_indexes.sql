@@ -0,0 +1,31 @@
+-- V3: ベクトルインデックスをIVFFlatからHNSWへ置き換え
+-- IVFFlatはデータ投入前（V1時点）に作成したためリストの重心が学習されておらず、
+-- probesを上げても再現率が頭打ちになる。HNSWはデータ量に依存せず高い再現率を得られる。
+-- 検索時の探索幅（hnsw.ef_search）はVectorSearchServiceがクエリごとにSET LOCALで設定する。
+--
+-- HNSWの構築は件数に比例して時間がかかるため、構築用メモリを一時的に拡張する。
+-- IVFFlatを使い続ける場合は nablarch.mcp.search.vector.pgvector.index-type=ivfflat を設定する。
+-- 設定値はFlywayのプレースホルダ vector_index_type として渡され（application.yaml）、
+-- hnsw以外の場合はインデックスを置き換えずにこのマイグレーションを適用済みとする
+-- （V4以降のマイグレーションは通常どおり適用される）。
+-- 適用後にHNSWへ切り替える場合は、下記のDROP INDEX / CREATE INDEXを手動で実行する。
+
+SET maintenance_work_mem = '512MB';
+
+DO $$
+BEGIN
+    IF lower('${vector_index_type}') = 'hnsw' THEN
+        DROP INDEX IF EXISTS idx_doc_chunks_embedding;
+        DROP INDEX IF EXISTS idx_code_chunks_embedding;
+
+        -- HNSWインデックス（コサイン類似度）
+        CREATE INDEX idx_doc_chunks_embedding ON document_chunks
+            USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64);
+
+        CREATE INDEX idx_code_chunks_embedding ON code_chunks
+            USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64);
+    END IF;
+END
+$$;
+
+RESET maintenance_work_mem;
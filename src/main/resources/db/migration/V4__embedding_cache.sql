@@ -0,0 +1,14 @@
+-- V4: チャンク本文ハッシュによるEmbeddingキャッシュ
+-- 取り込み時、(モデル名, チャンク本文のSHA-256) が一致するベクトルが既にあれば再Embeddingせずに再利用する。
+-- 公式Docsは更新日時を取得できず毎回全ページを取り込み直すため、変更のないチャンクの推論を省く。
+--
+-- document_chunks / code_chunks の行は取り込みのたびに作り直されるため、ベクトルは別テーブルで保持する。
+-- モデルを変更した場合はモデル名が変わるため、古いベクトルは参照されない。
+
+CREATE TABLE embedding_cache (
+    model        VARCHAR(200) NOT NULL,
+    content_hash CHAR(64)     NOT NULL,
+    embedding    vector(1024) NOT NULL,
+    created_at   TIMESTAMP    DEFAULT NOW(),
+    PRIMARY KEY (model, content_hash)
+);
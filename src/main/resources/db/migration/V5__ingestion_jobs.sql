@@ -0,0 +1,31 @@
+-- V5: 取り込みジョブのチェックポイント
+-- 取り込みの実行（ジョブ）ごとに、ページ（URL）単位の処理状態と格納したバッチを記録する。
+-- 取り込みが途中で停止した場合、次回の実行は未完了のジョブを再開し、格納済みのページを処理しない。
+--
+-- status（ジョブ）: RUNNING（実行中・中断） / COMPLETED（完了） / PARTIAL（失敗したページを残して終了、再開対象）
+--                  / FAILED（例外で終了、再開対象）
+-- status（URL）: DONE（チャンク格納済み・チャンクなし・未変更） / FAILED（取得・パース・格納の失敗、再開時に再処理）
+
+CREATE TABLE ingestion_jobs (
+    id              BIGSERIAL       PRIMARY KEY,
+    source          VARCHAR(50)     NOT NULL,
+    mode            VARCHAR(20)     NOT NULL,
+    status          VARCHAR(20)     NOT NULL,
+    total_urls      INT             NOT NULL DEFAULT 0,
+    started_at      TIMESTAMP       DEFAULT NOW(),
+    updated_at      TIMESTAMP       DEFAULT NOW(),
+    finished_at     TIMESTAMP
+);
+
+CREATE INDEX idx_ingestion_jobs_source ON ingestion_jobs (source, mode, id DESC);
+
+CREATE TABLE ingestion_job_urls (
+    job_id          BIGINT          NOT NULL REFERENCES ingestion_jobs (id) ON DELETE CASCADE,
+    url             TEXT            NOT NULL,
+    status          VARCHAR(20)     NOT NULL,
+    chunk_count     INT             NOT NULL DEFAULT 0,
+    batch_no        INT,
+    error           TEXT,
+    updated_at      TIMESTAMP       DEFAULT NOW(),
+    PRIMARY KEY (job_id, url)
+);
@@ -0,0 +1,23 @@
+-- V6: 検索結果キャッシュとコーパス世代
+-- semantic_searchの結果を (正規化済みクエリ, フィルタ, 検索モード, topK) 単位でキャッシュする。
+-- プロセス内キャッシュ（L1）に加え、複数インスタンスで共有する場合はsearch_result_cache（L2）を使用する。
+--
+-- corpus_generation はチャンクを格納するたびに加算する単一行のカウンタ。
+-- キャッシュエントリは格納時の世代を保持し、世代が一致しないエントリは参照しない（取込による無効化）。
+
+CREATE TABLE corpus_generation (
+    id              SMALLINT        PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    generation      BIGINT          NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP       DEFAULT NOW()
+);
+
+INSERT INTO corpus_generation (id, generation) VALUES (1, 0);
+
+CREATE TABLE search_result_cache (
+    cache_key       CHAR(64)        PRIMARY KEY,
+    generation      BIGINT          NOT NULL,
+    results         JSONB           NOT NULL,
+    created_at      TIMESTAMP       DEFAULT NOW()
+);
+
+CREATE INDEX idx_search_result_cache_generation ON search_result_cache (generation);
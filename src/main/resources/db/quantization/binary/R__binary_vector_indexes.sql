@@ -0,0 +1,18 @@
+-- 量子化検索（binary）用の式インデックス（pgvector 0.7.0以降）
+-- nablarch.mcp.search.vector.pgvector.quantization=binary の場合のみ、
+-- spring.flyway.locations に classpath:db/quantization/binary を追加して適用する。
+--
+-- 全精度のembedding列はそのまま保持し、各次元の符号1bitに変換した式に対してHNSWインデックスを作成する
+-- （ハミング距離。インデックスサイズ1/32、全精度ベクトルでの再スコアリングが前提）。
+-- 式はPgVectorSearcherの検索SQLと完全に一致させること（一致しない場合インデックスが使われない）。
+-- 量子化検索をやめる場合は DROP INDEX でインデックスを削除すること（書き込みのたびに更新コストがかかる）。
+
+SET maintenance_work_mem = '512MB';
+
+CREATE INDEX IF NOT EXISTS idx_doc_chunks_embedding_binary ON document_chunks
+    USING hnsw ((binary_quantize(embedding)::bit(1024)) bit_hamming_ops) WITH (m = 16, ef_construction = 64);
+
+CREATE INDEX IF NOT EXISTS idx_code_chunks_embedding_binary ON code_chunks
+    USING hnsw ((binary_quantize(embedding)::bit(1024)) bit_hamming_ops) WITH (m = 16, ef_construction = 64);
+
+RESET maintenance_work_mem;
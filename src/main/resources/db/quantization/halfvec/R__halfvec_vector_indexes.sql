@@ -0,0 +1,18 @@
+-- 量子化検索（halfvec）用の式インデックス（pgvector 0.7.0以降）
+-- nablarch.mcp.search.vector.pgvector.quantization=halfvec の場合のみ、
+-- spring.flyway.locations に classpath:db/quantization/halfvec を追加して適用する。
+--
+-- 全精度のembedding列はそのまま保持し、float16に変換した式に対してHNSWインデックスを作成する
+-- （インデックスサイズ1/2、再現率の低下はごく僅か）。
+-- 式はPgVectorSearcherの検索SQLと完全に一致させること（一致しない場合インデックスが使われない）。
+-- 量子化検索をやめる場合は DROP INDEX でインデックスを削除すること（書き込みのたびに更新コストがかかる）。
+
+SET maintenance_work_mem = '512MB';
+
+CREATE INDEX IF NOT EXISTS idx_doc_chunks_embedding_halfvec ON document_chunks
+    USING hnsw ((embedding::halfvec(1024)) halfvec_cosine_ops) WITH (m = 16, ef_construction = 64);
+
+CREATE INDEX IF NOT EXISTS idx_code_chunks_embedding_halfvec ON code_chunks
+    USING hnsw ((embedding::halfvec(1024)) halfvec_cosine_ops) WITH (m = 16, ef_construction = 64);
+
+RESET maintenance_work_mem;
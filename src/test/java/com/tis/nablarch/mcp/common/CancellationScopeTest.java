@@ -0,0 +1,122 @@
+package com.tis.nablarch.mcp.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link CancellationScope} のユニットテスト。
+ */
+class CancellationScopeTest {
+
+    @Nested
+    @DisplayName("中断処理の登録と実行")
+    class HookTests {
+
+        @Test
+        @DisplayName("キャンセル時に登録済みの中断処理が1回だけ実行される")
+        void cancelRunsHooksOnce() {
+            CancellationScope scope = CancellationScope.create();
+            AtomicInteger calls = new AtomicInteger();
+            scope.register(calls::incrementAndGet);
+
+            scope.cancel();
+            scope.cancel();
+
+            assertEquals(1, calls.get());
+            assertTrue(scope.isCancelled());
+        }
+
+        @Test
+        @DisplayName("登録解除後の中断処理は実行されない")
+        void closedRegistrationIsNotRun() {
+            CancellationScope scope = CancellationScope.create();
+            AtomicInteger calls = new AtomicInteger();
+            scope.register(calls::incrementAndGet).close();
+
+            scope.cancel();
+
+            assertEquals(0, calls.get());
+        }
+
+        @Test
+        @DisplayName("キャンセル済みスコープへの登録は即座に実行される")
+        void registerAfterCancelRunsImmediately() {
+            CancellationScope scope = CancellationScope.create();
+            scope.cancel();
+            AtomicInteger calls = new AtomicInteger();
+
+            scope.register(calls::incrementAndGet);
+
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        @DisplayName("中断処理の例外は握りつぶされ、後続の中断処理も実行される")
+        void failingHookDoesNotStopOthers() {
+            CancellationScope scope = CancellationScope.create();
+            AtomicInteger calls = new AtomicInteger();
+            scope.register(() -> {
+                throw new IllegalStateException("失敗");
+            });
+            scope.register(calls::incrementAndGet);
+
+            assertDoesNotThrow(scope::cancel);
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("スレッドへのバインド")
+    class BindingTests {
+
+        @Test
+        @DisplayName("バインド中のみonCancelがスコープに登録される")
+        void onCancelUsesBoundScope() {
+            CancellationScope scope = CancellationScope.create();
+            AtomicInteger calls = new AtomicInteger();
+
+            try (CancellationScope.Handle binding = scope.bind()) {
+                CancellationScope.onCancel(calls::incrementAndGet);
+            }
+            CancellationScope.onCancel(calls::incrementAndGet);
+            scope.cancel();
+
+            assertEquals(1, calls.get());
+            assertFalse(CancellationScope.isCurrentCancelled());
+        }
+
+        @Test
+        @DisplayName("バインド中に生成したスコープは子となり、親のキャンセルが伝播する")
+        void childScopeIsCancelledWithParent() {
+            CancellationScope parent = CancellationScope.create();
+            CancellationScope child;
+            try (CancellationScope.Handle binding = parent.bind()) {
+                child = CancellationScope.create();
+            }
+
+            parent.cancel();
+
+            assertTrue(child.isCancelled());
+        }
+
+        @Test
+        @DisplayName("バインド解除で以前のスコープに戻る")
+        void unbindRestoresPreviousScope() {
+            CancellationScope outer = CancellationScope.create();
+            CancellationScope inner = CancellationScope.create();
+
+            try (CancellationScope.Handle outerBinding = outer.bind()) {
+                try (CancellationScope.Handle innerBinding = inner.bind()) {
+                    inner.cancel();
+                    assertTrue(CancellationScope.isCurrentCancelled());
+                }
+                assertFalse(CancellationScope.isCurrentCancelled());
+            }
+        }
+    }
+}
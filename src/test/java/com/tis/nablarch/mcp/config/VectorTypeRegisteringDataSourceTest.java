@@ -0,0 +1,81 @@
+package com.tis.nablarch.mcp.config;
+
+import com.pgvector.PGvector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link VectorTypeRegisteringDataSource} のユニットテスト。
+ */
+class VectorTypeRegisteringDataSourceTest {
+
+    private DataSource target;
+    private Connection connection;
+    private PGConnection pgConnection;
+    private VectorTypeRegisteringDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        connection = mock(Connection.class);
+        pgConnection = mock(PGConnection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        dataSource = new VectorTypeRegisteringDataSource(target);
+    }
+
+    @Test
+    @DisplayName("物理接続ごとに1回だけvector型を登録する")
+    void registersOncePerPhysicalConnection() throws SQLException {
+        assertSame(connection, dataSource.getConnection());
+        assertSame(connection, dataSource.getConnection());
+
+        verify(pgConnection, times(1)).addDataType("vector", PGvector.class);
+    }
+
+    @Test
+    @DisplayName("別の物理接続にはそれぞれ登録する")
+    void registersEachPhysicalConnection() throws SQLException {
+        Connection other = mock(Connection.class);
+        PGConnection otherPg = mock(PGConnection.class);
+        when(other.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(other.unwrap(PGConnection.class)).thenReturn(otherPg);
+        when(target.getConnection()).thenReturn(connection, other);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        verify(pgConnection).addDataType("vector", PGvector.class);
+        verify(otherPg).addDataType("vector", PGvector.class);
+    }
+
+    @Test
+    @DisplayName("PostgreSQL以外の接続では何もしない")
+    void ignoresOtherDatabases() throws SQLException {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        assertSame(connection, dataSource.getConnection());
+
+        verify(connection, never()).unwrap(any());
+    }
+
+    @Test
+    @DisplayName("登録に失敗しても接続を返す")
+    void returnsConnectionWhenRegistrationFails() throws SQLException {
+        doThrow(new SQLException("type cache error")).when(pgConnection).addDataType(anyString(), any());
+
+        assertSame(connection, dataSource.getConnection());
+        verify(connection, never()).close();
+    }
+}
@@ -0,0 +1,130 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link PgBinaryCopyEncoder} のユニットテスト。
+ */
+class PgBinaryCopyEncoderTest {
+
+    private ByteArrayOutputStream bytes;
+    private PgBinaryCopyEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        bytes = new ByteArrayOutputStream();
+        encoder = new PgBinaryCopyEncoder(bytes);
+    }
+
+    private DataInputStream written() {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Nested
+    @DisplayName("header / finish")
+    class HeaderTests {
+
+        @Test
+        @DisplayName("署名・フラグ・拡張領域長とトレーラーを書き込む")
+        void writesSignatureAndTrailer() throws IOException {
+            encoder.header();
+            encoder.finish();
+
+            DataInputStream in = written();
+            byte[] signature = new byte[11];
+            in.readFully(signature);
+            assertArrayEquals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0}, signature);
+            assertEquals(0, in.readInt());
+            assertEquals(0, in.readInt());
+            assertEquals(-1, in.readShort());
+            assertEquals(0, in.available());
+        }
+
+        @Test
+        @DisplayName("finishまではバッファに保持し、出力先に書き込まない")
+        void buffersUntilFinish() throws IOException {
+            encoder.header();
+            encoder.row(1);
+            encoder.text("本文");
+
+            assertEquals(0, bytes.size());
+
+            encoder.finish();
+            assertTrue(bytes.size() > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("row / text")
+    class TextTests {
+
+        @Test
+        @DisplayName("フィールド数と、UTF-8のバイト長・バイト列を書き込む")
+        void writesUtf8Text() throws IOException {
+            encoder.row(2);
+            encoder.text("ハンドラ");
+            encoder.text("");
+            encoder.finish();
+
+            DataInputStream in = written();
+            assertEquals(2, in.readShort());
+            byte[] expected = "ハンドラ".getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, in.readInt());
+            byte[] actual = new byte[expected.length];
+            in.readFully(actual);
+            assertArrayEquals(expected, actual);
+            assertEquals(0, in.readInt());
+        }
+
+        @Test
+        @DisplayName("nullは長さ-1として書き込む")
+        void writesNull() throws IOException {
+            encoder.text(null);
+            encoder.finish();
+
+            DataInputStream in = written();
+            assertEquals(-1, in.readInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("vector")
+    class VectorTests {
+
+        @Test
+        @DisplayName("pgvectorのバイナリ形式（次元数・予約・float4列）で書き込む")
+        void writesPgvectorBinary() throws IOException {
+            encoder.vector(new float[]{0.5f, -1.25f, 3.0f});
+            encoder.finish();
+
+            DataInputStream in = written();
+            assertEquals(4 + 3 * 4, in.readInt());
+            assertEquals(3, in.readShort());
+            assertEquals(0, in.readShort());
+            assertEquals(0.5f, in.readFloat());
+            assertEquals(-1.25f, in.readFloat());
+            assertEquals(3.0f, in.readFloat());
+            assertEquals(-1, in.readShort());
+        }
+
+        @Test
+        @DisplayName("nullは長さ-1として書き込む")
+        void writesNull() throws IOException {
+            encoder.vector(null);
+            encoder.finish();
+
+            assertEquals(-1, written().readInt());
+        }
+    }
+}
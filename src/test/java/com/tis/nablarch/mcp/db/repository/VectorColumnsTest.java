@@ -0,0 +1,47 @@
+package com.tis.nablarch.mcp.db.repository;
+
+import com.pgvector.PGvector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link VectorColumns} のユニットテスト。
+ */
+class VectorColumnsTest {
+
+    @Test
+    @DisplayName("vector型が登録された接続ではPGvectorの値を返す")
+    void readsPgvector() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("embedding")).thenReturn(new PGvector(new float[]{0.5f, -1.0f}));
+
+        assertArrayEquals(new float[]{0.5f, -1.0f}, VectorColumns.read(rs, "embedding"));
+    }
+
+    @Test
+    @DisplayName("vector型が登録されていない接続では文字列表現から変換する")
+    void readsUnregisteredPgobject() throws SQLException {
+        PGobject object = new PGobject();
+        object.setType("vector");
+        object.setValue("[0.5,-1]");
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("embedding")).thenReturn(object);
+
+        assertArrayEquals(new float[]{0.5f, -1.0f}, VectorColumns.read(rs, "embedding"));
+    }
+
+    @Test
+    @DisplayName("NULLの場合はnullを返す")
+    void readsNull() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+
+        assertNull(VectorColumns.read(rs, "embedding"));
+    }
+}
@@ -0,0 +1,199 @@
+package com.tis.nablarch.mcp.embedding;
+
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.QueryCacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link CachingEmbeddingClient} のユニットテスト。
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingEmbeddingClientTest {
+
+    @Mock
+    private EmbeddingClient delegate;
+
+    private MeterRegistry registry;
+    private MutableClock clock;
+    private QueryCacheConfig config;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        config = new QueryCacheConfig();
+        config.setMaxSize(2);
+        config.setTtl(Duration.ofMinutes(10));
+        lenient().when(delegate.getModelName()).thenReturn("test-model");
+    }
+
+    private CachingEmbeddingClient newClient() {
+        return new CachingEmbeddingClient(delegate, config, registry, clock);
+    }
+
+    private double requests(String result) {
+        return registry.counter("embedding.query.cache.requests",
+                "model", "test-model", "result", result).count();
+    }
+
+    private double evictions(String cause) {
+        return registry.counter("embedding.query.cache.evictions",
+                "model", "test-model", "cause", cause).count();
+    }
+
+    @Nested
+    @DisplayName("embed メソッド")
+    class EmbedTests {
+
+        @Test
+        @DisplayName("同一クエリの2回目はキャッシュから返却し、委譲先を呼ばない")
+        void secondCallIsCacheHit() {
+            when(delegate.embed("ハンドラキュー")).thenReturn(new float[]{0.1f, 0.2f});
+            CachingEmbeddingClient client = newClient();
+
+            float[] first = client.embed("ハンドラキュー");
+            float[] second = client.embed("ハンドラキュー");
+
+            assertArrayEquals(first, second);
+            verify(delegate, times(1)).embed(anyString());
+            assertEquals(1.0, requests("hit"));
+            assertEquals(1.0, requests("miss"));
+        }
+
+        @Test
+        @DisplayName("空白・全角の差異は正規化されて同一キーになる")
+        void normalizedQueriesShareEntry() {
+            when(delegate.embed(anyString())).thenReturn(new float[]{0.5f});
+            CachingEmbeddingClient client = newClient();
+
+            client.embed("ＵｎｉｖｅｒｓａｌＤａｏ  使い方");
+            client.embed("  UniversalDao 使い方 ");
+
+            verify(delegate, times(1)).embed(anyString());
+            assertEquals(1.0, requests("hit"));
+        }
+
+        @Test
+        @DisplayName("返却配列を変更してもキャッシュ内容は変わらない")
+        void cachedVectorIsDefensivelyCopied() {
+            when(delegate.embed("q")).thenReturn(new float[]{1.0f});
+            CachingEmbeddingClient client = newClient();
+
+            client.embed("q")[0] = 9.0f;
+
+            assertEquals(1.0f, client.embed("q")[0]);
+        }
+
+        @Test
+        @DisplayName("TTL経過後は再計算し、expired削除として記録する")
+        void expiredEntryIsRecomputed() {
+            when(delegate.embed("q")).thenReturn(new float[]{1.0f});
+            CachingEmbeddingClient client = newClient();
+
+            client.embed("q");
+            clock.advance(Duration.ofMinutes(11));
+            client.embed("q");
+
+            verify(delegate, times(2)).embed("q");
+            assertEquals(1.0, evictions("expired"));
+        }
+
+        @Test
+        @DisplayName("最大件数を超えると最も古く参照されたエントリを削除する")
+        void leastRecentlyUsedEntryIsEvicted() {
+            when(delegate.embed(anyString())).thenReturn(new float[]{1.0f});
+            CachingEmbeddingClient client = newClient();
+
+            client.embed("a");
+            client.embed("b");
+            client.embed("a"); // aを最近参照にする
+            client.embed("c"); // bが削除される
+
+            assertEquals(2, client.size());
+            assertEquals(1.0, evictions("size"));
+
+            client.embed("a");
+            verify(delegate, times(1)).embed("a");
+            client.embed("b");
+            verify(delegate, times(2)).embed("b");
+        }
+    }
+
+    @Nested
+    @DisplayName("embedBatch / wrap")
+    class DelegationTests {
+
+        @Test
+        @DisplayName("embedBatchはキャッシュを経由せず委譲する")
+        void embedBatchBypassesCache() {
+            List<float[]> vectors = List.of(new float[]{1.0f});
+            when(delegate.embedBatch(List.of("chunk"))).thenReturn(vectors);
+            CachingEmbeddingClient client = newClient();
+
+            assertSame(vectors, client.embedBatch(List.of("chunk")));
+            assertEquals(0, client.size());
+        }
+
+        @Test
+        @DisplayName("無効設定ではラップせず委譲先をそのまま返す")
+        void wrapReturnsDelegateWhenDisabled() {
+            config.setEnabled(false);
+
+            assertSame(delegate, CachingEmbeddingClient.wrap(delegate, config, registry));
+        }
+
+        @Test
+        @DisplayName("有効設定ではキャッシュ付きクライアントを返す")
+        void wrapReturnsCachingClientWhenEnabled() {
+            EmbeddingClient wrapped = CachingEmbeddingClient.wrap(delegate, config, registry);
+
+            assertInstanceOf(CachingEmbeddingClient.class, wrapped);
+            assertEquals("test-model", wrapped.getModelName());
+        }
+    }
+
+    /**
+     * テスト用の進められる時計。
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link BatchTokenizer} のユニットテスト。
+ */
+class BatchTokenizerTest {
+
+    private MeterRegistry registry;
+    private List<List<String>> calls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        calls = new ArrayList<>();
+    }
+
+    /**
+     * 各文字のコードポイントをトークンIDとする擬似トークナイザー。
+     */
+    private Function<List<String>, List<long[]>> charEncoder() {
+        return texts -> {
+            calls.add(List.copyOf(texts));
+            return texts.stream().map(t -> t.chars().asLongStream().toArray()).toList();
+        };
+    }
+
+    private double requests(String result) {
+        return registry.counter("embedding.tokenizer.cache.requests",
+                "model", "test-model", "result", result).count();
+    }
+
+    @Nested
+    @DisplayName("encode メソッド")
+    class EncodeTests {
+
+        @Test
+        @DisplayName("キャッシュにないテキストのみをまとめてトークナイズし、入力順に返す")
+        void encodesOnlyMissesInOneCall() {
+            BatchTokenizer tokenizer = new BatchTokenizer("test-model", charEncoder(), 100, registry);
+            tokenizer.encode(List.of("ab"));
+
+            long[][] ids = tokenizer.encode(List.of("c", "ab", "d"));
+
+            assertArrayEquals(new long[]{'c'}, ids[0]);
+            assertArrayEquals(new long[]{'a', 'b'}, ids[1]);
+            assertArrayEquals(new long[]{'d'}, ids[2]);
+            assertEquals(List.of(List.of("ab"), List.of("c", "d")), calls);
+            assertEquals(1.0, requests("hit"));
+            assertEquals(3.0, requests("miss"));
+        }
+
+        @Test
+        @DisplayName("同じバッチ内の重複テキストは1回だけトークナイズする")
+        void deduplicatesWithinBatch() {
+            BatchTokenizer tokenizer = new BatchTokenizer("test-model", charEncoder(), 100, registry);
+
+            long[][] ids = tokenizer.encode(List.of("x", "y", "x"));
+
+            assertEquals(List.of(List.of("x", "y")), calls);
+            assertArrayEquals(ids[0], ids[2]);
+        }
+
+        @Test
+        @DisplayName("サイズ上限を超えると最も古く参照されたエントリを削除する")
+        void evictsLeastRecentlyUsed() {
+            BatchTokenizer tokenizer = new BatchTokenizer("test-model", charEncoder(), 2, registry);
+            tokenizer.encode(List.of("a", "b"));
+            tokenizer.encode(List.of("a"));
+            tokenizer.encode(List.of("c"));
+            calls.clear();
+
+            tokenizer.encode(List.of("a", "b"));
+
+            assertEquals(2, tokenizer.cacheSize());
+            assertEquals(List.of(List.of("b")), calls);
+        }
+
+        @Test
+        @DisplayName("キャッシュサイズ0ではキャッシュしない")
+        void disabledCache() {
+            BatchTokenizer tokenizer = new BatchTokenizer("test-model", charEncoder(), 0, registry);
+            tokenizer.encode(List.of("a"));
+
+            tokenizer.encode(List.of("a", "a"));
+
+            assertEquals(List.of(List.of("a"), List.of("a", "a")), calls);
+            assertEquals(0, tokenizer.cacheSize());
+        }
+    }
+
+    @Nested
+    @DisplayName("trim メソッド")
+    class TrimTests {
+
+        @Test
+        @DisplayName("最大トークン長で切り詰め、末尾のパディングを除く")
+        void trimsToMaxTokensAndPadding() {
+            assertArrayEquals(new long[]{1, 2}, BatchTokenizer.trim(new long[]{1, 2, 3}, new long[]{1, 1, 1}, 2));
+            assertArrayEquals(new long[]{1, 2}, BatchTokenizer.trim(new long[]{1, 2, 0, 0}, new long[]{1, 1, 0, 0}, 8));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import com.tis.nablarch.mcp.common.CancellationScope;
+import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link EmbeddingMicroBatcher} のユニットテスト。
+ */
+class EmbeddingMicroBatcherTest {
+
+    private MeterRegistry registry;
+    private List<List<String>> batches;
+    private ExecutorService callers;
+    private EmbeddingMicroBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        batches = Collections.synchronizedList(new ArrayList<>());
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        callers.shutdownNow();
+    }
+
+    /**
+     * テキスト長を値とする1次元ベクトルを返すバッチ推論。
+     */
+    private Function<List<String>, List<float[]>> lengthModel() {
+        return texts -> {
+            batches.add(List.copyOf(texts));
+            return texts.stream().map(t -> new float[]{t.length()}).toList();
+        };
+    }
+
+    private List<Future<float[]>> submitAll(List<String> texts) {
+        List<Future<float[]>> futures = new ArrayList<>();
+        for (String text : texts) {
+            futures.add(callers.submit(() -> batcher.embed(text)));
+        }
+        return futures;
+    }
+
+    @Nested
+    @DisplayName("バッチのまとめ方")
+    class CoalescingTests {
+
+        @Test
+        @DisplayName("同時に到着した要求を1回のバッチ推論にまとめ、各呼び出し元に対応する結果を返す")
+        void coalescesConcurrentRequests() throws Exception {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 4, Duration.ofSeconds(10), registry);
+
+            List<Future<float[]>> futures = submitAll(List.of("a", "bb", "ccc", "dddd"));
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertArrayEquals(new float[]{i + 1}, futures.get(i).get());
+            }
+            assertEquals(1, batches.size());
+            assertEquals(4, batches.get(0).size());
+        }
+
+        @Test
+        @DisplayName("最大件数を超える要求は複数のバッチに分割する")
+        void splitsAtMaxBatchSize() throws Exception {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 2, Duration.ofMillis(50), registry);
+
+            List<Future<float[]>> futures = submitAll(List.of("a", "bb", "ccc", "dddd", "eeeee"));
+            for (Future<float[]> future : futures) {
+                future.get();
+            }
+
+            assertTrue(batches.size() >= 3, "batches=" + batches);
+            assertTrue(batches.stream().allMatch(b -> b.size() <= 2), "batches=" + batches);
+        }
+
+        @Test
+        @DisplayName("単独の要求は最大待ち時間の経過後にバッチサイズ1で推論する")
+        void dispatchesSingleRequestAfterMaxWait() {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 32, Duration.ofMillis(5), registry);
+
+            assertArrayEquals(new float[]{3f}, batcher.embed("abc"));
+            assertEquals(List.of(List.of("abc")), batches);
+        }
+
+        @Test
+        @DisplayName("バッチサイズと待ち時間をメトリクスに記録する")
+        void recordsMetrics() {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 32, Duration.ofMillis(1), registry);
+
+            batcher.embed("a");
+            batcher.embed("b");
+
+            assertEquals(2, registry.get("embedding.batch.size").tag("model", "test-model").summary().count());
+            assertEquals(2, registry.get("embedding.batch.wait").tag("model", "test-model").timer().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("エラー処理")
+    class ErrorTests {
+
+        @Test
+        @DisplayName("バッチ推論が失敗した場合は1件ずつ再実行し、原因の要求のみ失敗させる")
+        void isolatesFailingInput() throws Exception {
+            batcher = new EmbeddingMicroBatcher("test-model", texts -> {
+                batches.add(List.copyOf(texts));
+                if (texts.contains("bad")) {
+                    throw new EmbeddingException("推論失敗");
+                }
+                return texts.stream().map(t -> new float[]{t.length()}).toList();
+            }, 3, Duration.ofSeconds(10), registry);
+
+            List<Future<float[]>> futures = submitAll(List.of("ok", "bad", "okay"));
+
+            assertArrayEquals(new float[]{2f}, futures.get(0).get());
+            Exception e = assertThrows(Exception.class, () -> futures.get(1).get());
+            assertInstanceOf(EmbeddingException.class, e.getCause());
+            assertArrayEquals(new float[]{4f}, futures.get(2).get());
+        }
+
+        @Test
+        @DisplayName("停止後の要求は例外")
+        void rejectsAfterClose() {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 4, Duration.ofMillis(1), registry);
+            batcher.close();
+
+            assertThrows(EmbeddingException.class, () -> batcher.embed("a"));
+        }
+
+        @Test
+        @DisplayName("キャンセル済みスコープからの要求は推論せずに例外")
+        void rejectsCancelledScope() {
+            batcher = new EmbeddingMicroBatcher("test-model", lengthModel(), 4, Duration.ofMillis(1), registry);
+            CancellationScope scope = CancellationScope.create();
+            scope.cancel();
+
+            try (CancellationScope.Handle binding = scope.bind()) {
+                assertThrows(EmbeddingException.class, () -> batcher.embed("a"));
+            }
+            assertTrue(batches.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("実行中のバッチ推論のキャンセル")
+    class CancellationTests {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        /**
+         * バッチ推論用スコープのキャンセルまで（最大10秒）ブロックする推論。
+         * キャンセルされた場合は打ち切り、されなかった場合は結果を返す。
+         */
+        private Function<List<String>, List<float[]>> blockingModel(long blockMillis) {
+            return texts -> {
+                CountDownLatch stop = new CountDownLatch(1);
+                try (CancellationScope.Handle registration = CancellationScope.onCancel(stop::countDown)) {
+                    started.countDown();
+                    if (stop.await(blockMillis, TimeUnit.MILLISECONDS)) {
+                        terminated.set(true);
+                        throw new EmbeddingException("推論を打ち切り");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EmbeddingException("割り込み", e);
+                }
+                return texts.stream().map(t -> new float[]{t.length()}).toList();
+            };
+        }
+
+        private Future<float[]> submitInScope(CancellationScope scope, String text) {
+            return callers.submit(() -> {
+                try (CancellationScope.Handle binding = scope.bind()) {
+                    return batcher.embed(text);
+                }
+            });
+        }
+
+        @Test
+        @DisplayName("バッチ内の全要求がキャンセルされると実行中の推論を打ち切る")
+        void terminatesWhenAllWaitersCancelled() throws Exception {
+            batcher = new EmbeddingMicroBatcher("test-model", blockingModel(10_000), 4,
+                    Duration.ofMillis(1), registry);
+            CancellationScope scope = CancellationScope.create();
+
+            Future<float[]> future = submitInScope(scope, "abc");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            scope.cancel();
+
+            Exception e = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(EmbeddingException.class, e.getCause());
+            // 推論の打ち切りは待機の打ち切りとは非同期に行われる
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!terminated.get() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(terminated.get());
+        }
+
+        @Test
+        @DisplayName("キャンセルされていない要求が残っている間は推論を打ち切らない")
+        void keepsRunningWhileAnyWaiterRemains() throws Exception {
+            batcher = new EmbeddingMicroBatcher("test-model", blockingModel(300), 4,
+                    Duration.ofMillis(200), registry);
+            CancellationScope cancelled = CancellationScope.create();
+            CancellationScope active = CancellationScope.create();
+
+            Future<float[]> first = submitInScope(cancelled, "abc");
+            Future<float[]> second = submitInScope(active, "abcd");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            cancelled.cancel();
+
+            assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertArrayEquals(new float[]{4f}, second.get(5, TimeUnit.SECONDS));
+            assertFalse(terminated.get());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link EmbeddingPooling} のユニットテスト。
+ */
+class EmbeddingPoolingTest {
+
+    @Test
+    @DisplayName("実トークン位置のみを平均し、L2正規化する（パディング位置は無視）")
+    void meanPoolsRealTokensOnly() {
+        // [batch=2][sequence=3][hidden=2]。行0は2トークン + パディング1、行1は3トークン
+        FloatBuffer hidden = FloatBuffer.wrap(new float[]{
+            1f, 0f, 3f, 4f, 100f, 100f,
+            0f, 2f, 0f, 2f, 0f, 2f,
+        });
+
+        float[] row0 = EmbeddingPooling.meanPoolNormalized(hidden, 0, 3, 2, 2);
+        float[] row1 = EmbeddingPooling.meanPoolNormalized(hidden, 1, 3, 2, 3);
+
+        // 平均 (2, 2) → 正規化 (1/√2, 1/√2)
+        assertArrayEquals(new float[]{(float) Math.sqrt(0.5), (float) Math.sqrt(0.5)}, row0, 1e-6f);
+        assertArrayEquals(new float[]{0f, 1f}, row1, 1e-6f);
+    }
+
+    @Test
+    @DisplayName("sentence_embedding形式の行を正規化して返す")
+    void normalizesSentenceEmbeddingRow() {
+        FloatBuffer embeddings = FloatBuffer.wrap(new float[]{3f, 4f, 0f, 5f});
+
+        assertArrayEquals(new float[]{0.6f, 0.8f}, EmbeddingPooling.normalized(embeddings, 0, 2), 1e-6f);
+        assertArrayEquals(new float[]{0f, 1f}, EmbeddingPooling.normalized(embeddings, 1, 2), 1e-6f);
+    }
+
+    @Test
+    @DisplayName("ノルムが0のベクトルはそのまま返す")
+    void keepsZeroVector() {
+        assertArrayEquals(new float[]{0f, 0f}, EmbeddingPooling.normalizeInPlace(new float[]{0f, 0f}));
+    }
+}
@@ -0,0 +1,71 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.LongBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link InputBuffers} のユニットテスト。
+ */
+class InputBuffersTest {
+
+    private static long[] toArray(LongBuffer buffer) {
+        long[] values = new long[buffer.remaining()];
+        buffer.duplicate().get(values);
+        return values;
+    }
+
+    @Test
+    @DisplayName("指定した入力をシーケンス長までパディングし、アテンションマスクを設定する")
+    void fillsPaddedRows() {
+        long[][] tokenIds = {{5, 6, 7}, {8}, {9, 10}};
+        InputBuffers buffers = new InputBuffers(16);
+
+        buffers.fill(tokenIds, new int[]{1, 0}, 3);
+
+        assertTrue(buffers.inputIds().isDirect());
+        assertArrayEquals(new long[]{8, 0, 0, 5, 6, 7}, toArray(buffers.inputIds()));
+        assertArrayEquals(new long[]{1, 0, 0, 1, 1, 1}, toArray(buffers.attentionMask()));
+    }
+
+    @Test
+    @DisplayName("再利用時に前回の内容が残らない")
+    void overwritesPreviousContents() {
+        long[][] tokenIds = {{5, 6, 7}, {8}};
+        InputBuffers buffers = new InputBuffers(16);
+        buffers.fill(tokenIds, new int[]{0}, 3);
+
+        buffers.fill(tokenIds, new int[]{1}, 2);
+
+        assertArrayEquals(new long[]{8, 0}, toArray(buffers.inputIds()));
+        assertArrayEquals(new long[]{1, 0}, toArray(buffers.attentionMask()));
+    }
+
+    @Test
+    @DisplayName("容量を超えるバッチでは領域を拡張する")
+    void growsBeyondInitialCapacity() {
+        long[][] tokenIds = {{1, 2, 3, 4}, {5, 6, 7, 8}};
+        InputBuffers buffers = new InputBuffers(2);
+
+        buffers.fill(tokenIds, new int[]{0, 1}, 4);
+
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5, 6, 7, 8}, toArray(buffers.inputIds()));
+    }
+
+    @Test
+    @DisplayName("トークンタイプIDをシーケンス長まで0でパディングする")
+    void fillsTypeIds() {
+        long[][] tokenIds = {{5, 6, 7}, {8, 9}};
+        long[][] typeIds = {{0, 1, 1}, {0, 1}};
+        InputBuffers buffers = new InputBuffers(16);
+
+        buffers.fill(tokenIds, new int[]{1, 0}, 3);
+        buffers.fillTypeIds(typeIds, new int[]{1, 0}, 3);
+
+        assertTrue(buffers.typeIds().isDirect());
+        assertArrayEquals(new long[]{0, 1, 0, 0, 1, 1}, toArray(buffers.typeIds()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LengthBuckets} のユニットテスト。
+ */
+class LengthBucketsTest {
+
+    @Nested
+    @DisplayName("bucketOf")
+    class BucketOfTests {
+
+        @Test
+        @DisplayName("トークン長以上の最小の2の累乗を返す（下限32）")
+        void returnsNextPowerOfTwo() {
+            assertEquals(32, LengthBuckets.bucketOf(1, 512));
+            assertEquals(32, LengthBuckets.bucketOf(32, 512));
+            assertEquals(64, LengthBuckets.bucketOf(33, 512));
+            assertEquals(256, LengthBuckets.bucketOf(200, 512));
+            assertEquals(512, LengthBuckets.bucketOf(512, 512));
+        }
+
+        @Test
+        @DisplayName("最大トークン長が2の累乗でない場合は最大トークン長を上限とする")
+        void capsAtMaxTokens() {
+            assertEquals(300, LengthBuckets.bucketOf(290, 300));
+            assertEquals(256, LengthBuckets.bucketOf(250, 300));
+        }
+    }
+
+    @Nested
+    @DisplayName("plan")
+    class PlanTests {
+
+        @Test
+        @DisplayName("短いテキストと長いテキストを別のバッチに分け、シーケンス長をバッチ内の最長に揃える")
+        void separatesShortAndLongInputs() {
+            int[] lengths = {20, 400, 15, 380, 30};
+
+            List<LengthBuckets.Batch> batches = LengthBuckets.plan(lengths, 32, 512);
+
+            assertEquals(2, batches.size());
+            assertEquals(32, batches.get(0).bucket());
+            assertArrayEquals(new int[]{2, 0, 4}, batches.get(0).indices());
+            assertEquals(30, batches.get(0).sequenceLength());
+            assertEquals(512, batches.get(1).bucket());
+            assertArrayEquals(new int[]{3, 1}, batches.get(1).indices());
+            assertEquals(400, batches.get(1).sequenceLength());
+        }
+
+        @Test
+        @DisplayName("同じバケット内はバッチサイズごとに分割する")
+        void splitsBucketByBatchSize() {
+            int[] lengths = new int[10];
+            Arrays.fill(lengths, 10);
+
+            List<LengthBuckets.Batch> batches = LengthBuckets.plan(lengths, 4, 512);
+
+            assertEquals(List.of(4, 4, 2), batches.stream().map(b -> b.indices().length).toList());
+        }
+
+        @Test
+        @DisplayName("全ての入力をちょうど1回ずつ含む")
+        void coversEveryInputOnce() {
+            int[] lengths = IntStream.range(0, 100).map(i -> (i * 37) % 512 + 1).toArray();
+
+            int[] covered = LengthBuckets.plan(lengths, 8, 512).stream()
+                    .flatMapToInt(b -> Arrays.stream(b.indices()))
+                    .sorted()
+                    .toArray();
+
+            assertArrayEquals(IntStream.range(0, 100).toArray(), covered);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link OnnxCrossEncoder} のユニットテスト。
+ */
+class OnnxCrossEncoderTest {
+
+    @Nested
+    @DisplayName("toScores")
+    class ToScoresTests {
+
+        @Test
+        @DisplayName("出力が[batch, 1]の場合はシグモイドをスコアとする")
+        void appliesSigmoidToSingleLogit() {
+            FloatBuffer logits = FloatBuffer.wrap(new float[]{0f, 2f, -2f});
+
+            float[] scores = OnnxCrossEncoder.toScores(logits, new long[]{3, 1}, 3);
+
+            assertEquals(0.5f, scores[0], 1e-6f);
+            assertEquals(0.8808f, scores[1], 1e-4f);
+            assertEquals(0.1192f, scores[2], 1e-4f);
+        }
+
+        @Test
+        @DisplayName("出力が[batch]の場合もシグモイドをスコアとする")
+        void acceptsFlatOutput() {
+            float[] scores = OnnxCrossEncoder.toScores(FloatBuffer.wrap(new float[]{0f, 2f}), new long[]{2}, 2);
+
+            assertEquals(0.5f, scores[0], 1e-6f);
+            assertEquals(0.8808f, scores[1], 1e-4f);
+        }
+
+        @Test
+        @DisplayName("出力が[batch, 2]の場合は正例クラスの確率をスコアとする")
+        void usesPositiveClassProbability() {
+            FloatBuffer logits = FloatBuffer.wrap(new float[]{1f, 1f, 0f, 2f});
+
+            float[] scores = OnnxCrossEncoder.toScores(logits, new long[]{2, 2}, 2);
+
+            assertEquals(0.5f, scores[0], 1e-6f);
+            assertEquals(0.8808f, scores[1], 1e-4f);
+        }
+
+        @Test
+        @DisplayName("対応していない出力形状の場合は例外をスローする")
+        void rejectsUnsupportedShape() {
+            FloatBuffer logits = FloatBuffer.wrap(new float[6]);
+
+            assertThrows(EmbeddingException.class,
+                    () -> OnnxCrossEncoder.toScores(logits, new long[]{2, 3}, 2));
+        }
+    }
+}
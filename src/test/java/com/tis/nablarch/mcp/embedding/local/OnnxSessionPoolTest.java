@@ -0,0 +1,91 @@
+package com.tis.nablarch.mcp.embedding.local;
+
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.OnnxModelConfig;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties.SessionConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link OnnxSessionPool} のユニットテスト（設定の解決）。
+ */
+class OnnxSessionPoolTest {
+
+    @Nested
+    @DisplayName("演算内スレッド数")
+    class IntraOpThreadsTests {
+
+        @Test
+        @DisplayName("明示指定された値を使用する")
+        void usesExplicitValue() {
+            SessionConfig config = new SessionConfig();
+            config.setIntraOpThreads(3);
+            config.setPoolSize(2);
+            assertEquals(3, OnnxSessionPool.resolveIntraOpThreads(config, 16));
+        }
+
+        @Test
+        @DisplayName("未指定の場合はコア数をセッション数で等分する（最低1）")
+        void dividesProcessorsByPoolSize() {
+            SessionConfig config = new SessionConfig();
+            assertEquals(16, OnnxSessionPool.resolveIntraOpThreads(config, 16));
+            config.setPoolSize(4);
+            assertEquals(4, OnnxSessionPool.resolveIntraOpThreads(config, 16));
+            config.setPoolSize(32);
+            assertEquals(1, OnnxSessionPool.resolveIntraOpThreads(config, 16));
+        }
+    }
+
+    @Nested
+    @DisplayName("グラフ最適化レベル")
+    class OptimizationLevelTests {
+
+        @Test
+        @DisplayName("レベル名を大文字小文字を区別せず解決し、不明な値はallとする")
+        void resolvesLevelNames() {
+            assertEquals(OptLevel.NO_OPT, OnnxSessionPool.resolveOptimizationLevel("none"));
+            assertEquals(OptLevel.BASIC_OPT, OnnxSessionPool.resolveOptimizationLevel("basic"));
+            assertEquals(OptLevel.EXTENDED_OPT, OnnxSessionPool.resolveOptimizationLevel("EXTENDED"));
+            assertEquals(OptLevel.ALL_OPT, OnnxSessionPool.resolveOptimizationLevel("all"));
+            assertEquals(OptLevel.ALL_OPT, OnnxSessionPool.resolveOptimizationLevel("fastest"));
+            assertEquals(OptLevel.ALL_OPT, OnnxSessionPool.resolveOptimizationLevel(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("モデルファイル")
+    class ModelPathTests {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("量子化モデルが存在すればそのパスを使用する")
+        void prefersExistingQuantizedModel() throws IOException {
+            Path quantized = Files.createFile(tempDir.resolve("model_quantized.onnx"));
+            OnnxModelConfig config = new OnnxModelConfig();
+            config.setModelPath("/opt/models/bge-m3/model.onnx");
+            config.getSession().setQuantizedModelPath(quantized.toString());
+
+            assertEquals(quantized.toString(), OnnxSessionPool.resolveSourceModelPath(config));
+        }
+
+        @Test
+        @DisplayName("量子化モデルが存在しなければmodel-pathを使用する")
+        void fallsBackToModelPath() {
+            OnnxModelConfig config = new OnnxModelConfig();
+            config.setModelPath("/opt/models/bge-m3/model.onnx");
+            config.getSession().setQuantizedModelPath(tempDir.resolve("missing.onnx").toString());
+
+            assertEquals("/opt/models/bge-m3/model.onnx", OnnxSessionPool.resolveSourceModelPath(config));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.common.ContentHash;
+import com.tis.nablarch.mcp.db.repository.EmbeddingCacheRepository;
+import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link ContentHashEmbedder} のユニットテスト。
+ */
+class ContentHashEmbedderTest {
+
+    private static final String MODEL = "bge-m3";
+
+    private EmbeddingCacheRepository repository;
+    private EmbeddingClient embeddingClient;
+    private ContentHashEmbedder embedder;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EmbeddingCacheRepository.class);
+        embeddingClient = mock(EmbeddingClient.class);
+        when(embeddingClient.getModelName()).thenReturn(MODEL);
+        embedder = new ContentHashEmbedder(repository);
+    }
+
+    @Nested
+    @DisplayName("embedBatch")
+    class EmbedBatchTests {
+
+        @Test
+        @DisplayName("保存済みの本文はEmbeddingを生成せず保存済みのベクトルを返す")
+        void reusesStoredVectors() {
+            float[] stored = {0.1f, 0.2f};
+            when(repository.findByHashes(eq(MODEL), anyCollection()))
+                    .thenReturn(new HashMap<>(Map.of(ContentHash.sha256Hex("変更なし"), stored)));
+
+            List<float[]> result = embedder.embedBatch(embeddingClient, List.of("変更なし"));
+
+            assertEquals(1, result.size());
+            assertSame(stored, result.get(0));
+            verify(embeddingClient, never()).embedBatch(anyList());
+            verify(repository, never()).saveAll(anyString(), anyMap());
+        }
+
+        @Test
+        @DisplayName("保存されていない本文のみEmbeddingを生成し、入力順に返す")
+        void embedsOnlyMisses() {
+            float[] stored = {1f};
+            float[] created = {2f};
+            when(repository.findByHashes(eq(MODEL), anyCollection()))
+                    .thenReturn(new HashMap<>(Map.of(ContentHash.sha256Hex("既存"), stored)));
+            when(embeddingClient.embedBatch(List.of("新規"))).thenReturn(List.of(created));
+
+            List<float[]> result = embedder.embedBatch(embeddingClient, List.of("新規", "既存"));
+
+            assertSame(created, result.get(0));
+            assertSame(stored, result.get(1));
+        }
+
+        @Test
+        @DisplayName("生成したベクトルをモデル名と本文ハッシュで保存する")
+        void savesCreatedVectors() {
+            float[] created = {3f};
+            when(repository.findByHashes(eq(MODEL), anyCollection())).thenReturn(new HashMap<>());
+            when(embeddingClient.embedBatch(anyList())).thenReturn(List.of(created));
+
+            embedder.embedBatch(embeddingClient, List.of("新規"));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Map<String, float[]>> captor = ArgumentCaptor.forClass(Map.class);
+            verify(repository).saveAll(eq(MODEL), captor.capture());
+            assertEquals(Map.of(ContentHash.sha256Hex("新規"), created), captor.getValue());
+        }
+
+        @Test
+        @DisplayName("バッチ内で重複する本文は1回だけ生成する")
+        void deduplicatesWithinBatch() {
+            float[] created = {4f};
+            when(repository.findByHashes(eq(MODEL), anyCollection())).thenReturn(new HashMap<>());
+            when(embeddingClient.embedBatch(List.of("定型文"))).thenReturn(List.of(created));
+
+            List<float[]> result = embedder.embedBatch(embeddingClient, List.of("定型文", "定型文"));
+
+            assertSame(created, result.get(0));
+            assertSame(created, result.get(1));
+            verify(embeddingClient, times(1)).embedBatch(anyList());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.rag.chunking.ContentType;
+import com.tis.nablarch.mcp.rag.chunking.DocumentChunkDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link CrawlPipeline} のユニットテスト。
+ */
+class CrawlPipelineTest {
+
+    private static final HostRateLimiter NO_LIMIT = new HostRateLimiter(0);
+
+    private static List<String> urls(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "http://test/docs/p" + i + ".html").toList();
+    }
+
+    private static List<DocumentChunkDto> chunksOf(String url, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new DocumentChunkDto(url + "#" + i, Map.of("source_url", url), i, count,
+                        ContentType.HTML))
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("run")
+    class RunTests {
+
+        @Test
+        @DisplayName("全ページのチャンクをバッチサイズ単位で格納する")
+        void storesAllChunksInBatches() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 4, 2, 2, 5, NO_LIMIT);
+            List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+            List<DocumentChunkDto> stored = Collections.synchronizedList(new ArrayList<>());
+
+            IngestionResult result = pipeline.run(urls(10), url -> "<html>" + url + "</html>",
+                    (url, html) -> chunksOf(url, 3),
+                    chunks -> {
+                        batchSizes.add(chunks.size());
+                        stored.addAll(chunks);
+                    });
+
+            assertEquals(10, result.processedCount());
+            assertEquals(10, result.successCount());
+            assertEquals(0, result.errorCount());
+            assertEquals(30, stored.size());
+            // 1ページ3チャンクのため、5件以上溜まった時点（6件）で格納される
+            assertEquals(List.of(6, 6, 6, 6, 6), batchSizes);
+        }
+
+        @Test
+        @DisplayName("取得・パースに失敗したページはエラーとして記録し、他のページは続行する")
+        void isolatesPageFailures() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 2, 2, 1, 10, NO_LIMIT);
+            List<DocumentChunkDto> stored = Collections.synchronizedList(new ArrayList<>());
+
+            IngestionResult result = pipeline.run(urls(4),
+                    url -> {
+                        if (url.endsWith("p1.html")) {
+                            throw new IllegalStateException("接続失敗");
+                        }
+                        return url.endsWith("p2.html") ? "" : "<html/>";
+                    },
+                    (url, html) -> {
+                        if (url.endsWith("p3.html")) {
+                            throw new IllegalArgumentException("不正なHTML");
+                        }
+                        return chunksOf(url, 1);
+                    },
+                    stored::addAll);
+
+            assertEquals(4, result.processedCount());
+            assertEquals(1, result.successCount());
+            assertEquals(3, result.errorCount());
+            assertTrue(result.errors().stream().anyMatch(e -> e.contains("p1.html") && e.contains("接続失敗")));
+            assertTrue(result.errors().stream().anyMatch(e -> e.contains("p2.html") && e.contains("空のレスポンス")));
+            assertTrue(result.errors().stream().anyMatch(e -> e.contains("p3.html") && e.contains("不正なHTML")));
+            assertEquals(1, stored.size());
+        }
+
+        @Test
+        @DisplayName("取得・パースでErrorが発生したページもエラーとして記録し、処理を完了する")
+        void isolatesErrors() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 2, 2, 1, 10, NO_LIMIT);
+
+            IngestionResult result = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                    pipeline.run(urls(3),
+                            url -> {
+                                if (url.endsWith("p0.html")) {
+                                    throw new StackOverflowError();
+                                }
+                                return "<html/>";
+                            },
+                            (url, html) -> {
+                                if (url.endsWith("p1.html")) {
+                                    throw new AssertionError("パーサ内部エラー");
+                                }
+                                return chunksOf(url, 1);
+                            },
+                            chunks -> { }));
+
+            assertEquals(3, result.processedCount());
+            assertEquals(1, result.successCount());
+            assertEquals(2, result.errorCount());
+            assertTrue(result.errors().stream()
+                    .anyMatch(e -> e.contains("p0.html") && e.contains("StackOverflowError")));
+            assertTrue(result.errors().stream().anyMatch(e -> e.contains("p1.html") && e.contains("パーサ内部エラー")));
+        }
+
+        @Test
+        @DisplayName("取得処理がnullを返したページは未変更としてパース以降を省略し、成功として数える")
+        void skipsUnchangedPages() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 2, 2, 2, 10, NO_LIMIT);
+            List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+            IngestionResult result = pipeline.run(urls(3),
+                    url -> url.endsWith("p1.html") ? "<html/>" : null,
+                    (url, html) -> {
+                        processed.add(url);
+                        return chunksOf(url, 1);
+                    },
+                    chunks -> { });
+
+            assertEquals(3, result.successCount());
+            assertEquals(0, result.errorCount());
+            assertEquals(List.of("http://test/docs/p1.html"), processed);
+        }
+
+        @Test
+        @DisplayName("格納に失敗した場合はバッチに含まれるページをエラーとする")
+        void recordsStoreFailurePerPage() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 1, 1, 1, 100, NO_LIMIT);
+
+            IngestionResult result = pipeline.run(urls(2), url -> "<html/>",
+                    (url, html) -> chunksOf(url, 1),
+                    chunks -> {
+                        throw new IllegalStateException("DB接続エラー");
+                    });
+
+            assertEquals(2, result.processedCount());
+            assertEquals(0, result.successCount());
+            assertEquals(2, result.errorCount());
+        }
+
+        @Test
+        @DisplayName("複数ページを並行して取得する")
+        void fetchesConcurrently() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 3, 1, 4, 10, NO_LIMIT);
+            CountDownLatch allStarted = new CountDownLatch(3);
+
+            IngestionResult result = pipeline.run(urls(3),
+                    url -> {
+                        allStarted.countDown();
+                        // 3件が同時に取得中にならなければタイムアウトで失敗する
+                        if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException("並行取得されていない");
+                        }
+                        return "<html/>";
+                    },
+                    (url, html) -> chunksOf(url, 1),
+                    chunks -> { });
+
+            assertEquals(3, result.successCount());
+        }
+
+        @Test
+        @DisplayName("URLが空の場合は空の結果を返す")
+        void emptyUrls() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 2, 2, 2, 10, NO_LIMIT);
+
+            IngestionResult result = pipeline.run(List.of(), url -> "", (url, html) -> List.of(), chunks -> { });
+
+            assertEquals(0, result.processedCount());
+            assertEquals(0, result.errorCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("run（チェックポイント）")
+    class CheckpointTests {
+
+        @Test
+        @DisplayName("格納が完了したページをチャンク数とともに通知し、失敗したページはエラーとともに通知する")
+        void notifiesStoredAndFailedPages() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 1, 1, 4, 4, NO_LIMIT);
+            Map<String, Integer> stored = Collections.synchronizedMap(new LinkedHashMap<>());
+            Map<String, String> failed = Collections.synchronizedMap(new LinkedHashMap<>());
+            List<String> urls = urls(5);
+
+            IngestionResult result = pipeline.run(urls,
+                    url -> url.endsWith("p1.html") ? null : "<html/>",
+                    (url, html) -> url.endsWith("p2.html") ? List.of() : chunksOf(url, 2),
+                    chunks -> {
+                        if (chunks.stream().anyMatch(c -> c.content().startsWith(urls.get(4)))) {
+                            throw new IllegalStateException("DB障害");
+                        }
+                    },
+                    new CrawlPipeline.Checkpoint() {
+                        @Override
+                        public void stored(Map<String, Integer> chunkCounts) {
+                            stored.putAll(chunkCounts);
+                        }
+
+                        @Override
+                        public void failed(String url, String error) {
+                            failed.put(url, error);
+                        }
+                    });
+
+            assertEquals(4, result.successCount());
+            assertEquals(Map.of(urls.get(0), 2, urls.get(1), 0, urls.get(2), 0, urls.get(3), 2), stored);
+            assertEquals(Map.of(urls.get(4), "DB障害"), failed);
+        }
+
+        @Test
+        @DisplayName("格納に失敗したページは格納済みとして通知しない")
+        void doesNotNotifyUnstoredPages() {
+            CrawlPipeline pipeline = new CrawlPipeline("test", 2, 2, 4, 100, NO_LIMIT);
+            List<String> stored = Collections.synchronizedList(new ArrayList<>());
+
+            pipeline.run(urls(3), url -> "<html/>", (url, html) -> chunksOf(url, 1),
+                    chunks -> {
+                        throw new IllegalStateException("DB障害");
+                    },
+                    new CrawlPipeline.Checkpoint() {
+                        @Override
+                        public void stored(Map<String, Integer> chunkCounts) {
+                            stored.addAll(chunkCounts.keySet());
+                        }
+                    });
+
+            assertTrue(stored.isEmpty());
+        }
+    }
+}
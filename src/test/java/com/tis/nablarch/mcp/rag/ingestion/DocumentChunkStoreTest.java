@@ -0,0 +1,195 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
+import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import com.tis.nablarch.mcp.rag.chunking.ContentType;
+import com.tis.nablarch.mcp.rag.chunking.DocumentChunkDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link DocumentChunkStore} のユニットテスト。
+ */
+class DocumentChunkStoreTest {
+
+    private EmbeddingClient embeddingClient;
+    private DocumentChunkRepository repository;
+    private DocumentChunkCopyWriter copyWriter;
+
+    @BeforeEach
+    void setUp() {
+        embeddingClient = mock(EmbeddingClient.class);
+        repository = mock(DocumentChunkRepository.class);
+        copyWriter = mock(DocumentChunkCopyWriter.class);
+        when(embeddingClient.embedBatch(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream().map(t -> new float[]{t.length()}).toList();
+        });
+    }
+
+    private static List<DocumentChunkDto> chunks(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new DocumentChunkDto("chunk-" + i, Map.of(), i, count, ContentType.HTML))
+                .toList();
+    }
+
+    private static DocumentChunk toEntity(DocumentChunkDto dto) {
+        DocumentChunk entity = new DocumentChunk();
+        entity.setContent(dto.content());
+        entity.setSource("nablarch-document");
+        return entity;
+    }
+
+    @Nested
+    @DisplayName("COPYによる一括書き込み")
+    class CopyWriterTests {
+
+        @Test
+        @DisplayName("バッチごとにEmbeddingを生成し、全チャンクを1回で書き込む")
+        @SuppressWarnings("unchecked")
+        void writesAllChunksAtOnce() {
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, copyWriter);
+
+            store.store(chunks(5), 2, DocumentChunkStoreTest::toEntity);
+
+            verify(embeddingClient, times(3)).embedBatch(anyList());
+            ArgumentCaptor<List<DocumentChunk>> entities = ArgumentCaptor.forClass(List.class);
+            ArgumentCaptor<List<float[]>> vectors = ArgumentCaptor.forClass(List.class);
+            verify(copyWriter).write(entities.capture(), vectors.capture());
+            assertEquals(List.of("chunk-0", "chunk-1", "chunk-2", "chunk-3", "chunk-4"),
+                    entities.getValue().stream().map(DocumentChunk::getContent).toList());
+            assertEquals(5, vectors.getValue().size());
+            assertEquals("chunk-4".length(), vectors.getValue().get(4)[0]);
+            verify(repository, never()).save(any());
+            verify(repository, never()).updateEmbedding(anyLong(), any(float[].class));
+            verify(repository, never()).bumpCorpusGeneration();
+        }
+    }
+
+    @Nested
+    @DisplayName("1行ずつの保存")
+    class RowByRowTests {
+
+        @Test
+        @DisplayName("COPYライターがない場合はJPAで保存してEmbeddingを更新する")
+        void savesEachRowWithJpa() {
+            when(repository.save(any(DocumentChunk.class))).thenAnswer(invocation -> {
+                DocumentChunk entity = invocation.getArgument(0);
+                entity.setId(7L);
+                return entity;
+            });
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            store.store(chunks(3), 2, DocumentChunkStoreTest::toEntity);
+
+            verify(repository, times(3)).save(any(DocumentChunk.class));
+            verify(repository, times(3)).updateEmbedding(eq(7L), any(float[].class));
+        }
+
+        @Test
+        @DisplayName("全チャンクの保存後にコーパス世代を1回加算する")
+        void bumpsCorpusGenerationAfterSaving() {
+            when(repository.save(any(DocumentChunk.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            store.store(chunks(3), 2, DocumentChunkStoreTest::toEntity);
+
+            InOrder inOrder = inOrder(repository);
+            inOrder.verify(repository, times(3)).save(any(DocumentChunk.class));
+            inOrder.verify(repository).bumpCorpusGeneration();
+        }
+
+        @Test
+        @DisplayName("チャンクがない場合はコーパス世代を加算しない")
+        void keepsCorpusGenerationWithoutChunks() {
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            store.store(List.of(), 2, DocumentChunkStoreTest::toEntity);
+
+            verify(repository, never()).bumpCorpusGeneration();
+        }
+
+        @Test
+        @DisplayName("保存の前に同じページの既存チャンクを削除する")
+        void replacesExistingChunksOfSamePage() {
+            when(repository.save(any(DocumentChunk.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            store.store(chunks(3), 2, dto -> {
+                DocumentChunk entity = toEntity(dto);
+                entity.setUrl((dto.chunkIndex() < 2) ? "https://example.com/a.html" : "https://example.com/b.html");
+                return entity;
+            });
+
+            InOrder inOrder = inOrder(repository);
+            inOrder.verify(repository).deleteBySourceAndUrl("nablarch-document", "https://example.com/a.html");
+            inOrder.verify(repository).deleteBySourceAndUrl("nablarch-document", "https://example.com/b.html");
+            inOrder.verify(repository, times(3)).save(any(DocumentChunk.class));
+            verify(repository, times(2)).deleteBySourceAndUrl(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("URLのないチャンクは既存チャンクを削除しない")
+        void keepsChunksWithoutUrl() {
+            when(repository.save(any(DocumentChunk.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            store.store(chunks(2), 10, DocumentChunkStoreTest::toEntity);
+
+            verify(repository, never()).deleteBySourceAndUrl(any(), any());
+            verify(repository, times(2)).save(any(DocumentChunk.class));
+        }
+
+        @Test
+        @DisplayName("Embedding生成に失敗した場合は既存チャンクを変更しない")
+        void keepsExistingChunksWhenEmbeddingFails() {
+            when(embeddingClient.embedBatch(anyList()))
+                    .thenReturn(List.of(new float[]{1f}, new float[]{2f}))
+                    .thenThrow(new IllegalStateException("推論失敗"));
+            DocumentChunkStore store = new DocumentChunkStore(embeddingClient, repository, null, null);
+
+            assertThrows(IllegalStateException.class, () -> store.store(chunks(3), 2, dto -> {
+                DocumentChunk entity = toEntity(dto);
+                entity.setUrl("https://example.com/a.html");
+                return entity;
+            }));
+
+            verifyNoInteractions(repository);
+        }
+    }
+
+    @Nested
+    @DisplayName("保存済みEmbeddingの再利用")
+    class ContentHashTests {
+
+        @Test
+        @DisplayName("ContentHashEmbedderが設定されている場合はそれを経由してEmbeddingを取得する")
+        void delegatesToContentHashEmbedder() {
+            ContentHashEmbedder contentHashEmbedder = mock(ContentHashEmbedder.class);
+            when(contentHashEmbedder.embedBatch(eq(embeddingClient), anyList()))
+                    .thenReturn(List.of(new float[]{1f}, new float[]{2f}));
+            DocumentChunkStore store = new DocumentChunkStore(
+                    embeddingClient, repository, contentHashEmbedder, copyWriter);
+
+            store.store(chunks(2), 10, DocumentChunkStoreTest::toEntity);
+
+            verify(contentHashEmbedder).embedBatch(eq(embeddingClient), anyList());
+            verify(embeddingClient, never()).embedBatch(anyList());
+            verify(copyWriter).write(anyList(), anyList());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tis.nablarch.mcp.rag.ingestion;
 
 import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
 import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
 import com.tis.nablarch.mcp.rag.chunking.ChunkingService;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -227,7 +229,44 @@ class FintanIngesterTest {
             verify(chunkingService).chunk(parsedDoc);
             verify(embeddingClient).embedBatch(anyList());
             verify(repository).save(any(DocumentChunk.class));
-            verify(repository).updateEmbedding(eq(1L), contains("[0.1,0.2,0.3]"));
+            verify(repository).updateEmbedding(eq(1L), aryEq(new float[]{0.1f, 0.2f, 0.3f}));
+        }
+
+        @Test
+        @DisplayName("COPYライター使用時は記事のチャンクを記事URL付きで1回にまとめて書き込む")
+        @SuppressWarnings("unchecked")
+        void writesArticleInOneCallWithCopyWriter() {
+            String url = "https://fintan.jp/page/123/";
+            String mdContent = "# Nablarchバッチ処理\n\nバッチ処理の解説";
+            config.setBatchSize(1);
+            DocumentChunkCopyWriter copyWriter = mock(DocumentChunkCopyWriter.class);
+            ingester = new FintanIngester(markdownParser, htmlParser, chunkingService, embeddingClient,
+                    repository, webClient, config, null, null, copyWriter, null);
+            setupWebClientMock(url, mdContent);
+
+            ParsedDocument parsedDoc = new ParsedDocument(
+                    "Nablarchバッチ処理\nバッチ処理の解説",
+                    Map.of("source", "fintan", "language", "ja"),
+                    url, ContentType.MARKDOWN);
+            when(markdownParser.parse(mdContent, url)).thenReturn(List.of(parsedDoc));
+            when(chunkingService.chunk(parsedDoc)).thenReturn(List.of(
+                    new DocumentChunkDto("Nablarchバッチ処理", Map.of("language", "ja"), 0, 2, ContentType.MARKDOWN),
+                    new DocumentChunkDto("バッチ処理の解説", Map.of("language", "ja"), 1, 2, ContentType.MARKDOWN)));
+            when(embeddingClient.embedBatch(anyList()))
+                    .thenReturn(List.of(new float[]{0.1f}))
+                    .thenReturn(List.of(new float[]{0.2f}));
+
+            assertEquals(2, ingester.processArticle(url));
+
+            // 既存チャンクの置き換えは (source, url) 単位のため、記事を1回の書き込みにまとめる
+            ArgumentCaptor<List<DocumentChunk>> entities = ArgumentCaptor.forClass(List.class);
+            ArgumentCaptor<List<float[]>> vectors = ArgumentCaptor.forClass(List.class);
+            verify(copyWriter).write(entities.capture(), vectors.capture());
+            assertEquals(List.of(url, url), entities.getValue().stream().map(DocumentChunk::getUrl).toList());
+            assertEquals(List.of("fintan", "fintan"),
+                    entities.getValue().stream().map(DocumentChunk::getSource).toList());
+            assertEquals(2, vectors.getValue().size());
+            verify(repository, never()).save(any());
         }
 
         @Test
@@ -0,0 +1,59 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link HostRateLimiter} のユニットテスト。
+ */
+class HostRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(0);
+
+    @Test
+    @DisplayName("同じホストへの連続したリクエストはレートに応じた間隔で予約される")
+    void spacesRequestsToSameHost() {
+        HostRateLimiter limiter = new HostRateLimiter(2.0, now::get);
+
+        assertEquals(0, limiter.reserve("https://example.com/a.html"));
+        assertEquals(SECOND / 2, limiter.reserve("https://example.com/b.html"));
+        assertEquals(SECOND, limiter.reserve("https://example.com/c.html"));
+    }
+
+    @Test
+    @DisplayName("異なるホストへのリクエストは互いに待たない")
+    void hostsAreIndependent() {
+        HostRateLimiter limiter = new HostRateLimiter(1.0, now::get);
+
+        assertEquals(0, limiter.reserve("https://a.example.com/index.html"));
+        assertEquals(0, limiter.reserve("https://b.example.com/index.html"));
+    }
+
+    @Test
+    @DisplayName("間隔が空いた後のリクエストは待たず、バーストも許可しない")
+    void doesNotAccumulateTokens() {
+        HostRateLimiter limiter = new HostRateLimiter(1.0, now::get);
+        limiter.reserve("https://example.com/a.html");
+
+        now.set(10 * SECOND);
+
+        assertEquals(0, limiter.reserve("https://example.com/b.html"));
+        assertEquals(SECOND, limiter.reserve("https://example.com/c.html"));
+    }
+
+    @Test
+    @DisplayName("レートが0の場合は制限しない")
+    void unlimitedWhenRateIsZero() {
+        HostRateLimiter limiter = new HostRateLimiter(0, now::get);
+
+        assertEquals(0, limiter.reserve("https://example.com/a.html"));
+        assertEquals(0, limiter.reserve("https://example.com/a.html"));
+    }
+}
@@ -0,0 +1,319 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import com.tis.nablarch.mcp.db.repository.IngestionJobRepository;
+import com.tis.nablarch.mcp.db.repository.IngestionJobRepository.UrlCheckpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link IngestionJobService} と {@link IngestionJob} のユニットテスト。
+ */
+class IngestionJobServiceTest {
+
+    private static final String SOURCE = "nablarch-official-docs";
+    private static final List<String> URLS = List.of("http://test/a.html", "http://test/b.html", "http://test/c.html");
+
+    private IngestionJobRepository repository;
+    private IngestionConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private IngestionJobService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IngestionJobRepository.class);
+        config = new IngestionConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+        service = new IngestionJobService(repository, config, meterRegistry, clock::get);
+        when(repository.findResumable(anyString(), anyString(), any())).thenReturn(Optional.empty());
+        when(repository.create(anyString(), anyString(), anyInt())).thenReturn(1L);
+    }
+
+    private void givenResumable(long id, String status) {
+        when(repository.findResumable(eq(SOURCE), eq(IngestionJob.MODE_FULL), any()))
+                .thenReturn(Optional.of(new IngestionJobRepository.ResumableJob(id, status)));
+    }
+
+    @Nested
+    @DisplayName("start")
+    class StartTests {
+
+        @Test
+        @DisplayName("完了していないジョブがない場合は新しいジョブを作成し、全URLを処理対象とする")
+        void createsNewJob() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            verify(repository).create(SOURCE, IngestionJob.MODE_FULL, 3);
+            assertEquals(URLS, job.targets());
+            assertEquals(0, job.resumedCount());
+        }
+
+        @Test
+        @DisplayName("完了していないジョブがある場合は再開し、格納済みのURLを処理対象から除く")
+        void resumesUnfinishedJob() {
+            givenResumable(7L, IngestionJobRepository.STATUS_RUNNING);
+            when(repository.findDoneUrls(7L)).thenReturn(Set.of("http://test/a.html"));
+
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            verify(repository).findResumable(SOURCE, IngestionJob.MODE_FULL, Duration.ofHours(24));
+            verify(repository).resume(7L, 3);
+            verify(repository, never()).create(anyString(), anyString(), anyInt());
+            assertEquals(List.of("http://test/b.html", "http://test/c.html"), job.targets());
+            assertEquals(1, job.resumedCount());
+        }
+
+        @Test
+        @DisplayName("resume=falseの場合は完了していないジョブがあっても新しいジョブを作成する")
+        void doesNotResumeWhenDisabled() {
+            config.getJob().setResume(false);
+
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            verify(repository, never()).findResumable(anyString(), anyString(), any());
+            verify(repository).create(SOURCE, IngestionJob.MODE_FULL, 3);
+            assertEquals(URLS, job.targets());
+        }
+
+        @Test
+        @DisplayName("再開するジョブの経過時間の上限を設定値で指定する")
+        void passesResumeMaxAge() {
+            config.getJob().setResumeMaxAge(Duration.ofHours(6));
+
+            service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            verify(repository).findResumable(SOURCE, IngestionJob.MODE_FULL, Duration.ofHours(6));
+            verify(repository).create(SOURCE, IngestionJob.MODE_FULL, 3);
+        }
+
+        @Test
+        @DisplayName("checkpoint=falseの場合はジョブを記録しない")
+        void doesNotRecordWhenCheckpointDisabled() {
+            config.getJob().setCheckpoint(false);
+
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/a.html", 2));
+            job.finish(IngestionResult.success(1));
+
+            verifyNoInteractions(repository);
+            assertNull(job.progress().jobId());
+        }
+
+        @Test
+        @DisplayName("ジョブを記録できない場合はチェックポイントなしで続行する")
+        void continuesWithoutCheckpointOnFailure() {
+            when(repository.create(anyString(), anyString(), anyInt()))
+                    .thenThrow(new IllegalStateException("relation does not exist"));
+
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/a.html", 2));
+
+            assertEquals(URLS, job.targets());
+            verify(repository, never()).saveCheckpoints(anyLong(), anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("IngestionJob")
+    class JobTests {
+
+        @Test
+        @DisplayName("格納済みのページをバッチ番号とともに記録し、失敗したページは次の記録時にまとめて記録する")
+        @SuppressWarnings("unchecked")
+        void recordsCheckpoints() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            job.failed("http://test/c.html", "404");
+            job.stored(Map.of("http://test/a.html", 3));
+            job.stored(Map.of("http://test/b.html", 0));
+
+            ArgumentCaptor<List<UrlCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+            verify(repository, times(2)).saveCheckpoints(eq(1L), captor.capture());
+            assertEquals(List.of(
+                    new UrlCheckpoint("http://test/c.html", IngestionJobRepository.URL_FAILED, 0, null, "404"),
+                    new UrlCheckpoint("http://test/a.html", IngestionJobRepository.URL_DONE, 3, 1, null)),
+                    captor.getAllValues().get(0));
+            assertEquals(List.of(
+                    new UrlCheckpoint("http://test/b.html", IngestionJobRepository.URL_DONE, 0, 2, null)),
+                    captor.getAllValues().get(1));
+        }
+
+        @Test
+        @DisplayName("全ページを格納した場合はジョブを完了状態にする")
+        void finishCompletes() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/a.html", 1, "http://test/b.html", 1, "http://test/c.html", 1));
+
+            job.finish(IngestionResult.success(3));
+
+            verify(repository).finish(1L, IngestionJobRepository.STATUS_COMPLETED);
+            assertEquals(IngestionJobRepository.STATUS_COMPLETED, job.progress().status());
+        }
+
+        @Test
+        @DisplayName("終了時に未記録の失敗ページを記録し、失敗したページがある場合は再開対象の状態で終了する")
+        void finishFlushesAndEndsPartial() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/a.html", 1, "http://test/b.html", 1));
+            job.failed("http://test/c.html", "404");
+
+            job.finish(new IngestionResult(3, 2, 1, List.of("404")));
+
+            verify(repository).saveCheckpoints(1L, List.of(
+                    new UrlCheckpoint("http://test/c.html", IngestionJobRepository.URL_FAILED, 0, null, "404")));
+            verify(repository).finish(1L, IngestionJobRepository.STATUS_PARTIAL);
+            assertEquals(IngestionJobRepository.STATUS_PARTIAL, job.progress().status());
+        }
+
+        @Test
+        @DisplayName("失敗したページを残したジョブは次回の取り込みで再開し、失敗したページのみを再処理する")
+        void retriesFailedPagesOnNextRun() {
+            IngestionJob first = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            first.stored(Map.of("http://test/a.html", 1, "http://test/b.html", 1));
+            first.failed("http://test/c.html", "503");
+            first.finish(new IngestionResult(3, 2, 1, List.of("503")));
+            // 再開可否はジョブの終了状態（COMPLETED以外）で判定される
+            givenResumable(1L, IngestionJobRepository.STATUS_PARTIAL);
+            when(repository.findDoneUrls(1L)).thenReturn(Set.of("http://test/a.html", "http://test/b.html"));
+
+            IngestionJob retry = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            retry.stored(Map.of("http://test/c.html", 2));
+            IngestionResult result = retry.finish(IngestionResult.success(1));
+
+            verify(repository).resume(1L, 3);
+            assertEquals(List.of("http://test/c.html"), retry.targets());
+            assertEquals(3, result.successCount());
+            verify(repository).finish(1L, IngestionJobRepository.STATUS_COMPLETED);
+        }
+
+        @Test
+        @DisplayName("失敗したページの再処理後も失敗が残った場合はジョブを完了する（次回は新しいジョブで取り込む）")
+        void completesWhenRetryLeavesFailures() {
+            givenResumable(7L, IngestionJobRepository.STATUS_PARTIAL);
+            when(repository.findDoneUrls(7L)).thenReturn(Set.of("http://test/a.html"));
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/b.html", 1));
+            job.failed("http://test/c.html", "404");
+
+            job.finish(new IngestionResult(2, 1, 1, List.of("404")));
+
+            verify(repository).finish(7L, IngestionJobRepository.STATUS_COMPLETED);
+        }
+
+        @Test
+        @DisplayName("中断したジョブの再開で失敗したページが残った場合は再開対象の状態で終了する")
+        void endsPartialWhenInterruptedJobLeavesFailures() {
+            givenResumable(7L, IngestionJobRepository.STATUS_RUNNING);
+            when(repository.findDoneUrls(7L)).thenReturn(Set.of("http://test/a.html"));
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/b.html", 1));
+            job.failed("http://test/c.html", "404");
+
+            job.finish(new IngestionResult(2, 1, 1, List.of("404")));
+
+            verify(repository).finish(7L, IngestionJobRepository.STATUS_PARTIAL);
+        }
+
+        @Test
+        @DisplayName("例外で終了した場合はジョブを失敗状態にする（次回再開の対象となる）")
+        void abortMarksFailed() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            job.abort(new IllegalStateException("停止"));
+
+            verify(repository).finish(1L, IngestionJobRepository.STATUS_FAILED);
+        }
+
+        @Test
+        @DisplayName("再開前に格納済みだったページを成功として取り込み結果に加える")
+        void finishIncludesResumedPages() {
+            givenResumable(7L, IngestionJobRepository.STATUS_FAILED);
+            when(repository.findDoneUrls(7L)).thenReturn(Set.of("http://test/a.html", "http://test/b.html"));
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            IngestionResult result = job.finish(IngestionResult.success(1));
+
+            assertEquals(3, result.processedCount());
+            assertEquals(3, result.successCount());
+        }
+
+        @Test
+        @DisplayName("チェックポイントの記録に失敗しても取り込みを続行する")
+        void toleratesCheckpointFailure() {
+            doThrow(new IllegalStateException("接続断")).when(repository).saveCheckpoints(anyLong(), anyList());
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+
+            assertDoesNotThrow(() -> job.stored(Map.of("http://test/a.html", 1)));
+            assertEquals(1, job.progress().completedUrls());
+        }
+    }
+
+    @Nested
+    @DisplayName("進捗")
+    class ProgressTests {
+
+        @Test
+        @DisplayName("処理速度と残り時間の見込みを算出する")
+        void calculatesRatesAndEta() {
+            List<String> urls = List.of("u1", "u2", "u3", "u4", "u5");
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, urls);
+
+            job.stored(Map.of("u1", 10, "u2", 6));
+            clock.addAndGet(4_000_000_000L);
+
+            IngestionProgress progress = job.progress();
+            assertEquals(5, progress.totalUrls());
+            assertEquals(2, progress.completedUrls());
+            assertEquals(16, progress.chunks());
+            assertEquals(0.5, progress.urlsPerSecond(), 1e-9);
+            assertEquals(4.0, progress.chunksPerSecond(), 1e-9);
+            assertEquals(6, progress.etaSeconds());
+            assertEquals(4, progress.elapsedSeconds());
+        }
+
+        @Test
+        @DisplayName("データソースごとの直近のジョブの進捗をメトリクスとして公開する")
+        void exposesGauges() {
+            IngestionJob job = service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            job.stored(Map.of("http://test/a.html", 4));
+            job.failed("http://test/b.html", "404");
+
+            assertEquals(3, meterRegistry.get("ingestion.job.urls").tag("source", SOURCE).tag("state", "total")
+                    .gauge().value());
+            assertEquals(1, meterRegistry.get("ingestion.job.urls").tag("source", SOURCE).tag("state", "completed")
+                    .gauge().value());
+            assertEquals(1, meterRegistry.get("ingestion.job.urls").tag("source", SOURCE).tag("state", "failed")
+                    .gauge().value());
+            assertEquals(4, meterRegistry.get("ingestion.job.chunks").tag("source", SOURCE).gauge().value());
+            assertEquals(1, service.progress().size());
+        }
+
+        @Test
+        @DisplayName("同じデータソースの新しいジョブを開始すると進捗を置き換える")
+        void replacesProgressOfSameSource() {
+            service.start(SOURCE, IngestionJob.MODE_FULL, URLS);
+            service.start(SOURCE, IngestionJob.MODE_INCREMENTAL, List.of("http://test/a.html"));
+            service.start("fintan", IngestionJob.MODE_FULL, URLS);
+
+            List<IngestionProgress> progress = service.progress();
+            assertEquals(List.of("fintan", SOURCE), progress.stream().map(IngestionProgress::source).toList());
+            assertEquals(IngestionJob.MODE_INCREMENTAL, progress.get(1).mode());
+        }
+    }
+}
@@ -190,7 +190,7 @@ class IngestionPipelineIntegrationTest {
             verify(chunkingService, times(2)).chunk(any(ParsedDocument.class));
             verify(embeddingClient, atLeastOnce()).embedBatch(anyList());
             verify(repository, times(2)).save(any(DocumentChunk.class));
-            verify(repository, times(2)).updateEmbedding(anyLong(), anyString());
+            verify(repository, times(2)).updateEmbedding(anyLong(), any(float[].class));
         }
     }
 
@@ -286,7 +286,7 @@ class IngestionPipelineIntegrationTest {
             verify(chunkingService, times(2)).chunk(any(ParsedDocument.class));
             verify(embeddingClient, times(2)).embedBatch(anyList());
             verify(repository, times(2)).save(any(DocumentChunk.class));
-            verify(repository, times(2)).updateEmbedding(anyLong(), anyString());
+            verify(repository, times(2)).updateEmbedding(anyLong(), any(float[].class));
         }
     }
 
@@ -463,7 +463,7 @@ class IngestionPipelineIntegrationTest {
 
             // page1とpage3のみEmbedding→格納される
             verify(repository, times(2)).save(any(DocumentChunk.class));
-            verify(repository, times(2)).updateEmbedding(anyLong(), anyString());
+            verify(repository, times(2)).updateEmbedding(anyLong(), any(float[].class));
         }
     }
 
@@ -535,7 +535,7 @@ class IngestionPipelineIntegrationTest {
 
             // 30チャンク全て格納
             verify(repository, times(30)).save(any(DocumentChunk.class));
-            verify(repository, times(30)).updateEmbedding(anyLong(), anyString());
+            verify(repository, times(30)).updateEmbedding(anyLong(), any(float[].class));
         }
     }
 
@@ -1,6 +1,7 @@
 package com.tis.nablarch.mcp.rag.ingestion;
 
 import com.tis.nablarch.mcp.db.entity.DocumentChunk;
+import com.tis.nablarch.mcp.db.repository.DocumentChunkCopyWriter;
 import com.tis.nablarch.mcp.db.repository.DocumentChunkRepository;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
 import com.tis.nablarch.mcp.rag.chunking.ChunkingService;
@@ -12,8 +13,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -138,7 +146,7 @@ class OfficialDocsIngesterTest {
             verify(embeddingClient, atLeastOnce()).embedBatch(anyList());
             // Repositoryが呼ばれた
             verify(repository, atLeastOnce()).save(any(DocumentChunk.class));
-            verify(repository, atLeastOnce()).updateEmbedding(anyLong(), anyString());
+            verify(repository, atLeastOnce()).updateEmbedding(anyLong(), any(float[].class));
         }
 
         @Test
@@ -341,6 +349,117 @@ class OfficialDocsIngesterTest {
         }
     }
 
+    @Nested
+    @DisplayName("COPYによる一括書き込み")
+    class CopyWriterTests {
+
+        @Test
+        @DisplayName("ページのチャンクを分割せず、取得元URL付きで書き込む（同じページの既存チャンクの置き換え単位）")
+        @SuppressWarnings("unchecked")
+        void writesEachPageInOneCall() {
+            // バッチサイズ1でもページの途中でチャンクを分割しない
+            ingestionConfig.getOfficialDocs().setBatchSize(1);
+            DocumentChunkCopyWriter copyWriter = mock(DocumentChunkCopyWriter.class);
+            ingester = new OfficialDocsIngester(htmlParser, chunkingService, embeddingClient, repository,
+                    ingestionConfig, null, null, null, copyWriter, null) {
+                @Override
+                String fetchHtml(String url) {
+                    return url.endsWith(".html") ? DOC_HTML : INDEX_HTML;
+                }
+            };
+            when(htmlParser.parse(anyString(), anyString())).thenAnswer(invocation -> List.of(new ParsedDocument(
+                    "テスト内容", Map.of("language", "ja"), invocation.getArgument(1), ContentType.HTML)));
+            when(chunkingService.chunk(any(ParsedDocument.class))).thenAnswer(invocation -> {
+                ParsedDocument doc = invocation.getArgument(0);
+                Map<String, String> metadata = Map.of("language", "ja", "source_url", doc.sourceUrl());
+                return List.of(new DocumentChunkDto("チャンク1", metadata, 0, 2, ContentType.HTML),
+                        new DocumentChunkDto("チャンク2", metadata, 1, 2, ContentType.HTML));
+            });
+            when(embeddingClient.embedBatch(anyList())).thenAnswer(invocation -> {
+                List<String> texts = invocation.getArgument(0);
+                return texts.stream().map(t -> new float[]{0.1f}).toList();
+            });
+
+            IngestionResult result = ingester.ingestAll();
+
+            assertEquals(2, result.successCount());
+            ArgumentCaptor<List<DocumentChunk>> written = ArgumentCaptor.forClass(List.class);
+            verify(copyWriter, times(2)).write(written.capture(), anyList());
+            for (List<DocumentChunk> page : written.getAllValues()) {
+                assertEquals(2, page.size());
+                assertEquals(1, page.stream().map(DocumentChunk::getUrl).distinct().count());
+                assertEquals("nablarch-official-docs", page.get(0).getSource());
+            }
+            assertEquals(List.of("http://test-server/docs/page1.html", "http://test-server/docs/page2.html"),
+                    written.getAllValues().stream().map(page -> page.get(0).getUrl()).sorted().toList());
+            verify(repository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("ページキャッシュ")
+    class PageCacheTests {
+
+        @TempDir
+        Path cacheDir;
+
+        @Test
+        @DisplayName("格納に失敗したページはキャッシュに保存されず、次回の増分取り込みで再度取り込まれる")
+        void failedStoreIsIngestedOnNextRun() {
+            ingestionConfig.getPageCache().setEnabled(true);
+            ingestionConfig.getPageCache().setDirectory(cacheDir.toString());
+            String pageUrl = "http://test-server/docs/page1.html";
+            String indexHtml = "<html><body><a href=\"page1.html\">Page 1</a></body></html>";
+            // ETag "v1" を送信された場合は304、それ以外は200を返すサーバー
+            WebClient webClient = WebClient.builder()
+                    .exchangeFunction(request -> {
+                        if ("\"v1\"".equals(request.headers().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                            return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+                        }
+                        String body = request.url().toString().equals(pageUrl) ? DOC_HTML : indexHtml;
+                        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.ETAG, "\"v1\"")
+                                .body(body)
+                                .build());
+                    })
+                    .build();
+
+            ParsedDocument parsedDoc = new ParsedDocument(
+                    "テスト内容。十分な長さのコンテンツが必要。テスト内容を繰り返す。",
+                    Map.of("source", "nablarch-document", "language", "ja", "source_url", pageUrl),
+                    pageUrl, ContentType.HTML);
+            when(htmlParser.parse(anyString(), anyString())).thenReturn(List.of(parsedDoc));
+            DocumentChunkDto chunkDto = new DocumentChunkDto(
+                    "テスト内容。十分な長さのコンテンツが必要。テスト内容を繰り返す。",
+                    Map.of("source", "nablarch-document", "language", "ja", "source_url", pageUrl),
+                    0, 1, ContentType.HTML);
+            when(chunkingService.chunk(any(ParsedDocument.class))).thenReturn(List.of(chunkDto));
+            // 1回目の格納はEmbedding生成の失敗で中断する
+            when(embeddingClient.embedBatch(anyList()))
+                    .thenThrow(new RuntimeException("Embedding生成に失敗"))
+                    .thenReturn(List.of(new float[]{0.1f}));
+            when(repository.save(any(DocumentChunk.class))).thenAnswer(invocation -> {
+                DocumentChunk arg = invocation.getArgument(0);
+                arg.setId(1L);
+                return arg;
+            });
+            ingester = new OfficialDocsIngester(htmlParser, chunkingService, embeddingClient, repository,
+                    ingestionConfig, webClient, null, new PageCache(ingestionConfig), null, null);
+
+            IngestionResult failed = ingester.ingestIncremental(Instant.now());
+            IngestionResult retried = ingester.ingestIncremental(Instant.now());
+            IngestionResult unchanged = ingester.ingestIncremental(Instant.now());
+
+            assertEquals(1, failed.errorCount());
+            assertEquals(1, retried.successCount());
+            assertEquals(0, retried.errorCount());
+            assertEquals(1, unchanged.successCount());
+            // 3回目は格納後に保存したETagで304となり、パース以降を省略する
+            verify(htmlParser, times(2)).parse(DOC_HTML, pageUrl);
+            verify(repository, times(1)).save(any(DocumentChunk.class));
+        }
+    }
+
     @Nested
     @DisplayName("getSourceName")
     class SourceNameTests {
@@ -386,30 +505,6 @@ class OfficialDocsIngesterTest {
         }
     }
 
-    @Nested
-    @DisplayName("ベクトル文字列変換")
-    class VectorStringTests {
-
-        @Test
-        @DisplayName("float配列をpgvector文字列に変換する")
-        void arrayToVectorString() {
-            float[] embedding = {0.1f, 0.2f, 0.3f};
-            String result = OfficialDocsIngester.arrayToVectorString(embedding);
-            assertTrue(result.startsWith("["));
-            assertTrue(result.endsWith("]"));
-            assertTrue(result.contains("0.1"));
-            assertTrue(result.contains("0.2"));
-            assertTrue(result.contains("0.3"));
-        }
-
-        @Test
-        @DisplayName("空配列は空ベクトルになる")
-        void emptyArray() {
-            String result = OfficialDocsIngester.arrayToVectorString(new float[]{});
-            assertEquals("[]", result);
-        }
-    }
-
     @Nested
     @DisplayName("エンティティ変換")
     class EntityConversionTests {
@@ -456,7 +551,7 @@ class OfficialDocsIngesterTest {
             assertEquals("http://test-server/docs/single.html", savedEntity.getUrl());
 
             // Embeddingも更新されたか検証
-            verify(repository).updateEmbedding(eq(42L), contains("0.5"));
+            verify(repository).updateEmbedding(eq(42L), aryEq(new float[]{0.5f}));
         }
     }
 }
@@ -0,0 +1,173 @@
+package com.tis.nablarch.mcp.rag.ingestion;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link PageCache} のユニットテスト。
+ */
+class PageCacheTest {
+
+    private static final String URL = "https://example.com/docs/page1.html";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path tempDir;
+
+    private IngestionConfig ingestionConfig;
+    private final List<ClientRequest> requests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ingestionConfig = new IngestionConfig();
+        ingestionConfig.getPageCache().setEnabled(true);
+        ingestionConfig.getPageCache().setDirectory(tempDir.toString());
+    }
+
+    /**
+     * 指定したレスポンスを返し、リクエストを記録するWebClientを生成する。
+     */
+    private WebClient webClient(ClientResponse response) {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return Mono.just(response);
+                })
+                .build();
+    }
+
+    @Nested
+    @DisplayName("read/write")
+    class ReadWriteTests {
+
+        @Test
+        @DisplayName("保存したページと検証用ヘッダーを読み込める")
+        void roundTrip() {
+            PageCache cache = new PageCache(ingestionConfig);
+
+            cache.write(URL, "<html>本文</html>", "\"v1\"", "Wed, 01 Jan 2025 00:00:00 GMT");
+            PageCache.Entry entry = cache.read(URL);
+
+            assertEquals("<html>本文</html>", entry.html());
+            assertEquals("\"v1\"", entry.etag());
+            assertEquals("Wed, 01 Jan 2025 00:00:00 GMT", entry.lastModified());
+        }
+
+        @Test
+        @DisplayName("保存されていないページはnullを返す")
+        void missingEntry() {
+            assertNull(new PageCache(ingestionConfig).read(URL));
+        }
+    }
+
+    @Nested
+    @DisplayName("fetch")
+    class FetchTests {
+
+        @Test
+        @DisplayName("200の場合は変更ありとして返し、commitで本文とETagを保存する")
+        void storesFetchedPageOnCommit() {
+            PageCache cache = new PageCache(ingestionConfig);
+            WebClient client = webClient(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, "\"v1\"")
+                    .body("<html>v1</html>")
+                    .build());
+
+            PageCache.Page page = cache.fetch(client, URL, TIMEOUT);
+
+            assertEquals("<html>v1</html>", page.html());
+            assertFalse(page.notModified());
+            assertNull(requests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+            assertNull(cache.read(URL));
+
+            cache.commit(URL);
+
+            assertEquals("<html>v1</html>", cache.read(URL).html());
+            assertEquals("\"v1\"", cache.read(URL).etag());
+        }
+
+        @Test
+        @DisplayName("discardしたページは保存されず、保存済みのETagも置き換えない")
+        void discardKeepsPreviousEntry() {
+            PageCache cache = new PageCache(ingestionConfig);
+            cache.write(URL, "<html>v1</html>", "\"v1\"", null);
+            WebClient client = webClient(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, "\"v2\"")
+                    .body("<html>v2</html>")
+                    .build());
+
+            cache.fetch(client, URL, TIMEOUT);
+            cache.discard(URL);
+            cache.commit(URL);
+
+            assertEquals("<html>v1</html>", cache.read(URL).html());
+            assertEquals("\"v1\"", cache.read(URL).etag());
+        }
+
+        @Test
+        @DisplayName("保存済みのページは条件付きGETを送信し、304の場合は保存済みの本文を未変更として返す")
+        void returnsCachedPageOnNotModified() {
+            PageCache cache = new PageCache(ingestionConfig);
+            cache.write(URL, "<html>v1</html>", "\"v1\"", "Wed, 01 Jan 2025 00:00:00 GMT");
+            WebClient client = webClient(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+            PageCache.Page page = cache.fetch(client, URL, TIMEOUT);
+
+            assertEquals("<html>v1</html>", page.html());
+            assertTrue(page.notModified());
+            HttpHeaders sent = requests.get(0).headers();
+            assertEquals("\"v1\"", sent.getFirst(HttpHeaders.IF_NONE_MATCH));
+            assertEquals("Wed, 01 Jan 2025 00:00:00 GMT", sent.getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+        }
+
+        @Test
+        @DisplayName("エラーステータスの場合は例外をスローする")
+        void failsOnErrorStatus() {
+            PageCache cache = new PageCache(ingestionConfig);
+            WebClient client = webClient(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+            assertThrows(RuntimeException.class, () -> cache.fetch(client, URL, TIMEOUT));
+            assertNull(cache.read(URL));
+        }
+
+        @Test
+        @DisplayName("オフラインモードではネットワークにアクセスせず保存済みの本文を返す")
+        void offlineReadsFromDisk() {
+            ingestionConfig.getPageCache().setOffline(true);
+            PageCache cache = new PageCache(ingestionConfig);
+            cache.write(URL, "<html>v1</html>", null, null);
+            WebClient client = webClient(ClientResponse.create(HttpStatus.OK).build());
+
+            PageCache.Page page = cache.fetch(client, URL, TIMEOUT);
+
+            assertEquals("<html>v1</html>", page.html());
+            assertTrue(requests.isEmpty());
+        }
+
+        @Test
+        @DisplayName("オフラインモードで保存されていないページは例外をスローする")
+        void offlineMissingPage() {
+            ingestionConfig.getPageCache().setOffline(true);
+            PageCache cache = new PageCache(ingestionConfig);
+
+            assertThrows(IllegalStateException.class,
+                    () -> cache.fetch(webClient(ClientResponse.create(HttpStatus.OK).build()), URL, TIMEOUT));
+        }
+    }
+}
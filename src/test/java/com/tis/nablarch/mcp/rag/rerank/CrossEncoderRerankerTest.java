@@ -2,6 +2,7 @@ package com.tis.nablarch.mcp.rag.rerank;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tis.nablarch.mcp.rag.search.SearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -306,4 +307,42 @@ class CrossEncoderRerankerTest {
             assertEquals("doc-2", results.get(1).id()); // index=1, score=0.8
         }
     }
+
+    @Nested
+    @DisplayName("スコアキャッシュ")
+    class ScoreCacheTests {
+
+        @Test
+        @DisplayName("同じクエリの再検索ではキャッシュにない候補のみをAPIに送る")
+        void sendsOnlyUncachedDocuments() throws Exception {
+            RerankProperties properties = new RerankProperties();
+            properties.getJina().setBaseUrl(mockServer.url("/v1/rerank").toString());
+            CrossEncoderReranker cached = new CrossEncoderReranker(
+                    WebClient.builder(), properties, new SimpleMeterRegistry());
+            List<SearchResult> candidates = createCandidates(4);
+
+            mockServer.enqueue(new MockResponse()
+                    .setBody("""
+                            {"results": [
+                                {"index": 1, "relevance_score": 0.9},
+                                {"index": 2, "relevance_score": 0.3},
+                                {"index": 0, "relevance_score": 0.1}
+                            ]}
+                            """)
+                    .setHeader("Content-Type", "application/json"));
+            mockServer.enqueue(new MockResponse()
+                    .setBody("{\"results\": [{\"index\": 0, \"relevance_score\": 0.5}]}")
+                    .setHeader("Content-Type", "application/json"));
+
+            cached.rerank("クエリ", candidates.subList(0, 3), 1);
+            List<SearchResult> results = cached.rerank("クエリ", candidates, 2);
+
+            // キャッシュ有効時は送った全候補のスコアを取得する
+            assertTrue(mockServer.takeRequest().getBody().readUtf8().contains("\"top_n\":3"));
+            String second = mockServer.takeRequest().getBody().readUtf8();
+            assertTrue(second.contains("ドキュメント4の内容"));
+            assertFalse(second.contains("ドキュメント1の内容"));
+            assertEquals(List.of("doc-2", "doc-4"), results.stream().map(SearchResult::id).toList());
+        }
+    }
 }
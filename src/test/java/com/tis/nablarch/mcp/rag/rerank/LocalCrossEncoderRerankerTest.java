@@ -0,0 +1,129 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.embedding.EmbeddingException;
+import com.tis.nablarch.mcp.embedding.local.OnnxCrossEncoder;
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link LocalCrossEncoderReranker} のユニットテスト。
+ *
+ * <p>{@link OnnxCrossEncoder} をモック化し、スコアによる再順位付けとフォールバックを検証する。</p>
+ */
+class LocalCrossEncoderRerankerTest {
+
+    private OnnxCrossEncoder encoder;
+    private LocalCrossEncoderReranker reranker;
+
+    @BeforeEach
+    void setUp() {
+        encoder = mock(OnnxCrossEncoder.class);
+        RerankProperties properties = new RerankProperties();
+        properties.getLocal().setTopK(3);
+        reranker = new LocalCrossEncoderReranker(properties, encoder);
+    }
+
+    /**
+     * テスト用の検索結果候補を生成する。
+     */
+    private List<SearchResult> createCandidates(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new SearchResult(
+                        "doc-" + i,
+                        "ドキュメント" + i + "の内容",
+                        0.5 + (count - i) * 0.01,
+                        Map.of("source", "test"),
+                        "https://example.com/doc" + i
+                ))
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("正常系")
+    class NormalTests {
+
+        @Test
+        @DisplayName("Cross-Encoderのスコア降順に並べ、スコアを置換してtopK件を返す")
+        void ordersByCrossEncoderScore() {
+            List<SearchResult> candidates = createCandidates(4);
+            when(encoder.score(eq("クエリ"), anyList())).thenReturn(new float[]{0.1f, 0.9f, 0.3f, 0.7f});
+
+            List<SearchResult> results = reranker.rerank("クエリ", candidates, 2);
+
+            assertEquals(List.of("doc-2", "doc-4"), results.stream().map(SearchResult::id).toList());
+            assertEquals(0.9, results.get(0).score(), 1e-6);
+            assertEquals("https://example.com/doc2", results.get(0).sourceUrl());
+            verify(encoder).score("クエリ", candidates.stream().map(SearchResult::content).toList());
+        }
+
+        @Test
+        @DisplayName("topKが0以下の場合は設定のtopKを使用する")
+        void usesConfiguredTopK() {
+            when(encoder.score(anyString(), anyList())).thenReturn(new float[]{0.5f, 0.4f, 0.3f, 0.2f, 0.1f});
+
+            List<SearchResult> results = reranker.rerank("クエリ", createCandidates(5), 0);
+
+            assertEquals(3, results.size());
+        }
+
+        @Test
+        @DisplayName("候補が空の場合は推論せず空リストを返す")
+        void emptyCandidates() {
+            assertTrue(reranker.rerank("クエリ", Collections.emptyList(), 5).isEmpty());
+            assertTrue(reranker.rerank("クエリ", null, 5).isEmpty());
+            verifyNoInteractions(encoder);
+        }
+    }
+
+    @Nested
+    @DisplayName("フォールバック")
+    class FallbackTests {
+
+        @Test
+        @DisplayName("推論が失敗した場合は元のスコア順で返す")
+        void fallsBackToOriginalOrder() {
+            List<SearchResult> candidates = createCandidates(4);
+            when(encoder.score(anyString(), anyList())).thenThrow(new EmbeddingException("推論失敗"));
+
+            List<SearchResult> results = reranker.rerank("クエリ", candidates, 2);
+
+            assertEquals(List.of("doc-1", "doc-2"), results.stream().map(SearchResult::id).toList());
+            assertEquals(candidates.get(0).score(), results.get(0).score());
+        }
+    }
+
+    @Nested
+    @DisplayName("スコアキャッシュ")
+    class ScoreCacheTests {
+
+        @Test
+        @DisplayName("同じクエリの再検索では採点済みの候補を推論しない")
+        void scoresOnlyUnseenCandidates() {
+            LocalCrossEncoderReranker cached = new LocalCrossEncoderReranker(
+                    new RerankProperties(), encoder, new SimpleMeterRegistry());
+            List<SearchResult> candidates = createCandidates(4);
+            when(encoder.score(anyString(), anyList())).thenReturn(new float[]{0.1f, 0.9f, 0.3f});
+
+            cached.rerank("クエリ", candidates.subList(0, 3), 2);
+            when(encoder.score(anyString(), anyList())).thenReturn(new float[]{0.5f});
+            List<SearchResult> results = cached.rerank("クエリ", candidates, 2);
+
+            verify(encoder).score("クエリ", List.of("ドキュメント4の内容"));
+            assertEquals(List.of("doc-2", "doc-4"), results.stream().map(SearchResult::id).toList());
+            assertEquals(0.5, results.get(1).score(), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import com.tis.nablarch.mcp.rag.search.SearchFilters;
+import com.tis.nablarch.mcp.rag.search.SearchMode;
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import com.tis.nablarch.mcp.rag.search.SearchResultCache;
+import com.tis.nablarch.mcp.rag.search.SearchResultCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link RerankCascade} のユニットテスト。
+ */
+class RerankCascadeTest {
+
+    private Reranker reranker;
+    private RerankProperties.Cascade config;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private AtomicLong pairCostMs;
+    private RerankCascade cascade;
+
+    @BeforeEach
+    void setUp() {
+        reranker = mock(Reranker.class);
+        config = new RerankProperties.Cascade();
+        config.setCandidateMultiplier(4);
+        config.setMinCandidates(10);
+        config.setMinScoreRatio(0.5);
+        config.setBudgetMs(100);
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(TimeUnit.SECONDS.toNanos(1));
+        pairCostMs = new AtomicLong(1);
+        cascade = new RerankCascade(reranker, config, meterRegistry, now::get);
+
+        // 1ペアあたりpairCostMs（既定1ms）かかるリランカー
+        when(reranker.rerank(anyString(), anyList(), anyInt())).thenAnswer(invocation -> {
+            List<SearchResult> pairs = invocation.getArgument(1);
+            int topK = invocation.getArgument(2);
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(pairs.size() * pairCostMs.get()));
+            return pairs.subList(0, Math.min(topK, pairs.size()));
+        });
+    }
+
+    /**
+     * 1段目のスコアが緩やかに下がる候補を生成する。
+     */
+    private List<SearchResult> createCandidates(int count, double step) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new SearchResult("doc-" + i, "内容" + i, 1.0 - i * step,
+                        Map.of("source", "test"), "https://example.com/" + i))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SearchResult> rerankedCandidates() {
+        ArgumentCaptor<List<SearchResult>> captor = ArgumentCaptor.forClass(List.class);
+        verify(reranker, atLeastOnce()).rerank(anyString(), captor.capture(), anyInt());
+        return captor.getValue();
+    }
+
+    /**
+     * ウォームアップ（推定に使用しない）と計測の2回リランキングし、推論コストを推定させる。
+     */
+    private void measureCost() {
+        cascade.rerank("クエリ", createCandidates(20, 0.001), 5, now.get());
+        cascade.rerank("クエリ", createCandidates(20, 0.001), 5, now.get());
+    }
+
+    /**
+     * バジェットを使い切っていない状態でリランキングする。
+     */
+    private void rerankWithFullBudget() {
+        cascade.rerank("クエリ", createCandidates(50, 0.001), 5, now.get());
+    }
+
+    private double decisions(String decision) {
+        return meterRegistry.get("rerank.cascade.requests").tag("decision", decision).counter().count();
+    }
+
+    @Nested
+    @DisplayName("候補の絞り込み")
+    class PruningTests {
+
+        @Test
+        @DisplayName("topK × 倍率件の上位候補のみをリランキングし、省いたペア数を記録する")
+        void limitsToMultipleOfTopK() {
+            cascade.rerank("クエリ", createCandidates(50, 0.001), 5, now.get());
+
+            List<SearchResult> reranked = rerankedCandidates();
+            assertEquals(20, reranked.size());
+            assertEquals("doc-0", reranked.get(0).id());
+            assertEquals(1.0, decisions("pruned"));
+            assertEquals(30.0, meterRegistry.get("rerank.cascade.pairs.saved").counter().count());
+            assertEquals(20.0, meterRegistry.get("rerank.cascade.pairs").summary().totalAmount());
+        }
+
+        @Test
+        @DisplayName("1段目スコアが最上位の比率未満の候補を除く（topK件は残す）")
+        void dropsCandidatesBelowScoreRatio() {
+            cascade.rerank("クエリ", createCandidates(50, 0.1), 3, now.get());
+
+            // スコア 1.0, 0.9, ..., 0.5 の6件（0.5以上）
+            assertEquals(6, rerankedCandidates().size());
+
+            cascade.rerank("クエリ", createCandidates(50, 0.3), 3, now.get());
+
+            assertEquals(3, rerankedCandidates().size());
+        }
+
+        @Test
+        @DisplayName("候補数が上限以下の場合は全候補をリランキングする")
+        void rerankAllWhenFewCandidates() {
+            cascade.rerank("クエリ", createCandidates(8, 0.01), 5, now.get());
+
+            assertEquals(8, rerankedCandidates().size());
+            assertEquals(1.0, decisions("full"));
+        }
+
+        @Test
+        @DisplayName("無効の場合は全候補をそのままリランキングする")
+        void disabledPassesAllCandidates() {
+            List<SearchResult> candidates = createCandidates(50, 0.1);
+
+            RerankCascade.disabled(reranker).rerank("クエリ", candidates, 5, now.get());
+
+            verify(reranker).rerank("クエリ", candidates, 5);
+        }
+    }
+
+    @Nested
+    @DisplayName("レイテンシバジェット")
+    class BudgetTests {
+
+        @Test
+        @DisplayName("推定した推論コストから残りバジェットで推論できる件数に絞る")
+        void limitsToAffordablePairs() {
+            // 推論コスト（1ms/ペア）を計測
+            measureCost();
+
+            // 残り12ms → 12件
+            long start = now.get() - TimeUnit.MILLISECONDS.toNanos(88);
+            cascade.rerank("クエリ", createCandidates(50, 0.001), 5, start);
+
+            assertEquals(12, rerankedCandidates().size());
+        }
+
+        @Test
+        @DisplayName("残りバジェットでtopK件も推論できない場合はリランキングを省略し1段目の順位で返す")
+        void skipsRerankWhenBudgetExhausted() {
+            measureCost();
+            clearInvocations(reranker);
+
+            long start = now.get() - TimeUnit.MILLISECONDS.toNanos(97);
+            List<SearchResult> results = cascade.rerank("クエリ", createCandidates(50, 0.001), 5, start);
+
+            verifyNoInteractions(reranker);
+            assertEquals(List.of("doc-0", "doc-1", "doc-2", "doc-3", "doc-4"),
+                    results.stream().map(SearchResult::id).toList());
+            assertEquals(1.0, decisions("skipped"));
+        }
+
+        @Test
+        @DisplayName("リランキングを省略した結果は検索結果キャッシュに格納されない")
+        void skippedResultsAreNotCached() {
+            measureCost();
+            SearchResultCacheRepository cacheRepository = mock(SearchResultCacheRepository.class);
+            when(cacheRepository.currentGeneration()).thenReturn(1L);
+            SearchResultCache cache = new SearchResultCache(
+                    cacheRepository, new SearchResultCacheProperties(), null, null, new SimpleMeterRegistry());
+            long start = now.get() - TimeUnit.MILLISECONDS.toNanos(97);
+
+            cache.get("クエリ", SearchFilters.NONE, SearchMode.HYBRID, 5,
+                    () -> cascade.rerank("クエリ", createCandidates(50, 0.001), 5, start));
+
+            assertEquals(1.0, decisions("skipped"));
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("推論コストが未計測の場合はバジェットで絞り込まない")
+        void noBudgetLimitBeforeFirstMeasurement() {
+            long start = now.get() - TimeUnit.MILLISECONDS.toNanos(500);
+
+            cascade.rerank("クエリ", createCandidates(50, 0.001), 5, start);
+
+            assertEquals(20, rerankedCandidates().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("推論コストの推定の補正")
+    class CostEstimateTests {
+
+        @Test
+        @DisplayName("初回（ウォームアップ）の遅い計測は推定に使用しない")
+        void ignoresColdFirstSample() {
+            pairCostMs.set(50);
+            cascade.rerank("クエリ", createCandidates(20, 0.001), 5, now.get());
+            pairCostMs.set(1);
+
+            rerankWithFullBudget();
+
+            assertEquals(20, rerankedCandidates().size());
+            assertEquals(0.0, decisions("skipped"));
+        }
+
+        @Test
+        @DisplayName("1回の遅い計測の後もリランキングを続ける（計測値は推定の4倍までに制限）")
+        void keepsRerankingAfterOneSlowSample() {
+            measureCost();
+            pairCostMs.set(40);
+            rerankWithFullBudget();
+            // 推定は 1ms × 0.8 + 4ms × 0.2 = 1.6ms（40msの計測値を4msに制限）
+            assertEquals(1.6e-3, meterRegistry.get("rerank.cascade.pair.cost").gauge().value(), 1e-9);
+            pairCostMs.set(1);
+            clearInvocations(reranker);
+
+            rerankWithFullBudget();
+
+            // 100ms / 1.6ms = 62件（候補数の上限20件）
+            assertEquals(20, rerankedCandidates().size());
+            assertEquals(0.0, decisions("skipped"));
+        }
+
+        @Test
+        @DisplayName("リランキングを省略するたびに推定を最小の計測値に向けて減衰させ、遅延の解消後に再開する")
+        void decaysEstimateWhileSkipping() {
+            measureCost();
+            pairCostMs.set(30);
+            for (int i = 0; i < 20 && decisions("skipped") == 0; i++) {
+                rerankWithFullBudget();
+            }
+            assertEquals(1.0, decisions("skipped"));
+            pairCostMs.set(1);
+            clearInvocations(reranker);
+
+            rerankWithFullBudget();
+
+            assertEquals(1.0, decisions("skipped"));
+            verify(reranker).rerank(anyString(), anyList(), eq(5));
+        }
+
+        @Test
+        @DisplayName("続けて省略した後はtopK件のみリランキングして推論コストを再計測する")
+        void probesAfterConsecutiveSkips() {
+            config.setProbeInterval(3);
+            // 最小の計測値も遅いため、減衰だけでは推定が下がらない
+            pairCostMs.set(30);
+            measureCost();
+            pairCostMs.set(1);
+            clearInvocations(reranker);
+
+            for (int i = 0; i < 3; i++) {
+                rerankWithFullBudget();
+            }
+            verifyNoInteractions(reranker);
+            assertEquals(3.0, decisions("skipped"));
+
+            rerankWithFullBudget();
+
+            assertEquals(1.0, decisions("probe"));
+            assertEquals(5, rerankedCandidates().size());
+
+            // 再計測で推定が 30ms × 0.8 + 1ms × 0.2 = 24.2ms に下がり、減衰を経てリランキングを再開する
+            rerankWithFullBudget();
+            rerankWithFullBudget();
+            assertEquals(4.0, decisions("skipped"));
+            assertEquals(1.0, decisions("pruned"));
+        }
+    }
+}
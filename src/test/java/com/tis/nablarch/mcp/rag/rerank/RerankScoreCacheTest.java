@@ -0,0 +1,210 @@
+package com.tis.nablarch.mcp.rag.rerank;
+
+import com.tis.nablarch.mcp.rag.search.SearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link RerankScoreCache} のユニットテスト。
+ */
+class RerankScoreCacheTest {
+
+    private RerankProperties.ScoreCache config;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private RerankScoreCache cache;
+    private List<List<String>> scoredIds;
+
+    @BeforeEach
+    void setUp() {
+        config = new RerankProperties.ScoreCache();
+        config.setMaxSize(100);
+        config.setTtl(Duration.ofMinutes(30));
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new RerankScoreCache("test-model", config, meterRegistry, clock);
+        scoredIds = new ArrayList<>();
+    }
+
+    private List<SearchResult> candidates(int... ids) {
+        return IntStream.of(ids)
+                .mapToObj(i -> new SearchResult("doc-" + i, "内容" + i, 0.5, Map.of(), null))
+                .toList();
+    }
+
+    /**
+     * 候補ID番号の1/100をスコアとし、採点した候補IDを記録する採点処理。
+     */
+    private Function<List<SearchResult>, double[]> scorer() {
+        return misses -> {
+            scoredIds.add(misses.stream().map(SearchResult::id).toList());
+            return misses.stream().mapToDouble(r -> Integer.parseInt(r.id().substring(4)) / 100.0).toArray();
+        };
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("rerank.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Nested
+    @DisplayName("scores")
+    class ScoresTests {
+
+        @Test
+        @DisplayName("キャッシュにない候補のみを採点し、全候補のスコアを入力順に返す")
+        void scoresOnlyMisses() {
+            cache.scores("クエリ", candidates(1, 2, 3), scorer());
+
+            double[] scores = cache.scores("クエリ", candidates(3, 4, 1), scorer());
+
+            assertArrayEquals(new double[]{0.03, 0.04, 0.01}, scores, 1e-9);
+            assertEquals(List.of(List.of("doc-1", "doc-2", "doc-3"), List.of("doc-4")), scoredIds);
+            assertEquals(2.0, count("hit"));
+            assertEquals(4.0, count("miss"));
+        }
+
+        @Test
+        @DisplayName("全候補がヒットした場合は採点処理を呼び出さない")
+        void allHitsSkipScorer() {
+            cache.scores("クエリ", candidates(1, 2), scorer());
+
+            cache.scores("クエリ", candidates(2, 1), scorer());
+
+            assertEquals(1, scoredIds.size());
+        }
+
+        @Test
+        @DisplayName("全角・空白の違いは正規化して同じクエリとみなす")
+        void normalizesQuery() {
+            cache.scores("ハンドラ  キュー", candidates(1), scorer());
+
+            cache.scores(" ハンドラ　キュー ", candidates(1), scorer());
+
+            assertEquals(1, scoredIds.size());
+        }
+
+        @Test
+        @DisplayName("クエリが異なる場合はヒットしない")
+        void differentQueryMisses() {
+            cache.scores("クエリA", candidates(1), scorer());
+
+            cache.scores("クエリB", candidates(1), scorer());
+
+            assertEquals(2, scoredIds.size());
+        }
+
+        @Test
+        @DisplayName("IDが同じでもテーブルが異なるチャンクは別の候補として採点する")
+        void sameIdInDifferentTablesMisses() {
+            SearchResult document = new SearchResult("1", "ドキュメント", 0.5, Map.of("table", "document_chunks"), null);
+            SearchResult code = new SearchResult("1", "コード", 0.5, Map.of("table", "code_chunks"), null);
+            cache.scores("クエリ", List.of(document), misses -> new double[]{0.9});
+
+            double[] scores = cache.scores("クエリ", List.of(code, document), misses -> {
+                scoredIds.add(misses.stream().map(r -> r.metadata().get("table")).toList());
+                return new double[]{0.1};
+            });
+
+            assertArrayEquals(new double[]{0.1, 0.9}, scores, 1e-9);
+            assertEquals(List.of(List.of("code_chunks")), scoredIds);
+        }
+
+        @Test
+        @DisplayName("NaNのスコア（採点されなかった候補）はキャッシュしない")
+        void doesNotCacheNaN() {
+            cache.scores("クエリ", candidates(1, 2), misses -> new double[]{0.9, Double.NaN});
+
+            cache.scores("クエリ", candidates(1, 2), scorer());
+
+            assertEquals(List.of(List.of("doc-2")), scoredIds);
+        }
+
+        @Test
+        @DisplayName("無効の場合は常に全候補を採点する")
+        void disabledScoresAll() {
+            config.setEnabled(false);
+            RerankScoreCache disabled = new RerankScoreCache("test-model", config, new SimpleMeterRegistry(), clock);
+
+            disabled.scores("クエリ", candidates(1, 2), scorer());
+            disabled.scores("クエリ", candidates(1, 2), scorer());
+
+            assertEquals(2, scoredIds.size());
+            assertEquals(0, disabled.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("削除")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("TTLを過ぎたエントリは再採点する")
+        void expiredEntriesAreRescored() {
+            cache.scores("クエリ", candidates(1), scorer());
+            clock.advance(Duration.ofMinutes(31));
+
+            cache.scores("クエリ", candidates(1), scorer());
+
+            assertEquals(2, scoredIds.size());
+            assertEquals(1.0, meterRegistry.get("rerank.cache.evictions").tag("cause", "expired").counter().count());
+        }
+
+        @Test
+        @DisplayName("サイズ上限を超えた場合は最も古く参照されたエントリから削除する")
+        void evictsLeastRecentlyUsed() {
+            config.setMaxSize(2);
+            RerankScoreCache small = new RerankScoreCache("test-model", config, new SimpleMeterRegistry(), clock);
+            small.scores("クエリ", candidates(1, 2), scorer());
+            small.scores("クエリ", candidates(1), scorer());
+
+            small.scores("クエリ", candidates(3), scorer());
+            small.scores("クエリ", candidates(1, 2), scorer());
+
+            assertEquals(2, small.size());
+            assertEquals(List.of("doc-2"), scoredIds.get(scoredIds.size() - 1));
+        }
+    }
+
+    /**
+     * テスト用の進められる時計。
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link BM25IndexManager} のユニットテスト。
+ */
+class BM25IndexManagerTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private SearchResultCacheRepository generationRepository;
+    private SearchProperties searchProperties;
+    private BM25IndexManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of());
+        generationRepository = mock(SearchResultCacheRepository.class);
+        when(generationRepository.currentGeneration()).thenReturn(1L);
+        searchProperties = new SearchProperties();
+        manager = new BM25IndexManager(jdbcTemplate, generationRepository, searchProperties);
+    }
+
+    /**
+     * インデックスの構築回数を検証する（1回の構築で2テーブル分のページを読み込む）。
+     */
+    @SuppressWarnings("unchecked")
+    private void verifyBuilds(int count) {
+        verify(jdbcTemplate, times(count * 2))
+                .query(anyString(), any(SqlParameterSource.class), any(RowMapper.class));
+    }
+
+    @Nested
+    @DisplayName("コーパス世代による再構築")
+    class RefreshIfStaleTests {
+
+        @Test
+        @DisplayName("未構築の場合は構築する")
+        void buildsWhenNotBuilt() {
+            manager.refreshIfStale();
+
+            assertNotNull(manager.current());
+            verifyBuilds(1);
+        }
+
+        @Test
+        @DisplayName("世代が変わっていない場合は再構築しない")
+        void keepsIndexWhenGenerationUnchanged() {
+            manager.refreshIfStale();
+
+            manager.refreshIfStale();
+
+            verifyBuilds(1);
+        }
+
+        @Test
+        @DisplayName("世代が変わった場合は再構築する")
+        void rebuildsWhenGenerationChanged() {
+            manager.refreshIfStale();
+            BM25Index first = manager.current();
+            when(generationRepository.currentGeneration()).thenReturn(2L);
+
+            manager.refreshIfStale();
+
+            verifyBuilds(2);
+            assertNotSame(first, manager.current());
+            assertTrue(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("世代を取得できない場合は再構築しない")
+        void keepsIndexWhenGenerationUnknown() {
+            manager.refreshIfStale();
+            when(generationRepository.currentGeneration()).thenThrow(new RuntimeException("connection refused"));
+
+            manager.refreshIfStale();
+
+            verifyBuilds(1);
+        }
+
+        @Test
+        @DisplayName("世代の確認を無効にした場合は世代が変わっても再構築しない")
+        void generationCheckCanBeDisabled() {
+            searchProperties.getBm25().setGenerationCheckInterval(Duration.ZERO);
+            manager.refreshIfStale();
+            when(generationRepository.currentGeneration()).thenReturn(2L);
+
+            manager.refreshIfStale();
+
+            verifyBuilds(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("isCurrent")
+    class IsCurrentTests {
+
+        @Test
+        @DisplayName("構築時の世代と一致する場合のみtrueを返す")
+        void comparesIndexedGeneration() {
+            manager.refresh();
+
+            assertTrue(manager.isCurrent(1L));
+            assertFalse(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("構築完了前はSQL検索で応答するためtrueを返す")
+        void currentBeforeBuild() {
+            assertTrue(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("SQLエンジンの場合は常にtrueを返す")
+        void currentWithSqlEngine() {
+            searchProperties.getBm25().setEngine(SearchProperties.Bm25Config.ENGINE_SQL);
+            manager.refresh();
+
+            assertTrue(manager.isCurrent(2L));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link BM25Index} のユニットテスト。
+ */
+class BM25IndexTest {
+
+    private BM25Index index;
+
+    @BeforeEach
+    void setUp() {
+        index = BM25Index.builder()
+                .addDocument(1L, "ハンドラキューはリクエスト処理を構成するハンドラの並びである。",
+                        "nablarch-fw-web", "ja", "web", "nablarch-document", "documentation")
+                .addDocument(2L, "バッチアプリケーションではハンドラキューにループハンドラを追加する。"
+                        + "バッチの処理方式を説明する。",
+                        "nablarch-fw-batch", "ja", "batch", "nablarch-document", "documentation")
+                .addDocument(3L, "データベースアクセスにはUniversalDaoを使用する。",
+                        null, "ja", null, "nablarch-document", "documentation")
+                .addCode(101L, "public class UniversalDaoSample { UniversalDao.findAll(Entity.class); }",
+                        "nablarch-common-dao", "java")
+                .build(1.2, 0.75);
+    }
+
+    private List<Long> ids(List<BM25Index.Hit> hits) {
+        return hits.stream().map(BM25Index.Hit::id).toList();
+    }
+
+    @Nested
+    @DisplayName("スコアリング")
+    class ScoringTests {
+
+        @Test
+        @DisplayName("クエリ語を含むチャンクのみがスコア降順で返る")
+        void returnsMatchingChunksByScore() {
+            List<BM25Index.Hit> hits = index.search(
+                    BM25Tokenizer.tokenize("ハンドラキュー"), SearchFilters.NONE, 10);
+
+            assertEquals(List.of(1L, 2L), ids(hits));
+            assertTrue(hits.get(0).score() > hits.get(1).score());
+        }
+
+        @Test
+        @DisplayName("両テーブルを横断して検索し、取得元テーブルを返す")
+        void searchesAcrossTables() {
+            List<BM25Index.Hit> hits = index.search(
+                    BM25Tokenizer.tokenize("UniversalDao"), SearchFilters.NONE, 10);
+
+            assertEquals(2, hits.size());
+            assertTrue(hits.stream().anyMatch(h -> h.id() == 3L && h.documentTable()));
+            assertTrue(hits.stream().anyMatch(h -> h.id() == 101L && !h.documentTable()));
+        }
+
+        @Test
+        @DisplayName("topKで件数が制限される")
+        void limitsToTopK() {
+            assertEquals(1, index.search(BM25Tokenizer.tokenize("ハンドラ"), SearchFilters.NONE, 1).size());
+        }
+
+        @Test
+        @DisplayName("インデックスに存在しない語のみの場合は空リストを返す")
+        void unknownTermsReturnEmpty() {
+            assertTrue(index.search(BM25Tokenizer.tokenize("存在しない語彙"), SearchFilters.NONE, 10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("メタデータフィルタ")
+    class FilterTests {
+
+        @Test
+        @DisplayName("app_typeフィルタは一致またはnullのドキュメントのみ通す")
+        void appTypeFilterAllowsNull() {
+            SearchFilters filters = new SearchFilters("batch", null, null, null, null);
+
+            List<BM25Index.Hit> hits = index.search(BM25Tokenizer.tokenize("ハンドラ"), filters, 10);
+
+            assertEquals(List.of(2L), ids(hits));
+        }
+
+        @Test
+        @DisplayName("sourceフィルタはcode_chunksには適用されない")
+        void sourceFilterIgnoredForCode() {
+            SearchFilters filters = new SearchFilters(null, null, "github", null, null);
+
+            List<BM25Index.Hit> hits = index.search(BM25Tokenizer.tokenize("UniversalDao"), filters, 10);
+
+            assertEquals(List.of(101L), ids(hits));
+        }
+
+        @Test
+        @DisplayName("languageフィルタは完全一致のみ通す")
+        void languageFilterIsStrict() {
+            SearchFilters filters = new SearchFilters(null, null, null, null, "java");
+
+            List<BM25Index.Hit> hits = index.search(BM25Tokenizer.tokenize("UniversalDao"), filters, 10);
+
+            assertEquals(List.of(101L), ids(hits));
+        }
+    }
+}
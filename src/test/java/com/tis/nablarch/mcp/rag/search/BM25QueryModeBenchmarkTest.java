@@ -0,0 +1,118 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * BM25検索（インメモリインデックス / SQL union / SQL per-table）のレイテンシ比較ベンチマーク。
+ *
+ * <p>pg_trgmが有効でデータ投入済みのPostgreSQLが必要なため、
+ * 環境変数 {@code BENCHMARK_JDBC_URL} が設定されている場合のみ実行する。
+ * 接続ユーザーは {@code BENCHMARK_JDBC_USER} / {@code BENCHMARK_JDBC_PASSWORD} で指定する。</p>
+ *
+ * <pre>
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/nablarch_mcp \
+ * BENCHMARK_JDBC_USER=nablarch BENCHMARK_JDBC_PASSWORD=nablarch_dev \
+ * ./mvnw test -Dtest=BM25QueryModeBenchmarkTest
+ * </pre>
+ *
+ * <p>各方式を交互に実行して時間変動の影響を均し、p50/p95/平均を標準出力に出力する。
+ * インデックス方式はスコア体系が異なるため、結果の一致はSQLの2モード間でのみ確認する。</p>
+ */
+class BM25QueryModeBenchmarkTest {
+
+    private static final List<String> QUERIES = List.of(
+            "ハンドラキュー",
+            "UniversalDao 検索",
+            "バッチ 処理",
+            "REST API",
+            "データベース アクセス",
+            "バリデーション");
+
+    private static final int TOP_K = 10;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 200;
+
+    @Test
+    @DisplayName("インデックス・unionモード・per-tableモードのレイテンシを比較する")
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK_JDBC_URL", matches = ".+")
+    void compareQueryModeLatency() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(System.getenv("BENCHMARK_JDBC_URL"));
+            dataSource.setUsername(System.getenv("BENCHMARK_JDBC_USER"));
+            dataSource.setPassword(System.getenv("BENCHMARK_JDBC_PASSWORD"));
+            dataSource.setMaximumPoolSize(4);
+
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+            BM25SearchService union = new BM25SearchService(
+                    jdbcTemplate, BM25SearchService.QUERY_MODE_UNION);
+            BM25SearchService perTable = new BM25SearchService(
+                    jdbcTemplate, BM25SearchService.QUERY_MODE_PER_TABLE);
+            BM25IndexManager indexManager = new BM25IndexManager(
+                    jdbcTemplate, new SearchResultCacheRepository(jdbcTemplate), new SearchProperties());
+            indexManager.refresh();
+            BM25SearchService indexed = new BM25SearchService(
+                    jdbcTemplate, BM25SearchService.QUERY_MODE_UNION, indexManager);
+
+            // 両モードが同じスコア列を返すことを確認する（同点の並び順は問わない）
+            for (String query : QUERIES) {
+                assertEquals(scores(perTable.search(query, SearchFilters.NONE, TOP_K)),
+                        scores(union.search(query, SearchFilters.NONE, TOP_K)),
+                        "モード間で結果が一致しない: " + query);
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                runAll(indexed);
+                runAll(union);
+                runAll(perTable);
+            }
+
+            long[] indexNanos = new long[MEASURE_ROUNDS];
+            long[] unionNanos = new long[MEASURE_ROUNDS];
+            long[] perTableNanos = new long[MEASURE_ROUNDS];
+            for (int i = 0; i < MEASURE_ROUNDS; i++) {
+                indexNanos[i] = runAll(indexed);
+                unionNanos[i] = runAll(union);
+                perTableNanos[i] = runAll(perTable);
+            }
+
+            System.out.printf("BM25検索方式比較（%dクエリ/ラウンド, %dラウンド）%n",
+                    QUERIES.size(), MEASURE_ROUNDS);
+            report(SearchProperties.Bm25Config.ENGINE_INDEX, indexNanos);
+            report(BM25SearchService.QUERY_MODE_UNION, unionNanos);
+            report(BM25SearchService.QUERY_MODE_PER_TABLE, perTableNanos);
+        }
+    }
+
+    private static long runAll(BM25SearchService service) {
+        long start = System.nanoTime();
+        for (String query : QUERIES) {
+            service.search(query, SearchFilters.NONE, TOP_K);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Double> scores(List<SearchResult> results) {
+        return results.stream().map(SearchResult::score).toList();
+    }
+
+    private static void report(String mode, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double perQuery = QUERIES.size() * 1_000_000.0;
+        System.out.printf("  %-10s p50=%.3fms p95=%.3fms mean=%.3fms (1クエリあたり)%n",
+                mode,
+                sorted[sorted.length / 2] / perQuery,
+                sorted[(int) (sorted.length * 0.95)] / perQuery,
+                Arrays.stream(sorted).average().orElse(0) / perQuery);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.sql.ResultSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -227,6 +228,137 @@ class BM25SearchServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("unionクエリモード")
+    class UnionQueryModeTests {
+
+        private BM25SearchService unionService;
+
+        @BeforeEach
+        void setUp() {
+            unionService = new BM25SearchService(jdbcTemplate, BM25SearchService.QUERY_MODE_UNION);
+        }
+
+        @Test
+        @DisplayName("両テーブルをUNION ALLで結合した1文のみ発行する")
+        @SuppressWarnings("unchecked")
+        void issuesSingleUnionStatement() {
+            SearchFilters filters = new SearchFilters("web", null, null, null, null);
+            ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+            when(jdbcTemplate.query(sqlCaptor.capture(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            unionService.search("バッチ処理", filters, 10);
+
+            verify(jdbcTemplate, times(1)).query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class));
+            String sql = sqlCaptor.getValue();
+            assertTrue(sql.contains("FROM document_chunks"));
+            assertTrue(sql.contains("FROM code_chunks"));
+            assertTrue(sql.contains("UNION ALL"));
+            assertTrue(sql.endsWith("ORDER BY bm25_score DESC LIMIT :top_k"));
+
+            String codeBranch = sql.substring(sql.indexOf("UNION ALL"));
+            assertTrue(sql.contains("app_type = :app_type"), "document_chunksにapp_typeフィルタが含まれていない");
+            assertFalse(codeBranch.contains("app_type = :app_type"), "code_chunksにapp_typeフィルタが含まれてはならない");
+        }
+
+        @Test
+        @DisplayName("chunk_table列で行の取得元テーブルを判別してマッピングする")
+        @SuppressWarnings("unchecked")
+        void mapsRowsByChunkTable() throws Exception {
+            ArgumentCaptor<RowMapper<SearchResult>> mapperCaptor = ArgumentCaptor.forClass(RowMapper.class);
+            when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), mapperCaptor.capture()))
+                    .thenReturn(Collections.emptyList());
+            unionService.search("テスト", SearchFilters.NONE, 10);
+
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString("chunk_table")).thenReturn("code_chunks");
+            when(rs.getString("id")).thenReturn("101");
+            when(rs.getString("content")).thenReturn("public class Foo {}");
+            when(rs.getDouble("bm25_score")).thenReturn(0.5);
+            when(rs.getString("repo")).thenReturn("nablarch-fw");
+            when(rs.getString("file_path")).thenReturn("src/Foo.java");
+
+            SearchResult result = mapperCaptor.getValue().mapRow(rs, 0);
+
+            assertEquals("101", result.id());
+            assertEquals("nablarch-fw", result.metadata().get("repo"));
+            assertEquals("code_chunks", result.metadata().get("table"));
+            assertEquals("src/Foo.java", result.sourceUrl());
+        }
+
+        @Test
+        @DisplayName("キーワードが抽出できない場合はクエリを発行しない")
+        void noQueryWithoutKeywords() {
+            List<SearchResult> results = unionService.search("<>", SearchFilters.NONE, 10);
+
+            assertTrue(results.isEmpty());
+            verifyNoInteractions(jdbcTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("BM25インデックスエンジン")
+    class IndexEngineTests {
+
+        @Mock
+        private BM25IndexManager indexManager;
+
+        private BM25SearchService indexService;
+
+        @BeforeEach
+        void setUp() {
+            indexService = new BM25SearchService(
+                    jdbcTemplate, BM25SearchService.QUERY_MODE_UNION, indexManager);
+        }
+
+        @Test
+        @DisplayName("インデックスのヒット順に、DBから取得した本文でSearchResultを返す")
+        @SuppressWarnings("unchecked")
+        void returnsHydratedHitsInScoreOrder() throws Exception {
+            when(indexManager.current()).thenReturn(BM25Index.builder()
+                    .addDocument(1L, "ハンドラキューの構成", null, "ja", null, "nablarch-document", "documentation")
+                    .addDocument(2L, "データベースアクセス", null, "ja", null, "nablarch-document", "documentation")
+                    .build(1.2, 0.75));
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(1L);
+            when(rs.getString("id")).thenReturn("1");
+            when(rs.getString("content")).thenReturn("ハンドラキューの構成");
+            when(rs.getString("url")).thenReturn("https://example.com/handler");
+            ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+            when(jdbcTemplate.query(sqlCaptor.capture(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenAnswer(inv -> {
+                        inv.getArgument(2, RowMapper.class).mapRow(rs, 0);
+                        return Collections.emptyList();
+                    });
+
+            List<SearchResult> results = indexService.search("ハンドラキュー", SearchFilters.NONE, 10);
+
+            assertEquals(1, results.size());
+            assertEquals("1", results.get(0).id());
+            assertEquals("ハンドラキューの構成", results.get(0).content());
+            assertEquals("https://example.com/handler", results.get(0).sourceUrl());
+            assertTrue(results.get(0).score() > 0);
+            // ヒットのないcode_chunksには問い合わせない
+            assertEquals(1, sqlCaptor.getAllValues().size());
+            assertTrue(sqlCaptor.getValue().contains("FROM document_chunks WHERE id IN (:ids)"));
+        }
+
+        @Test
+        @DisplayName("インデックス未構築の場合はSQL検索で応答する")
+        @SuppressWarnings("unchecked")
+        void fallsBackToSqlWhenIndexNotReady() {
+            when(indexManager.current()).thenReturn(null);
+            ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+            when(jdbcTemplate.query(sqlCaptor.capture(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            indexService.search("ハンドラキュー", SearchFilters.NONE, 10);
+
+            assertTrue(sqlCaptor.getValue().contains("ILIKE"));
+        }
+    }
+
     @Nested
     @DisplayName("extractKeywords")
     class ExtractKeywordsTests {
@@ -0,0 +1,55 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link BM25Tokenizer} のユニットテスト。
+ */
+class BM25TokenizerTest {
+
+    @Test
+    @DisplayName("日本語の連続部分は文字bigramに分割される")
+    void japaneseRunsAreSplitIntoBigrams() {
+        assertEquals(List.of("ハン", "ンド", "ドラ", "ラキ", "キュ", "ュー"),
+                BM25Tokenizer.tokenize("ハンドラキュー"));
+    }
+
+    @Test
+    @DisplayName("1文字の日本語はunigramとして扱う")
+    void singleJapaneseCharIsUnigram() {
+        assertEquals(List.of("表"), BM25Tokenizer.tokenize("表"));
+    }
+
+    @Test
+    @DisplayName("英数字は小文字の単語になり、CamelCaseは構成語も追加される")
+    void camelCaseWordsAreExpanded() {
+        assertEquals(List.of("universaldao", "universal", "dao"),
+                BM25Tokenizer.tokenize("UniversalDao"));
+    }
+
+    @Test
+    @DisplayName("記号で区切られ、日本語と英数字の境界でも分割される")
+    void mixedTextIsSplitAtBoundaries() {
+        assertEquals(List.of("nablarch", "fw", "handler", "設定"),
+                BM25Tokenizer.tokenize("nablarch.fw.Handler設定"));
+    }
+
+    @Test
+    @DisplayName("全角英数字はNFKC正規化される")
+    void fullWidthIsNormalized() {
+        assertEquals(List.of("rest", "api"), BM25Tokenizer.tokenize("ＲＥＳＴ　ＡＰＩ"));
+    }
+
+    @Test
+    @DisplayName("nullや空文字は空リストを返す")
+    void emptyInputReturnsEmptyList() {
+        assertTrue(BM25Tokenizer.tokenize(null).isEmpty());
+        assertTrue(BM25Tokenizer.tokenize("").isEmpty());
+        assertTrue(BM25Tokenizer.tokenize("、。!?").isEmpty());
+    }
+}
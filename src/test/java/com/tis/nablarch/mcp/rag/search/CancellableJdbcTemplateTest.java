@@ -0,0 +1,142 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.common.CancellationScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link CancellableJdbcTemplate} のユニットテスト。
+ */
+class CancellableJdbcTemplateTest {
+
+    private DataSource dataSource;
+    private Statement statement;
+    private ResultSet resultSet;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+    }
+
+    @Nested
+    @DisplayName("中断処理の登録と解除")
+    class HookTests {
+
+        @Test
+        @DisplayName("実行中にスコープがキャンセルされるとStatement.cancelを呼び出す")
+        void cancelsRunningStatement() throws SQLException {
+            CancellationScope scope = CancellationScope.create();
+            when(statement.executeQuery("SELECT 1")).thenReturn(resultSet);
+            when(resultSet.next()).thenAnswer(invocation -> {
+                scope.cancel();
+                return false;
+            });
+
+            try (CancellationScope.Handle bound = scope.bind()) {
+                new CancellableJdbcTemplate(dataSource).query("SELECT 1", (RowCallbackHandler) rs -> { });
+            }
+
+            verify(statement).cancel();
+        }
+
+        @Test
+        @DisplayName("正常終了したStatementの中断処理は登録解除される")
+        void releasesHookAfterCompletion() throws SQLException {
+            CancellationScope scope = CancellationScope.create();
+            when(statement.executeQuery("SELECT 1")).thenReturn(resultSet);
+
+            try (CancellationScope.Handle bound = scope.bind()) {
+                new CancellableJdbcTemplate(dataSource).query("SELECT 1", (RowCallbackHandler) rs -> { });
+            }
+            scope.cancel();
+
+            verify(statement, never()).cancel();
+        }
+
+        @Test
+        @DisplayName("SQLExceptionで終了したStatementの中断処理も登録解除される")
+        void releasesHookAfterFailure() throws SQLException {
+            CancellationScope scope = CancellationScope.create();
+            when(statement.executeQuery("SELECT 1")).thenThrow(new SQLException("syntax error", "42601"));
+
+            try (CancellationScope.Handle bound = scope.bind()) {
+                CancellableJdbcTemplate template = new CancellableJdbcTemplate(dataSource);
+                assertThrows(DataAccessException.class,
+                        () -> template.query("SELECT 1", (RowCallbackHandler) rs -> { }));
+            }
+            scope.cancel();
+
+            verify(statement, never()).cancel();
+        }
+    }
+
+    @Nested
+    @DisplayName("wrap")
+    class WrapTests {
+
+        @Test
+        @DisplayName("元のテンプレートの設定を引き継ぐ")
+        void copiesSettings() {
+            JdbcTemplate base = new JdbcTemplate(dataSource);
+            base.setFetchSize(100);
+            base.setMaxRows(10);
+            base.setIgnoreWarnings(false);
+            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(base);
+            template.setCacheLimit(32);
+
+            NamedParameterJdbcTemplate wrapped = CancellableJdbcTemplate.wrap(template, Duration.ofSeconds(8));
+
+            JdbcTemplate cancellable = wrapped.getJdbcTemplate();
+            assertInstanceOf(CancellableJdbcTemplate.class, cancellable);
+            assertSame(dataSource, cancellable.getDataSource());
+            assertSame(base.getExceptionTranslator(), cancellable.getExceptionTranslator());
+            assertEquals(100, cancellable.getFetchSize());
+            assertEquals(10, cancellable.getMaxRows());
+            assertFalse(cancellable.isIgnoreWarnings());
+            assertEquals(32, wrapped.getCacheLimit());
+            assertEquals(8, cancellable.getQueryTimeout());
+        }
+
+        @Test
+        @DisplayName("元のテンプレートのクエリタイムアウトが短い場合はそちらを使用する")
+        void keepsShorterQueryTimeout() {
+            JdbcTemplate base = new JdbcTemplate(dataSource);
+            base.setQueryTimeout(2);
+
+            NamedParameterJdbcTemplate wrapped = CancellableJdbcTemplate.wrap(
+                    new NamedParameterJdbcTemplate(base), Duration.ofMillis(8500));
+
+            assertEquals(2, wrapped.getJdbcTemplate().getQueryTimeout());
+        }
+
+        @Test
+        @DisplayName("レッグタイムアウトの秒未満は切り上げる")
+        void roundsUpLegTimeout() {
+            NamedParameterJdbcTemplate wrapped = CancellableJdbcTemplate.wrap(
+                    new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource)), Duration.ofMillis(8500));
+
+            assertEquals(9, wrapped.getJdbcTemplate().getQueryTimeout());
+        }
+    }
+}
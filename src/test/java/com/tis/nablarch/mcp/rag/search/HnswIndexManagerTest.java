@@ -0,0 +1,168 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.pgvector.PGvector;
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link HnswIndexManager} のユニットテスト。
+ */
+class HnswIndexManagerTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private SearchResultCacheRepository generationRepository;
+    private SearchProperties searchProperties;
+    private HnswIndexManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of());
+        generationRepository = mock(SearchResultCacheRepository.class);
+        when(generationRepository.currentGeneration()).thenReturn(1L);
+        searchProperties = new SearchProperties();
+        searchProperties.getVector().setEngine(SearchProperties.VectorConfig.ENGINE_HNSW);
+        manager = new HnswIndexManager(jdbcTemplate, generationRepository, searchProperties);
+    }
+
+    /**
+     * document_chunksの1ページ目として1行を返す（2ページ目以降は空）。
+     */
+    @SuppressWarnings("unchecked")
+    private void givenDocumentRow(long id) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getObject("embedding")).thenReturn(new PGvector(new float[]{1f, 0f}));
+        when(jdbcTemplate.query(contains("FROM document_chunks"), any(SqlParameterSource.class),
+                any(RowMapper.class)))
+                .thenAnswer(invocation -> List.of(((RowMapper<Long>) invocation.getArgument(2)).mapRow(rs, 0)))
+                .thenReturn(List.of());
+    }
+
+    /**
+     * インデックスの構築回数を検証する（1回の構築で2テーブル分のページを読み込む）。
+     */
+    @SuppressWarnings("unchecked")
+    private void verifyBuilds(int count) {
+        verify(jdbcTemplate, times(count * 2))
+                .query(anyString(), any(SqlParameterSource.class), any(RowMapper.class));
+    }
+
+    @Nested
+    @DisplayName("コーパス世代による再構築")
+    class RefreshIfStaleTests {
+
+        @Test
+        @DisplayName("未構築の場合は構築する")
+        void buildsWhenNotBuilt() throws Exception {
+            givenDocumentRow(1L);
+
+            manager.refreshIfStale();
+
+            HnswIndex index = manager.current("document_chunks");
+            assertNotNull(index);
+            assertEquals(1, index.size());
+            assertNull(manager.current("code_chunks"));
+        }
+
+        @Test
+        @DisplayName("世代が変わっていない場合は再構築しない")
+        void keepsIndexWhenGenerationUnchanged() {
+            manager.refreshIfStale();
+
+            manager.refreshIfStale();
+
+            verifyBuilds(1);
+        }
+
+        @Test
+        @DisplayName("世代が変わった場合は再構築して差し替える")
+        void rebuildsWhenGenerationChanged() throws Exception {
+            givenDocumentRow(1L);
+            manager.refreshIfStale();
+            HnswIndex first = manager.current("document_chunks");
+            when(generationRepository.currentGeneration()).thenReturn(2L);
+            // 再取り込みでチャンクが削除された想定
+            when(jdbcTemplate.query(contains("FROM document_chunks"), any(SqlParameterSource.class),
+                    any(RowMapper.class))).thenReturn(List.of());
+
+            manager.refreshIfStale();
+
+            assertNotNull(first);
+            assertNull(manager.current("document_chunks"));
+            assertTrue(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("世代を取得できない場合は再構築しない")
+        void keepsIndexWhenGenerationUnknown() {
+            manager.refreshIfStale();
+            when(generationRepository.currentGeneration()).thenThrow(new RuntimeException("connection refused"));
+
+            manager.refreshIfStale();
+
+            verifyBuilds(1);
+        }
+
+        @Test
+        @DisplayName("構築に失敗した場合は既存のインデックスを維持する")
+        @SuppressWarnings("unchecked")
+        void keepsIndexWhenRefreshFails() throws Exception {
+            givenDocumentRow(1L);
+            manager.refreshIfStale();
+            HnswIndex first = manager.current("document_chunks");
+            when(generationRepository.currentGeneration()).thenReturn(2L);
+            when(jdbcTemplate.query(contains("FROM document_chunks"), any(SqlParameterSource.class),
+                    any(RowMapper.class))).thenThrow(new RuntimeException("connection refused"));
+
+            manager.refreshIfStale();
+
+            assertSame(first, manager.current("document_chunks"));
+            assertTrue(manager.isCurrent(1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("isCurrent")
+    class IsCurrentTests {
+
+        @Test
+        @DisplayName("構築時の世代と一致する場合のみtrueを返す")
+        void comparesIndexedGeneration() {
+            manager.refresh();
+
+            assertTrue(manager.isCurrent(1L));
+            assertFalse(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("構築完了前はpgvectorで応答するためtrueを返す")
+        void currentBeforeBuild() {
+            assertTrue(manager.isCurrent(2L));
+        }
+
+        @Test
+        @DisplayName("pgvectorエンジンの場合は常にtrueを返す")
+        void currentWithPgvectorEngine() {
+            searchProperties.getVector().setEngine(SearchProperties.VectorConfig.ENGINE_PGVECTOR);
+            manager.refresh();
+
+            assertTrue(manager.isCurrent(2L));
+        }
+    }
+}
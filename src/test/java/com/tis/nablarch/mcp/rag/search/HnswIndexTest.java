@@ -0,0 +1,171 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link HnswIndex} のユニットテスト。
+ */
+class HnswIndexTest {
+
+    private static final ChunkMetadata DOC_JA = new ChunkMetadata(
+            true, "nablarch-fw-web", "ja", "web", "nablarch-document", "documentation");
+    private static final ChunkMetadata DOC_EN = new ChunkMetadata(
+            true, "nablarch-fw-batch", "en", "batch", "nablarch-document", "documentation");
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    @Nested
+    @DisplayName("近傍検索")
+    class SearchTests {
+
+        @Test
+        @DisplayName("全件走査の上位10件に対して高い再現率を持つ")
+        void highRecallAgainstBruteForce() {
+            Random random = new Random(7);
+            int dimensions = 64;
+            float[][] vectors = new float[2000][];
+            HnswIndex index = new HnswIndex(dimensions, 16, 200, 42L);
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random, dimensions);
+                index.add(i, vectors[i], DOC_JA);
+            }
+
+            int found = 0;
+            int queries = 50;
+            for (int q = 0; q < queries; q++) {
+                float[] query = randomVector(random, dimensions);
+                Set<Long> expected = new HashSet<>();
+                IntStream.range(0, vectors.length).boxed()
+                        .sorted(Comparator.comparingDouble((Integer i) -> cosine(query, vectors[i])).reversed())
+                        .limit(10)
+                        .forEach(i -> expected.add((long) i));
+                for (HnswIndex.Hit hit : index.search(query, 10, 64, SearchFilters.NONE)) {
+                    if (expected.contains(hit.id())) {
+                        found++;
+                    }
+                }
+            }
+            double recall = (double) found / (queries * 10);
+            assertTrue(recall >= 0.9, "recall=" + recall);
+        }
+
+        @Test
+        @DisplayName("類似度はコサイン類似度で、降順に返る")
+        void returnsCosineSimilarityDescending() {
+            HnswIndex index = new HnswIndex(2, 4, 16, 1L);
+            index.add(1L, new float[]{1f, 0f}, DOC_JA);
+            index.add(2L, new float[]{1f, 1f}, DOC_JA);
+            index.add(3L, new float[]{0f, 3f}, DOC_JA);
+
+            List<HnswIndex.Hit> hits = index.search(new float[]{2f, 0f}, 3, 16, SearchFilters.NONE);
+
+            assertEquals(List.of(1L, 2L, 3L), hits.stream().map(HnswIndex.Hit::id).toList());
+            assertEquals(1.0, hits.get(0).similarity(), 1e-6);
+            assertEquals(Math.sqrt(0.5), hits.get(1).similarity(), 1e-6);
+            assertEquals(0.0, hits.get(2).similarity(), 1e-6);
+        }
+
+        @Test
+        @DisplayName("空のインデックスは空リストを返す")
+        void emptyIndexReturnsEmpty() {
+            HnswIndex index = new HnswIndex(3, 16, 200, 1L);
+            assertTrue(index.search(new float[]{1f, 0f, 0f}, 10, 64, SearchFilters.NONE).isEmpty());
+        }
+
+        @Test
+        @DisplayName("次元数が異なるクエリは例外")
+        void rejectsDimensionMismatch() {
+            HnswIndex index = new HnswIndex(3, 16, 200, 1L);
+            assertThrows(IllegalArgumentException.class,
+                    () -> index.search(new float[]{1f, 0f}, 10, 64, SearchFilters.NONE));
+        }
+    }
+
+    @Nested
+    @DisplayName("メタデータフィルタ")
+    class FilterTests {
+
+        @Test
+        @DisplayName("フィルタに一致するチャンクのみを返す")
+        void returnsOnlyMatchingChunks() {
+            Random random = new Random(11);
+            HnswIndex index = new HnswIndex(32, 8, 100, 3L);
+            for (int i = 0; i < 500; i++) {
+                index.add(i, randomVector(random, 32), (i % 10 == 0) ? DOC_EN : DOC_JA);
+            }
+            SearchFilters english = new SearchFilters(null, null, null, null, "en");
+
+            List<HnswIndex.Hit> hits = index.search(randomVector(random, 32), 20, 64, english);
+
+            assertEquals(20, hits.size());
+            assertTrue(hits.stream().allMatch(h -> h.id() % 10 == 0));
+        }
+    }
+
+    @Nested
+    @DisplayName("追加")
+    class AddTests {
+
+        @Test
+        @DisplayName("登録済みのIDは追加されない")
+        void ignoresDuplicateIds() {
+            HnswIndex index = new HnswIndex(2, 4, 16, 1L);
+            assertTrue(index.add(1L, new float[]{1f, 0f}, DOC_JA));
+            assertFalse(index.add(1L, new float[]{0f, 1f}, DOC_JA));
+            assertEquals(1, index.size());
+        }
+
+        @Test
+        @DisplayName("構築後に追加したベクトルも検索できる")
+        void searchesIncrementallyAddedVectors() {
+            Random random = new Random(5);
+            HnswIndex index = new HnswIndex(16, 8, 64, 9L);
+            for (int i = 0; i < 300; i++) {
+                index.add(i, randomVector(random, 16), DOC_JA);
+            }
+            float[] added = randomVector(random, 16);
+            index.add(1000L, added, DOC_JA);
+
+            List<HnswIndex.Hit> hits = index.search(added, 1, 32, SearchFilters.NONE);
+            assertEquals(1000L, hits.get(0).id());
+            assertEquals(1.0, hits.get(0).similarity(), 1e-5);
+        }
+
+        @Test
+        @DisplayName("次元数が異なるベクトルは例外")
+        void rejectsDimensionMismatch() {
+            HnswIndex index = new HnswIndex(3, 16, 200, 1L);
+            assertThrows(IllegalArgumentException.class,
+                    () -> index.add(1L, new float[]{1f}, DOC_JA));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tis.nablarch.mcp.rag.search;
 
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -8,9 +10,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -176,6 +181,56 @@ class HybridSearchServiceTest {
             assertEquals("1", results.get(0).id());
         }
 
+        @Test
+        @DisplayName("一方が失敗した部分結果は検索結果キャッシュに格納されない")
+        void partialResultsAreNotCached() {
+            SearchResultCacheRepository cacheRepository = mock(SearchResultCacheRepository.class);
+            when(cacheRepository.currentGeneration()).thenReturn(1L);
+            SearchResultCache cache = new SearchResultCache(cacheRepository, new SearchResultCacheProperties(),
+                    null, null, new SimpleMeterRegistry(), Clock.systemUTC());
+            when(bm25SearchService.search(anyString(), any(), anyInt()))
+                    .thenReturn(List.of(new SearchResult("1", "内容", 0.75, Map.of(), null)));
+            when(vectorSearchService.search(anyString(), any(), anyInt()))
+                    .thenThrow(new RuntimeException("Vector failure"));
+
+            for (int i = 0; i < 2; i++) {
+                cache.get("テスト", SearchFilters.NONE, SearchMode.HYBRID, 10,
+                        () -> service.search("テスト", SearchFilters.NONE, 10, SearchMode.HYBRID));
+            }
+
+            verify(bm25SearchService, times(2)).search(anyString(), any(), anyInt());
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("ワーカースレッドでベクトル検索が部分結果を返した場合も検索結果キャッシュに格納されない")
+        void partialVectorResultsOnWorkerAreNotCached() {
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                HybridSearchService pooled = new HybridSearchService(
+                        bm25SearchService, vectorSearchService, new SearchExecutor(pool));
+                SearchResultCacheRepository cacheRepository = mock(SearchResultCacheRepository.class);
+                when(cacheRepository.currentGeneration()).thenReturn(1L);
+                SearchResultCache cache = new SearchResultCache(cacheRepository, new SearchResultCacheProperties(),
+                        null, null, new SimpleMeterRegistry(), Clock.systemUTC());
+                when(bm25SearchService.search(anyString(), any(), anyInt()))
+                        .thenReturn(List.of(new SearchResult("1", "内容", 0.75, Map.of(), null)));
+                // code_chunks側のレッグが失敗し、document_chunksの結果のみを返した想定
+                when(vectorSearchService.search(anyString(), any(), anyInt())).thenAnswer(invocation -> {
+                    SearchResultCache.markUncacheable(SearchResultCache.REASON_PARTIAL);
+                    return List.of(new SearchResult("2", "内容", 0.8, Map.of(), null));
+                });
+
+                List<SearchResult> results = cache.get("テスト", SearchFilters.NONE, SearchMode.HYBRID, 10,
+                        () -> pooled.search("テスト", SearchFilters.NONE, 10, SearchMode.HYBRID));
+
+                assertEquals(2, results.size());
+                assertEquals(0, cache.size());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
         @Test
         @DisplayName("両方失敗時は空リストを返す")
         void returnsEmptyWhenBothFail() {
@@ -203,6 +258,21 @@ class HybridSearchServiceTest {
 
             assertTrue(results.isEmpty());
         }
+
+        @Test
+        @DisplayName("検索スレッドプールが拒否した場合は例外を送出せず空リストを返す")
+        void returnsEmptyWhenExecutorRejects() {
+            ExecutorService stopped = Executors.newSingleThreadExecutor();
+            stopped.shutdown();
+            HybridSearchService rejecting = new HybridSearchService(
+                    bm25SearchService, vectorSearchService, new SearchExecutor(stopped));
+
+            List<SearchResult> results = rejecting.search(
+                    "テスト", SearchFilters.NONE, 10, SearchMode.HYBRID);
+
+            assertTrue(results.isEmpty());
+            verifyNoInteractions(bm25SearchService, vectorSearchService);
+        }
     }
 
     @Nested
@@ -0,0 +1,133 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link SearchExecutor} のユニットテスト。
+ */
+class SearchExecutorTest {
+
+    private MeterRegistry registry;
+    private SearchProperties.ExecutorConfig config;
+    private ThreadPoolExecutor pool;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        config = new SearchProperties.ExecutorConfig();
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nested
+    @DisplayName("スレッドプール生成")
+    class CreateThreadPoolTests {
+
+        @Test
+        @DisplayName("キュー満杯時はabortで拒否し、拒否数を記録する")
+        void abortPolicyRejectsAndCounts() {
+            pool = SearchExecutor.createThreadPool(config, registry);
+            pool.execute(SearchExecutorTest.this::block);
+            pool.execute(SearchExecutorTest.this::block);
+
+            assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> { }));
+            assertEquals(1.0, registry.counter("search.executor.rejected").count());
+            assertEquals(1.0, registry.get("search.executor.queue.size").gauge().value());
+        }
+
+        @Test
+        @DisplayName("caller-runsでは拒否されたタスクを呼び出しスレッドで実行する")
+        void callerRunsPolicyRunsOnCaller() {
+            config.setRejectionPolicy("caller-runs");
+            pool = SearchExecutor.createThreadPool(config, registry);
+            pool.execute(SearchExecutorTest.this::block);
+            pool.execute(SearchExecutorTest.this::block);
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            pool.execute(() -> ranOn.set(Thread.currentThread()));
+
+            assertSame(Thread.currentThread(), ranOn.get());
+            assertEquals(1.0, registry.counter("search.executor.rejected").count());
+        }
+
+        @Test
+        @DisplayName("ワーカーは名前付きスレッドで生成される")
+        void workersAreNamed() throws Exception {
+            pool = SearchExecutor.createThreadPool(config, registry);
+            AtomicReference<String> name = new AtomicReference<>();
+
+            pool.submit(() -> name.set(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+            assertTrue(name.get().startsWith("search-"));
+        }
+    }
+
+    @Nested
+    @DisplayName("設定値の解決")
+    class ResolveTests {
+
+        @Test
+        @DisplayName("不明な拒否ポリシーはabortとして扱う")
+        void unknownPolicyFallsBackToAbort() {
+            assertInstanceOf(ThreadPoolExecutor.AbortPolicy.class,
+                    SearchExecutor.resolveRejectionPolicy("discard"));
+            assertInstanceOf(ThreadPoolExecutor.CallerRunsPolicy.class,
+                    SearchExecutor.resolveRejectionPolicy("CALLER-RUNS"));
+        }
+
+        @Test
+        @DisplayName("virtual指定時も常に利用可能なThreadFactoryを返す")
+        void virtualThreadFactoryIsAlwaysUsable() throws Exception {
+            ThreadFactory factory = SearchExecutor.resolveThreadFactory("virtual");
+            CountDownLatch ran = new CountDownLatch(1);
+
+            Thread thread = factory.newThread(ran::countDown);
+            thread.start();
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        @DisplayName("direct()は呼び出しスレッドで即時実行する")
+        void directRunsOnCaller() {
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+            SearchExecutor.direct().executor().execute(() -> ranOn.set(Thread.currentThread()));
+
+            assertSame(Thread.currentThread(), ranOn.get());
+        }
+    }
+}
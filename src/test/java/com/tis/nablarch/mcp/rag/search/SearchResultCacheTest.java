@@ -0,0 +1,363 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.SearchResultCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link SearchResultCache} のユニットテスト。
+ */
+class SearchResultCacheTest {
+
+    private static final SearchFilters NO_FILTERS = new SearchFilters(null, null, null, null, null);
+
+    private SearchResultCacheRepository repository;
+    private SearchResultCacheProperties config;
+    private BM25IndexManager indexManager;
+    private HnswIndexManager hnswIndexManager;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private SearchResultCache cache;
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SearchResultCacheRepository.class);
+        when(repository.currentGeneration()).thenReturn(1L);
+        config = new SearchResultCacheProperties();
+        indexManager = mock(BM25IndexManager.class);
+        when(indexManager.isCurrent(anyLong())).thenReturn(true);
+        hnswIndexManager = mock(HnswIndexManager.class);
+        when(hnswIndexManager.isCurrent(anyLong())).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new SearchResultCache(repository, config, indexManager, hnswIndexManager, meterRegistry, clock);
+        searches = new AtomicInteger();
+    }
+
+    private Supplier<List<SearchResult>> search() {
+        return () -> List.of(new SearchResult("doc-" + searches.incrementAndGet(), "内容", 0.9,
+                Map.of("source", "test"), "https://example.com/"));
+    }
+
+    @Nested
+    @DisplayName("L1キャッシュ")
+    class LocalTests {
+
+        @Test
+        @DisplayName("同じクエリ・条件の2回目は検索を実行しない")
+        void hitSkipsSearch() {
+            List<SearchResult> first = cache.get("ハンドラキュー", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            List<SearchResult> second = cache.get(" ハンドラキュー　", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(1, searches.get());
+            assertEquals(first, second);
+        }
+
+        @Test
+        @DisplayName("topK・検索モード・フィルタが異なる場合は別のエントリとする")
+        void keyIncludesConditions() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 10, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.VECTOR, 5, search());
+            cache.get("クエリ", new SearchFilters("web", null, null, null, null), SearchMode.HYBRID, 5, search());
+
+            assertEquals(4, searches.get());
+        }
+
+        @Test
+        @DisplayName("空の結果はキャッシュしない")
+        void emptyResultsAreNotCached() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, List::of);
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(1, searches.get());
+        }
+
+        @Test
+        @DisplayName("TTLを過ぎたエントリは再検索する")
+        void expiredEntriesAreReloaded() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            clock.advance(Duration.ofHours(2));
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(2, searches.get());
+        }
+
+        @Test
+        @DisplayName("無効の場合は常に検索を実行する")
+        void disabledAlwaysSearches() {
+            SearchResultCache disabled = SearchResultCache.disabled();
+
+            disabled.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            disabled.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(2, searches.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("キャッシュしない結果")
+    class UncacheableTests {
+
+        private Supplier<List<SearchResult>> markedSearch(String reason) {
+            return () -> {
+                SearchResultCache.markUncacheable(reason);
+                return search().get();
+            };
+        }
+
+        @Test
+        @DisplayName("部分結果は返却するがキャッシュしない")
+        void partialResultsAreNotCached() {
+            List<SearchResult> partial = cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5,
+                    markedSearch(SearchResultCache.REASON_PARTIAL));
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals("doc-1", partial.get(0).id());
+            assertEquals(2, searches.get());
+            assertEquals(1.0, meterRegistry.get("search.cache.uncacheable")
+                    .tag("reason", SearchResultCache.REASON_PARTIAL).counter().count());
+        }
+
+        @Test
+        @DisplayName("リランキングを省略した結果はキャッシュせず、次回の完全な結果をキャッシュする")
+        void rerankSkippedResultsAreNotCached() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5,
+                    markedSearch(SearchResultCache.REASON_RERANK_SKIPPED));
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(2, searches.get());
+        }
+
+        @Test
+        @DisplayName("部分結果は共有キャッシュにも格納しない")
+        void partialResultsAreNotShared() {
+            config.setShared(true);
+            when(repository.find(anyString(), anyLong(), any())).thenReturn(Optional.empty());
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, markedSearch(SearchResultCache.REASON_PARTIAL));
+
+            verify(repository, never()).save(anyString(), anyLong(), anyString());
+        }
+
+        @Test
+        @DisplayName("キャッシュを経由しない検索での指示は無視する")
+        void markOutsideSearchIsIgnored() {
+            SearchResultCache.markUncacheable(SearchResultCache.REASON_PARTIAL);
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(1, searches.get());
+        }
+
+        @Test
+        @DisplayName("BM25インデックスが現在の世代から構築されていない間はキーワードを含む検索をキャッシュしない")
+        void staleIndexResultsAreNotCached() {
+            when(indexManager.isCurrent(1L)).thenReturn(false);
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.VECTOR, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.VECTOR, 5, search());
+
+            assertEquals(3, searches.get());
+            assertEquals(2.0, meterRegistry.get("search.cache.uncacheable")
+                    .tag("reason", SearchResultCache.REASON_INDEX_STALE).counter().count());
+        }
+
+        @Test
+        @DisplayName("HNSWインデックスが現在の世代から構築されていない間はベクトルを含む検索をキャッシュしない")
+        void staleHnswIndexResultsAreNotCached() {
+            when(hnswIndexManager.isCurrent(1L)).thenReturn(false);
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.VECTOR, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.VECTOR, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.KEYWORD, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.KEYWORD, 5, search());
+
+            assertEquals(3, searches.get());
+            assertEquals(2.0, meterRegistry.get("search.cache.uncacheable")
+                    .tag("reason", SearchResultCache.REASON_INDEX_STALE).counter().count());
+        }
+
+        @Test
+        @DisplayName("別スレッドでの指示を受け取り、検索処理のスレッドで指示した結果はキャッシュしない")
+        void capturedReasonIsReplayedOnSearchThread() throws Exception {
+            ExecutorService worker = Executors.newSingleThreadExecutor();
+            try {
+                Supplier<List<SearchResult>> replayingSearch = () -> {
+                    SearchResultCache.Captured<List<SearchResult>> captured;
+                    try {
+                        captured = worker.submit(() -> SearchResultCache.capture(
+                                markedSearch(SearchResultCache.REASON_PARTIAL))).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    SearchResultCache.markUncacheable(captured.uncacheableReason());
+                    return captured.value();
+                };
+
+                cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, replayingSearch);
+                cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+                assertEquals(2, searches.get());
+            } finally {
+                worker.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("指示がない場合の理由はnullとする")
+        void captureWithoutMark() {
+            SearchResultCache.Captured<List<SearchResult>> captured = SearchResultCache.capture(search());
+
+            assertNull(captured.uncacheableReason());
+            assertEquals(1, captured.value().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("コーパス世代")
+    class GenerationTests {
+
+        @Test
+        @DisplayName("世代が変わるとキャッシュを消去して再検索する")
+        void generationChangeInvalidates() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            when(repository.currentGeneration()).thenReturn(2L);
+            clock.advance(Duration.ofSeconds(2));
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(2, searches.get());
+            assertEquals(1, cache.size());
+        }
+
+        @Test
+        @DisplayName("再取得間隔内は世代をDBから取得しない")
+        void generationIsRefreshedByInterval() {
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            clock.advance(Duration.ofSeconds(2));
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            verify(repository, times(2)).currentGeneration();
+        }
+
+        @Test
+        @DisplayName("世代を取得できない場合はキャッシュを使用しない")
+        void unknownGenerationBypassesCache() {
+            when(repository.currentGeneration()).thenThrow(new RuntimeException("relation does not exist"));
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(2, searches.get());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("L2キャッシュ（共有）")
+    class SharedTests {
+
+        @BeforeEach
+        void enableShared() {
+            config.setShared(true);
+        }
+
+        @Test
+        @DisplayName("L1にない場合は共有キャッシュの結果を返し、L1に格納する")
+        void sharedHit() {
+            when(repository.find(anyString(), eq(1L), any())).thenReturn(Optional.of(
+                    "[{\"id\":\"doc-9\",\"content\":\"共有\",\"score\":0.8,"
+                    + "\"metadata\":{\"source\":\"test\"},\"sourceUrl\":\"https://example.com/9\"}]"));
+
+            List<SearchResult> results = cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            assertEquals(0, searches.get());
+            assertEquals("doc-9", results.get(0).id());
+            assertEquals(0.8, results.get(0).score(), 1e-9);
+            verify(repository, times(1)).find(anyString(), anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("ミスした場合は検索結果を現在の世代で共有キャッシュに格納する")
+        void missSavesToShared() {
+            when(repository.find(anyString(), anyLong(), any())).thenReturn(Optional.empty());
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            verify(repository).save(matches("[0-9a-f]{64}"), eq(1L), contains("\"id\":\"doc-1\""));
+        }
+
+        @Test
+        @DisplayName("世代が変わると共有キャッシュの古いエントリを削除する")
+        void generationChangeDeletesStaleSharedEntries() {
+            when(repository.find(anyString(), anyLong(), any())).thenReturn(Optional.empty());
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+            when(repository.currentGeneration()).thenReturn(3L);
+            clock.advance(Duration.ofSeconds(2));
+
+            cache.get("クエリ", NO_FILTERS, SearchMode.HYBRID, 5, search());
+
+            verify(repository).deleteStale(3L);
+        }
+    }
+
+    /**
+     * テスト用の進められる時計。
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.pgvector.PGvector;
+import com.tis.nablarch.mcp.config.VectorTypeRegisteringDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * クエリベクトルのバインド方式（文字列 + CAST / PGvector）の比較ベンチマーク。
+ *
+ * <p>PostgreSQLが必要なため、環境変数 {@code BENCHMARK_JDBC_URL} が設定されている場合のみ実行する。
+ * 接続ユーザーは {@code BENCHMARK_JDBC_USER} / {@code BENCHMARK_JDBC_PASSWORD} で指定する。</p>
+ *
+ * <pre>
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/nablarch_mcp \
+ * BENCHMARK_JDBC_USER=nablarch BENCHMARK_JDBC_PASSWORD=nablarch_dev \
+ * ./mvnw test -Dtest=VectorBindingBenchmarkTest
+ * </pre>
+ *
+ * <p>1024次元のベクトルをバインドしてノルムを計算するだけのクエリを実行し、
+ * クエリ1回あたりのクライアント側CPU時間（{@link ThreadMXBean}）と往復時間を標準出力に出力する。
+ * 検索処理自体のコストを含めないため、差分がそのままバインド方式の差となる。</p>
+ *
+ * <p>アプリケーションと同じく {@link VectorTypeRegisteringDataSource} 経由で接続し、
+ * PGvectorがバイナリ形式で送信される（接続にvector型がバイナリ送信対象として登録されている）ことを確認してから計測する。</p>
+ */
+class VectorBindingBenchmarkTest {
+
+    private static final String SQL =
+            "SELECT vector_norm(CAST(:query_vec AS vector))";
+
+    private static final int DIMENSIONS = 1024;
+    private static final int WARMUP_ROUNDS = 500;
+    private static final int MEASURE_ROUNDS = 2000;
+
+    @Test
+    @DisplayName("文字列バインドとPGvectorバインドのCPU時間・レイテンシを比較する")
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK_JDBC_URL", matches = ".+")
+    void compareVectorBinding() throws SQLException {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl(System.getenv("BENCHMARK_JDBC_URL"));
+            pool.setUsername(System.getenv("BENCHMARK_JDBC_USER"));
+            pool.setPassword(System.getenv("BENCHMARK_JDBC_PASSWORD"));
+            pool.setMaximumPoolSize(1);
+            VectorTypeRegisteringDataSource dataSource = new VectorTypeRegisteringDataSource(pool);
+
+            // PGvectorがgetValue()の文字列ではなくバイナリ形式で送信されることを確認する
+            try (Connection connection = dataSource.getConnection()) {
+                BaseConnection base = connection.unwrap(BaseConnection.class);
+                int vectorOid = base.getTypeInfo().getPGType("vector");
+                assertTrue(base.getQueryExecutor().useBinaryForSend(vectorOid),
+                        "vector型がバイナリ送信対象として登録されていない");
+            }
+
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+            float[] vector = new float[DIMENSIONS];
+            Random random = new Random(42);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+
+            Function<float[], Object> text = VectorBindingBenchmarkTest::toVectorText;
+            Function<float[], Object> pgvector = PGvector::new;
+
+            // 両方式で同じ値がサーバーに渡ることを確認する
+            assertEquals(run(jdbcTemplate, text, vector), run(jdbcTemplate, pgvector, vector));
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(jdbcTemplate, text, vector);
+                run(jdbcTemplate, pgvector, vector);
+            }
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long[][] textNanos = new long[2][MEASURE_ROUNDS];
+            long[][] pgvectorNanos = new long[2][MEASURE_ROUNDS];
+            for (int i = 0; i < MEASURE_ROUNDS; i++) {
+                measure(threads, jdbcTemplate, text, vector, textNanos, i);
+                measure(threads, jdbcTemplate, pgvector, vector, pgvectorNanos, i);
+            }
+
+            System.out.printf("ベクトルバインド方式比較（%d次元, %d回）%n", DIMENSIONS, MEASURE_ROUNDS);
+            report("text+CAST", textNanos);
+            report("PGvector", pgvectorNanos);
+        }
+    }
+
+    /**
+     * 従来の文字列バインド方式のベクトル表現（{@code [0.1,0.2,...]}）を生成する。
+     */
+    private static String toVectorText(float[] vector) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (float v : vector) {
+            joiner.add(String.valueOf(v));
+        }
+        return joiner.toString();
+    }
+
+    private static Double run(NamedParameterJdbcTemplate jdbcTemplate,
+            Function<float[], Object> binder, float[] vector) {
+        return jdbcTemplate.queryForObject(SQL,
+                new MapSqlParameterSource("query_vec", binder.apply(vector)), Double.class);
+    }
+
+    private static void measure(ThreadMXBean threads, NamedParameterJdbcTemplate jdbcTemplate,
+            Function<float[], Object> binder, float[] vector, long[][] nanos, int round) {
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long wallStart = System.nanoTime();
+        run(jdbcTemplate, binder, vector);
+        nanos[0][round] = threads.getCurrentThreadCpuTime() - cpuStart;
+        nanos[1][round] = System.nanoTime() - wallStart;
+    }
+
+    private static void report(String mode, long[][] nanos) {
+        long[] cpu = nanos[0].clone();
+        long[] wall = nanos[1].clone();
+        Arrays.sort(cpu);
+        Arrays.sort(wall);
+        System.out.printf("  %-10s client-cpu p50=%.1fus mean=%.1fus / round-trip p50=%.1fus p95=%.1fus%n",
+                mode,
+                cpu[cpu.length / 2] / 1_000.0,
+                Arrays.stream(cpu).average().orElse(0) / 1_000.0,
+                wall[wall.length / 2] / 1_000.0,
+                wall[(int) (wall.length * 0.95)] / 1_000.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.tis.nablarch.mcp.rag.search;
+
+import com.tis.nablarch.mcp.db.repository.VectorColumns;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 量子化ベクトル検索（none / halfvec / binary + 再スコアリング）の再現率・レイテンシ比較ベンチマーク。
+ *
+ * <p>量子化インデックス（db/quantization配下のhalfvec・binary）作成済みでEmbedding投入済みのPostgreSQLが必要なため、
+ * 環境変数 {@code BENCHMARK_JDBC_URL} が設定されている場合のみ実行する。
+ * 接続ユーザーは {@code BENCHMARK_JDBC_USER} / {@code BENCHMARK_JDBC_PASSWORD} で指定する。</p>
+ *
+ * <pre>
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/nablarch_mcp \
+ * BENCHMARK_JDBC_USER=nablarch BENCHMARK_JDBC_PASSWORD=nablarch_dev \
+ * ./mvnw test -Dtest=VectorQuantizationBenchmarkTest
+ * </pre>
+ *
+ * <p>document_chunksから無作為に抽出したEmbeddingをクエリとし、インデックスを使わない全件走査の
+ * 上位K件を正解として recall@K を計算する。あわせてp50/p95レイテンシと各インデックスのサイズを
+ * 標準出力に出力する。</p>
+ */
+class VectorQuantizationBenchmarkTest {
+
+    private static final String TABLE = "document_chunks";
+    private static final int QUERY_COUNT = 50;
+    private static final int TOP_K = 10;
+    private static final List<String> MODES = List.of("none", "halfvec", "binary");
+
+    @Test
+    @DisplayName("量子化方式ごとの再現率とレイテンシを比較する")
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK_JDBC_URL", matches = ".+")
+    void compareQuantizationRecallAndLatency() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(System.getenv("BENCHMARK_JDBC_URL"));
+            dataSource.setUsername(System.getenv("BENCHMARK_JDBC_USER"));
+            dataSource.setPassword(System.getenv("BENCHMARK_JDBC_PASSWORD"));
+            dataSource.setMaximumPoolSize(2);
+
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+            TransactionTemplate transactionTemplate =
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+            List<float[]> queries = jdbcTemplate.query(
+                    "SELECT embedding FROM " + TABLE
+                    + " WHERE embedding IS NOT NULL ORDER BY random() LIMIT :count",
+                    new MapSqlParameterSource("count", QUERY_COUNT),
+                    (rs, rowNum) -> VectorColumns.read(rs, "embedding"));
+
+            // 正解: インデックスを使わない全件走査
+            PgVectorSearcher exact = new PgVectorSearcher(jdbcTemplate);
+            List<Set<String>> expected = queries.stream()
+                    .map(query -> transactionTemplate.execute(status -> {
+                        jdbcTemplate.getJdbcOperations().execute("SET LOCAL enable_indexscan = off");
+                        return ids(exact.search(TABLE, query, SearchFilters.NONE, TOP_K));
+                    }))
+                    .toList();
+
+            System.out.printf("量子化検索比較（%s, %dクエリ, recall@%d）%n", TABLE, queries.size(), TOP_K);
+            for (String mode : MODES) {
+                SearchProperties.PgvectorConfig config = new SearchProperties.PgvectorConfig();
+                config.setQuantization(mode);
+                PgVectorSearcher searcher = new PgVectorSearcher(jdbcTemplate, transactionTemplate, config);
+
+                // ウォームアップ
+                for (float[] query : queries) {
+                    searcher.search(TABLE, query, SearchFilters.NONE, TOP_K);
+                }
+
+                long[] nanos = new long[queries.size()];
+                int found = 0;
+                for (int i = 0; i < queries.size(); i++) {
+                    long start = System.nanoTime();
+                    List<SearchResult> results = searcher.search(TABLE, queries.get(i), SearchFilters.NONE, TOP_K);
+                    nanos[i] = System.nanoTime() - start;
+                    assertEquals(TOP_K, results.size(), "件数がtopK未満: mode=" + mode);
+                    for (String id : ids(results)) {
+                        if (expected.get(i).contains(id)) {
+                            found++;
+                        }
+                    }
+                }
+                report(mode, (double) found / (queries.size() * TOP_K), nanos);
+            }
+
+            System.out.println("インデックスサイズ:");
+            jdbcTemplate.getJdbcOperations().queryForList(
+                    "SELECT indexrelname, pg_size_pretty(pg_relation_size(indexrelid)) AS size"
+                    + " FROM pg_stat_user_indexes WHERE indexrelname LIKE 'idx_%_embedding%'"
+                    + " ORDER BY indexrelname")
+                    .forEach(row -> System.out.printf("  %-40s %s%n", row.get("indexrelname"), row.get("size")));
+        }
+    }
+
+    private static Set<String> ids(List<SearchResult> results) {
+        Set<String> ids = new HashSet<>();
+        results.forEach(result -> ids.add(result.id()));
+        return ids;
+    }
+
+    private static void report(String mode, double recall, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("  %-8s recall=%.3f p50=%.3fms p95=%.3fms%n",
+                mode, recall,
+                sorted[sorted.length / 2] / 1_000_000.0,
+                sorted[(int) (sorted.length * 0.95)] / 1_000_000.0);
+    }
+}
@@ -1,6 +1,9 @@
 package com.tis.nablarch.mcp.rag.search;
 
+import com.tis.nablarch.mcp.common.CancellationScope;
 import com.tis.nablarch.mcp.embedding.EmbeddingClient;
+import com.tis.nablarch.mcp.embedding.config.EmbeddingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -9,13 +12,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -219,35 +228,6 @@ class VectorSearchServiceTest {
         }
     }
 
-    @Nested
-    @DisplayName("toVectorString")
-    class ToVectorStringTests {
-
-        @Test
-        @DisplayName("float配列がpgvectorフォーマットに変換される")
-        void convertsFloatArrayToVectorString() {
-            float[] vector = {0.1f, 0.2f, 0.3f};
-            String result = VectorSearchService.toVectorString(vector);
-            assertEquals("[0.1,0.2,0.3]", result);
-        }
-
-        @Test
-        @DisplayName("単一要素の配列が正しく変換される")
-        void convertsSingleElementArray() {
-            float[] vector = {0.5f};
-            String result = VectorSearchService.toVectorString(vector);
-            assertEquals("[0.5]", result);
-        }
-
-        @Test
-        @DisplayName("空配列が正しく変換される")
-        void convertsEmptyArray() {
-            float[] vector = {};
-            String result = VectorSearchService.toVectorString(vector);
-            assertEquals("[]", result);
-        }
-    }
-
     @Nested
     @DisplayName("SQL構築")
     class SqlBuildTests {
@@ -276,4 +256,322 @@ class VectorSearchServiceTest {
                     "embedding IS NOT NULLチェックがSQLに含まれていない");
         }
     }
+
+    @Nested
+    @DisplayName("pgvector検索パラメータ")
+    class PgvectorSettingsTests {
+
+        @Mock
+        private JdbcOperations jdbcOperations;
+
+        private VectorSearchService tunedService(SearchProperties properties) {
+            when(jdbcTemplate.getJdbcOperations()).thenReturn(jdbcOperations);
+            lenient().when(jdbcOperations.queryForList(contains("pg_extension"), eq(String.class)))
+                    .thenReturn(List.of("0.8.0"));
+            when(documentEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.1f});
+            when(codeEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.1f});
+            when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+            return new VectorSearchService(
+                    jdbcTemplate, documentEmbeddingClient, codeEmbeddingClient,
+                    new EmbeddingProperties(), new SimpleMeterRegistry(),
+                    SearchExecutor.direct(), properties, null, TransactionOperations.withoutTransaction());
+        }
+
+        @Test
+        @DisplayName("プロファイルのef_searchと反復スキャンをクエリごとにSET LOCALする")
+        @SuppressWarnings("unchecked")
+        void setsHnswParametersPerQuery() {
+            tunedService(new SearchProperties()).search("テスト", SearchFilters.NONE, 10);
+
+            verify(jdbcOperations, times(2)).execute("SET LOCAL hnsw.ef_search = 100");
+            verify(jdbcOperations, times(2)).execute("SET LOCAL hnsw.iterative_scan = relaxed_order");
+            verify(jdbcOperations, times(1)).queryForList(contains("pg_extension"), eq(String.class));
+        }
+
+        @Test
+        @DisplayName("pgvector 0.8.0未満の場合は反復スキャンを設定しない")
+        @SuppressWarnings("unchecked")
+        void skipsIterativeScanBeforePgvector080() {
+            VectorSearchService service = tunedService(new SearchProperties());
+            when(jdbcOperations.queryForList(contains("pg_extension"), eq(String.class)))
+                    .thenReturn(List.of("0.7.4"));
+
+            service.search("テスト", SearchFilters.NONE, 10);
+            service.search("テスト", SearchFilters.NONE, 10);
+
+            verify(jdbcOperations, times(4)).execute("SET LOCAL hnsw.ef_search = 100");
+            verify(jdbcOperations, never()).execute(contains("iterative_scan"));
+            verify(jdbcOperations, times(1)).queryForList(contains("pg_extension"), eq(String.class));
+        }
+
+        @Test
+        @DisplayName("ef_searchはtopK以上に引き上げられる")
+        @SuppressWarnings("unchecked")
+        void efSearchIsAtLeastTopK() {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().getPgvector().setProfile("fast");
+            properties.getVector().getPgvector().setIterativeScan("off");
+
+            tunedService(properties).search("テスト", SearchFilters.NONE, 50);
+
+            verify(jdbcOperations, times(2)).execute("SET LOCAL hnsw.ef_search = 50");
+            verify(jdbcOperations, never()).execute(contains("iterative_scan"));
+        }
+
+        @Test
+        @DisplayName("ivfflatの場合はprobesを設定する")
+        @SuppressWarnings("unchecked")
+        void setsIvfflatProbes() {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().getPgvector().setIndexType("ivfflat");
+            properties.getVector().getPgvector().setProbes(30);
+            properties.getVector().getPgvector().setIterativeScan("strict_order");
+
+            tunedService(properties).search("テスト", SearchFilters.NONE, 10);
+
+            verify(jdbcOperations, times(2)).execute("SET LOCAL ivfflat.probes = 30");
+            verify(jdbcOperations, times(2)).execute("SET LOCAL ivfflat.iterative_scan = relaxed_order");
+        }
+
+        @Test
+        @DisplayName("binary量子化ではハミング距離で候補を絞り込み、全精度ベクトルで再スコアリングする")
+        @SuppressWarnings("unchecked")
+        void binaryQuantizationRescoresCandidates() {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().getPgvector().setQuantization("binary");
+            ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<MapSqlParameterSource> paramsCaptor =
+                    ArgumentCaptor.forClass(MapSqlParameterSource.class);
+
+            tunedService(properties).search("テスト", SearchFilters.NONE, 10);
+
+            verify(jdbcTemplate, times(2)).query(sqlCaptor.capture(), paramsCaptor.capture(),
+                    any(RowMapper.class));
+            String sql = sqlCaptor.getAllValues().get(0);
+            assertTrue(sql.contains("ORDER BY CAST(binary_quantize(embedding) AS bit(1024))"
+                    + " <~> binary_quantize(CAST(:query_vec AS vector)) LIMIT :candidates"));
+            assertTrue(sql.endsWith("ORDER BY embedding <=> CAST(:query_vec AS vector) LIMIT :top_k"));
+            assertEquals(40, paramsCaptor.getAllValues().get(0).getValue("candidates"));
+            verify(jdbcOperations, times(2)).execute("SET LOCAL hnsw.ef_search = 100");
+        }
+
+        @Test
+        @DisplayName("halfvec量子化では候補数がef_searchを超える場合にef_searchを引き上げる")
+        @SuppressWarnings("unchecked")
+        void halfvecQuantizationRaisesEfSearch() {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().getPgvector().setQuantization("halfvec");
+            ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+
+            tunedService(properties).search("テスト", SearchFilters.NONE, 50);
+
+            verify(jdbcTemplate, times(2)).query(sqlCaptor.capture(), any(MapSqlParameterSource.class),
+                    any(RowMapper.class));
+            assertTrue(sqlCaptor.getAllValues().get(0).contains(
+                    "CAST(embedding AS halfvec(1024)) <=> CAST(:query_vec AS halfvec(1024))"));
+            verify(jdbcOperations, times(2)).execute("SET LOCAL hnsw.ef_search = 200");
+        }
+    }
+
+    @Nested
+    @DisplayName("HNSWエンジン")
+    class HnswEngineTests {
+
+        @Mock
+        private HnswIndexManager hnswIndexManager;
+
+        private VectorSearchService hnswService() {
+            return new VectorSearchService(
+                    jdbcTemplate, documentEmbeddingClient, codeEmbeddingClient,
+                    new EmbeddingProperties(), new SimpleMeterRegistry(),
+                    SearchExecutor.direct(), new SearchProperties(), hnswIndexManager, null);
+        }
+
+        @Test
+        @DisplayName("インデックスで近傍検索し、本文のみをID指定で取得する")
+        @SuppressWarnings("unchecked")
+        void searchesIndexAndHydratesById() {
+            ChunkMetadata meta = new ChunkMetadata(true, null, "ja", null, null, null);
+            HnswIndex index = new HnswIndex(2, 4, 16, 1L);
+            index.add(1L, new float[]{1f, 0f}, meta);
+            index.add(2L, new float[]{0f, 1f}, meta);
+            index.add(3L, new float[]{1f, 1f}, meta);
+            when(hnswIndexManager.current("document_chunks")).thenReturn(index);
+            when(documentEmbeddingClient.embed("テスト")).thenReturn(new float[]{1f, 0f});
+            when(codeEmbeddingClient.embed("テスト")).thenReturn(new float[]{0f, 1f});
+
+            when(jdbcTemplate.query(contains("WHERE id IN (:ids)"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(List.of(
+                            new SearchResult("1", "ドキュメント1", 0.0, Map.of(), null),
+                            new SearchResult("3", "ドキュメント3", 0.0, Map.of(), null)));
+            when(jdbcTemplate.query(contains("code_chunks"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            List<SearchResult> results = hnswService().search("テスト", SearchFilters.NONE, 2);
+
+            assertEquals(List.of("1", "3"), results.stream().map(SearchResult::id).toList());
+            assertEquals(1.0, results.get(0).score(), 1e-6);
+            assertEquals(Math.sqrt(0.5), results.get(1).score(), 1e-6);
+            verify(jdbcTemplate, never()).query(
+                    and(contains("document_chunks"), contains("<=>")),
+                    any(MapSqlParameterSource.class), any(RowMapper.class));
+        }
+
+        @Test
+        @DisplayName("削除済みチャンクがヒットして件数が不足する場合はpgvectorで検索し直す")
+        @SuppressWarnings("unchecked")
+        void fallsBackToPgvectorWhenHitsWereDeleted() {
+            ChunkMetadata meta = new ChunkMetadata(true, null, "ja", null, null, null);
+            HnswIndex index = new HnswIndex(2, 4, 16, 1L);
+            index.add(1L, new float[]{1f, 0f}, meta);
+            index.add(2L, new float[]{0f, 1f}, meta);
+            index.add(3L, new float[]{1f, 1f}, meta);
+            when(hnswIndexManager.current("document_chunks")).thenReturn(index);
+            when(documentEmbeddingClient.embed("テスト")).thenReturn(new float[]{1f, 0f});
+            when(codeEmbeddingClient.embed("テスト")).thenReturn(new float[]{0f, 1f});
+
+            // ID 3 はインデックス構築後に削除された想定
+            when(jdbcTemplate.query(contains("WHERE id IN (:ids)"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(List.of(new SearchResult("1", "ドキュメント1", 0.0, Map.of(), null)));
+            when(jdbcTemplate.query(and(contains("document_chunks"), contains("<=>")),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(List.of(
+                            new SearchResult("1", "ドキュメント1", 0.9, Map.of(), null),
+                            new SearchResult("4", "ドキュメント4", 0.8, Map.of(), null)));
+            when(jdbcTemplate.query(contains("code_chunks"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            List<SearchResult> results = hnswService().search("テスト", SearchFilters.NONE, 2);
+
+            assertEquals(List.of("1", "4"), results.stream().map(SearchResult::id).toList());
+        }
+
+        @Test
+        @DisplayName("インデックス未構築のテーブルはpgvectorで検索する")
+        @SuppressWarnings("unchecked")
+        void fallsBackToPgvectorWhenIndexNotReady() {
+            when(documentEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.1f});
+            when(codeEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.1f});
+            when(jdbcTemplate.query(contains("<=>"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            hnswService().search("テスト", SearchFilters.NONE, 10);
+
+            verify(jdbcTemplate, times(2)).query(contains("<=>"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("並列レッグ実行")
+    class ParallelLegTests {
+
+        @Test
+        @DisplayName("一方のレッグが失敗しても、もう一方の結果で応答し、部分結果としてキャッシュしないよう指示する")
+        void partialResultWhenOneLegFails() {
+            when(documentEmbeddingClient.embed(anyString()))
+                    .thenThrow(new RuntimeException("ONNX推論エラー"));
+            when(codeEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.1f});
+            when(jdbcTemplate.query(contains("code_chunks"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(List.of(new SearchResult("101", "コード", 0.9, Map.of(), null)));
+
+            SearchResultCache.Captured<List<SearchResult>> captured = SearchResultCache.capture(
+                    () -> service.search("テスト", SearchFilters.NONE, 10));
+
+            List<SearchResult> results = captured.value();
+            assertEquals(1, results.size());
+            assertEquals("101", results.get(0).id());
+            assertEquals(SearchResultCache.REASON_PARTIAL, captured.uncacheableReason());
+        }
+
+        @Test
+        @DisplayName("両方のレッグが失敗した場合は例外を送出する")
+        void throwsWhenBothLegsFail() {
+            when(documentEmbeddingClient.embed(anyString()))
+                    .thenThrow(new IllegalStateException("doc失敗"));
+            when(codeEmbeddingClient.embed(anyString()))
+                    .thenThrow(new IllegalStateException("code失敗"));
+
+            IllegalStateException ex = assertThrows(IllegalStateException.class,
+                    () -> service.search("テスト", SearchFilters.NONE, 10));
+            assertEquals("doc失敗", ex.getMessage());
+        }
+
+        @Test
+        @DisplayName("スレッドプール上で両レッグが同時に実行される")
+        void legsRunConcurrentlyOnExecutor() throws Exception {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().setLegTimeout(Duration.ofSeconds(5));
+            SearchExecutor executor = new SearchExecutor(Executors.newFixedThreadPool(2));
+            VectorSearchService parallelService = new VectorSearchService(
+                    jdbcTemplate, documentEmbeddingClient, codeEmbeddingClient,
+                    new EmbeddingProperties(),
+                    new SimpleMeterRegistry(),
+                    executor, properties);
+
+            // 両レッグが揃うまで待機するラッチ（逐次実行ならタイムアウトする）
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            when(documentEmbeddingClient.embed(anyString())).thenAnswer(inv -> {
+                bothStarted.countDown();
+                assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+                return new float[]{0.1f};
+            });
+            when(codeEmbeddingClient.embed(anyString())).thenAnswer(inv -> {
+                bothStarted.countDown();
+                assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+                return new float[]{0.2f};
+            });
+            when(jdbcTemplate.query(anyString(),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(Collections.emptyList());
+
+            try {
+                assertDoesNotThrow(() -> parallelService.search("テスト", SearchFilters.NONE, 10));
+                assertEquals(0, bothStarted.getCount());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("タイムアウトしたレッグは実行中の処理がキャンセルされ、部分結果で応答する")
+        void timedOutLegIsCancelled() throws Exception {
+            SearchProperties properties = new SearchProperties();
+            properties.getVector().setLegTimeout(Duration.ofMillis(200));
+            SearchExecutor executor = new SearchExecutor(Executors.newFixedThreadPool(2));
+            VectorSearchService timeoutService = new VectorSearchService(
+                    jdbcTemplate, documentEmbeddingClient, codeEmbeddingClient,
+                    new EmbeddingProperties(),
+                    new SimpleMeterRegistry(),
+                    executor, properties);
+
+            // 実行中のクエリ・推論を模擬し、中断処理の呼び出しを記録する
+            CountDownLatch cancelled = new CountDownLatch(1);
+            when(documentEmbeddingClient.embed(anyString())).thenAnswer(inv -> {
+                CancellationScope.onCancel(cancelled::countDown);
+                Thread.sleep(5_000);
+                return new float[]{0.1f};
+            });
+            when(codeEmbeddingClient.embed(anyString())).thenReturn(new float[]{0.2f});
+            when(jdbcTemplate.query(contains("code_chunks"),
+                    any(MapSqlParameterSource.class), any(RowMapper.class)))
+                    .thenReturn(List.of(new SearchResult("101", "コード", 0.9, Map.of(), null)));
+
+            try {
+                List<SearchResult> results = timeoutService.search("テスト", SearchFilters.NONE, 10);
+
+                assertEquals(1, results.size());
+                assertTrue(cancelled.await(2, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package com.tis.nablarch.mcp.tools;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link SearchProgress} のユニットテスト。
+ */
+class SearchProgressTest {
+
+    @Test
+    @DisplayName("MCPセッションにinfoレベルのログ通知として送信する")
+    void sendsLoggingNotification() {
+        McpSyncServerExchange exchange = mock(McpSyncServerExchange.class);
+        ToolContext context = new ToolContext(Map.of(McpToolUtils.TOOL_CONTEXT_MCP_EXCHANGE_KEY, exchange));
+
+        SearchProgress.of(context).publish("hybrid", "[hybrid] 5件");
+
+        ArgumentCaptor<McpSchema.LoggingMessageNotification> captor =
+                ArgumentCaptor.forClass(McpSchema.LoggingMessageNotification.class);
+        verify(exchange).loggingNotification(captor.capture());
+        assertEquals(McpSchema.LoggingLevel.INFO, captor.getValue().level());
+        assertEquals("semantic_search/hybrid", captor.getValue().logger());
+        assertEquals("[hybrid] 5件", captor.getValue().data());
+    }
+
+    @Test
+    @DisplayName("通知に失敗しても例外をスローしない")
+    void ignoresNotificationFailure() {
+        McpSyncServerExchange exchange = mock(McpSyncServerExchange.class);
+        doThrow(new IllegalStateException("session closed")).when(exchange).loggingNotification(any());
+        ToolContext context = new ToolContext(Map.of(McpToolUtils.TOOL_CONTEXT_MCP_EXCHANGE_KEY, exchange));
+
+        assertDoesNotThrow(() -> SearchProgress.of(context).publish("reranked", "[reranked] 5件"));
+    }
+
+    @Test
+    @DisplayName("MCPセッションがない場合は通知しない")
+    void noneWithoutExchange() {
+        assertSame(SearchProgress.NONE, SearchProgress.of(null));
+        assertSame(SearchProgress.NONE, SearchProgress.of(new ToolContext(Map.of("other", "value"))));
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -302,4 +303,61 @@ class SemanticSearchToolTest {
             assertTrue(markdown.contains("### 結果 3"));
         }
     }
+
+    @Nested
+    @DisplayName("途中経過の通知")
+    class ProgressTests {
+
+        @Test
+        @DisplayName("ハイブリッド検索の暫定順位、リランキング後の順位の順に通知する")
+        void publishesHybridThenReranked() {
+            List<SearchResult> candidates = createResults(10);
+            List<SearchResult> reranked = List.of(candidates.get(2), candidates.get(0));
+            when(hybridSearchService.search(anyString(), any(), anyInt(), any())).thenReturn(candidates);
+            when(reranker.rerank(anyString(), anyList(), eq(2))).thenReturn(reranked);
+            List<String> stages = new ArrayList<>();
+            List<String> messages = new ArrayList<>();
+
+            String result = tool.search("ハンドラキュー", null, null, null, null, 2, null,
+                    (stage, message) -> {
+                        stages.add(stage);
+                        messages.add(message);
+                    });
+
+            assertEquals(List.of("hybrid", "reranked"), stages);
+            assertTrue(messages.get(0).startsWith("[hybrid] 2件"));
+            assertTrue(messages.get(0).contains("暫定順位"));
+            assertTrue(messages.get(0).indexOf("doc1") < messages.get(0).indexOf("doc2"));
+            assertTrue(messages.get(1).startsWith("[reranked] 2件"));
+            assertTrue(messages.get(1).indexOf("doc3") < messages.get(1).indexOf("doc1"));
+            assertTrue(result.contains("結果数: 2件"));
+        }
+
+        @Test
+        @DisplayName("検索結果が0件の場合は通知しない")
+        void noProgressForEmptyResults() {
+            when(hybridSearchService.search(anyString(), any(), anyInt(), any()))
+                    .thenReturn(Collections.emptyList());
+            List<String> stages = new ArrayList<>();
+
+            tool.search("クエリ", null, null, null, null, null, null, (stage, message) -> stages.add(stage));
+
+            assertTrue(stages.isEmpty());
+        }
+
+        @Test
+        @DisplayName("通知本文は本文の先頭のみを含み、空白を畳み込む")
+        void progressTruncatesContent() {
+            String content = "先頭行\n\n" + "あ".repeat(SemanticSearchTool.PREVIEW_LENGTH * 2);
+            List<SearchResult> results = List.of(new SearchResult("id-1", content, 0.5, null, null));
+
+            String message = tool.formatProgress("reranked", results, 12);
+
+            assertTrue(message.startsWith("[reranked] 1件 (12ms)"));
+            assertTrue(message.contains("1. (0.500)"));
+            assertTrue(message.contains("先頭行 あ"));
+            assertTrue(message.contains("…"));
+            assertFalse(message.contains(content));
+        }
+    }
 }